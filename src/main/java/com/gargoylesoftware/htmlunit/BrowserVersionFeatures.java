@@ -1104,6 +1104,10 @@ public enum BrowserVersionFeatures {
     @BrowserFeature(@WebBrowser(CHROME))
     JS_OUTER_HTML_THROWS_FOR_DETACHED,
 
+    /** {@code performance.getEntries()} contains a {@code PerformanceNavigationTiming} for the page. */
+    @BrowserFeature(@WebBrowser(CHROME))
+    JS_PERFORMANCE_NAVIGATION_ENTRY,
+
     /** Indicates that HTMLPhraseElements returning 'HTMLElement'
      * as class name. */
     @BrowserFeature(@WebBrowser(FF))
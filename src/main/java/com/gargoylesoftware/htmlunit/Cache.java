@@ -16,17 +16,23 @@ package com.gargoylesoftware.htmlunit;
 
 import java.io.Serializable;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.utils.DateUtils;
 import org.w3c.dom.css.CSSStyleSheet;
 
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
 import com.gargoylesoftware.htmlunit.util.UrlUtils;
+import com.gargoylesoftware.htmlunit.util.WebResponseWrapper;
 
 /**
  * <p>Simple cache implementation which caches compiled JavaScript files and parsed CSS snippets. Caching
@@ -44,6 +50,9 @@ public class Cache implements Serializable {
 
     private static final Pattern DATE_HEADER_PATTERN = Pattern.compile("-?\\d+");
 
+    /** The headers of a <tt>304 Not Modified</tt> response which must not replace the stored ones. */
+    private static final String[] NOT_UPDATED_HEADERS = {"Content-Length", "Content-Encoding", "Transfer-Encoding"};
+
     /**
      * The map which holds the cached responses. Note that when keying on URLs, we key on the string version
      * of the URLs, rather than on the URLs themselves. This is done for performance, because a) the
@@ -53,6 +62,12 @@ public class Cache implements Serializable {
      */
     private final Map<String, Entry> entries_ = Collections.synchronizedMap(new HashMap<String, Entry>(maxSize_));
 
+    /** The optional persistent second tier. */
+    private DiskCache diskCache_;
+
+    /** Whether this cache is used by several web clients. */
+    private boolean shared_;
+
     /**
      * A cache entry.
      */
@@ -61,6 +76,8 @@ public class Cache implements Serializable {
         private WebResponse response_;
         private Object value_;
         private long lastAccess_;
+        private long responseTime_;
+        private Map<String, String> varyHeaders_;
 
         Entry(final String key, final WebResponse response, final Object value) {
             key_ = key;
@@ -118,15 +135,57 @@ public class Cache implements Serializable {
      * @return whether the response was cached or not
      */
     public boolean cacheIfPossible(final WebRequest request, final WebResponse response, final Object toCache) {
+        return cacheIfPossible(request, response, toCache, null);
+    }
+
+    /**
+     * Caches the specified object, if the corresponding request and response objects indicate
+     * that it is cacheable.
+     *
+     * @param request the request corresponding to the specified compiled script
+     * @param response the response corresponding to the specified compiled script
+     * @param toCache the object that is to be cached, if possible (may be for instance a compiled script or
+     * simply a WebResponse)
+     * @param metrics the listener of the web client notified of the evictions, or {@code null}
+     * @return whether the response was cached or not
+     */
+    public boolean cacheIfPossible(final WebRequest request, final WebResponse response, final Object toCache,
+            final MetricsListener metrics) {
         if (isCacheable(request, response)) {
             final URL url = response.getWebRequest().getUrl();
             if (url == null) {
                 return false;
             }
 
-            final Entry entry = new Entry(UrlUtils.normalize(url), response, toCache);
-            entries_.put(entry.key_, entry);
-            deleteOverflow();
+            final String key = UrlUtils.normalize(url);
+            if (toCache != null) {
+                // the response has been cached by the web client, just add the derived object
+                synchronized (entries_) {
+                    final Entry existing = entries_.get(key);
+                    if (existing != null && existing.response_ != null
+                            && (existing.varyHeaders_ == null
+                                || existing.varyHeaders_.equals(getVaryHeaders(request, existing.response_)))) {
+                        existing.value_ = toCache;
+                        existing.touch();
+                        return true;
+                    }
+                }
+            }
+
+            final Entry entry = new Entry(key, response, toCache);
+            entry.responseTime_ = getCurrentTimestamp();
+            entry.varyHeaders_ = getVaryHeaders(request, response);
+            final Entry replaced = entries_.put(entry.key_, entry);
+            if (replaced != null && replaced.response_ != null && replaced.response_ != response) {
+                replaced.response_.cleanUp();
+            }
+            deleteOverflow(metrics);
+
+            // the response itself is cached before the objects derived from it
+            final DiskCache diskCache = diskCache_;
+            if (diskCache != null && toCache == null && isStorableOnDisk(entry)) {
+                diskCache.put(entry.key_, response);
+            }
             return true;
         }
 
@@ -154,6 +213,14 @@ public class Cache implements Serializable {
      * Truncates the cache to the maximal number of entries.
      */
     protected void deleteOverflow() {
+        deleteOverflow(null);
+    }
+
+    /**
+     * Truncates the cache to the maximal number of entries.
+     * @param metrics the listener of the web client notified of the evictions, or {@code null}
+     */
+    protected void deleteOverflow(final MetricsListener metrics) {
         synchronized (entries_) {
             while (entries_.size() > maxSize_) {
                 final Entry oldestEntry = Collections.min(entries_.values());
@@ -161,6 +228,9 @@ public class Cache implements Serializable {
                 if (oldestEntry.response_ != null) {
                     oldestEntry.response_.cleanUp();
                 }
+                if (metrics != null) {
+                    metrics.increment(MetricsListener.CACHE_EVICTIONS, 1);
+                }
             }
         }
     }
@@ -173,8 +243,26 @@ public class Cache implements Serializable {
      * @return {@code true} if the response can be cached
      */
     protected boolean isCacheable(final WebRequest request, final WebResponse response) {
-        return HttpMethod.GET == response.getWebRequest().getHttpMethod()
-            && isCacheableContent(response);
+        if (HttpMethod.GET != response.getWebRequest().getHttpMethod()) {
+            return false;
+        }
+        final String cacheControl = response.getResponseHeaderValue("Cache-Control");
+        if (hasDirective(cacheControl, "no-store")) {
+            return false;
+        }
+        // responses for a single user must not be served to the other web clients
+        if (shared_ && hasDirective(cacheControl, "private")) {
+            return false;
+        }
+        final String vary = response.getResponseHeaderValue("Vary");
+        if (vary != null && "*".equals(vary.trim())) {
+            return false;
+        }
+        // responses which aren't fresh can still be revalidated
+        return isCacheableContent(response)
+            || hasDirective(cacheControl, "no-cache")
+            || response.getResponseHeaderValue("ETag") != null
+            || response.getResponseHeaderValue("Last-Modified") != null;
     }
 
     /**
@@ -184,15 +272,30 @@ public class Cache implements Serializable {
      * assign heuristic expiration times, employing algorithms that use other header values (such as the
      * <tt>Last-Modified</tt> time) to estimate a plausible expiration time".</p>
      *
-     * <p>The current implementation considers as dynamic content everything except responses with a
-     * <tt>Last-Modified</tt> header with a date older than 10 minutes or with an <tt>Expires</tt> header
-     * specifying expiration in more than 10 minutes.</p>
+     * <p>The current implementation considers as dynamic content everything except responses with
+     * a positive <tt>Cache-Control: max-age</tt>, a <tt>Last-Modified</tt> header with a date older than
+     * 10 minutes or an <tt>Expires</tt> header specifying expiration in more than 10 minutes.
+     * Responses with <tt>Cache-Control: no-store</tt> or <tt>no-cache</tt> are always dynamic.</p>
      *
-     * @see <a href="http://www.w3.org/Protocols/rfc2616/rfc2616-sec13.html">RFC 2616</a>
+     * <p>Dynamic content having a validator (<tt>ETag</tt> or <tt>Last-Modified</tt>) is cached as well,
+     * but revalidated with the server before being used, see {@link #isFresh(WebRequest)}.</p>
+     *
+     * @see <a href="https://tools.ietf.org/html/rfc7234">RFC 7234</a>
      * @param response the response to examine
      * @return {@code true} if the response should be considered as cacheable
      */
     protected boolean isCacheableContent(final WebResponse response) {
+        final String cacheControl = response.getResponseHeaderValue("Cache-Control");
+        if (cacheControl != null) {
+            if (hasDirective(cacheControl, "no-store") || hasDirective(cacheControl, "no-cache")) {
+                return false;
+            }
+            final long maxAge = getDirectiveValue(cacheControl, "max-age");
+            if (maxAge >= 0) {
+                return maxAge > 0;
+            }
+        }
+
         final Date lastModified = parseDateHeader(response, "Last-Modified");
         final Date expires = parseDateHeader(response, "Expires");
 
@@ -203,6 +306,168 @@ public class Cache implements Serializable {
                 || (expires == null && lastModified != null && now - lastModified.getTime() > delay);
     }
 
+    /**
+     * Determines if the cached response for the specified request can be used without revalidating it
+     * with the server, according to the <tt>Cache-Control</tt> headers of the request and of the response
+     * and to the age of the response.
+     *
+     * @param request the request
+     * @return {@code true} if there is a cached response which is still fresh
+     */
+    public boolean isFresh(final WebRequest request) {
+        final Entry entry = getCacheEntry(request, null);
+        if (entry == null || entry.response_ == null) {
+            return false;
+        }
+        return isFresh(request, entry.response_, entry.responseTime_);
+    }
+
+    /**
+     * Determines if the specified cached response can be used for the request without revalidation.
+     *
+     * @param request the request
+     * @param response the cached response
+     * @param responseTime the time the response has been received
+     * @return {@code true} if the response is still fresh
+     */
+    protected boolean isFresh(final WebRequest request, final WebResponse response, final long responseTime) {
+        if (hasDirective(getRequestHeader(request, "Cache-Control"), "no-cache")
+                || hasDirective(getRequestHeader(request, "Pragma"), "no-cache")
+                || hasDirective(response.getResponseHeaderValue("Cache-Control"), "no-cache")) {
+            return false;
+        }
+
+        long age = getCurrentTimestamp() - responseTime;
+        final String ageHeader = response.getResponseHeaderValue("Age");
+        if (ageHeader != null && DATE_HEADER_PATTERN.matcher(ageHeader.trim()).matches()) {
+            age += Math.max(0, Long.parseLong(ageHeader.trim())) * 1000;
+        }
+        return age < getFreshnessLifetime(response, responseTime);
+    }
+
+    /**
+     * Returns the time during which the specified response can be used without revalidation: the
+     * <tt>Cache-Control: max-age</tt> if any, else the delay until <tt>Expires</tt>, else, as heuristic,
+     * 10% of the time since <tt>Last-Modified</tt>.
+     *
+     * @param response the response
+     * @param responseTime the time the response has been received
+     * @return the freshness lifetime in milliseconds
+     */
+    protected long getFreshnessLifetime(final WebResponse response, final long responseTime) {
+        final long maxAge = getDirectiveValue(response.getResponseHeaderValue("Cache-Control"), "max-age");
+        if (maxAge >= 0) {
+            return maxAge * 1000;
+        }
+
+        final Date expires = parseDateHeader(response, "Expires");
+        if (expires != null) {
+            return expires.getTime() - responseTime;
+        }
+
+        final Date lastModified = parseDateHeader(response, "Last-Modified");
+        if (lastModified != null) {
+            return Math.max(0, (responseTime - lastModified.getTime()) / 10);
+        }
+        return 0;
+    }
+
+    /**
+     * Adds the <tt>If-None-Match</tt> and <tt>If-Modified-Since</tt> headers allowing the server
+     * to answer with <tt>304 Not Modified</tt> if the cached response for the specified request
+     * is still valid. Nothing is done if the request has already conditional headers.
+     *
+     * @param request the request to revalidate the cached response
+     * @return {@code true} if headers have been added
+     */
+    public boolean addConditionalHeaders(final WebRequest request) {
+        if (request.isAdditionalHeader("If-None-Match") || request.isAdditionalHeader("If-Modified-Since")) {
+            return false;
+        }
+        final WebResponse cached = getCachedResponse(request);
+        if (cached == null) {
+            return false;
+        }
+
+        boolean added = false;
+        final String etag = cached.getResponseHeaderValue("ETag");
+        if (etag != null) {
+            request.setAdditionalHeader("If-None-Match", etag);
+            added = true;
+        }
+        final String lastModified = cached.getResponseHeaderValue("Last-Modified");
+        if (lastModified != null) {
+            request.setAdditionalHeader("If-Modified-Since", lastModified);
+            added = true;
+        }
+        return added;
+    }
+
+    /**
+     * Removes the headers added by {@link #addConditionalHeaders(WebRequest)}.
+     *
+     * @param request the request
+     */
+    public void removeConditionalHeaders(final WebRequest request) {
+        request.removeAdditionalHeader("If-None-Match");
+        request.removeAdditionalHeader("If-Modified-Since");
+    }
+
+    /**
+     * Updates the cached response for the specified request after the server confirmed with
+     * <tt>304 Not Modified</tt> that it is still valid: the headers of the <tt>304</tt> response
+     * replace the stored ones and the age of the response starts again. The objects derived from
+     * the response (like compiled scripts) are kept.
+     *
+     * @param request the request
+     * @param notModifiedResponse the <tt>304</tt> response
+     * @return the updated cached response, or {@code null} if there is no cached response
+     */
+    public WebResponse updateCachedResponse(final WebRequest request, final WebResponse notModifiedResponse) {
+        final Entry entry = getCacheEntry(request, null);
+        if (entry == null || entry.response_ == null) {
+            return null;
+        }
+
+        final WebResponse updated;
+        synchronized (entries_) {
+            updated = new RevalidatedWebResponse(entry.response_, notModifiedResponse.getResponseHeaders());
+            entry.response_ = updated;
+            entry.responseTime_ = getCurrentTimestamp();
+        }
+
+        final DiskCache diskCache = diskCache_;
+        if (diskCache != null && isStorableOnDisk(entry)) {
+            diskCache.put(entry.key_, updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Removes the cached response for the specified request, and the objects derived from it,
+     * from this cache and from the {@link DiskCache} if any. This is done when the server answers
+     * a revalidation with a new response: the stored one must not be used anymore, even if the new
+     * one can't be cached.
+     *
+     * @param request the request whose cached response is outdated
+     */
+    public void remove(final WebRequest request) {
+        final URL url = request.getUrl();
+        if (url == null) {
+            return;
+        }
+        final String key = UrlUtils.normalize(url);
+        final Entry removed = entries_.remove(key);
+        if (removed != null && removed.response_ != null) {
+            removed.response_.cleanUp();
+        }
+
+        final DiskCache diskCache = diskCache_;
+        if (diskCache != null) {
+            diskCache.remove(key);
+        }
+    }
+
     /**
      * Gets the current time stamp. As method to allow overriding it, when simulating an other time.
      * @return the current time stamp
@@ -239,7 +504,19 @@ public class Cache implements Serializable {
      * @return the cached response corresponding to the specified request if any
      */
     public WebResponse getCachedResponse(final WebRequest request) {
-        final Entry cachedEntry = getCacheEntry(request);
+        return getCachedResponse(request, null);
+    }
+
+    /**
+     * Returns the cached response corresponding to the specified request. If there is
+     * no corresponding cached object, this method returns {@code null}.
+     *
+     * @param request the request whose corresponding response is sought
+     * @param metrics the listener of the web client notified of the evictions, or {@code null}
+     * @return the cached response corresponding to the specified request if any
+     */
+    public WebResponse getCachedResponse(final WebRequest request, final MetricsListener metrics) {
+        final Entry cachedEntry = getCacheEntry(request, metrics);
         if (cachedEntry == null) {
             return null;
         }
@@ -254,14 +531,26 @@ public class Cache implements Serializable {
      * @return the cached object corresponding to the specified request if any
      */
     public Object getCachedObject(final WebRequest request) {
-        final Entry cachedEntry = getCacheEntry(request);
+        return getCachedObject(request, null);
+    }
+
+    /**
+     * Returns the cached object corresponding to the specified request. If there is
+     * no corresponding cached object, this method returns {@code null}.
+     *
+     * @param request the request whose corresponding cached compiled script is sought
+     * @param metrics the listener of the web client notified of the evictions, or {@code null}
+     * @return the cached object corresponding to the specified request if any
+     */
+    public Object getCachedObject(final WebRequest request, final MetricsListener metrics) {
+        final Entry cachedEntry = getCacheEntry(request, metrics);
         if (cachedEntry == null) {
             return null;
         }
         return cachedEntry.value_;
     }
 
-    private Entry getCacheEntry(final WebRequest request) {
+    private Entry getCacheEntry(final WebRequest request, final MetricsListener metrics) {
         if (HttpMethod.GET != request.getHttpMethod()) {
             return null;
         }
@@ -270,8 +559,13 @@ public class Cache implements Serializable {
         if (url == null) {
             return null;
         }
-        final Entry cachedEntry = entries_.get(UrlUtils.normalize(url));
+        final String key = UrlUtils.normalize(url);
+        final Entry cachedEntry = entries_.get(key);
         if (cachedEntry == null) {
+            return getDiskCacheEntry(key, request, metrics);
+        }
+        if (cachedEntry.varyHeaders_ != null && !cachedEntry.varyHeaders_.equals(getVaryHeaders(request,
+                cachedEntry.response_))) {
             return null;
         }
         synchronized (entries_) {
@@ -280,6 +574,33 @@ public class Cache implements Serializable {
         return cachedEntry;
     }
 
+    /**
+     * Looks for the response in the {@link DiskCache}, if any, and adds it to the memory cache.
+     */
+    private Entry getDiskCacheEntry(final String key, final WebRequest request, final MetricsListener metrics) {
+        final DiskCache diskCache = diskCache_;
+        if (diskCache == null) {
+            return null;
+        }
+        final WebResponse response = diskCache.get(key, request);
+        if (response == null) {
+            return null;
+        }
+        if (!isCacheable(request, response) || isPrivate(response)) {
+            response.cleanUp();
+            diskCache.remove(key);
+            return null;
+        }
+
+        final Entry entry = new Entry(key, response, null);
+        final Date date = parseDateHeader(response, "Date");
+        entry.responseTime_ = date == null ? getCurrentTimestamp() : date.getTime();
+        entry.varyHeaders_ = getVaryHeaders(request, response);
+        entries_.put(key, entry);
+        deleteOverflow(metrics);
+        return entry;
+    }
+
     /**
      * Returns the cached parsed version of the specified CSS snippet. If there is no
      * corresponding cached stylesheet, this method returns {@code null}.
@@ -322,6 +643,47 @@ public class Cache implements Serializable {
         deleteOverflow();
     }
 
+    /**
+     * Returns the persistent second tier of this cache.
+     *
+     * @return the disk cache or {@code null} if responses are only cached in memory
+     */
+    public DiskCache getDiskCache() {
+        return diskCache_;
+    }
+
+    /**
+     * Sets a persistent second tier for this cache. The cacheable responses are stored in
+     * the disk cache as well, and responses not found in memory are looked up there.
+     * A disk cache can be shared by several caches, and survives the end of the JVM.
+     * Compiled scripts and parsed style sheets are only cached in memory.
+     *
+     * @param diskCache the disk cache, or {@code null} to cache responses only in memory
+     */
+    public void setDiskCache(final DiskCache diskCache) {
+        diskCache_ = diskCache;
+    }
+
+    /**
+     * Returns whether this cache is used by several web clients.
+     *
+     * @return whether this cache is shared
+     */
+    public boolean isShared() {
+        return shared_;
+    }
+
+    /**
+     * Sets whether this cache is used by several web clients, like the cache of a {@link WebClientPool}.
+     * A shared cache doesn't store the responses with <tt>Cache-Control: private</tt>; these responses
+     * are never stored in the {@link DiskCache}, which may be shared as well.
+     *
+     * @param shared whether this cache is shared
+     */
+    public void setShared(final boolean shared) {
+        shared_ = shared;
+    }
+
     /**
      * Returns the number of entries in the cache.
      *
@@ -332,7 +694,7 @@ public class Cache implements Serializable {
     }
 
     /**
-     * Clears the cache.
+     * Clears the cache. The content of the {@link DiskCache}, if any, is kept.
      */
     public void clear() {
         synchronized (entries_) {
@@ -345,4 +707,165 @@ public class Cache implements Serializable {
         }
     }
 
+    /**
+     * Private responses and responses varying on other headers than the (stored decoded) content encoding
+     * are only kept in memory.
+     */
+    private static boolean isStorableOnDisk(final Entry entry) {
+        if (isPrivate(entry.response_)) {
+            return false;
+        }
+        if (entry.varyHeaders_ == null) {
+            return true;
+        }
+        for (final String name : entry.varyHeaders_.keySet()) {
+            if (!"accept-encoding".equals(name)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Indicates if the response is intended for a single user.
+     */
+    static boolean isPrivate(final WebResponse response) {
+        return hasDirective(response.getResponseHeaderValue("Cache-Control"), "private");
+    }
+
+    /**
+     * Returns the values of the request headers listed in the <tt>Vary</tt> header of the response.
+     * @return the values keyed by lower case header name, or {@code null} if the response has no <tt>Vary</tt>
+     */
+    private static Map<String, String> getVaryHeaders(final WebRequest request, final WebResponse response) {
+        final String vary = response.getResponseHeaderValue("Vary");
+        if (vary == null) {
+            return null;
+        }
+        final Map<String, String> headers = new HashMap<>();
+        for (final String token : vary.split(",")) {
+            final String name = token.trim().toLowerCase(Locale.ROOT);
+            if (!name.isEmpty()) {
+                headers.put(name, getRequestHeader(request, name));
+            }
+        }
+        return headers;
+    }
+
+    private static String getRequestHeader(final WebRequest request, final String name) {
+        for (final Map.Entry<String, String> header : request.getAdditionalHeaders().entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey())) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Indicates if the specified <tt>Cache-Control</tt> header contains the directive.
+     */
+    private static boolean hasDirective(final String cacheControl, final String directive) {
+        if (cacheControl == null) {
+            return false;
+        }
+        for (final String token : cacheControl.split(",")) {
+            String name = token.trim();
+            final int equalsIndex = name.indexOf('=');
+            if (equalsIndex != -1) {
+                name = name.substring(0, equalsIndex).trim();
+            }
+            if (directive.equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the numeric value of the specified <tt>Cache-Control</tt> directive, or -1.
+     */
+    private static long getDirectiveValue(final String cacheControl, final String directive) {
+        if (cacheControl == null) {
+            return -1;
+        }
+        for (final String token : cacheControl.split(",")) {
+            final int equalsIndex = token.indexOf('=');
+            if (equalsIndex != -1 && directive.equalsIgnoreCase(token.substring(0, equalsIndex).trim())) {
+                final String value = StringUtils.strip(token.substring(equalsIndex + 1).trim(), "\"");
+                try {
+                    return Math.max(0, Long.parseLong(value));
+                }
+                catch (final NumberFormatException e) {
+                    // invalid value, the response is stale
+                    return 0;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A cached response whose headers have been updated by a <tt>304 Not Modified</tt> response.
+     */
+    private static class RevalidatedWebResponse extends WebResponseWrapper {
+        private final WebResponse original_;
+        private final List<NameValuePair> headers_;
+
+        RevalidatedWebResponse(final WebResponse cached, final List<NameValuePair> newHeaders) {
+            super(unwrap(cached));
+            original_ = unwrap(cached);
+
+            final List<NameValuePair> headers = new ArrayList<>();
+            for (final NameValuePair header : cached.getResponseHeaders()) {
+                if (getHeader(newHeaders, header.getName()) == null || isNotUpdated(header.getName())) {
+                    headers.add(header);
+                }
+            }
+            for (final NameValuePair header : newHeaders) {
+                if (!isNotUpdated(header.getName())) {
+                    headers.add(header);
+                }
+            }
+            headers_ = Collections.unmodifiableList(headers);
+        }
+
+        /**
+         * Avoids growing chains of wrappers when a response is revalidated several times.
+         */
+        private static WebResponse unwrap(final WebResponse response) {
+            if (response instanceof RevalidatedWebResponse) {
+                return ((RevalidatedWebResponse) response).original_;
+            }
+            return response;
+        }
+
+        private static boolean isNotUpdated(final String name) {
+            for (final String notUpdated : NOT_UPDATED_HEADERS) {
+                if (notUpdated.equalsIgnoreCase(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static String getHeader(final List<NameValuePair> headers, final String name) {
+            for (final NameValuePair header : headers) {
+                if (name.equalsIgnoreCase(header.getName())) {
+                    return header.getValue();
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public List<NameValuePair> getResponseHeaders() {
+            return headers_;
+        }
+
+        @Override
+        public String getResponseHeaderValue(final String headerName) {
+            return getHeader(headers_, headerName);
+        }
+    }
+
 }
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Serializable;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.client.utils.DateUtils;
+
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+
+/**
+ * <p>A persistent second tier for the {@link Cache}, storing the cacheable responses in a directory.
+ * As the content survives the end of the JVM and can be used by several {@link WebClient}s (even
+ * in different processes) at the same time, static resources have to be downloaded only once.</p>
+ *
+ * <p>Each response is stored in its own file, named after the SHA-256 hash of its URL. The files are
+ * written to a temporary file first and then moved atomically, so that a reader never sees
+ * a partially written entry. When the total size exceeds {@link #getMaxSize()}, the least recently
+ * used entries are deleted.</p>
+ *
+ * <p>The content is stored decoded; the <tt>Content-Encoding</tt> and <tt>Content-Length</tt>
+ * headers are therefore not stored. A <tt>Date</tt> header is added to the responses without one,
+ * to keep track of their age.</p>
+ *
+ * @see Cache#setDiskCache(DiskCache)
+ */
+public class DiskCache implements Serializable {
+
+    private static final Log LOG = LogFactory.getLog(DiskCache.class);
+
+    private static final int FORMAT_VERSION = 2;
+    private static final String ENTRY_SUFFIX = ".entry";
+
+    private final File directory_;
+    private long maxSize_ = 256L * 1024 * 1024;
+    private int maxInMemory_ = 500 * 1024;
+    private transient volatile long size_ = -1;
+
+    /**
+     * Creates a new disk cache storing its entries in the specified directory.
+     * The directory is created if needed.
+     * @param directory the directory holding the entries
+     * @throws IOException if the directory can't be created
+     */
+    public DiskCache(final File directory) throws IOException {
+        WebAssert.notNull("directory", directory);
+        FileUtils.forceMkdir(directory);
+        directory_ = directory;
+    }
+
+    /**
+     * Returns the directory holding the entries.
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory_;
+    }
+
+    /**
+     * Returns the maximal size in bytes of all entries. The default is 256 MB.
+     * @return the maximal size
+     */
+    public long getMaxSize() {
+        return maxSize_;
+    }
+
+    /**
+     * Sets the maximal size in bytes of all entries. The default is 256 MB.
+     * @param maxSize the maximal size (must be &gt;= 0)
+     */
+    public void setMaxSize(final long maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Illegal value for maxSize: " + maxSize);
+        }
+        maxSize_ = maxSize;
+        deleteOverflow();
+    }
+
+    /**
+     * Returns the maximal number of bytes of a stored content read into memory;
+     * bigger contents are copied to a temporary file. The default is 500 KB.
+     * @return the maximal number of bytes read into memory
+     */
+    public int getMaxInMemory() {
+        return maxInMemory_;
+    }
+
+    /**
+     * Sets the maximal number of bytes of a stored content read into memory;
+     * bigger contents are copied to a temporary file. The default is 500 KB.
+     * @param maxInMemory the maximal number of bytes read into memory
+     */
+    public void setMaxInMemory(final int maxInMemory) {
+        maxInMemory_ = maxInMemory;
+    }
+
+    /**
+     * Stores the specified response. Responses intended for a single user ({@code Cache-Control: private})
+     * are not stored, and the cookies set by the response are not written.
+     * @param key the key of the entry (the normalized URL)
+     * @param response the response to store
+     * @return whether the response has been stored
+     */
+    public boolean put(final String key, final WebResponse response) {
+        if (Cache.isPrivate(response)) {
+            return false;
+        }
+        final File file = getFile(key);
+        File tmpFile = null;
+        try {
+            tmpFile = File.createTempFile("htmlunit", ".tmp", directory_);
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                writeEntry(out, key, response);
+            }
+
+            final long oldLength = file.length();
+            try {
+                Files.move(tmpFile.toPath(), file.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmpFile = null;
+
+            addToSize(file.length() - oldLength);
+            deleteOverflow();
+            return true;
+        }
+        catch (final IOException e) {
+            LOG.warn("Can't store response for '" + key + "' in the disk cache", e);
+            return false;
+        }
+        finally {
+            if (tmpFile != null) {
+                FileUtils.deleteQuietly(tmpFile);
+            }
+        }
+    }
+
+    /**
+     * Returns the stored response for the specified key, or {@code null} if none is stored.
+     * @param key the key of the entry (the normalized URL)
+     * @param request the request to associate with the response
+     * @return the stored response or {@code null}
+     */
+    public WebResponse get(final String key, final WebRequest request) {
+        final File file = getFile(key);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        InputStream in = null;
+        try {
+            in = new BufferedInputStream(new FileInputStream(file));
+            final DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != FORMAT_VERSION || !key.equals(readString(data))) {
+                // other format or hash collision
+                return null;
+            }
+            final int statusCode = data.readInt();
+            final String statusMessage = readString(data);
+            final int headerCount = data.readInt();
+            final List<NameValuePair> headers = new ArrayList<>(headerCount);
+            for (int i = 0; i < headerCount; i++) {
+                headers.add(new NameValuePair(readString(data), readString(data)));
+            }
+
+            // closes the stream
+            final DownloadedContent content = HttpWebConnection.downloadContent(in, maxInMemory_);
+            in = null;
+
+            file.setLastModified(System.currentTimeMillis());
+            final WebResponseData responseData = new WebResponseData(content, statusCode, statusMessage, headers);
+            return new WebResponse(responseData, request, 0);
+        }
+        catch (final IOException e) {
+            LOG.warn("Can't read entry for '" + key + "' from the disk cache", e);
+            return null;
+        }
+        finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Removes the entry for the specified key, if any.
+     * @param key the key of the entry (the normalized URL)
+     */
+    public void remove(final String key) {
+        final File file = getFile(key);
+        final long length = file.length();
+        if (file.delete()) {
+            addToSize(-length);
+        }
+    }
+
+    private synchronized void addToSize(final long delta) {
+        if (size_ >= 0) {
+            size_ += delta;
+        }
+    }
+
+    /**
+     * Returns the total size in bytes of the stored entries.
+     * @return the total size
+     */
+    public synchronized long getSize() {
+        if (size_ < 0) {
+            long size = 0;
+            for (final File file : listEntries()) {
+                size += file.length();
+            }
+            size_ = size;
+        }
+        return size_;
+    }
+
+    /**
+     * Deletes all entries.
+     */
+    public synchronized void clear() {
+        for (final File file : listEntries()) {
+            FileUtils.deleteQuietly(file);
+        }
+        size_ = 0;
+    }
+
+    /**
+     * Deletes the least recently used entries when the total size exceeds the maximal size.
+     * To avoid scanning the directory on every write, the size is reduced to three quarters
+     * of the maximal size.
+     */
+    protected synchronized void deleteOverflow() {
+        if (getSize() <= maxSize_) {
+            return;
+        }
+
+        final File[] files = listEntries();
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(final File f1, final File f2) {
+                return Long.compare(f1.lastModified(), f2.lastModified());
+            }
+        });
+
+        long size = 0;
+        for (final File file : files) {
+            size += file.length();
+        }
+        final long target = maxSize_ / 4 * 3;
+        for (int i = 0; i < files.length && size > target; i++) {
+            final long length = files[i].length();
+            if (files[i].delete()) {
+                size -= length;
+            }
+        }
+        size_ = size;
+    }
+
+    private File[] listEntries() {
+        final File[] files = directory_.listFiles();
+        if (files == null) {
+            return new File[0];
+        }
+        final List<File> entries = new ArrayList<>(files.length);
+        for (final File file : files) {
+            if (file.getName().endsWith(ENTRY_SUFFIX)) {
+                entries.add(file);
+            }
+        }
+        return entries.toArray(new File[entries.size()]);
+    }
+
+    private File getFile(final String key) {
+        return new File(directory_, DigestUtils.sha256Hex(key) + ENTRY_SUFFIX);
+    }
+
+    private static void writeEntry(final DataOutputStream out, final String key, final WebResponse response)
+        throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, key);
+        out.writeInt(response.getStatusCode());
+        writeString(out, response.getStatusMessage() == null ? "" : response.getStatusMessage());
+
+        final List<NameValuePair> headers = new ArrayList<>();
+        boolean hasDate = false;
+        for (final NameValuePair header : response.getResponseHeaders()) {
+            final String name = header.getName();
+            // the content is stored decoded, and the cookies of a user must not be replayed to other clients
+            if (!"Content-Encoding".equalsIgnoreCase(name) && !"Content-Length".equalsIgnoreCase(name)
+                    && !"Set-Cookie".equalsIgnoreCase(name) && !"Set-Cookie2".equalsIgnoreCase(name)) {
+                headers.add(header);
+                hasDate = hasDate || "Date".equalsIgnoreCase(name);
+            }
+        }
+        if (!hasDate) {
+            // keeps the age of the response
+            headers.add(new NameValuePair("Date", DateUtils.formatDate(new Date())));
+        }
+        out.writeInt(headers.size());
+        for (final NameValuePair header : headers) {
+            writeString(out, header.getName());
+            writeString(out, header.getValue() == null ? "" : header.getValue());
+        }
+
+        try (InputStream content = response.getContentAsStream()) {
+            if (content != null) {
+                IOUtils.copyLarge(content, out);
+            }
+        }
+    }
+
+    /**
+     * Writes a string with its length as int; {@link DataOutputStream#writeUTF(String)} is limited to 64 KB,
+     * less than some headers.
+     */
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
@@ -28,6 +28,7 @@ import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.UnknownHostException;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -35,6 +36,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.HostnameVerifier;
@@ -49,6 +51,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.ConnectionClosedException;
 import org.apache.http.Header;
+import org.apache.http.HttpClientConnection;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpEntityEnclosingRequest;
 import org.apache.http.HttpException;
@@ -82,9 +85,13 @@ import org.apache.http.client.protocol.RequestExpectContinue;
 import org.apache.http.client.protocol.ResponseProcessCookies;
 import org.apache.http.client.utils.URLEncodedUtils;
 import org.apache.http.config.ConnectionConfig;
+import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
 import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
 import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
 import org.apache.http.conn.ssl.DefaultHostnameVerifier;
@@ -99,6 +106,7 @@ import org.apache.http.entity.mime.content.InputStreamBody;
 import org.apache.http.impl.client.BasicAuthCache;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.protocol.HttpProcessorBuilder;
 import org.apache.http.protocol.HttpRequestExecutor;
@@ -112,6 +120,7 @@ import com.gargoylesoftware.htmlunit.httpclient.HtmlUnitCookieStore;
 import com.gargoylesoftware.htmlunit.httpclient.HtmlUnitRedirectStrategie;
 import com.gargoylesoftware.htmlunit.httpclient.HtmlUnitSSLConnectionSocketFactory;
 import com.gargoylesoftware.htmlunit.httpclient.SocksConnectionSocketFactory;
+import com.gargoylesoftware.htmlunit.jfr.FlightRecorderEvents;
 import com.gargoylesoftware.htmlunit.util.KeyDataPair;
 import com.gargoylesoftware.htmlunit.util.NameValuePair;
 import com.gargoylesoftware.htmlunit.util.UrlUtils;
@@ -136,6 +145,9 @@ public class HttpWebConnection implements WebConnection {
     private static final Log LOG = LogFactory.getLog(HttpWebConnection.class);
 
     private static final String HACKED_COOKIE_POLICY = "mine";
+    private static final String TIMING = "htmlunit.timing";
+    private static final ThreadLocal<WebResponseTiming> CONNECTING_TIMING = new ThreadLocal<>();
+    private static final ThreadLocal<MetricsListener> LEASING_METRICS = new ThreadLocal<>();
 
     // have one per thread because this is (re)configured for every call (see configureHttpProcessorBuilder)
     // do not use a ThreadLocal because this in only accessed form this class
@@ -146,6 +158,7 @@ public class HttpWebConnection implements WebConnection {
     private final CookieSpecProvider htmlUnitCookieSpecProvider_;
     private final WebClientOptions usedOptions_;
     private PoolingHttpClientConnectionManager connectionManager_;
+    private final boolean sharedConnectionManager_;
 
     /** Authentication cache shared among all threads of a web client. */
     private final AuthCache sharedAuthCache_ = new SynchronizedAuthCache();
@@ -161,6 +174,23 @@ public class HttpWebConnection implements WebConnection {
         webClient_ = webClient;
         htmlUnitCookieSpecProvider_ = new HtmlUnitCookieSpecProvider(webClient.getBrowserVersion());
         usedOptions_ = new WebClientOptions();
+        sharedConnectionManager_ = false;
+    }
+
+    /**
+     * Creates a new HTTP web connection instance using a connection manager shared with other connections.
+     * The shared connection manager is neither reconfigured when the SSL options of the WebClient change
+     * nor shut down when this connection gets closed.
+     * @param webClient the WebClient that is using this connection
+     * @param connectionManager the shared connection manager
+     * @see #createConnectionManager(WebClientOptions)
+     */
+    public HttpWebConnection(final WebClient webClient, final PoolingHttpClientConnectionManager connectionManager) {
+        webClient_ = webClient;
+        htmlUnitCookieSpecProvider_ = new HtmlUnitCookieSpecProvider(webClient.getBrowserVersion());
+        usedOptions_ = new WebClientOptions();
+        connectionManager_ = connectionManager;
+        sharedConnectionManager_ = true;
     }
 
     /**
@@ -188,6 +218,14 @@ public class HttpWebConnection implements WebConnection {
             }
             final HttpHost hostConfiguration = getHostConfiguration(request);
             final long startTime = System.currentTimeMillis();
+            final long startNanos = System.nanoTime();
+            final Object event = FlightRecorderEvents.beginHttpRequest();
+            final WebResponseTiming timing = new WebResponseTiming(webClient_.getClock(), url.toExternalForm());
+            httpContext.setAttribute(TIMING, timing);
+            final MetricsListener metrics = webClient_.getMetricsListener();
+            if (metrics != null) {
+                LEASING_METRICS.set(metrics);
+            }
 
             HttpResponse httpResponse = null;
             try {
@@ -211,12 +249,25 @@ public class HttpWebConnection implements WebConnection {
                 httpClientBuilder_.remove(Thread.currentThread());
                 throw e;
             }
+            finally {
+                LEASING_METRICS.remove();
+            }
 
             final DownloadedContent downloadedBody = downloadResponseBody(httpResponse);
+            timing.markResponseEnd();
+            if (metrics != null) {
+                metrics.record(MetricsListener.HTTP_FETCH, System.nanoTime() - startNanos);
+            }
             final long endTime = System.currentTimeMillis();
-            return makeWebResponse(httpResponse, request, downloadedBody, endTime - startTime);
+            final WebResponse webResponse = makeWebResponse(httpResponse, request, downloadedBody, endTime - startTime);
+            webResponse.setTiming(timing);
+            FlightRecorderEvents.commitHttpRequest(event, url.toExternalForm(), request.getHttpMethod().name(),
+                    webResponse.getStatusCode(), webResponse.getContentLength(),
+                    timing.getResponseStart() - timing.getFetchStart(), timing.isNewConnection());
+            return webResponse;
         }
         finally {
+            httpContext.removeAttribute(TIMING);
             if (httpMethod != null) {
                 onResponseGenerated(httpMethod);
             }
@@ -241,6 +292,17 @@ public class HttpWebConnection implements WebConnection {
         return new HttpHost(url.getHost(), url.getPort(), url.getProtocol());
     }
 
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns the timings of the request currently executed with the specified context.
+     * @param context the http context
+     * @return the timings or {@code null} if not executed by an {@link HttpWebConnection}
+     */
+    public static WebResponseTiming getTiming(final HttpContext context) {
+        return (WebResponseTiming) context.getAttribute(TIMING);
+    }
+
     /**
      * Returns the {@link HttpClientContext} for the current thread. Creates a new one if necessary.
      */
@@ -561,6 +623,7 @@ public class HttpWebConnection implements WebConnection {
     protected HttpClientBuilder createHttpClient() {
         final HttpClientBuilder builder = HttpClientBuilder.create();
         builder.setRedirectStrategy(new HtmlUnitRedirectStrategie());
+        builder.setRequestExecutor(new TimingHttpRequestExecutor());
         configureTimeout(builder, getTimeout());
         configureHttpsScheme(builder);
         builder.setMaxConnPerRoute(6);
@@ -613,7 +676,7 @@ public class HttpWebConnection implements WebConnection {
                 || options.getSSLClientProtocols() != usedOptions_.getSSLClientProtocols()
                 || options.getProxyConfig() != usedOptions_.getProxyConfig()) {
             configureHttpsScheme(httpClientBuilder);
-            if (connectionManager_ != null) {
+            if (connectionManager_ != null && !sharedConnectionManager_) {
                 connectionManager_.shutdown();
                 connectionManager_ = null;
             }
@@ -942,6 +1005,128 @@ public class HttpWebConnection implements WebConnection {
         }
     }
 
+    /**
+     * Records the sending of the request and the reception of the response headers.
+     */
+    private static final class TimingHttpRequestExecutor extends HttpRequestExecutor {
+
+        @Override
+        protected HttpResponse doSendRequest(final HttpRequest request, final HttpClientConnection conn,
+                final HttpContext context) throws IOException, HttpException {
+            final WebResponseTiming timing = getTiming(context);
+            if (timing != null) {
+                timing.markRequestStart();
+            }
+            return super.doSendRequest(request, conn, context);
+        }
+
+        @Override
+        protected HttpResponse doReceiveResponse(final HttpRequest request, final HttpClientConnection conn,
+                final HttpContext context) throws HttpException, IOException {
+            final HttpResponse response = super.doReceiveResponse(request, conn, context);
+            final WebResponseTiming timing = getTiming(context);
+            if (timing != null) {
+                timing.markResponseStart();
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Records the waits for a connection of the pool and the establishment of new connections.
+     * Reused connections aren't connected again, their timings stay at the start of the fetch.
+     */
+    private static final class TimingConnectionManager extends PoolingHttpClientConnectionManager {
+
+        TimingConnectionManager(final Registry<ConnectionSocketFactory> socketFactoryRegistry,
+                final DnsResolver dnsResolver, final long timeToLive, final TimeUnit timeUnit) {
+            super(socketFactoryRegistry, null, null, dnsResolver, timeToLive, timeUnit);
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+            final ConnectionRequest request = super.requestConnection(route, state);
+            final MetricsListener metrics = LEASING_METRICS.get();
+            if (metrics == null) {
+                return request;
+            }
+
+            return new ConnectionRequest() {
+                @Override
+                public HttpClientConnection get(final long timeout, final TimeUnit tunit)
+                    throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                    final long start = System.nanoTime();
+                    try {
+                        return request.get(timeout, tunit);
+                    }
+                    finally {
+                        metrics.record(MetricsListener.HTTP_CONNECTION_LEASE_WAIT, System.nanoTime() - start);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+
+        @Override
+        public void connect(final HttpClientConnection managedConn, final HttpRoute route,
+                final int connectTimeout, final HttpContext context) throws IOException {
+            final WebResponseTiming timing = getTiming(context);
+            if (timing == null) {
+                super.connect(managedConn, route, connectTimeout, context);
+                return;
+            }
+
+            timing.markConnectStart();
+            CONNECTING_TIMING.set(timing);
+            try {
+                super.connect(managedConn, route, connectTimeout, context);
+            }
+            finally {
+                CONNECTING_TIMING.remove();
+            }
+            timing.markConnectEnd();
+        }
+
+        @Override
+        public void upgrade(final HttpClientConnection managedConn, final HttpRoute route,
+                final HttpContext context) throws IOException {
+            super.upgrade(managedConn, route, context);
+            // the TLS handshake through a proxy tunnel
+            final WebResponseTiming timing = getTiming(context);
+            if (timing != null) {
+                timing.markConnectEnd();
+            }
+        }
+    }
+
+    /**
+     * Records the DNS lookups done while connecting.
+     * The resolver doesn't get the http context, the timings are passed by the connecting thread.
+     */
+    private static final class TimingDnsResolver implements DnsResolver {
+        private final DnsResolver resolver_;
+
+        TimingDnsResolver(final DnsResolver resolver) {
+            resolver_ = resolver;
+        }
+
+        @Override
+        public InetAddress[] resolve(final String host) throws UnknownHostException {
+            final WebResponseTiming timing = CONNECTING_TIMING.get();
+            if (timing == null) {
+                return resolver_.resolve(host);
+            }
+            timing.markDomainLookupStart();
+            final InetAddress[] addresses = resolver_.resolve(host);
+            timing.markDomainLookupEnd();
+            return addresses;
+        }
+    }
+
     /**
      * An authentication cache that is synchronized.
      */
@@ -982,12 +1167,27 @@ public class HttpWebConnection implements WebConnection {
         if (httpClientBuilder_.get(current) != null) {
             httpClientBuilder_.remove(current);
         }
-        if (connectionManager_ != null) {
+        if (connectionManager_ != null && !sharedConnectionManager_) {
             connectionManager_.shutdown();
             connectionManager_ = null;
         }
     }
 
+    /**
+     * Creates a connection manager that can be shared by the connections of several web clients,
+     * configured like the one of a WebClient with the given options.
+     * @param options the options providing the SSL and timeout settings
+     * @return the new connection manager
+     * @see #HttpWebConnection(WebClient, PoolingHttpClientConnectionManager)
+     */
+    public static PoolingHttpClientConnectionManager createConnectionManager(final WebClientOptions options) {
+        final HttpClientBuilder builder = HttpClientBuilder.create();
+        builder.setSSLSocketFactory(HtmlUnitSSLConnectionSocketFactory.buildSSLSocketFactory(options));
+        builder.setDefaultSocketConfig(createSocketConfigBuilder(options.getTimeout()).build());
+        builder.setMaxConnPerRoute(6);
+        return createConnectionManager(builder);
+    }
+
     /**
      * Has the exact logic in {@link HttpClientBuilder#build()} which sets the {@code connManager} part,
      * but with the ability to configure {@code socketFactory}.
@@ -1042,14 +1242,12 @@ public class HttpWebConnection implements WebConnection {
                 }
             }
 
-            final PoolingHttpClientConnectionManager poolingmgr = new PoolingHttpClientConnectionManager(
+            final PoolingHttpClientConnectionManager poolingmgr = new TimingConnectionManager(
                     RegistryBuilder.<ConnectionSocketFactory>create()
                         .register("http", new SocksConnectionSocketFactory())
                         .register("https", sslSocketFactory)
                         .build(),
-                        null,
-                        null,
-                        dnsResolver,
+                        new TimingDnsResolver(dnsResolver != null ? dnsResolver : SystemDefaultDnsResolver.INSTANCE),
                         connTimeToLive,
                         connTimeToLiveTimeUnit != null ? connTimeToLiveTimeUnit : TimeUnit.MILLISECONDS);
             if (defaultSocketConfig != null) {
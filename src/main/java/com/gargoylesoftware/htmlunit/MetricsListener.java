@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+/**
+ * Receives the measurements made inside a {@link WebClient}: the time spent in each phase of
+ * a page load, the efficiency of the caches, the waits for a connection of the pool and the state
+ * of the queues of JavaScript jobs. This allows to forward them to any monitoring library
+ * without a dependency of HtmlUnit on it; {@link MetricsRegistry} is a simple implementation
+ * keeping the aggregated values in memory.
+ *
+ * <p>The listener is called from all the threads using the web client (including the threads
+ * executing the background JavaScript) and has therefore to be thread safe. It should return
+ * quickly, as it is called in the middle of the processing.</p>
+ *
+ * <p>Durations are reported in nanoseconds.</p>
+ *
+ * @see WebClient#setMetricsListener(MetricsListener)
+ */
+public interface MetricsListener {
+
+    /** Duration of an HTTP request, from the start of the fetch to the end of the download of the body. */
+    String HTTP_FETCH = "htmlunit.http.fetch";
+
+    /** Duration of the wait for a connection of the pool. */
+    String HTTP_CONNECTION_LEASE_WAIT = "htmlunit.http.connection.lease.wait";
+
+    /** Duration of the parsing of an HTML page, including the execution of the inline scripts. */
+    String HTML_PARSE = "htmlunit.html.parse";
+
+    /** Duration of the compilation of a script. */
+    String JS_COMPILE = "htmlunit.js.compile";
+
+    /** Duration of the execution of a script or of a function called by HtmlUnit (event handler, job...). */
+    String JS_EXECUTE = "htmlunit.js.execute";
+
+    /** Number of scripts stopped because they exceeded the JavaScript timeout. */
+    String JS_TIMEOUTS = "htmlunit.js.timeouts";
+
+    /** Number of pending JavaScript jobs of a window, measured when a job is added. */
+    String JS_JOB_QUEUE_DEPTH = "htmlunit.js.job.queue.depth";
+
+    /** Delay between the time at which a JavaScript job was due and the start of its execution. */
+    String JS_JOB_LATENCY = "htmlunit.js.job.latency";
+
+    /** Duration of the computation of the style of an element (<tt>getComputedStyle()</tt>). */
+    String CSS_COMPUTE_STYLE = "htmlunit.css.compute.style";
+
+    /** Number of responses served by the {@link Cache}. */
+    String CACHE_HITS = "htmlunit.cache.hits";
+
+    /** Number of lookups in the {@link Cache} without usable response. */
+    String CACHE_MISSES = "htmlunit.cache.misses";
+
+    /** Number of entries removed from the {@link Cache} because it was full. */
+    String CACHE_EVICTIONS = "htmlunit.cache.evictions";
+
+    /**
+     * Increments a counter.
+     * @param name the name of the counter
+     * @param delta the increment
+     */
+    void increment(String name, long delta);
+
+    /**
+     * Records a value of a distribution (a duration, a size...).
+     * @param name the name of the distribution
+     * @param value the value
+     */
+    void record(String name, long value);
+}
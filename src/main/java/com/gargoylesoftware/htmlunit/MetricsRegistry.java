@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link MetricsListener} keeping the counters and the statistics of the distributions in memory.
+ *
+ * <pre>
+ * final MetricsRegistry metrics = new MetricsRegistry();
+ * webClient.setMetricsListener(metrics);
+ * ...
+ * System.out.println(metrics.getStatistics(MetricsListener.HTTP_FETCH).getMean());
+ * </pre>
+ */
+public class MetricsRegistry implements MetricsListener {
+
+    private final Map<String, AtomicLong> counters_ = new ConcurrentHashMap<>();
+    private final Map<String, Statistics> statistics_ = new ConcurrentHashMap<>();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void increment(final String name, final long delta) {
+        AtomicLong counter = counters_.get(name);
+        if (counter == null) {
+            counters_.putIfAbsent(name, new AtomicLong());
+            counter = counters_.get(name);
+        }
+        counter.addAndGet(delta);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void record(final String name, final long value) {
+        Statistics statistics = statistics_.get(name);
+        if (statistics == null) {
+            statistics_.putIfAbsent(name, new Statistics());
+            statistics = statistics_.get(name);
+        }
+        statistics.add(value);
+    }
+
+    /**
+     * Returns the value of the specified counter.
+     * @param name the name of the counter
+     * @return the value, {@code 0} if never incremented
+     */
+    public long getCount(final String name) {
+        final AtomicLong counter = counters_.get(name);
+        if (counter == null) {
+            return 0;
+        }
+        return counter.get();
+    }
+
+    /**
+     * Returns a snapshot of the statistics of the specified distribution.
+     * @param name the name of the distribution
+     * @return the statistics, empty if no value has been recorded
+     */
+    public Statistics getStatistics(final String name) {
+        final Statistics statistics = statistics_.get(name);
+        if (statistics == null) {
+            return new Statistics();
+        }
+        return statistics.copy();
+    }
+
+    /**
+     * Removes all counters and distributions.
+     */
+    public void clear() {
+        counters_.clear();
+        statistics_.clear();
+    }
+
+    /**
+     * Returns all counters and distributions, one per line, sorted by name.
+     * @return the values
+     */
+    @Override
+    public String toString() {
+        final Map<String, Object> values = new TreeMap<>();
+        for (final Map.Entry<String, AtomicLong> entry : counters_.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().get());
+        }
+        for (final Map.Entry<String, Statistics> entry : statistics_.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().copy());
+        }
+
+        final StringBuilder builder = new StringBuilder();
+        for (final Map.Entry<String, Object> entry : values.entrySet()) {
+            builder.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The statistics of the values of a distribution.
+     */
+    public static final class Statistics {
+        private long count_;
+        private long sum_;
+        private long min_;
+        private long max_;
+
+        synchronized void add(final long value) {
+            if (count_ == 0 || value < min_) {
+                min_ = value;
+            }
+            if (count_ == 0 || value > max_) {
+                max_ = value;
+            }
+            count_++;
+            sum_ += value;
+        }
+
+        synchronized Statistics copy() {
+            final Statistics copy = new Statistics();
+            copy.count_ = count_;
+            copy.sum_ = sum_;
+            copy.min_ = min_;
+            copy.max_ = max_;
+            return copy;
+        }
+
+        /**
+         * Returns the number of recorded values.
+         * @return the number of values
+         */
+        public long getCount() {
+            return count_;
+        }
+
+        /**
+         * Returns the sum of the recorded values.
+         * @return the sum
+         */
+        public long getSum() {
+            return sum_;
+        }
+
+        /**
+         * Returns the smallest recorded value.
+         * @return the smallest value, {@code 0} if no value has been recorded
+         */
+        public long getMin() {
+            return min_;
+        }
+
+        /**
+         * Returns the biggest recorded value.
+         * @return the biggest value, {@code 0} if no value has been recorded
+         */
+        public long getMax() {
+            return max_;
+        }
+
+        /**
+         * Returns the mean of the recorded values.
+         * @return the mean, {@code 0} if no value has been recorded
+         */
+        public double getMean() {
+            if (count_ == 0) {
+                return 0;
+            }
+            return (double) sum_ / count_;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return "count=" + count_ + ", sum=" + sum_ + ", min=" + min_ + ", max=" + max_;
+        }
+    }
+}
@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.gargoylesoftware.htmlunit.javascript.host.idb.IndexedDBStorage;
+
+/**
+ * <p>A {@link StorageHolder} persisting the local storage (and the global storage) in a directory, so that
+ * it survives the end of the JVM. The session storage is kept in memory only.</p>
+ *
+ * <p>Each store (one per origin) is kept in its own append-only log, named after the SHA-256 hash
+ * of its key, and is only read when the origin is first used. The changes are not written immediately:
+ * they are collected during {@link #getFlushDelay()}, keeping only the last value of each item, and then
+ * written with a single write per store. When the log contains too many obsolete records, it is
+ * rewritten with the current content.</p>
+ *
+ * <p>The pending changes are lost if the JVM ends without {@link #flush()} or {@link #close()};
+ * {@link WebClient#close()} calls {@link #flush()}.</p>
+ *
+ * <p><span style="color:red">Experimental API: May be changed in next release!</span></p>
+ *
+ * @see WebClient#setStorageHolder(StorageHolder)
+ */
+public class PersistentStorageHolder extends StorageHolder {
+
+    private static final Log LOG = LogFactory.getLog(PersistentStorageHolder.class);
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String LOG_SUFFIX = ".log";
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+    private static final byte CLEAR = 3;
+
+    /** The minimal number of records of a log before it is compacted. */
+    private static final int MIN_COMPACTION_RECORDS = 64;
+
+    private final File directory_;
+    private volatile long flushDelay_ = 1000;
+    private transient Set<PersistentStore> dirtyStores_;
+    private transient ScheduledExecutorService flusher_;
+    private transient boolean flushScheduled_;
+
+    /**
+     * Creates a new holder storing its logs in the specified directory.
+     * The directory is created if needed.
+     * @param directory the directory holding the logs
+     * @throws IOException if the directory can't be created
+     */
+    public PersistentStorageHolder(final File directory) throws IOException {
+        WebAssert.notNull("directory", directory);
+        FileUtils.forceMkdir(directory);
+        directory_ = directory;
+    }
+
+    /**
+     * Returns the directory holding the logs.
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory_;
+    }
+
+    /**
+     * Returns the delay in milliseconds during which the changes are collected before being written.
+     * The default is 1000 ms.
+     * @return the flush delay
+     */
+    public long getFlushDelay() {
+        return flushDelay_;
+    }
+
+    /**
+     * Sets the delay in milliseconds during which the changes are collected before being written;
+     * 0 writes every change immediately. The default is 1000 ms.
+     * @param flushDelay the flush delay (must be &gt;= 0)
+     */
+    public void setFlushDelay(final long flushDelay) {
+        if (flushDelay < 0) {
+            throw new IllegalArgumentException("Illegal value for flushDelay: " + flushDelay);
+        }
+        flushDelay_ = flushDelay;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Map<String, String> createStore(final Type storageType, final String key) {
+        if (storageType == Type.SESSION_STORAGE) {
+            return super.createStore(storageType, key);
+        }
+        final String name = storageType.name().toLowerCase(Locale.ROOT) + '-' + DigestUtils.sha256Hex(key);
+        final PersistentStore store = new PersistentStore(this, new File(directory_, name + LOG_SUFFIX), key);
+        store.load();
+        return store;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The databases are stored in the subdirectory {@code indexeddb}.
+     */
+    @Override
+    protected IndexedDBStorage createIndexedDBStorage() {
+        try {
+            return new IndexedDBStorage(new File(directory_, "indexeddb"));
+        }
+        catch (final IOException e) {
+            LOG.warn("Can't create the IndexedDB directory, the databases are kept in memory", e);
+            return super.createIndexedDBStorage();
+        }
+    }
+
+    /**
+     * Writes the pending changes of all stores.
+     */
+    @Override
+    public void flush() {
+        final List<PersistentStore> stores;
+        synchronized (this) {
+            if (dirtyStores_ == null || dirtyStores_.isEmpty()) {
+                return;
+            }
+            stores = new ArrayList<>(dirtyStores_);
+            dirtyStores_.clear();
+        }
+        for (final PersistentStore store : stores) {
+            store.flush();
+        }
+    }
+
+    /**
+     * Writes the pending changes and stops the background writer.
+     * The holder can still be used afterwards, the writer is restarted if needed.
+     */
+    public void close() {
+        final ScheduledExecutorService flusher;
+        synchronized (this) {
+            flusher = flusher_;
+            flusher_ = null;
+            flushScheduled_ = false;
+        }
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flush();
+    }
+
+    private void markDirty(final PersistentStore store) {
+        final long delay = flushDelay_;
+        synchronized (this) {
+            if (dirtyStores_ == null) {
+                // the stores are maps, their hash code changes with their content
+                dirtyStores_ = Collections.newSetFromMap(new IdentityHashMap<PersistentStore, Boolean>());
+            }
+            dirtyStores_.add(store);
+            if (delay != 0) {
+                if (!flushScheduled_) {
+                    flushScheduled_ = true;
+                    getFlusher().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            synchronized (PersistentStorageHolder.this) {
+                                flushScheduled_ = false;
+                            }
+                            flush();
+                        }
+                    }, delay, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+        flush();
+    }
+
+    private ScheduledExecutorService getFlusher() {
+        if (flusher_ == null) {
+            flusher_ = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread thread = new Thread(r, "HtmlUnit storage writer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return flusher_;
+    }
+
+    /**
+     * A store persisted in an append-only log. Only the changes made through
+     * {@link #put(String, String)}, {@link #remove(Object)} and {@link #clear()} are persisted.
+     */
+    private static final class PersistentStore extends LinkedHashMap<String, String> {
+        private final PersistentStorageHolder holder_;
+        private final File file_;
+        private final String key_;
+        /** The changed items since the last flush, {@code null} for a removed item. */
+        private transient Map<String, String> pending_;
+        private transient boolean cleared_;
+        private transient int records_;
+        private transient boolean compactionNeeded_;
+
+        PersistentStore(final PersistentStorageHolder holder, final File file, final String key) {
+            holder_ = holder;
+            file_ = file;
+            key_ = key;
+        }
+
+        @Override
+        public String put(final String key, final String value) {
+            final String old;
+            synchronized (this) {
+                old = super.put(key, value);
+                getPending().put(key, value);
+            }
+            holder_.markDirty(this);
+            return old;
+        }
+
+        @Override
+        public void putAll(final Map<? extends String, ? extends String> map) {
+            for (final Map.Entry<? extends String, ? extends String> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        @Override
+        public String remove(final Object key) {
+            final String old;
+            synchronized (this) {
+                if (!containsKey(key)) {
+                    return null;
+                }
+                old = super.remove(key);
+                getPending().put((String) key, null);
+            }
+            holder_.markDirty(this);
+            return old;
+        }
+
+        @Override
+        public void clear() {
+            synchronized (this) {
+                super.clear();
+                getPending().clear();
+                cleared_ = true;
+            }
+            holder_.markDirty(this);
+        }
+
+        private Map<String, String> getPending() {
+            if (pending_ == null) {
+                pending_ = new LinkedHashMap<>();
+            }
+            return pending_;
+        }
+
+        /**
+         * Reads the log, if any.
+         */
+        synchronized void load() {
+            if (!file_.isFile()) {
+                return;
+            }
+            boolean complete = false;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file_)))) {
+                if (in.readInt() != FORMAT_VERSION || !key_.equals(readString(in))) {
+                    // other format or hash collision
+                    LOG.warn("Ignoring the storage log '" + file_ + "' for '" + key_ + "'");
+                    compactionNeeded_ = true;
+                    return;
+                }
+                int op;
+                while ((op = in.read()) != -1) {
+                    switch (op) {
+                        case PUT:
+                            final String key = readString(in);
+                            super.put(key, readString(in));
+                            break;
+                        case REMOVE:
+                            super.remove(readString(in));
+                            break;
+                        case CLEAR:
+                            super.clear();
+                            break;
+                        default:
+                            throw new IOException("Unknown record type " + op);
+                    }
+                    records_++;
+                }
+                complete = true;
+            }
+            catch (final EOFException e) {
+                // the last write has been interrupted
+            }
+            catch (final IOException e) {
+                LOG.warn("Can't read the storage log '" + file_ + "' for '" + key_ + "'", e);
+            }
+            if (!complete) {
+                // rewrites the log, as new records can't be appended after a broken one
+                compact();
+            }
+        }
+
+        /**
+         * Writes the pending changes, compacting the log if it contains too many obsolete records.
+         */
+        synchronized void flush() {
+            if (!cleared_ && (pending_ == null || pending_.isEmpty())) {
+                return;
+            }
+            final int count = pending_.size() + (cleared_ ? 1 : 0);
+            if (compactionNeeded_ || records_ + count > Math.max(MIN_COMPACTION_RECORDS, 2 * size())) {
+                compact();
+                return;
+            }
+
+            try {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                final DataOutputStream out = new DataOutputStream(bytes);
+                if (records_ == 0 && file_.length() == 0) {
+                    writeHeader(out);
+                }
+                if (cleared_) {
+                    out.write(CLEAR);
+                }
+                for (final Map.Entry<String, String> entry : pending_.entrySet()) {
+                    if (entry.getValue() == null) {
+                        out.write(REMOVE);
+                        writeString(out, entry.getKey());
+                    }
+                    else {
+                        out.write(PUT);
+                        writeString(out, entry.getKey());
+                        writeString(out, entry.getValue());
+                    }
+                }
+                out.flush();
+                try (FileOutputStream file = new FileOutputStream(file_, true)) {
+                    bytes.writeTo(file);
+                }
+                records_ += count;
+                pending_.clear();
+                cleared_ = false;
+            }
+            catch (final IOException e) {
+                LOG.warn("Can't write the storage log '" + file_ + "' for '" + key_ + "'", e);
+                // the next flush writes everything again
+                compactionNeeded_ = true;
+            }
+        }
+
+        /**
+         * Replaces the log by one containing only the current items.
+         */
+        private void compact() {
+            File tmpFile = null;
+            try {
+                tmpFile = File.createTempFile("htmlunit", ".tmp", file_.getParentFile());
+                try (DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                    writeHeader(out);
+                    for (final Map.Entry<String, String> entry : entrySet()) {
+                        out.write(PUT);
+                        writeString(out, entry.getKey());
+                        writeString(out, entry.getValue());
+                    }
+                }
+                try {
+                    Files.move(tmpFile.toPath(), file_.toPath(),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                catch (final AtomicMoveNotSupportedException e) {
+                    Files.move(tmpFile.toPath(), file_.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                tmpFile = null;
+                records_ = size();
+                compactionNeeded_ = false;
+                if (pending_ != null) {
+                    pending_.clear();
+                }
+                cleared_ = false;
+            }
+            catch (final IOException e) {
+                LOG.warn("Can't write the storage log '" + file_ + "' for '" + key_ + "'", e);
+                compactionNeeded_ = true;
+            }
+            finally {
+                if (tmpFile != null) {
+                    FileUtils.deleteQuietly(tmpFile);
+                }
+            }
+        }
+
+        private void writeHeader(final DataOutputStream out) throws IOException {
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, key_);
+        }
+
+        private static void writeString(final DataOutputStream out, final String s) throws IOException {
+            final byte[] bytes = s.getBytes(UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(final DataInputStream in) throws IOException {
+            final int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Invalid string length " + length);
+            }
+            final byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            return new String(bytes, UTF_8);
+        }
+    }
+}
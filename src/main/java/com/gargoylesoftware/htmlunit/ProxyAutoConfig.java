@@ -18,13 +18,16 @@ import java.net.InetAddress;
 import java.net.URL;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.TimeZone;
 import java.util.regex.Pattern;
 
 import net.sourceforge.htmlunit.corejs.javascript.Context;
 import net.sourceforge.htmlunit.corejs.javascript.FunctionObject;
 import net.sourceforge.htmlunit.corejs.javascript.NativeFunction;
+import net.sourceforge.htmlunit.corejs.javascript.Script;
 import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
 import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
 import net.sourceforge.htmlunit.corejs.javascript.Undefined;
@@ -40,7 +43,57 @@ public final class ProxyAutoConfig {
 
     private static final Pattern DOT_SPLIT_PATTERN = Pattern.compile("\\.");
 
-    private ProxyAutoConfig() {
+    /** The maximal number of hosts whose result is cached. */
+    private static final int MAX_CACHED_HOSTS = 1000;
+
+    private final Scriptable scope_;
+    private final NativeFunction findProxyForURL_;
+    private volatile long resultCacheTtl_;
+    private final Map<String, CachedResult> resultCache_ = new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CachedResult> eldest) {
+            return size() > MAX_CACHED_HOSTS;
+        }
+    };
+
+    private ProxyAutoConfig(final String content) {
+        final Context cx = Context.enter();
+        try {
+            // the standard objects are sealed as the scope is reused for all the evaluations
+            final ScriptableObject scope = cx.initStandardObjects(null, true);
+
+            defineMethod("isPlainHostName", scope);
+            defineMethod("dnsDomainIs", scope);
+            defineMethod("localHostOrDomainIs", scope);
+            defineMethod("isResolvable", scope);
+            defineMethod("isInNet", scope);
+            defineMethod("dnsResolve", scope);
+            defineMethod("myIpAddress", scope);
+            defineMethod("dnsDomainLevels", scope);
+            defineMethod("shExpMatch", scope);
+            defineMethod("weekdayRange", scope);
+            defineMethod("dateRange", scope);
+            defineMethod("timeRange", scope);
+
+            cx.evaluateString(scope, "var ProxyConfig = function() {}; ProxyConfig.bindings = {}", "<init>", 1, null);
+            final Script script = cx.compileString(content, "<Proxy Auto-Config>", 1, null);
+            script.exec(cx, scope);
+
+            scope_ = scope;
+            findProxyForURL_ = (NativeFunction) scope.get("FindProxyForURL", scope);
+        }
+        finally {
+            Context.exit();
+        }
+    }
+
+    /**
+     * Compiles the specified content, allowing to evaluate it several times without parsing it again.
+     * @param content the JavaScript content
+     * @return the compiled Proxy Auto-Config
+     */
+    public static ProxyAutoConfig compile(final String content) {
+        return new ProxyAutoConfig(content);
     }
 
     /**
@@ -50,47 +103,93 @@ public final class ProxyAutoConfig {
      * @return semicolon-separated result
      */
     public static String evaluate(final String content, final URL url) {
-        final Context cx = Context.enter();
-        try {
-            final ProxyAutoConfig config = new ProxyAutoConfig();
-            final Scriptable scope = cx.initStandardObjects();
-
-            config.defineMethod("isPlainHostName", scope);
-            config.defineMethod("dnsDomainIs", scope);
-            config.defineMethod("localHostOrDomainIs", scope);
-            config.defineMethod("isResolvable", scope);
-            config.defineMethod("isInNet", scope);
-            config.defineMethod("dnsResolve", scope);
-            config.defineMethod("myIpAddress", scope);
-            config.defineMethod("dnsDomainLevels", scope);
-            config.defineMethod("shExpMatch", scope);
-            config.defineMethod("weekdayRange", scope);
-            config.defineMethod("dateRange", scope);
-            config.defineMethod("timeRange", scope);
+        return compile(content).evaluate(url);
+    }
 
-            cx.evaluateString(scope, "var ProxyConfig = function() {}; ProxyConfig.bindings = {}", "<init>", 1, null);
-            cx.evaluateString(scope, content, "<Proxy Auto-Config>", 1, null);
-            final Object[] functionArgs = {url.toExternalForm(), url.getHost()};
-            final Object fObj = scope.get("FindProxyForURL", scope);
+    /**
+     * Evaluates the <tt>FindProxyForURL</tt> method of the compiled content.
+     * If {@link #setResultCacheTtl(long) enabled}, the result is cached per host.
+     * @param url the URL to be retrieved
+     * @return semicolon-separated result
+     */
+    public String evaluate(final URL url) {
+        final long ttl = resultCacheTtl_;
+        final String host = url.getHost();
+        if (ttl > 0) {
+            synchronized (resultCache_) {
+                final CachedResult cached = resultCache_.get(host);
+                if (cached != null && cached.expiration_ > System.currentTimeMillis()) {
+                    return cached.value_;
+                }
+            }
+        }
 
-            final NativeFunction f = (NativeFunction) fObj;
-            final Object result = f.call(cx, scope, scope, functionArgs);
-            return Context.toString(result);
+        final String result;
+        final Context cx = Context.enter();
+        try {
+            final Object[] functionArgs = {url.toExternalForm(), host};
+            // the scope is shared, the script may store global state
+            synchronized (scope_) {
+                result = Context.toString(findProxyForURL_.call(cx, scope_, scope_, functionArgs));
+            }
         }
         finally {
             Context.exit();
         }
+
+        if (ttl > 0) {
+            synchronized (resultCache_) {
+                resultCache_.put(host, new CachedResult(result, System.currentTimeMillis() + ttl));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the time during which the result of the evaluation is reused for other URLs of the same host.
+     * @return the time to live in milliseconds; 0 means no caching
+     */
+    public long getResultCacheTtl() {
+        return resultCacheTtl_;
+    }
+
+    /**
+     * Sets the time during which the result of the evaluation is reused for other URLs of the same host.
+     * Only use this if the Proxy Auto-Config doesn't depend on the path of the URL.
+     * @param resultCacheTtl the time to live in milliseconds; 0 (the default) disables the caching
+     */
+    public void setResultCacheTtl(final long resultCacheTtl) {
+        resultCacheTtl_ = resultCacheTtl;
+        if (resultCacheTtl <= 0) {
+            synchronized (resultCache_) {
+                resultCache_.clear();
+            }
+        }
     }
 
     private void defineMethod(final String methodName, final Scriptable scope) {
         for (Method method : getClass().getMethods()) {
             if (method.getName().equals(methodName)) {
                 final FunctionObject functionObject = new FunctionObject(methodName, method, scope);
+                functionObject.sealObject();
                 ((ScriptableObject) scope).defineProperty(methodName, functionObject, ScriptableObject.EMPTY);
             }
         }
     }
 
+    /**
+     * The result of an evaluation.
+     */
+    private static final class CachedResult {
+        private final String value_;
+        private final long expiration_;
+
+        CachedResult(final String value, final long expiration) {
+            value_ = value;
+            expiration_ = expiration;
+        }
+    }
+
     /**
      * Returns true if there is no domain name in the hostname (no dots).
      * @param host the hostname from the URL (excluding port number).
@@ -34,6 +34,8 @@ public class ProxyConfig implements Serializable {
     private final Map<String, Pattern> proxyBypassHosts_ = new HashMap<>();
     private String proxyAutoConfigUrl_;
     private String proxyAutoConfigContent_;
+    private long proxyAutoConfigCacheTtl_;
+    private transient ProxyAutoConfig proxyAutoConfig_;
 
     /**
      * Creates a new instance.
@@ -177,7 +179,42 @@ public class ProxyConfig implements Serializable {
      * Sets the proxy auto-config content.
      * @param proxyAutoConfigContent the proxy auto-config content
      */
-    protected void setProxyAutoConfigContent(final String proxyAutoConfigContent) {
+    protected synchronized void setProxyAutoConfigContent(final String proxyAutoConfigContent) {
         proxyAutoConfigContent_ = proxyAutoConfigContent;
+        proxyAutoConfig_ = null;
+    }
+
+    /**
+     * Returns the compiled proxy auto-config content.
+     * @return the compiled proxy auto-config, or {@code null} if the content is not yet known
+     */
+    protected synchronized ProxyAutoConfig getProxyAutoConfig() {
+        if (proxyAutoConfig_ == null && proxyAutoConfigContent_ != null) {
+            proxyAutoConfig_ = ProxyAutoConfig.compile(proxyAutoConfigContent_);
+            proxyAutoConfig_.setResultCacheTtl(proxyAutoConfigCacheTtl_);
+        }
+        return proxyAutoConfig_;
+    }
+
+    /**
+     * Returns the time during which the proxy determined by the proxy auto-config for a host is reused.
+     * @return the time to live in milliseconds; 0 means that the proxy auto-config is evaluated for each request
+     */
+    public long getProxyAutoConfigCacheTtl() {
+        return proxyAutoConfigCacheTtl_;
+    }
+
+    /**
+     * Sets the time during which the proxy determined by the proxy auto-config for a host is reused
+     * for the other requests to this host. Only use this if the proxy auto-config doesn't depend
+     * on the path of the URLs.
+     * @param proxyAutoConfigCacheTtl the time to live in milliseconds; 0 (the default) evaluates
+     *        the proxy auto-config for each request
+     */
+    public synchronized void setProxyAutoConfigCacheTtl(final long proxyAutoConfigCacheTtl) {
+        proxyAutoConfigCacheTtl_ = proxyAutoConfigCacheTtl;
+        if (proxyAutoConfig_ != null) {
+            proxyAutoConfig_.setResultCacheTtl(proxyAutoConfigCacheTtl);
+        }
     }
 }
@@ -15,6 +15,7 @@
 package com.gargoylesoftware.htmlunit;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.Comparator;
@@ -250,6 +251,17 @@ public abstract class SgmlPage extends DomNode implements Page, Document, Docume
         return documentElement.asXml();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeXml(final Writer writer) throws IOException {
+        final DomElement documentElement = getDocumentElement();
+        if (documentElement != null) {
+            documentElement.writeXml(writer);
+        }
+    }
+
     /**
      * Returns {@code true} if this page has case-sensitive tag names, {@code false} otherwise. In general,
      * XML has case-sensitive tag names, and HTML doesn't. This is especially important during XPath matching.
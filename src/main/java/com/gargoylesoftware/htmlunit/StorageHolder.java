@@ -14,12 +14,15 @@
  */
 package com.gargoylesoftware.htmlunit;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import com.gargoylesoftware.htmlunit.javascript.host.idb.IndexedDBStorage;
+
 /**
  * Holder for different types of storages.
  * <p><span style="color:red">Experimental API: May be changed in next release!</span></p>
@@ -48,6 +51,8 @@ public class StorageHolder implements Serializable {
 
     private transient Map<String, Map<String, String>> sessionStorage_ = new HashMap<>();
 
+    private transient IndexedDBStorage indexedDBStorage_;
+
     /**
      * Gets the store of the give type for the page.
      * @param storageType the type
@@ -61,13 +66,57 @@ public class StorageHolder implements Serializable {
         synchronized (storage) {
             Map<String, String> map = storage.get(key);
             if (map == null) {
-                map = new LinkedHashMap<>();
+                map = createStore(storageType, key);
                 storage.put(key, map);
             }
             return map;
         }
     }
 
+    /**
+     * Creates the store of the given type for the specified key; called once per key,
+     * when the store is first used.
+     * @param storageType the type
+     * @param key the key of the store (depending on the type, the origin, the host or the top window)
+     * @return the new store
+     */
+    protected Map<String, String> createStore(final Type storageType, final String key) {
+        return new LinkedHashMap<>();
+    }
+
+    /**
+     * Returns the IndexedDB databases, creating the storage when first used.
+     * @return the IndexedDB storage
+     */
+    public synchronized IndexedDBStorage getIndexedDBStorage() {
+        if (indexedDBStorage_ == null) {
+            indexedDBStorage_ = createIndexedDBStorage();
+        }
+        return indexedDBStorage_;
+    }
+
+    /**
+     * Creates the storage of the IndexedDB databases; this implementation keeps them in memory.
+     * @return the new storage
+     */
+    protected IndexedDBStorage createIndexedDBStorage() {
+        try {
+            return new IndexedDBStorage(null);
+        }
+        catch (final IOException e) {
+            // no directory to create
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Writes the pending changes of the stores, if they are persisted.
+     * Nothing is done by this implementation, which only keeps the stores in memory.
+     */
+    public void flush() {
+        // nothing to do
+    }
+
     private static String getKey(final Type type, final Page page) {
         switch (type) {
             case GLOBAL_STORAGE:
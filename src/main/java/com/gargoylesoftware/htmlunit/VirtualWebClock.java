@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link WebClock} whose time only moves when it is told to: explicitly with {@link #advance(long)},
+ * or automatically when the JavaScript executor waits for the next job to be due while no page is being
+ * loaded and no script is running; the clock then jumps to the target time of this job.
+ *
+ * <p>This makes the tests of pages using long timeouts fast and deterministic: a
+ * <tt>setTimeout(f, 5000)</tt> is executed as soon as nothing else is to do, and the scripts see
+ * the five seconds as elapsed. Periodic jobs (<tt>setInterval</tt>) are executed back to back
+ * for a while, then throttled to about one execution every 10 ms as long as they are not cleared.</p>
+ *
+ * @see WebClient#setClock(WebClock)
+ */
+public class VirtualWebClock extends WebClock {
+
+    private final AtomicLong currentTimeMillis_;
+    private final long startTimeMillis_;
+
+    /**
+     * Creates a new clock, starting at the current system time.
+     */
+    public VirtualWebClock() {
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * Creates a new clock.
+     * @param startTimeMillis the initial time in milliseconds since the epoch
+     */
+    public VirtualWebClock(final long startTimeMillis) {
+        currentTimeMillis_ = new AtomicLong(startTimeMillis);
+        startTimeMillis_ = startTimeMillis;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long currentTimeMillis() {
+        return currentTimeMillis_.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The value is the elapsed virtual time since the creation of this clock.
+     */
+    @Override
+    public long nanoTime() {
+        return TimeUnit.MILLISECONDS.toNanos(currentTimeMillis_.get() - startTimeMillis_);
+    }
+
+    /**
+     * Moves the time forward.
+     * @param millis the number of milliseconds to add (must be &gt;= 0)
+     * @return the new time in milliseconds since the epoch
+     */
+    public long advance(final long millis) {
+        if (millis < 0) {
+            throw new IllegalArgumentException("Illegal value for millis: " + millis);
+        }
+        return currentTimeMillis_.addAndGet(millis);
+    }
+
+    /**
+     * Moves the time forward to the specified time; nothing is done if the time has already been reached.
+     * @param targetTime the time in milliseconds since the epoch
+     * @return always {@code true}
+     */
+    @Override
+    public boolean fastForward(final long targetTime) {
+        long now = currentTimeMillis_.get();
+        while (now < targetTime && !currentTimeMillis_.compareAndSet(now, targetTime)) {
+            now = currentTimeMillis_.get();
+        }
+        return true;
+    }
+}
@@ -46,6 +46,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.lang3.StringUtils;
@@ -60,6 +68,7 @@ import org.apache.http.cookie.CookieSpec;
 import org.apache.http.cookie.MalformedCookieException;
 import org.apache.http.message.BufferedHeader;
 import org.apache.http.util.CharArrayBuffer;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
 import org.w3c.css.sac.ErrorHandler;
 
 import com.gargoylesoftware.htmlunit.activex.javascript.msxml.MSXMLActiveXObjectFactory;
@@ -79,6 +88,7 @@ import com.gargoylesoftware.htmlunit.javascript.JavaScriptEngine;
 import com.gargoylesoftware.htmlunit.javascript.JavaScriptErrorListener;
 import com.gargoylesoftware.htmlunit.javascript.background.JavaScriptJobManager;
 import com.gargoylesoftware.htmlunit.javascript.host.Location;
+import com.gargoylesoftware.htmlunit.javascript.host.WebSocket;
 import com.gargoylesoftware.htmlunit.javascript.host.Window;
 import com.gargoylesoftware.htmlunit.javascript.host.css.ComputedCSSStyleDeclaration;
 import com.gargoylesoftware.htmlunit.javascript.host.dom.Node;
@@ -86,10 +96,12 @@ import com.gargoylesoftware.htmlunit.javascript.host.event.Event;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLDocument;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLElement;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLIFrameElement;
+import com.gargoylesoftware.htmlunit.jfr.FlightRecorderEvents;
 import com.gargoylesoftware.htmlunit.protocol.data.DataUrlDecoder;
 import com.gargoylesoftware.htmlunit.util.Cookie;
 import com.gargoylesoftware.htmlunit.util.NameValuePair;
 import com.gargoylesoftware.htmlunit.util.UrlUtils;
+import com.gargoylesoftware.htmlunit.util.VirtualThreads;
 
 import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
 
@@ -146,6 +158,7 @@ public class WebClient implements Serializable, AutoCloseable {
     private CredentialsProvider credentialsProvider_ = new DefaultCredentialsProvider();
     private CookieManager cookieManager_ = new CookieManager();
     private transient JavaScriptEngine scriptEngine_;
+    private transient AtomicInteger loadingPages_ = new AtomicInteger();
     private final Map<String, String> requestHeaders_ = Collections.synchronizedMap(new HashMap<String, String>(89));
     private IncorrectnessListener incorrectnessListener_ = new IncorrectnessListenerImpl();
     private WebConsole webConsole_;
@@ -172,6 +185,11 @@ public class WebClient implements Serializable, AutoCloseable {
     private ErrorHandler cssErrorHandler_ = new DefaultCssErrorHandler();
     private OnbeforeunloadHandler onbeforeunloadHandler_;
     private Cache cache_ = new Cache();
+    private WebClock clock_ = new WebClock();
+    private transient MetricsListener metricsListener_;
+    private transient ExecutorService backgroundLoader_;
+    private transient WebSocketClient webSocketClient_;
+    private transient WebClientPool pool_;
 
     /** target "_blank". */
     private static final String TARGET_BLANK = "_blank";
@@ -198,7 +216,7 @@ public class WebClient implements Serializable, AutoCloseable {
 
     private WebClientOptions options_ = new WebClientOptions();
     private WebClientInternals internals_ = new WebClientInternals();
-    private final StorageHolder storageHolder_ = new StorageHolder();
+    private StorageHolder storageHolder_ = new StorageHolder();
 
     private static final WebResponseData responseDataNoHttpResponse_ = new WebResponseData(
         0, "No HTTP Response", Collections.<NameValuePair>emptyList());
@@ -232,6 +250,17 @@ public class WebClient implements Serializable, AutoCloseable {
         init(browserVersion, new ProxyConfig(proxyHost, proxyPort));
     }
 
+    /**
+     * Creates a web client instance sharing the runtime of the given pool.
+     * @param browserVersion the browser version to simulate
+     * @param pool the pool providing the shared runtime
+     * @see WebClientPool#createWebClient()
+     */
+    WebClient(final BrowserVersion browserVersion, final WebClientPool pool) {
+        pool_ = pool;
+        init(browserVersion, new ProxyConfig());
+    }
+
     /**
      * Generic initialization logic used by all constructors. This method does not perform any
      * parameter validation; such validation must be handled by the constructors themselves.
@@ -244,6 +273,10 @@ public class WebClient implements Serializable, AutoCloseable {
 
         webConnection_ = createWebConnection(); // this has to be done after the browser version was set
         scriptEngine_ = new JavaScriptEngine(this);
+        if (pool_ != null) {
+            cache_ = pool_.getCache();
+            scriptEngine_.setJavaScriptExecutor(pool_.createJavaScriptExecutor(this));
+        }
         // The window must be constructed AFTER the script engine.
         addWebWindowListener(new CurrentWindowTracker(this));
         currentWindow_ = new TopLevelWindow("", this);
@@ -335,10 +368,38 @@ public class WebClient implements Serializable, AutoCloseable {
      *
      * @see WebRequest
      */
-    @SuppressWarnings("unchecked")
     <P extends Page> P getPage(final WebWindow webWindow, final WebRequest webRequest,
             final boolean addToHistory)
         throws IOException, FailingHttpStatusCodeException {
+        return getPage(webWindow, webRequest, addToHistory, null);
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Like {@link #getPage(WebWindow, WebRequest)} but uses the response that has already been requested
+     * through {@link #loadWebResponseInBackground(WebRequest)} instead of loading it again.
+     *
+     * @param webWindow the WebWindow to load the result of the request into
+     * @param webRequest the web request
+     * @param prefetchedResponse the response of the request, as returned by
+     *        {@link #loadWebResponseInBackground(WebRequest)}
+     * @param <P> the page type
+     * @return the page returned by the server when the specified request was made in the specified window
+     * @throws IOException if an IO error occurs
+     * @throws FailingHttpStatusCodeException if the server returns a failing status code AND the property
+     *         {@link WebClientOptions#setThrowExceptionOnFailingStatusCode(boolean)} is set to true
+     */
+    public <P extends Page> P getPage(final WebWindow webWindow, final WebRequest webRequest,
+            final Future<WebResponse> prefetchedResponse)
+        throws IOException, FailingHttpStatusCodeException {
+        return getPage(webWindow, webRequest, true, prefetchedResponse);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <P extends Page> P getPage(final WebWindow webWindow, final WebRequest webRequest,
+            final boolean addToHistory, final Future<WebResponse> prefetchedResponse)
+        throws IOException, FailingHttpStatusCodeException {
 
         final Page page = webWindow.getEnclosedPage();
 
@@ -377,27 +438,47 @@ public class WebClient implements Serializable, AutoCloseable {
             LOG.debug("Get page for window named '" + webWindow.getName() + "', using " + webRequest);
         }
 
-        final WebResponse webResponse;
-        final String protocol = webRequest.getUrl().getProtocol();
-        if ("javascript".equals(protocol)) {
-            webResponse = makeWebResponseForJavaScriptUrl(webWindow, webRequest.getUrl(), webRequest.getCharset());
-            if (webWindow.getEnclosedPage() != null && webWindow.getEnclosedPage().getWebResponse() == webResponse) {
-                // a javascript:... url with result of type undefined didn't changed the page
-                return (P) webWindow.getEnclosedPage();
+        final Object pageLoadEvent = FlightRecorderEvents.beginPageLoad();
+        WebResponse webResponse = null;
+        loadingPages_.incrementAndGet();
+        try {
+            final String protocol = webRequest.getUrl().getProtocol();
+            if ("javascript".equals(protocol)) {
+                webResponse = makeWebResponseForJavaScriptUrl(webWindow, webRequest.getUrl(),
+                        webRequest.getCharset());
+                if (webWindow.getEnclosedPage() != null
+                        && webWindow.getEnclosedPage().getWebResponse() == webResponse) {
+                    // a javascript:... url with result of type undefined didn't changed the page
+                    return (P) webWindow.getEnclosedPage();
+                }
+            }
+            else if (prefetchedResponse != null) {
+                webResponse = getPrefetchedResponse(prefetchedResponse);
+            }
+            else {
+                webResponse = loadWebResponse(webRequest);
             }
-        }
-        else {
-            webResponse = loadWebResponse(webRequest);
-        }
 
-        printContentIfNecessary(webResponse);
-        loadWebResponseInto(webResponse, webWindow);
+            printContentIfNecessary(webResponse);
+            loadWebResponseInto(webResponse, webWindow);
 
-        // start execution here
-        // note: we have to do this also if the server reports an error!
-        //       e.g. if the server returns a 404 error page that includes javascript
-        if (scriptEngine_ != null) {
-            scriptEngine_.registerWindowAndMaybeStartEventLoop(webWindow);
+            // start execution here
+            // note: we have to do this also if the server reports an error!
+            //       e.g. if the server returns a 404 error page that includes javascript
+            if (scriptEngine_ != null) {
+                scriptEngine_.registerWindowAndMaybeStartEventLoop(webWindow);
+            }
+        }
+        finally {
+            loadingPages_.decrementAndGet();
+            // also when the load fails, the status code is then 0
+            if (webResponse == null) {
+                FlightRecorderEvents.commitPageLoad(pageLoadEvent, webRequest.getUrl().toExternalForm(), 0);
+            }
+            else {
+                FlightRecorderEvents.commitPageLoad(pageLoadEvent,
+                        webResponse.getWebRequest().getUrl().toExternalForm(), webResponse.getStatusCode());
+            }
         }
 
         // check and report problems if needed
@@ -640,6 +721,9 @@ public class WebClient implements Serializable, AutoCloseable {
         if (engine == null) {
             throw new IllegalArgumentException("Can't set JavaScriptEngine to null");
         }
+        if (pool_ != null && engine.getJavaScriptExecutor() == null) {
+            engine.setJavaScriptExecutor(pool_.createJavaScriptExecutor(this));
+        }
         scriptEngine_ = engine;
     }
 
@@ -1292,6 +1376,117 @@ public class WebClient implements Serializable, AutoCloseable {
         }
     }
 
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Starts loading a {@link WebResponse} from the server in a background thread.
+     * The number of concurrent loads is limited by {@link WebClientOptions#getFrameLoadingThreads()},
+     * unless {@link WebClientOptions#isVirtualThreadsEnabled() virtual threads} are used.
+     * @param webRequest the request
+     * @return the future response
+     */
+    public Future<WebResponse> loadWebResponseInBackground(final WebRequest webRequest) {
+        synchronized (this) {
+            if (backgroundLoader_ == null && pool_ != null) {
+                backgroundLoader_ = pool_.getBackgroundLoader();
+            }
+            else if (backgroundLoader_ == null
+                    && getOptions().isVirtualThreadsEnabled() && VirtualThreads.isSupported()) {
+                backgroundLoader_ = VirtualThreads.newThreadPerTaskExecutor();
+            }
+            else if (backgroundLoader_ == null) {
+                final String threadName = "Background loader for " + this;
+                final AtomicInteger threadNumber = new AtomicInteger();
+                backgroundLoader_ = Executors.newFixedThreadPool(
+                        Math.max(1, getOptions().getFrameLoadingThreads()), new ThreadFactory() {
+                            @Override
+                            public Thread newThread(final Runnable r) {
+                                final Thread thread = new Thread(r,
+                                        threadName + " " + threadNumber.getAndIncrement());
+                                thread.setDaemon(true);
+                                return thread;
+                            }
+                        });
+            }
+        }
+        return backgroundLoader_.submit(createBackgroundLoad(webRequest));
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Starts loading a {@link WebResponse} from the server in a new virtual thread. Unlike
+     * {@link #loadWebResponseInBackground(WebRequest)}, the load never waits for a free loader thread.
+     * @param webRequest the request
+     * @return the future response, or {@code null} if {@link WebClientOptions#isVirtualThreadsEnabled()
+     *         virtual threads} are not enabled or not supported by the Java runtime
+     */
+    public Future<WebResponse> loadWebResponseOnVirtualThread(final WebRequest webRequest) {
+        if (!getOptions().isVirtualThreadsEnabled() || !VirtualThreads.isSupported()) {
+            return null;
+        }
+        final FutureTask<WebResponse> task = new FutureTask<>(createBackgroundLoad(webRequest));
+        VirtualThreads.newThread(task, "Loader for " + webRequest.getUrl()).start();
+        return task;
+    }
+
+    private Callable<WebResponse> createBackgroundLoad(final WebRequest webRequest) {
+        return new Callable<WebResponse>() {
+            @Override
+            public WebResponse call() throws IOException {
+                final WebResponse response = loadWebResponse(webRequest);
+                if (Thread.interrupted()) {
+                    // cancelled while loading, nobody will get the response
+                    response.cleanUp();
+                }
+                return response;
+            }
+        };
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Cancels a load started with {@link #loadWebResponseInBackground(WebRequest)} whose response is not needed
+     * anymore; if the response has already been received, its resources are released.
+     * @param prefetchedResponse the future response
+     */
+    public static void cancelWebResponseInBackground(final Future<WebResponse> prefetchedResponse) {
+        if (prefetchedResponse.cancel(true) || !prefetchedResponse.isDone()) {
+            return;
+        }
+        try {
+            prefetchedResponse.get().cleanUp();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (final ExecutionException e) {
+            // the load failed, nothing to release
+        }
+    }
+
+    private static WebResponse getPrefetchedResponse(final Future<WebResponse> prefetchedResponse)
+        throws IOException {
+        try {
+            return prefetchedResponse.get();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the response", e);
+        }
+        catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
     /**
      * Loads a {@link WebResponse} from the server through the WebConnection.
      * @param webRequest the request
@@ -1323,13 +1518,12 @@ public class WebClient implements Serializable, AutoCloseable {
             final ProxyConfig proxyConfig = getOptions().getProxyConfig();
             if (proxyConfig.getProxyAutoConfigUrl() != null) {
                 if (!UrlUtils.sameFile(new URL(proxyConfig.getProxyAutoConfigUrl()), url)) {
-                    String content = proxyConfig.getProxyAutoConfigContent();
-                    if (content == null) {
-                        content = getPage(proxyConfig.getProxyAutoConfigUrl())
+                    if (proxyConfig.getProxyAutoConfigContent() == null) {
+                        final String content = getPage(proxyConfig.getProxyAutoConfigUrl())
                             .getWebResponse().getContentAsString();
                         proxyConfig.setProxyAutoConfigContent(content);
                     }
-                    final String allValue = ProxyAutoConfig.evaluate(content, url);
+                    final String allValue = proxyConfig.getProxyAutoConfig().evaluate(url);
                     if (LOG.isDebugEnabled()) {
                         LOG.debug("Proxy Auto-Config: value '" + allValue + "' for URL " + url);
                     }
@@ -1362,19 +1556,62 @@ public class WebClient implements Serializable, AutoCloseable {
         addDefaultHeaders(webRequest);
 
         // Retrieve the response, either from the cache or from the server.
-        final WebResponse fromCache = getCache().getCachedResponse(webRequest);
-        final WebResponse webResponse;
-        if (fromCache != null) {
+        final Cache cache = getCache();
+        final MetricsListener metrics = metricsListener_;
+        final WebResponse fromCache = cache.getCachedResponse(webRequest, metrics);
+        WebResponse webResponse;
+        if (fromCache != null && cache.isFresh(webRequest)) {
+            if (metrics != null) {
+                metrics.increment(MetricsListener.CACHE_HITS, 1);
+            }
             webResponse = new WebResponseFromCache(fromCache, webRequest);
         }
         else {
+            if (metrics != null) {
+                metrics.increment(MetricsListener.CACHE_MISSES, 1);
+            }
+            // a stale cached response may still be valid, let the server tell us
+            final boolean revalidation = cache.addConditionalHeaders(webRequest);
             try {
                 webResponse = getWebConnection().getResponse(webRequest);
             }
             catch (final NoHttpResponseException e) {
                 return new WebResponse(responseDataNoHttpResponse_, webRequest, 0);
             }
-            getCache().cacheIfPossible(webRequest, webResponse, null);
+            finally {
+                if (revalidation) {
+                    cache.removeConditionalHeaders(webRequest);
+                }
+            }
+
+            if (revalidation && webResponse.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
+                final WebResponse updated = cache.updateCachedResponse(webRequest, webResponse);
+                final WebResponseTiming timing = webResponse.getTiming();
+                webResponse.cleanUp();
+                if (updated != null) {
+                    webResponse = new WebResponseFromCache(updated, webRequest);
+                    webResponse.setTiming(timing);
+                }
+                else {
+                    // the entry vanished meanwhile (overflow, clear), the 304 alone is useless for the caller
+                    cache.remove(webRequest);
+                    try {
+                        webResponse = getWebConnection().getResponse(webRequest);
+                    }
+                    catch (final NoHttpResponseException e) {
+                        return new WebResponse(responseDataNoHttpResponse_, webRequest, 0);
+                    }
+                    cache.cacheIfPossible(webRequest, webResponse, null, metrics);
+                }
+            }
+            else {
+                if (revalidation) {
+                    // the stale response and the scripts or style sheets compiled from it are outdated,
+                    // whether or not the new response can be cached
+                    cache.remove(webRequest);
+                }
+                cache.cacheIfPossible(webRequest, webResponse, null, metrics);
+            }
         }
 
         // Continue according to the HTTP status code.
@@ -1727,6 +1964,45 @@ public class WebClient implements Serializable, AutoCloseable {
         cache_ = cache;
     }
 
+    /**
+     * Returns the clock used to schedule the JavaScript jobs and for the time seen by the scripts.
+     * @return the clock (may not be null)
+     */
+    public WebClock getClock() {
+        return clock_;
+    }
+
+    /**
+     * Sets the clock used to schedule the JavaScript jobs and for the time seen by the scripts,
+     * for instance a {@link VirtualWebClock}. It should be set before loading the first page.
+     * @param clock the new clock (must not be {@code null})
+     */
+    public void setClock(final WebClock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("clock should not be null!");
+        }
+        clock_ = clock;
+    }
+
+    /**
+     * Returns the listener receiving the measurements made inside this web client.
+     * @return the listener or {@code null} if none is set
+     */
+    public MetricsListener getMetricsListener() {
+        return metricsListener_;
+    }
+
+    /**
+     * Sets the listener receiving the measurements made inside this web client (durations of
+     * the page load phases, cache efficiency, connection pool waits, JavaScript job queues...),
+     * for instance a {@link MetricsRegistry}. The evictions of a {@link Cache} shared by several web clients
+     * are reported to the listener of the web client adding the entry.
+     * @param metricsListener the new listener, or {@code null} to stop measuring
+     */
+    public void setMetricsListener(final MetricsListener metricsListener) {
+        metricsListener_ = metricsListener;
+    }
+
     /**
      * Keeps track of the current window. Inspired by WebTest's logic to track the current response.
      */
@@ -1814,6 +2090,22 @@ public class WebClient implements Serializable, AutoCloseable {
         }
     }
 
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns the client shared by all WebSockets of this web client, so that they share its threads
+     * and selector. The client is started on the first call and stopped by {@link #close()}.
+     * @return the started WebSocket client
+     * @throws Exception if the client can't be started
+     */
+    public synchronized WebSocketClient getWebSocketClient() throws Exception {
+        if (webSocketClient_ == null) {
+            webSocketClient_ = WebSocket.createWebSocketClient(this);
+            webSocketClient_.start();
+        }
+        return webSocketClient_;
+    }
+
     /**
      * Closes all opened windows, stopping all background JavaScript processing.
      *
@@ -1836,6 +2128,24 @@ public class WebClient implements Serializable, AutoCloseable {
             scriptEngine_.shutdown();
         }
 
+        synchronized (this) {
+            if (backgroundLoader_ != null) {
+                if (pool_ == null) {
+                    backgroundLoader_.shutdownNow();
+                }
+                backgroundLoader_ = null;
+            }
+            if (webSocketClient_ != null) {
+                try {
+                    webSocketClient_.stop();
+                }
+                catch (final Exception e) {
+                    LOG.error("Exception while stopping the WebSocket client", e);
+                }
+                webSocketClient_ = null;
+            }
+        }
+
         try {
             webConnection_.close();
         }
@@ -1843,7 +2153,12 @@ public class WebClient implements Serializable, AutoCloseable {
             LOG.error("Exception while closing the connection", e);
         }
 
-        cache_.clear();
+        storageHolder_.flush();
+
+        // the cache of a pool is shared with the other web clients of the pool
+        if (pool_ == null || cache_ != pool_.getCache()) {
+            cache_.clear();
+        }
     }
 
     /**
@@ -1868,7 +2183,8 @@ public class WebClient implements Serializable, AutoCloseable {
      */
     public int waitForBackgroundJavaScript(final long timeoutMillis) {
         int count = 0;
-        final long endTime = System.currentTimeMillis() + timeoutMillis;
+        final WebClock clock = getClock();
+        final long endTime = clock.currentTimeMillis() + timeoutMillis;
         for (Iterator<WeakReference<JavaScriptJobManager>> i = jobManagers_.iterator(); i.hasNext();) {
             final JavaScriptJobManager jobManager;
             final WeakReference<JavaScriptJobManager> reference;
@@ -1886,11 +2202,11 @@ public class WebClient implements Serializable, AutoCloseable {
                 continue;
             }
 
-            final long newTimeout = endTime - System.currentTimeMillis();
+            final long newTimeout = endTime - clock.currentTimeMillis();
             count += jobManager.waitForJobs(newTimeout);
         }
         if (count != getAggregateJobCount()) {
-            final long newTimeout = endTime - System.currentTimeMillis();
+            final long newTimeout = endTime - clock.currentTimeMillis();
             return waitForBackgroundJavaScript(newTimeout);
         }
         return count;
@@ -1922,7 +2238,8 @@ public class WebClient implements Serializable, AutoCloseable {
      */
     public int waitForBackgroundJavaScriptStartingBefore(final long delayMillis) {
         int count = 0;
-        final long endTime = System.currentTimeMillis() + delayMillis;
+        final WebClock clock = getClock();
+        final long endTime = clock.currentTimeMillis() + delayMillis;
         for (Iterator<WeakReference<JavaScriptJobManager>> i = jobManagers_.iterator(); i.hasNext();) {
             final JavaScriptJobManager jobManager;
             final WeakReference<JavaScriptJobManager> reference;
@@ -1939,11 +2256,11 @@ public class WebClient implements Serializable, AutoCloseable {
                 count = 0;
                 continue;
             }
-            final long newDelay = endTime - System.currentTimeMillis();
+            final long newDelay = endTime - clock.currentTimeMillis();
             count += jobManager.waitForJobsStartingBefore(newDelay);
         }
         if (count != getAggregateJobCount()) {
-            final long newDelay = endTime - System.currentTimeMillis();
+            final long newDelay = endTime - clock.currentTimeMillis();
             return waitForBackgroundJavaScriptStartingBefore(newDelay);
         }
         return count;
@@ -1988,6 +2305,7 @@ public class WebClient implements Serializable, AutoCloseable {
 
         webConnection_ = createWebConnection();
         scriptEngine_ = new JavaScriptEngine(this);
+        loadingPages_ = new AtomicInteger();
         jobManagers_ = Collections.synchronizedList(new ArrayList<WeakReference<JavaScriptJobManager>>());
 
         if (getBrowserVersion().hasFeature(JS_XML_SUPPORT_VIA_ACTIVEXOBJECT)) {
@@ -1999,6 +2317,9 @@ public class WebClient implements Serializable, AutoCloseable {
         if (GAEUtils.isGaeMode()) {
             return new UrlFetchWebConnection(this);
         }
+        if (pool_ != null) {
+            return new HttpWebConnection(this, pool_.getConnectionManager());
+        }
 
         return new HttpWebConnection(this);
     }
@@ -2048,6 +2369,27 @@ public class WebClient implements Serializable, AutoCloseable {
 
     private final List<LoadJob> loadQueue_ = new ArrayList<>();
 
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns whether a page is being loaded, a download waits to be loaded into its window,
+     * or some JavaScript is being executed for this web client. The JavaScript executors
+     * don't move a {@link VirtualWebClock} forward in this case.
+     * @return whether this web client is busy
+     */
+    public boolean isBusy() {
+        if (loadingPages_.get() > 0) {
+            return true;
+        }
+        final JavaScriptEngine engine = scriptEngine_;
+        if (engine != null && engine.isAnyScriptRunning()) {
+            return true;
+        }
+        synchronized (loadQueue_) {
+            return !loadQueue_.isEmpty();
+        }
+    }
+
     /**
      * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
      *
@@ -2222,6 +2564,17 @@ public class WebClient implements Serializable, AutoCloseable {
         return storageHolder_;
     }
 
+    /**
+     * Sets the holder for the different storages, e.g. a {@link PersistentStorageHolder}
+     * to keep the local storage across restarts. The holder can be shared by several web clients.
+     * <p><span style="color:red">Experimental API: May be changed in next release!</span></p>
+     * @param storageHolder the holder
+     */
+    public void setStorageHolder(final StorageHolder storageHolder) {
+        WebAssert.notNull("storageHolder", storageHolder);
+        storageHolder_ = storageHolder;
+    }
+
     /**
      * Returns the currently configured cookies applicable to the specified URL, in an unmodifiable set.
      * If disabled, this returns an empty set.
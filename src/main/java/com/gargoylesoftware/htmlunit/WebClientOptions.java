@@ -58,6 +58,10 @@ public class WebClientOptions implements Serializable {
     private boolean downloadImages_;
     private int screenWidth_ = 1024;
     private int screenHeight_ = 768;
+    private int frameLoadingThreads_;
+    private boolean virtualThreadsEnabled_;
+    private int webSocketMaxTextMessageSize_ = -1;
+    private int webSocketMaxBinaryMessageSize_ = -1;
 
     /**
      * If set to {@code true}, the client will accept connections to any host, regardless of
@@ -649,4 +653,90 @@ public class WebClientOptions implements Serializable {
     public int getScreenHeight() {
         return screenHeight_;
     }
+
+    /**
+     * Sets the maximum number of frames and iframes of a page whose content is downloaded concurrently.
+     * Only the network requests run in parallel; the responses are still parsed and their scripts
+     * executed one frame after the other, in document order, once the parent page has been parsed.
+     * Set this to zero or one (the default is zero) to load the frames sequentially.
+     *
+     * @param frameLoadingThreads the maximum number of concurrent frame downloads
+     */
+    public void setFrameLoadingThreads(final int frameLoadingThreads) {
+        frameLoadingThreads_ = frameLoadingThreads;
+    }
+
+    /**
+     * Returns the maximum number of frames and iframes of a page whose content is downloaded concurrently.
+     *
+     * @return the maximum number of concurrent frame downloads
+     * @see #setFrameLoadingThreads(int)
+     */
+    public int getFrameLoadingThreads() {
+        return frameLoadingThreads_;
+    }
+
+    /**
+     * Enables/disables the use of virtual threads. By default, this property is disabled.
+     * <p>
+     * If enabled, the event loop executing the background JavaScript runs on a virtual thread and
+     * the network requests of asynchronous <tt>XMLHttpRequest</tt>s and frames are started on virtual threads,
+     * so that waiting for the server doesn't block an operating system thread.
+     * The JavaScript code of a page is still executed by one thread at a time.
+     * </p>
+     * <p>
+     * This has no effect if the Java runtime doesn't support virtual threads.
+     * </p>
+     *
+     * @param enabled {@code true} to enable the use of virtual threads
+     */
+    public void setVirtualThreadsEnabled(final boolean enabled) {
+        virtualThreadsEnabled_ = enabled;
+    }
+
+    /**
+     * Returns {@code true} if the use of virtual threads is enabled.
+     *
+     * @return {@code true} if the use of virtual threads is enabled
+     * @see #setVirtualThreadsEnabled(boolean)
+     */
+    public boolean isVirtualThreadsEnabled() {
+        return virtualThreadsEnabled_;
+    }
+
+    /**
+     * Returns the maximal size in characters of a text message received by a WebSocket.
+     * @return the maximal size, or -1 for the default of the WebSocket client (64 KB)
+     */
+    public int getWebSocketMaxTextMessageSize() {
+        return webSocketMaxTextMessageSize_;
+    }
+
+    /**
+     * Sets the maximal size in characters of a text message received by a WebSocket.
+     * As the WebSocket client is shared by all WebSockets, this has to be set before the first
+     * WebSocket is opened.
+     * @param webSocketMaxTextMessageSize the maximal size, or -1 for the default of the WebSocket client
+     */
+    public void setWebSocketMaxTextMessageSize(final int webSocketMaxTextMessageSize) {
+        webSocketMaxTextMessageSize_ = webSocketMaxTextMessageSize;
+    }
+
+    /**
+     * Returns the maximal size in bytes of a binary message received by a WebSocket.
+     * @return the maximal size, or -1 for the default of the WebSocket client (64 KB)
+     */
+    public int getWebSocketMaxBinaryMessageSize() {
+        return webSocketMaxBinaryMessageSize_;
+    }
+
+    /**
+     * Sets the maximal size in bytes of a binary message received by a WebSocket.
+     * As the WebSocket client is shared by all WebSockets, this has to be set before the first
+     * WebSocket is opened.
+     * @param webSocketMaxBinaryMessageSize the maximal size, or -1 for the default of the WebSocket client
+     */
+    public void setWebSocketMaxBinaryMessageSize(final int webSocketMaxBinaryMessageSize) {
+        webSocketMaxBinaryMessageSize_ = webSocketMaxBinaryMessageSize;
+    }
 }
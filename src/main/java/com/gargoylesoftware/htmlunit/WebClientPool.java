@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+
+import com.gargoylesoftware.htmlunit.javascript.background.JavaScriptExecutor;
+import com.gargoylesoftware.htmlunit.javascript.background.SharedJavaScriptExecutor;
+import com.gargoylesoftware.htmlunit.util.VirtualThreads;
+
+/**
+ * Creates {@link WebClient}s sharing the expensive parts of their runtime, to allow running
+ * many sessions in one JVM.
+ * <p>
+ * The web clients created by a pool share
+ * <ul>
+ *   <li>a fixed number of threads executing the background JavaScript (instead of one thread per web client)</li>
+ *   <li>the pool of HTTP connections</li>
+ *   <li>the threads downloading frame content (see {@link WebClientOptions#setFrameLoadingThreads(int)})</li>
+ *   <li>the {@link Cache}, holding the cacheable responses (except the private ones), compiled scripts
+ *   and parsed style sheets</li>
+ * </ul>
+ * Cookies, credentials, storage, windows and options are still held by each web client.
+ * </p>
+ * <p>
+ * The SSL settings of the shared connections are taken from the options given when creating the pool;
+ * changing them in the options of a pooled web client has no effect.
+ * </p>
+ * <p>
+ * <b>Example:</b><br>
+ * <br>
+ * <code>
+ * try (WebClientPool pool = new WebClientPool(BrowserVersion.CHROME, 4)) {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;try (WebClient webClient = pool.createWebClient()) {<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;final HtmlPage page = webClient.getPage("http://htmlunit.sf.net");<br>
+ * &nbsp;&nbsp;&nbsp;&nbsp;}<br>
+ * }
+ * </code>
+ * </p>
+ */
+public class WebClientPool implements AutoCloseable {
+
+    private final BrowserVersion browserVersion_;
+    private final SharedJavaScriptExecutor javaScriptExecutor_;
+    private final PoolingHttpClientConnectionManager connectionManager_;
+    private final ExecutorService backgroundLoader_;
+    private final Cache cache_ = new Cache();
+    private final boolean virtualThreads_;
+
+    /**
+     * Creates a pool of web clients simulating the specified {@link BrowserVersion}
+     * and using the default SSL settings.
+     * @param browserVersion the browser version to simulate
+     * @param threadCount the number of threads executing background JavaScript and downloading frames
+     */
+    public WebClientPool(final BrowserVersion browserVersion, final int threadCount) {
+        this(browserVersion, threadCount, new WebClientOptions());
+    }
+
+    /**
+     * Creates a pool of web clients simulating the specified {@link BrowserVersion}.
+     * @param browserVersion the browser version to simulate
+     * @param threadCount the number of threads executing background JavaScript and downloading frames
+     * @param options the options providing the SSL and timeout settings of the shared connections
+     *        and whether to use {@link WebClientOptions#setVirtualThreadsEnabled(boolean) virtual threads}
+     */
+    public WebClientPool(final BrowserVersion browserVersion, final int threadCount,
+            final WebClientOptions options) {
+        WebAssert.notNull("browserVersion", browserVersion);
+        WebAssert.notNull("options", options);
+        browserVersion_ = browserVersion;
+        cache_.setShared(true);
+        virtualThreads_ = options.isVirtualThreadsEnabled() && VirtualThreads.isSupported();
+        javaScriptExecutor_ = new SharedJavaScriptExecutor(threadCount, virtualThreads_);
+        connectionManager_ = HttpWebConnection.createConnectionManager(options);
+        connectionManager_.setMaxTotal(Math.max(connectionManager_.getMaxTotal(), 6 * threadCount));
+
+        if (virtualThreads_) {
+            backgroundLoader_ = VirtualThreads.newThreadPerTaskExecutor();
+        }
+        else {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            backgroundLoader_ = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    final Thread thread = new Thread(r,
+                            "Shared background loader " + threadNumber.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * Creates a new web client using the shared runtime of this pool.
+     * The web client should be closed when no more needed; this doesn't affect the other web clients of the pool.
+     * @return the new web client
+     */
+    public WebClient createWebClient() {
+        final WebClient webClient = new WebClient(browserVersion_, this);
+        webClient.getOptions().setVirtualThreadsEnabled(virtualThreads_);
+        return webClient;
+    }
+
+    /**
+     * Returns the browser version simulated by the web clients of this pool.
+     * @return the browser version
+     */
+    public BrowserVersion getBrowserVersion() {
+        return browserVersion_;
+    }
+
+    /**
+     * Returns the cache shared by the web clients of this pool.
+     * @return the shared cache
+     */
+    public Cache getCache() {
+        return cache_;
+    }
+
+    /**
+     * Returns the connection manager shared by the web clients of this pool,
+     * for instance to adjust the maximal number of connections.
+     * @return the shared connection manager
+     */
+    public PoolingHttpClientConnectionManager getConnectionManager() {
+        return connectionManager_;
+    }
+
+    /**
+     * Returns the number of web clients having windows registered with the shared JavaScript executor.
+     * @return the number of active web clients
+     */
+    public int getActiveClientCount() {
+        return javaScriptExecutor_.getClientCount();
+    }
+
+    JavaScriptExecutor createJavaScriptExecutor(final WebClient webClient) {
+        return javaScriptExecutor_.createJavaScriptExecutor(webClient);
+    }
+
+    ExecutorService getBackgroundLoader() {
+        return backgroundLoader_;
+    }
+
+    /**
+     * Stops the shared threads and closes the shared connections.
+     * The web clients created by this pool can't be used anymore afterwards.
+     */
+    @Override
+    public void close() {
+        javaScriptExecutor_.shutdown();
+        backgroundLoader_.shutdownNow();
+        connectionManager_.shutdown();
+        cache_.clear();
+    }
+}
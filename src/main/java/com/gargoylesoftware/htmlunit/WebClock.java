@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.io.Serializable;
+
+/**
+ * The clock of a {@link WebClient}, used to schedule the JavaScript jobs (<tt>setTimeout</tt>,
+ * <tt>setInterval</tt>, ...) and for the time seen by the scripts (<tt>Date.now()</tt>,
+ * <tt>performance.now()</tt> and <tt>performance.timing</tt>).
+ * This default implementation uses the system time.
+ *
+ * @see WebClient#setClock(WebClock)
+ * @see VirtualWebClock
+ */
+public class WebClock implements Serializable {
+
+    /**
+     * Returns the current time in milliseconds since the epoch.
+     * @return the current time
+     * @see System#currentTimeMillis()
+     */
+    public long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the value of a high resolution time source, in nanoseconds. Only the difference
+     * between two values is meaningful.
+     * @return the current value of the time source
+     * @see System#nanoTime()
+     */
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Called by the JavaScript executor when no job is due before the specified time.
+     * This implementation does nothing and returns {@code false}: the executor has to wait.
+     * @param targetTime the time (in milliseconds since the epoch) at which the next job is due
+     * @return whether the clock has been moved forward, so that the executor doesn't have to wait
+     */
+    public boolean fastForward(final long targetTime) {
+        return false;
+    }
+}
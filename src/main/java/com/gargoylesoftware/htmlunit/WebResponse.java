@@ -46,9 +46,24 @@ public class WebResponse implements Serializable {
 
     private static final Log LOG = LogFactory.getLog(WebResponse.class);
 
+    /** Whether a subclass overrides {@link #getContentAsStream()} or {@link #getResponseHeaders()}. */
+    private static final ClassValue<Boolean> OVERRIDES_CONTENT = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(final Class<?> type) {
+            try {
+                return type.getMethod("getContentAsStream").getDeclaringClass() != WebResponse.class
+                        || type.getMethod("getResponseHeaders").getDeclaringClass() != WebResponse.class;
+            }
+            catch (final NoSuchMethodException e) {
+                return Boolean.TRUE;
+            }
+        }
+    };
+
     private long loadTime_;
     private WebResponseData responseData_;
     private WebRequest request_;
+    private WebResponseTiming timing_;
 
     /**
      * Constructs with all data.
@@ -147,8 +162,14 @@ public class WebResponse implements Serializable {
      *         or {@code null} if none was specified
      */
     public Charset getContentCharsetOrNull() {
-        try (InputStream is = getContentAsStream()) {
-            return EncodingSniffer.sniffEncoding(getResponseHeaders(), is);
+        try {
+            if (responseData_ == null || OVERRIDES_CONTENT.get(getClass())) {
+                // the sniffed charset of the data doesn't apply to the content of this subclass
+                try (InputStream is = getContentAsStream()) {
+                    return EncodingSniffer.sniffEncoding(getResponseHeaders(), is);
+                }
+            }
+            return responseData_.getContentCharsetOrNull();
         }
         catch (final IOException e) {
             LOG.warn("Error trying to sniff encoding.", e);
@@ -283,6 +304,22 @@ public class WebResponse implements Serializable {
         return loadTime_;
     }
 
+    /**
+     * Returns the detailed timings of the network activity which produced this web response.
+     * @return the timings, or {@code null} if the response hasn't been received from the network
+     */
+    public WebResponseTiming getTiming() {
+        return timing_;
+    }
+
+    /**
+     * Sets the detailed timings of the network activity which produced this web response.
+     * @param timing the timings
+     */
+    public void setTiming(final WebResponseTiming timing) {
+        timing_ = timing;
+    }
+
     /**
      * Clean up the response data.
      */
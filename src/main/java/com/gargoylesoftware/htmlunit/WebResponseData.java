@@ -19,6 +19,7 @@ import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.List;
 import java.util.zip.GZIPInputStream;
@@ -31,6 +32,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.gargoylesoftware.htmlunit.util.EncodingSniffer;
 import com.gargoylesoftware.htmlunit.util.NameValuePair;
 
 /**
@@ -49,6 +51,10 @@ public class WebResponseData implements Serializable {
     private final List<NameValuePair> responseHeaders_;
     private final DownloadedContent downloadedContent_;
 
+    /** The charset found by {@link #getContentCharsetOrNull()}, the content is sniffed only once. */
+    private transient volatile boolean charsetSniffed_;
+    private transient Charset sniffedCharset_;
+
     /**
      * Constructs with a raw byte[] (mostly for testing).
      *
@@ -171,6 +177,32 @@ public class WebResponseData implements Serializable {
         return getStream(downloadedContent_, getResponseHeaders());
     }
 
+    /**
+     * Returns the charset specified explicitly in the headers or in the beginning of the content,
+     * as determined by {@link EncodingSniffer#sniffEncoding(List, InputStream)}.
+     * The content is read (and decompressed) only the first time, the result is kept for the next calls.
+     * @return the charset or {@code null} if none was specified
+     * @throws IOException in case of IO problems
+     */
+    public Charset getContentCharsetOrNull() throws IOException {
+        if (!charsetSniffed_) {
+            synchronized (this) {
+                if (!charsetSniffed_) {
+                    // the headers first, not to open (and decompress) the content if not needed
+                    Charset charset = EncodingSniffer.sniffEncoding(getResponseHeaders(), null);
+                    if (charset == null) {
+                        try (InputStream is = getInputStream()) {
+                            charset = EncodingSniffer.sniffEncoding(getResponseHeaders(), is);
+                        }
+                    }
+                    sniffedCharset_ = charset;
+                    charsetSniffed_ = true;
+                }
+            }
+        }
+        return sniffedCharset_;
+    }
+
     /**
      * @return response headers
      */
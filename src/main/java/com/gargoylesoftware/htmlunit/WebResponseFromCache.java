@@ -25,6 +25,7 @@ import com.gargoylesoftware.htmlunit.util.WebResponseWrapper;
 class WebResponseFromCache extends WebResponseWrapper {
 
     private final WebRequest request_;
+    private WebResponseTiming timing_;
 
     /**
      * Wraps the provide response for the given request
@@ -43,4 +44,22 @@ class WebResponseFromCache extends WebResponseWrapper {
     public WebRequest getWebRequest() {
         return request_;
     }
+
+    /**
+     * Returns the timings of the revalidation of the cached response, if any:
+     * the timings of the cached response don't belong to this request.
+     * @return the timings or {@code null}
+     */
+    @Override
+    public WebResponseTiming getTiming() {
+        return timing_;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setTiming(final WebResponseTiming timing) {
+        timing_ = timing;
+    }
 }
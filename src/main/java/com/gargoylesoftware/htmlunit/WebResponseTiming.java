@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The timings of the network activity which produced a {@link WebResponse}, in milliseconds
+ * since the epoch. Only the start of the fetch is read from the wall clock of the {@link WebClock}
+ * of the web client; the following steps are measured with its monotonic {@link WebClock#nanoTime()}
+ * relatively to this start, so that they are not affected by adjustments of the system time.
+ * They are captured by the {@link HttpWebConnection} and exposed to the scripts through
+ * <tt>performance.getEntriesByType()</tt>.
+ *
+ * <p>The steps which didn't happen, for instance the DNS lookup and the connection
+ * when a persistent connection has been reused, have the value of the previous step,
+ * like in the <a href="https://www.w3.org/TR/resource-timing/">Resource Timing</a> specification.</p>
+ *
+ * @see WebResponse#getTiming()
+ */
+public class WebResponseTiming implements Serializable {
+
+    private static final long NOT_REACHED = -1;
+
+    private final WebClock clock_;
+    private final String url_;
+    private String initiatorType_;
+
+    private final long fetchStart_;
+    private final long fetchStartNanos_;
+
+    // the nanoseconds elapsed since the start of the fetch, or NOT_REACHED
+    private long domainLookupStart_ = NOT_REACHED;
+    private long domainLookupEnd_ = NOT_REACHED;
+    private long connectStart_ = NOT_REACHED;
+    private long connectEnd_ = NOT_REACHED;
+    private long secureConnectionStart_ = NOT_REACHED;
+    private long requestStart_ = NOT_REACHED;
+    private long responseStart_ = NOT_REACHED;
+    private long responseEnd_ = NOT_REACHED;
+
+    /**
+     * Creates a new instance, starting now.
+     * @param clock the clock of the web client
+     * @param url the URL of the resource
+     */
+    public WebResponseTiming(final WebClock clock, final String url) {
+        WebAssert.notNull("clock", clock);
+        clock_ = clock;
+        url_ = url;
+        fetchStart_ = clock.currentTimeMillis();
+        fetchStartNanos_ = clock.nanoTime();
+    }
+
+    /**
+     * Returns the URL of the resource.
+     * @return the URL
+     */
+    public String getUrl() {
+        return url_;
+    }
+
+    /**
+     * Returns the type of the element or object which initiated the load of the resource
+     * (<tt>script</tt>, <tt>link</tt>, <tt>img</tt>, <tt>xmlhttprequest</tt>...), if known.
+     * @return the initiator type or {@code null}
+     */
+    public String getInitiatorType() {
+        return initiatorType_;
+    }
+
+    /**
+     * Sets the type of the element or object which initiated the load of the resource.
+     * @param initiatorType the initiator type
+     */
+    public void setInitiatorType(final String initiatorType) {
+        initiatorType_ = initiatorType;
+    }
+
+    /**
+     * Returns the time at which the fetch started.
+     * @return the time
+     */
+    public long getFetchStart() {
+        return fetchStart_;
+    }
+
+    /**
+     * Returns the time at which the DNS lookup started.
+     * @return the time
+     */
+    public long getDomainLookupStart() {
+        if (domainLookupStart_ == NOT_REACHED) {
+            return fetchStart_;
+        }
+        return toTime(domainLookupStart_);
+    }
+
+    /**
+     * Returns the time at which the DNS lookup finished.
+     * @return the time
+     */
+    public long getDomainLookupEnd() {
+        if (domainLookupEnd_ == NOT_REACHED) {
+            return getDomainLookupStart();
+        }
+        return toTime(domainLookupEnd_);
+    }
+
+    /**
+     * Returns the time at which the connection to the server started.
+     * @return the time
+     */
+    public long getConnectStart() {
+        if (connectStart_ == NOT_REACHED) {
+            return getDomainLookupEnd();
+        }
+        return Math.max(toTime(connectStart_), getDomainLookupEnd());
+    }
+
+    /**
+     * Returns the time at which the connection to the server (including the TLS handshake) was established.
+     * @return the time
+     */
+    public long getConnectEnd() {
+        if (connectEnd_ == NOT_REACHED) {
+            return getConnectStart();
+        }
+        return toTime(connectEnd_);
+    }
+
+    /**
+     * Returns whether a new connection has been opened for the request,
+     * instead of reusing one of the pool.
+     * @return whether a new connection has been opened
+     */
+    public boolean isNewConnection() {
+        return connectStart_ != NOT_REACHED;
+    }
+
+    /**
+     * Returns the time at which the TLS handshake started.
+     * @return the time, or {@code 0} if no new secure connection has been established
+     */
+    public long getSecureConnectionStart() {
+        if (secureConnectionStart_ == NOT_REACHED) {
+            return 0;
+        }
+        return toTime(secureConnectionStart_);
+    }
+
+    /**
+     * Returns the time at which the sending of the request started.
+     * @return the time
+     */
+    public long getRequestStart() {
+        if (requestStart_ == NOT_REACHED) {
+            return getConnectEnd();
+        }
+        return toTime(requestStart_);
+    }
+
+    /**
+     * Returns the time at which the headers of the response were received.
+     * @return the time
+     */
+    public long getResponseStart() {
+        if (responseStart_ == NOT_REACHED) {
+            return getRequestStart();
+        }
+        return toTime(responseStart_);
+    }
+
+    /**
+     * Returns the time at which the body of the response was completely received.
+     * @return the time
+     */
+    public long getResponseEnd() {
+        if (responseEnd_ == NOT_REACHED) {
+            return getResponseStart();
+        }
+        return toTime(responseEnd_);
+    }
+
+    /**
+     * Returns the duration of the whole fetch.
+     * @return the duration in milliseconds
+     */
+    public long getDuration() {
+        return getResponseEnd() - fetchStart_;
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Records the start of the DNS lookup.
+     */
+    public void markDomainLookupStart() {
+        domainLookupStart_ = elapsedNanos();
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Records the end of the DNS lookup.
+     */
+    public void markDomainLookupEnd() {
+        domainLookupEnd_ = elapsedNanos();
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Records the start of the connection.
+     */
+    public void markConnectStart() {
+        connectStart_ = elapsedNanos();
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Records the end of the connection.
+     */
+    public void markConnectEnd() {
+        connectEnd_ = elapsedNanos();
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Records the start of the TLS handshake.
+     */
+    public void markSecureConnectionStart() {
+        secureConnectionStart_ = elapsedNanos();
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Records the start of the sending of the request.
+     */
+    public void markRequestStart() {
+        requestStart_ = elapsedNanos();
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Records the reception of the headers of the response.
+     */
+    public void markResponseStart() {
+        responseStart_ = elapsedNanos();
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Records the complete reception of the body of the response.
+     */
+    public void markResponseEnd() {
+        responseEnd_ = elapsedNanos();
+    }
+
+    private long elapsedNanos() {
+        return Math.max(0, clock_.nanoTime() - fetchStartNanos_);
+    }
+
+    private long toTime(final long elapsedNanos) {
+        return fetchStart_ + TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+}
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -29,6 +30,7 @@ import com.gargoylesoftware.htmlunit.Page;
 import com.gargoylesoftware.htmlunit.SgmlPage;
 import com.gargoylesoftware.htmlunit.WebClient;
 import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
 import com.gargoylesoftware.htmlunit.WebWindow;
 import com.gargoylesoftware.htmlunit.javascript.JavaScriptEngine;
 import com.gargoylesoftware.htmlunit.javascript.PostponedAction;
@@ -57,6 +59,8 @@ public abstract class BaseFrameElement extends HtmlElement {
     private boolean contentLoaded_ = false;
     private boolean createdByJavascript_ = false;
     private boolean loadSrcWhenAddedToPage_ = false;
+    private transient WebRequest prefetchedRequest_;
+    private transient Future<WebResponse> prefetchedResponse_;
 
     /**
      * Creates an instance of BaseFrame.
@@ -141,6 +145,48 @@ public abstract class BaseFrameElement extends HtmlElement {
         }
     }
 
+    /**
+     * Starts downloading the content specified by the {@code src} attribute in the background.
+     * The downloaded response is used by the next {@link #loadInnerPage()} if the {@code src}
+     * attribute still points to the same URL by then.
+     */
+    void prefetchInnerPage() {
+        if (prefetchedResponse_ != null) {
+            return;
+        }
+        final String source = getSrcAttribute();
+        if (source.isEmpty() || StringUtils.startsWithIgnoreCase(source, WebClient.ABOUT_SCHEME)) {
+            return;
+        }
+
+        final URL url;
+        try {
+            url = ((HtmlPage) getPage()).getFullyQualifiedUrl(source);
+        }
+        catch (final MalformedURLException e) {
+            return;
+        }
+        final String protocol = url.getProtocol();
+        if ((!"http".equals(protocol) && !"https".equals(protocol)) || isAlreadyLoadedByAncestor(url)) {
+            return;
+        }
+
+        prefetchedRequest_ = createInnerPageRequest(url);
+        prefetchedResponse_ = getPage().getWebClient().loadWebResponseInBackground(prefetchedRequest_);
+    }
+
+    /**
+     * Cancels the download started by {@link #prefetchInnerPage()}, if any, as the frame won't be loaded.
+     */
+    void cancelPrefetch() {
+        final Future<WebResponse> prefetchedResponse = prefetchedResponse_;
+        prefetchedRequest_ = null;
+        prefetchedResponse_ = null;
+        if (prefetchedResponse != null) {
+            WebClient.cancelWebResponseInBackground(prefetchedResponse);
+        }
+    }
+
     /**
      * Indicates if the content specified by the {@code src} attribute has been loaded or not.
      * The initial state of a frame contains an "about:blank" that is not loaded like
@@ -172,17 +218,28 @@ public abstract class BaseFrameElement extends HtmlElement {
                 url = ((HtmlPage) getPage()).getFullyQualifiedUrl(src);
             }
             catch (final MalformedURLException e) {
+                cancelPrefetch();
                 notifyIncorrectness("Invalid src attribute of " + getTagName() + ": url=[" + src + "]. Ignored.");
                 return;
             }
             if (isAlreadyLoadedByAncestor(url)) {
+                cancelPrefetch();
                 notifyIncorrectness("Recursive src attribute of " + getTagName() + ": url=[" + src + "]. Ignored.");
                 return;
             }
+            final WebRequest prefetchedRequest = prefetchedRequest_;
+            final Future<WebResponse> prefetchedResponse = prefetchedResponse_;
             try {
-                final WebRequest request = new WebRequest(url);
-                request.setAdditionalHeader("Referer", getPage().getUrl().toExternalForm());
-                getPage().getEnclosingWindow().getWebClient().getPage(enclosedWindow_, request);
+                final WebClient webClient = getPage().getEnclosingWindow().getWebClient();
+                if (prefetchedRequest != null && UrlUtils.sameFile(url, prefetchedRequest.getUrl())) {
+                    prefetchedRequest_ = null;
+                    prefetchedResponse_ = null;
+                    webClient.getPage(enclosedWindow_, prefetchedRequest, prefetchedResponse);
+                }
+                else {
+                    cancelPrefetch();
+                    webClient.getPage(enclosedWindow_, createInnerPageRequest(url));
+                }
             }
             catch (final IOException e) {
                 LOG.error("IOException when getting content for " + getTagName() + ": url=[" + url + "]", e);
@@ -190,6 +247,12 @@ public abstract class BaseFrameElement extends HtmlElement {
         }
     }
 
+    private WebRequest createInnerPageRequest(final URL url) {
+        final WebRequest request = new WebRequest(url);
+        request.setAdditionalHeader("Referer", getPage().getUrl().toExternalForm());
+        return request;
+    }
+
     /**
      * Test if the provided URL is the one of one of the parents which would cause an infinite loop.
      * @param url the URL to test
@@ -398,6 +461,13 @@ public abstract class BaseFrameElement extends HtmlElement {
         final String src = getSrcAttribute();
 
         final JavaScriptEngine jsEngine = getPage().getWebClient().getJavaScriptEngine();
+        if (!jsEngine.isScriptRunning() && isConcurrentLoadingWhileParsing()) {
+            // only the download is started, the page is loaded with the other frames by HtmlPage.loadFrames()
+            prefetchInnerPage();
+            if (prefetchedResponse_ != null) {
+                return;
+            }
+        }
         // When src is set from a script, loading is postponed until script finishes
         // in fact this implementation is probably wrong: JavaScript URL should be
         // first evaluated and only loading, when any, should be postponed.
@@ -424,6 +494,19 @@ public abstract class BaseFrameElement extends HtmlElement {
         }
     }
 
+    /**
+     * Returns whether the frames of the page are being parsed and have to be downloaded concurrently;
+     * they are loaded when the page is initialized then.
+     */
+    private boolean isConcurrentLoadingWhileParsing() {
+        final SgmlPage page = getPage();
+        if (!(page instanceof HtmlPage) || page.getWebClient().getOptions().getFrameLoadingThreads() < 2) {
+            return false;
+        }
+        final HtmlPage htmlPage = (HtmlPage) page;
+        return htmlPage.isBeingParsed() && !htmlPage.isParsingHtmlSnippet() && !htmlPage.isParsingInlineHtmlSnippet();
+    }
+
     @Override
     protected void onAddedToPage() {
         super.onAddedToPage();
@@ -17,12 +17,17 @@ package com.gargoylesoftware.htmlunit.html;
 import static com.gargoylesoftware.htmlunit.BrowserVersionFeatures.DOM_NORMALIZE_REMOVE_CHILDREN;
 import static com.gargoylesoftware.htmlunit.BrowserVersionFeatures.QUERYSELECTORALL_NOT_IN_QUIRKS;
 import static com.gargoylesoftware.htmlunit.BrowserVersionFeatures.XPATH_SELECTION_NAMESPACES;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.io.Serializable;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -56,6 +61,7 @@ import com.gargoylesoftware.htmlunit.WebClient;
 import com.gargoylesoftware.htmlunit.html.HtmlElement.DisplayStyle;
 import com.gargoylesoftware.htmlunit.html.xpath.XPathUtils;
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
+import com.gargoylesoftware.htmlunit.javascript.host.css.CSSParserPool;
 import com.gargoylesoftware.htmlunit.javascript.host.css.CSSStyleDeclaration;
 import com.gargoylesoftware.htmlunit.javascript.host.css.CSSStyleSheet;
 import com.gargoylesoftware.htmlunit.javascript.host.css.StyleAttributes;
@@ -64,7 +70,6 @@ import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLDocument;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLElement;
 import com.gargoylesoftware.htmlunit.xml.XmlPage;
 import com.steadystate.css.parser.CSSOMParser;
-import com.steadystate.css.parser.SACParserCSS3;
 
 import net.sourceforge.htmlunit.corejs.javascript.Context;
 import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
@@ -812,22 +817,62 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
      * @return the XML string
      */
     public String asXml() {
+        final StringWriter stringWriter = new StringWriter();
+        try (PrintWriter printWriter = new PrintWriter(stringWriter)) {
+            printXmlDocument(printWriter);
+            return stringWriter.toString();
+        }
+    }
+
+    /**
+     * Writes the XML representation of this element and all it's children (recursively) to the specified writer.
+     * The output is the same as the one of {@link #asXml()}, but it is written as it is produced
+     * instead of being built in memory. The writer is flushed but not closed.
+     * @param writer the writer
+     * @throws IOException if an error occurs while writing
+     */
+    public void writeXml(final Writer writer) throws IOException {
+        final PrintWriter printWriter = new PrintWriter(writer instanceof BufferedWriter
+                ? writer : new BufferedWriter(writer));
+        printXmlDocument(printWriter);
+        printWriter.flush();
+        if (printWriter.checkError()) {
+            throw new IOException("Error writing the XML representation of " + this);
+        }
+    }
+
+    /**
+     * Writes the XML representation of this element and all it's children (recursively) to the specified
+     * stream. The charset used is the current page encoding, or UTF-8 if there is none.
+     * The stream is flushed but not closed.
+     * @param outputStream the stream
+     * @throws IOException if an error occurs while writing
+     */
+    public void writeXml(final OutputStream outputStream) throws IOException {
+        Charset charset = null;
+        final HtmlPage htmlPage = getHtmlPageOrNull();
+        if (htmlPage != null) {
+            charset = htmlPage.getCharset();
+        }
+        if (charset == null) {
+            charset = UTF_8;
+        }
+        writeXml(new OutputStreamWriter(outputStream, charset));
+    }
+
+    private void printXmlDocument(final PrintWriter printWriter) {
         Charset charsetName = null;
         final HtmlPage htmlPage = getHtmlPageOrNull();
         if (htmlPage != null) {
             charsetName = htmlPage.getCharset();
         }
 
-        final StringWriter stringWriter = new StringWriter();
-        try (PrintWriter printWriter = new PrintWriter(stringWriter)) {
-            if (charsetName != null && this instanceof HtmlHtml) {
-                printWriter.print("<?xml version=\"1.0\" encoding=\"");
-                printWriter.print(charsetName);
-                printWriter.print("\"?>\r\n");
-            }
-            printXml("", printWriter);
-            return stringWriter.toString();
+        if (charsetName != null && this instanceof HtmlHtml) {
+            printWriter.print("<?xml version=\"1.0\" encoding=\"");
+            printWriter.print(charsetName);
+            printWriter.print("\"?>\r\n");
         }
+        printXml("", printWriter);
     }
 
     /**
@@ -1077,9 +1122,17 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
 
             // a node that is already "complete" (ie not being parsed) and not yet attached
             if (!domNode.isBodyParsed() && !wasAlreadyAttached) {
-                for (final DomNode child : domNode.getDescendants()) {
+                DomNode child = domNode.getFirstChild();
+                while (child != null) {
+                    // the handlers may change the tree: find the next node first,
+                    // and stop if it has been removed from the added subtree
+                    DomNode next = domNode.getNextDescendant(child, false);
                     child.attachedToPage_ = true;
                     child.onAllChildrenAddedToPage(true);
+                    if (next != null && !domNode.isAncestorOf(next)) {
+                        next = null;
+                    }
+                    child = next;
                 }
                 domNode.onAllChildrenAddedToPage(true);
             }
@@ -1407,6 +1460,34 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
         };
     }
 
+    /**
+     * Returns the node following the specified descendant in document order, without leaving the subtree
+     * of this node. Unlike {@link #getDescendants()}, this allows to walk the tree without any allocation
+     * and to skip whole subtrees:
+     * <pre>
+     * for (DomNode node = root.getFirstChild(); node != null;
+     *         node = root.getNextDescendant(node, !(node instanceof HtmlElement))) {
+     *     ...
+     * }
+     * </pre>
+     * @param node the current node, a descendant of this node
+     * @param skipChildren whether the descendants of the current node should be skipped
+     * @return the following descendant or {@code null} if the end of the subtree is reached
+     */
+    public final DomNode getNextDescendant(final DomNode node, final boolean skipChildren) {
+        if (!skipChildren && node.firstChild_ != null) {
+            return node.firstChild_;
+        }
+        DomNode current = node;
+        while (current != null && current != this) {
+            if (current.nextSibling_ != null) {
+                return current.nextSibling_;
+            }
+            current = current.parent_;
+        }
+        return null;
+    }
+
     /**
      * Iterates over all descendants of a specific type, in document order.
      * @param <T> the type of nodes over which to iterate
@@ -1416,6 +1497,7 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
         private DomNode currentNode_;
         private DomNode nextNode_;
         private final Class<T> type_;
+        private final boolean acceptAll_;
 
         /**
          * Creates a new instance which iterates over the specified node type.
@@ -1423,6 +1505,7 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
          */
         public DescendantElementsIterator(final Class<T> type) {
             type_ = type;
+            acceptAll_ = type == DomNode.class;
             nextNode_ = getFirstChildElement(DomNode.this);
         }
 
@@ -1502,7 +1585,17 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
          * @return {@code true} if accepted
          */
         protected boolean isAccepted(final DomNode node) {
-            return type_.isAssignableFrom(node.getClass());
+            // avoid the reflection for the common cases
+            if (acceptAll_) {
+                return true;
+            }
+            if (type_ == HtmlElement.class) {
+                return node instanceof HtmlElement;
+            }
+            if (type_ == DomElement.class) {
+                return node instanceof DomElement;
+            }
+            return type_.isInstance(node);
         }
 
         private DomNode getNextDomSibling(final DomNode element) {
@@ -1851,11 +1944,15 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
     public DomNodeList<DomNode> querySelectorAll(final String selectors) {
         try {
             final WebClient webClient = getPage().getWebClient();
-            final CSSOMParser parser = new CSSOMParser(new SACParserCSS3());
             final CheckErrorHandler errorHandler = new CheckErrorHandler();
-            parser.setErrorHandler(errorHandler);
-
-            final SelectorList selectorList = parser.parseSelectors(new InputSource(new StringReader(selectors)));
+            final SelectorList selectorList;
+            final CSSOMParser parser = CSSParserPool.acquire(errorHandler);
+            try {
+                selectorList = parser.parseSelectors(new InputSource(new StringReader(selectors)));
+            }
+            finally {
+                CSSParserPool.release(parser);
+            }
             // in case of error parseSelectors returns null
             if (errorHandler.errorDetected()) {
                 throw new CSSException("Invalid selectors: " + selectors);
@@ -1873,12 +1970,15 @@ public abstract class DomNode implements Cloneable, Serializable, Node {
                 }
                 CSSStyleSheet.validateSelectors(selectorList, documentMode, this);
 
-                for (final DomElement child : getDomElementDescendants()) {
-                    for (int i = 0; i < selectorList.getLength(); i++) {
-                        final Selector selector = selectorList.item(i);
-                        if (CSSStyleSheet.selects(browserVersion, selector, child, null, true)) {
-                            elements.add(child);
-                            break;
+                final int length = selectorList.getLength();
+                for (DomNode child = getFirstChild(); child != null; child = getNextDescendant(child, false)) {
+                    if (child.getNodeType() == ELEMENT_NODE) {
+                        for (int i = 0; i < length; i++) {
+                            final Selector selector = selectorList.item(i);
+                            if (CSSStyleSheet.selects(browserVersion, selector, (DomElement) child, null, true)) {
+                                elements.add(child);
+                                break;
+                            }
                         }
                     }
                 }
@@ -53,6 +53,7 @@ import org.xml.sax.SAXException;
 import org.xml.sax.ext.LexicalHandler;
 
 import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.gargoylesoftware.htmlunit.MetricsListener;
 import com.gargoylesoftware.htmlunit.ObjectInstantiationException;
 import com.gargoylesoftware.htmlunit.Page;
 import com.gargoylesoftware.htmlunit.SgmlPage;
@@ -62,6 +63,7 @@ import com.gargoylesoftware.htmlunit.WebResponse;
 import com.gargoylesoftware.htmlunit.WebWindow;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLBodyElement;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLDocument;
+import com.gargoylesoftware.htmlunit.jfr.FlightRecorderEvents;
 import com.gargoylesoftware.htmlunit.svg.SvgElementFactory;
 
 import net.sourceforge.htmlunit.cyberneko.HTMLConfiguration;
@@ -242,6 +244,9 @@ public final class HTMLParser {
             final XMLInputSource in = new XMLInputSource(null, url.toString(), null, content, encoding);
 
             page.registerParsingStart();
+            final MetricsListener metrics = webWindow.getWebClient().getMetricsListener();
+            final long start = System.nanoTime();
+            final Object event = FlightRecorderEvents.beginHtmlParse();
             try {
                 domBuilder.parse(in);
             }
@@ -250,6 +255,12 @@ public final class HTMLParser {
                 final Throwable origin = extractNestedException(e);
                 throw new RuntimeException("Failed parsing content from " + url, origin);
             }
+            finally {
+                if (metrics != null) {
+                    metrics.record(MetricsListener.HTML_PARSE, System.nanoTime() - start);
+                }
+                FlightRecorderEvents.commitHtmlParse(event, page, webResponse.getContentLength());
+            }
         }
         finally {
             page.registerParsingEnd();
@@ -24,6 +24,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Iterator;
 import java.util.Map;
@@ -451,13 +452,8 @@ public class HtmlImage extends HtmlElement {
             if (!"".equals(src)
                     && !(hasFeature(HTMLIMAGE_BLANK_SRC_AS_EMPTY) && StringUtils.isBlank(src))) {
                 final HtmlPage page = (HtmlPage) getPage();
-                final WebClient webclient = page.getWebClient();
-
-                final URL url = page.getFullyQualifiedUrl(src);
-                final String accept = webclient.getBrowserVersion().getImgAcceptHeader();
-                final WebRequest request = new WebRequest(url, accept);
-                request.setAdditionalHeader("Referer", page.getUrl().toExternalForm());
-                imageWebResponse_ = webclient.loadWebResponse(request);
+                imageWebResponse_ = page.getWebClient().loadWebResponse(getWebRequest());
+                page.addResourceTiming(imageWebResponse_, "img");
             }
 
             if (imageData_ != null) {
@@ -472,6 +468,20 @@ public class HtmlImage extends HtmlElement {
         }
     }
 
+    /**
+     * Returns the request which will allow us to retrieve the image referenced by the {@code src} attribute.
+     * @return the request
+     * @throws MalformedURLException in case of problem resolving the URL
+     */
+    WebRequest getWebRequest() throws MalformedURLException {
+        final HtmlPage page = (HtmlPage) getPage();
+        final URL url = page.getFullyQualifiedUrl(getSrcAttribute());
+        final String accept = page.getWebClient().getBrowserVersion().getImgAcceptHeader();
+        final WebRequest request = new WebRequest(url, accept);
+        request.setAdditionalHeader("Referer", page.getUrl().toExternalForm());
+        return request;
+    }
+
     private void readImageIfNeeded() throws IOException {
         downloadImageIfNeeded();
         if (imageData_ == null) {
@@ -187,6 +187,10 @@ public class HtmlLink extends HtmlElement {
             else {
                 cachedWebResponse_ = webclient.loadWebResponse(request);
             }
+            final SgmlPage page = getPage();
+            if (page instanceof HtmlPage) {
+                ((HtmlPage) page).addResourceTiming(cachedWebResponse_, "link");
+            }
         }
         return cachedWebResponse_;
     }
@@ -43,6 +43,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
@@ -73,6 +74,7 @@ import com.gargoylesoftware.htmlunit.WebAssert;
 import com.gargoylesoftware.htmlunit.WebClient;
 import com.gargoylesoftware.htmlunit.WebRequest;
 import com.gargoylesoftware.htmlunit.WebResponse;
+import com.gargoylesoftware.htmlunit.WebResponseTiming;
 import com.gargoylesoftware.htmlunit.WebWindow;
 import com.gargoylesoftware.htmlunit.html.HTMLParser.HtmlUnitDOMBuilder;
 import com.gargoylesoftware.htmlunit.html.impl.SelectableTextInput;
@@ -140,6 +142,9 @@ public class HtmlPage extends SgmlPage {
 
     private static final Comparator<DomElement> documentPositionComparator = new DocumentPositionComparator();
 
+    /** The maximal number of recorded resource timings, the default buffer size of the browsers. */
+    private static final int MAX_RESOURCE_TIMINGS = 250;
+
     private HtmlUnitDOMBuilder builder_;
     private transient Charset originalCharset_;
 
@@ -162,6 +167,8 @@ public class HtmlPage extends SgmlPage {
     private ElementFromPointHandler elementFromPointHandler_;
     private DomElement elementWithFocus_;
     private List<Range> selectionRanges_ = new ArrayList<>(3);
+    private HtmlSerializerCache serializerCache_;
+    private List<WebResponseTiming> resourceTimings_ = new ArrayList<>();
 
     private static final List<String> TABBABLE_TAGS = Arrays.asList(HtmlAnchor.TAG_NAME, HtmlArea.TAG_NAME,
             HtmlButton.TAG_NAME, HtmlInput.TAG_NAME, HtmlObject.TAG_NAME, HtmlSelect.TAG_NAME, HtmlTextArea.TAG_NAME);
@@ -238,6 +245,10 @@ public class HtmlPage extends SgmlPage {
             }
         }
 //        loadFrames();
+        // the frames are loaded while parsing, unless they are to be downloaded concurrently (see BaseFrameElement)
+        if (getWebClient().getOptions().getFrameLoadingThreads() > 1) {
+            loadFrames();
+        }
 
         // don't set the ready state if we really load the blank page into the window
         // see Node.initInlineFrameIfNeeded()
@@ -1012,10 +1023,11 @@ public class HtmlPage extends SgmlPage {
         // loadWebResponse check the cache for the web response
         // AND also fixes the request url for the following cache lookups
         final WebResponse response = client.loadWebResponse(request);
+        addResourceTiming(response, "script");
 
         // now we can look into the cache with the fixed request for
         // a cached script
-        final Object cachedScript = cache.getCachedObject(request);
+        final Object cachedScript = cache.getCachedObject(request, client.getMetricsListener());
         if (cachedScript instanceof Script) {
             return (Script) cachedScript;
         }
@@ -1066,7 +1078,7 @@ public class HtmlPage extends SgmlPage {
         if (null != scriptCode) {
             final JavaScriptEngine javaScriptEngine = client.getJavaScriptEngine();
             final Script script = javaScriptEngine.compile(this, scriptCode, url.toExternalForm(), 1);
-            if (script != null && cache.cacheIfPossible(request, response, script)) {
+            if (script != null && cache.cacheIfPossible(request, response, script, client.getMetricsListener())) {
                 // no cleanup if the response is stored inside the cache
                 return script;
             }
@@ -1669,7 +1681,8 @@ public class HtmlPage extends SgmlPage {
             if (node instanceof BaseFrameElement) {
                 frameElements_.add((BaseFrameElement) node);
             }
-            for (final HtmlElement child : node.getHtmlElementDescendants()) {
+            for (DomNode child = node.getFirstChild(); child != null;
+                    child = node.getNextDescendant(child, !(child instanceof HtmlElement))) {
                 if (child instanceof BaseFrameElement) {
                     frameElements_.add((BaseFrameElement) child);
                 }
@@ -1694,7 +1707,8 @@ public class HtmlPage extends SgmlPage {
             if (node instanceof BaseFrameElement) {
                 frameElements_.remove(node);
             }
-            for (final HtmlElement child : node.getHtmlElementDescendants()) {
+            for (DomNode child = node.getFirstChild(); child != null;
+                    child = node.getNextDescendant(child, !(child instanceof HtmlElement))) {
                 if (child instanceof BaseFrameElement) {
                     frameElements_.remove(child);
                 }
@@ -1844,19 +1858,45 @@ public class HtmlPage extends SgmlPage {
      *         {@link WebClient#setThrowExceptionOnFailingStatusCode(boolean)} is set to {@code true}
      */
     void loadFrames() throws FailingHttpStatusCodeException {
+        final List<BaseFrameElement> frames = new ArrayList<>();
         for (final FrameWindow w : getFrames()) {
             final BaseFrameElement frame = w.getFrameElement();
-            // test if the frame should really be loaded:
-            // if a script has already changed its content, it should be skipped
-            // use == and not equals(...) to identify initial content (versus URL set to "about:blank")
-            if (frame.getEnclosedWindow() != null
-                    && WebClient.URL_ABOUT_BLANK == frame.getEnclosedPage().getUrl()
-                    && !frame.isContentLoaded()) {
+            if (isFrameToLoad(frame)) {
+                frames.add(frame);
+            }
+        }
+
+        // only the downloads run concurrently, parsing and script execution happen in document order
+        if (frames.size() > 1 && getWebClient().getOptions().getFrameLoadingThreads() > 1) {
+            for (final BaseFrameElement frame : frames) {
+                frame.prefetchInnerPage();
+            }
+        }
+
+        for (final BaseFrameElement frame : frames) {
+            // the scripts of a previous frame may have changed this one in the meantime
+            if (isFrameToLoad(frame)) {
                 frame.loadInnerPage();
             }
+            else {
+                frame.cancelPrefetch();
+            }
         }
     }
 
+    /**
+     * Tests if the frame should really be loaded:
+     * if a script has already changed its content, it should be skipped.
+     * @param frame the frame to test
+     * @return {@code true} if the frame still contains its initial content
+     */
+    private static boolean isFrameToLoad(final BaseFrameElement frame) {
+        // use == and not equals(...) to identify initial content (versus URL set to "about:blank")
+        return frame.getEnclosedWindow() != null
+                && WebClient.URL_ABOUT_BLANK == frame.getEnclosedPage().getUrl()
+                && !frame.isContentLoaded();
+    }
+
     /**
      * Gives a basic representation for debugging purposes.
      * @return a basic representation
@@ -1916,11 +1956,15 @@ public class HtmlPage extends SgmlPage {
         final HtmlPage result = (HtmlPage) super.cloneNode(false);
         final SimpleScriptable jsObjClone = ((SimpleScriptable) getScriptableObject()).clone();
         jsObjClone.setDomNode(result);
+        synchronized (resourceTimings_) {
+            result.resourceTimings_ = new ArrayList<>(resourceTimings_);
+        }
 
         // if deep, clone the kids too, and re initialize parts of the clone
         if (deep) {
             synchronized (lock_) {
                 result.attributeListeners_ = null;
+                result.serializerCache_ = null;
             }
             result.selectionRanges_ = new ArrayList<>(3);
             result.afterLoadActions_ = new ArrayList<>();
@@ -2193,6 +2237,20 @@ public class HtmlPage extends SgmlPage {
         new XmlSerializer().save(this, file);
     }
 
+    /**
+     * Saves the current page, with all images, to the specified location.
+     * Unlike {@link #save(File)}, the images and style sheets (also the ones of the frames)
+     * are downloaded concurrently by the specified executor before the page is written.
+     *
+     * @param file file to write this page into
+     * @param executor the executor performing the downloads
+     * @throws IOException If an error occurs
+     */
+    public void save(final File file, final ExecutorService executor) throws IOException {
+        WebAssert.notNull("executor", executor);
+        new XmlSerializer().save(this, file, executor);
+    }
+
     /**
      * Returns whether the current page mode is in {@code quirks mode} or in {@code standards mode}.
      * @return true for {@code quirks mode}, false for {@code standards mode}
@@ -2218,6 +2276,41 @@ public class HtmlPage extends SgmlPage {
         return true;
     }
 
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Records the timings of a resource loaded for this page, if they have been captured.
+     * Like in the browsers, the resources loaded once the buffer is full aren't recorded.
+     * @param response the response of the resource
+     * @param initiatorType the type of the element or object which loaded the resource
+     */
+    public void addResourceTiming(final WebResponse response, final String initiatorType) {
+        final WebResponseTiming timing = response.getTiming();
+        if (timing == null) {
+            return;
+        }
+        if (timing.getInitiatorType() == null) {
+            timing.setInitiatorType(initiatorType);
+        }
+        synchronized (resourceTimings_) {
+            if (resourceTimings_.size() < MAX_RESOURCE_TIMINGS && !resourceTimings_.contains(timing)) {
+                resourceTimings_.add(timing);
+            }
+        }
+    }
+
+    /**
+     * Returns the timings of the resources loaded for this page, in the order of their loading.
+     * Resources served from the cache without network activity are only listed once.
+     * @return the timings of the resources
+     * @see WebResponse#getTiming()
+     */
+    public List<WebResponseTiming> getResourceTimings() {
+        synchronized (resourceTimings_) {
+            return new ArrayList<>(resourceTimings_);
+        }
+    }
+
     /**
      * The base URL used to resolve relative URLs.
      * @return the base URL
@@ -2299,6 +2392,54 @@ public class HtmlPage extends SgmlPage {
         return super.handles(event);
     }
 
+    /**
+     * Returns the cache of the text produced by {@link #asText()} for the nodes of this page,
+     * registering it as listener of the page at the first call.
+     * @return the cache
+     */
+    HtmlSerializerCache getSerializerCache() {
+        synchronized (lock_) {
+            if (serializerCache_ == null) {
+                serializerCache_ = new HtmlSerializerCache();
+                addDomChangeListener(serializerCache_);
+                addHtmlAttributeChangeListener(serializerCache_);
+                addCharacterDataChangeListener(serializerCache_);
+            }
+            return serializerCache_;
+        }
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Clears the text cached for {@link #asText()}, when something not reported to the DOM listeners
+     * (like the mouse over state or the enabled state of a style sheet) changes the computed styles.
+     */
+    public void clearAsTextCache() {
+        final HtmlSerializerCache cache;
+        synchronized (lock_) {
+            cache = serializerCache_;
+        }
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Clears the text cached for {@link #asText()} which depends on the computed style of the specified
+     * element, when something not reported to the DOM listeners changes it.
+     * @param element the element whose computed style changed
+     */
+    public void clearAsTextCache(final DomNode element) {
+        final HtmlSerializerCache cache;
+        synchronized (lock_) {
+            cache = serializerCache_;
+        }
+        if (cache != null && element != null) {
+            cache.invalidateElement(element);
+        }
+    }
+
     /**
      * Sets the {@link ElementFromPointHandler}.
      * @param elementFromPointHandler the handler
@@ -2376,6 +2517,10 @@ public class HtmlPage extends SgmlPage {
 
         elementWithFocus_ = newElement;
 
+        // the text may depend on ':focus'
+        clearAsTextCache(oldFocusedElement);
+        clearAsTextCache(newElement);
+
         if (elementWithFocus_ instanceof SelectableTextInput
                 && hasFeature(PAGE_SELECTION_RANGE_FROM_SELECTABLE_TEXT_INPUT)) {
             final SelectableTextInput sti = (SelectableTextInput) elementWithFocus_;
@@ -14,14 +14,17 @@
  */
 package com.gargoylesoftware.htmlunit.html;
 
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
 
 import com.gargoylesoftware.htmlunit.Page;
 import com.gargoylesoftware.htmlunit.SgmlPage;
+import com.gargoylesoftware.htmlunit.WebClientOptions;
 import com.gargoylesoftware.htmlunit.javascript.host.Element;
 
 import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
@@ -55,18 +58,53 @@ class HtmlSerializer {
     private boolean appletEnabled_;
     private boolean ignoreMaskedElements_ = true;
 
+    private HtmlSerializerCache cache_;
+    private int uncacheableNodes_;
+    private int uncacheableDepth_;
+    private final Map<DomNode, Boolean> statefulParents_ = new IdentityHashMap<>();
+
     /**
      * Converts an HTML node to text.
      * @param node a node
      * @return the text representation according to the setting of this serializer
      */
     public String asText(final DomNode node) {
-        appletEnabled_ = node.getPage().getWebClient().getOptions().isAppletEnabled();
+        final SgmlPage page = node.getPage();
+        final WebClientOptions options = page.getWebClient().getOptions();
+        appletEnabled_ = options.isAppletEnabled();
+
+        // changes of detached nodes are not reported to the page
+        cache_ = null;
+        if (ignoreMaskedElements_ && page instanceof HtmlPage && (node == page || node.isAttachedToPage())) {
+            cache_ = ((HtmlPage) page).getSerializerCache();
+            cache_.checkOptions(options);
+            final String text = cache_.getText(node);
+            if (text != null) {
+                return text;
+            }
+        }
+
         builder_.setLength(0);
+        uncacheableNodes_ = 0;
+        uncacheableDepth_ = 0;
+        if (cache_ != null) {
+            for (DomNode ancestor = node.getParentNode(); ancestor != null; ancestor = ancestor.getParentNode()) {
+                if (isUncacheable(ancestor)) {
+                    uncacheableNodes_++;
+                    uncacheableDepth_++;
+                    break;
+                }
+            }
+        }
         appendNode(node);
+        statefulParents_.clear();
         final String response = builder_.toString();
         builder_.setLength(0);
-        return cleanUp(response);
+        final String text = cleanUp(response);
+        if (cache_ != null && uncacheableNodes_ == 0) {
+            cache_.putText(node, text);
+        }
+        return text;
     }
 
     protected String cleanUp(String text) {
@@ -201,6 +239,74 @@ class HtmlSerializer {
     }
 
     protected void appendNode(final DomNode node) {
+        if (cache_ == null || node instanceof DomCharacterData) {
+            doAppendNode(node);
+            return;
+        }
+        if (uncacheableDepth_ > 0 || isUncacheable(node)) {
+            // the descendants depend on the same state
+            uncacheableNodes_++;
+            uncacheableDepth_++;
+            try {
+                doAppendNode(node);
+            }
+            finally {
+                uncacheableDepth_--;
+            }
+            return;
+        }
+
+        final String fragment = cache_.getFragment(node);
+        if (fragment != null) {
+            builder_.append(fragment);
+            return;
+        }
+        final int start = builder_.length();
+        final int uncacheableNodes = uncacheableNodes_;
+        doAppendNode(node);
+        if (uncacheableNodes == uncacheableNodes_) {
+            cache_.putFragment(node, builder_.substring(start));
+        }
+    }
+
+    /**
+     * Indicates if the text of the node depends on a state whose changes are not reported
+     * to the listeners of the page, like the value or the selection of form fields. This is
+     * the case for the siblings of such nodes too, because of selectors like
+     * <tt>input:checked + span</tt>.
+     * @param node the node to check
+     * @return {@code true} if the text of the node can't be cached
+     */
+    private boolean isUncacheable(final DomNode node) {
+        if (isStateful(node)) {
+            return true;
+        }
+        final DomNode parent = node.getParentNode();
+        if (parent == null) {
+            return false;
+        }
+        Boolean statefulParent = statefulParents_.get(parent);
+        if (statefulParent == null) {
+            statefulParent = Boolean.FALSE;
+            for (DomNode child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+                if (isStateful(child)) {
+                    statefulParent = Boolean.TRUE;
+                    break;
+                }
+            }
+            statefulParents_.put(parent, statefulParent);
+        }
+        return statefulParent.booleanValue();
+    }
+
+    private static boolean isStateful(final DomNode node) {
+        return node instanceof HtmlInput
+                || node instanceof HtmlSelect
+                || node instanceof HtmlTextArea
+                || node instanceof HtmlInlineFrame;
+    }
+
+    private void doAppendNode(final DomNode node) {
         if (node instanceof DomText) {
             appendText((DomText) node);
         }
@@ -319,7 +425,7 @@ class HtmlSerializer {
     private void appendHtmlUnorderedList(final HtmlUnorderedList htmlUnorderedList) {
         doAppendBlockSeparator();
         boolean first = true;
-        for (final DomNode item : htmlUnorderedList.getChildren()) {
+        for (DomNode item = htmlUnorderedList.getFirstChild(); item != null; item = item.getNextSibling()) {
             if (!first) {
                 doAppendBlockSeparator();
             }
@@ -343,7 +449,7 @@ class HtmlSerializer {
     }
 
     private void appendChildren(final DomNode node) {
-        for (final DomNode child : node.getChildren()) {
+        for (DomNode child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
             appendNode(child);
         }
     }
@@ -449,7 +555,7 @@ class HtmlSerializer {
         doAppendBlockSeparator();
         boolean first = true;
         int i = 1;
-        for (final DomNode item : htmlOrderedList.getChildren()) {
+        for (DomNode item = htmlOrderedList.getFirstChild(); item != null; item = item.getNextSibling()) {
             if (!first) {
                 doAppendBlockSeparator();
             }
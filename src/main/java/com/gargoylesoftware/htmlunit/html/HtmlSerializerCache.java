@@ -0,0 +1,362 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.html;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+import com.gargoylesoftware.htmlunit.WebClientOptions;
+
+/**
+ * Cache of the text produced by {@link HtmlSerializer} for the nodes of an {@link HtmlPage}.
+ * For every serialized subtree, the raw fragment (before the final clean up) is kept, so that
+ * after a change only the modified parts of the page have to be serialized again.
+ *
+ * <p>The entries are evicted like the computed styles of the window: a change of an attribute
+ * invalidates the element, its ancestors, its siblings and all their descendants. As adding,
+ * removing or changing a child can change the state of the parent (like <tt>:empty</tt>), this
+ * invalidates the siblings of the parent and their descendants as well. A change of a style sheet
+ * invalidates everything.</p>
+ *
+ * <p>A change doesn't walk the invalidated descendants: the root of the invalidated subtree is marked
+ * with a new generation, and an entry is only used if none of the node's ancestors has been marked
+ * after the entry was created. Only the ancestors are removed right away. The stale entries are
+ * purged once the marks outnumber the entries.</p>
+ */
+final class HtmlSerializerCache
+        implements DomChangeListener, HtmlAttributeChangeListener, CharacterDataChangeListener {
+
+    /** The maximal number of cached characters. */
+    private static final int MAX_SIZE = 2 * 1024 * 1024;
+
+    /** The minimal number of marks triggering a purge of the stale entries. */
+    private static final int MIN_PURGE_MARKS = 64;
+
+    private final Map<DomNode, Entry> entries_ = new IdentityHashMap<>();
+    private int size_;
+    private int options_ = -1;
+
+    /** The generation of the roots of the invalidated subtrees, by node. */
+    private final Map<DomNode, Long> marks_ = new IdentityHashMap<>();
+    private long generation_;
+
+    private static final class Entry {
+        private final long generation_;
+        private String fragment_;
+        private String text_;
+
+        private Entry(final long generation) {
+            generation_ = generation;
+        }
+
+        private int getLength() {
+            int length = 0;
+            if (fragment_ != null) {
+                length += fragment_.length();
+            }
+            if (text_ != null) {
+                length += text_.length();
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Clears the cache if the options having an effect on the text have changed.
+     * @param options the options of the web client
+     */
+    synchronized void checkOptions(final WebClientOptions options) {
+        int flags = 0;
+        if (options.isJavaScriptEnabled()) {
+            flags |= 1;
+        }
+        if (options.isCssEnabled()) {
+            flags |= 2;
+        }
+        if (options.isAppletEnabled()) {
+            flags |= 4;
+        }
+        if (flags != options_) {
+            clear();
+            options_ = flags;
+        }
+    }
+
+    /**
+     * Returns the cleaned up text of the specified node.
+     * @param node the node
+     * @return the text or {@code null} if not cached
+     */
+    synchronized String getText(final DomNode node) {
+        final Entry entry = getEntry(node);
+        if (entry == null) {
+            return null;
+        }
+        return entry.text_;
+    }
+
+    /**
+     * Stores the cleaned up text of the specified node.
+     * @param node the node
+     * @param text the text
+     */
+    synchronized void putText(final DomNode node, final String text) {
+        final Entry entry = getOrCreateEntry(node, text.length());
+        if (entry != null && entry.text_ == null) {
+            entry.text_ = text;
+            size_ += text.length();
+        }
+    }
+
+    /**
+     * Returns the raw fragment of the specified node.
+     * @param node the node
+     * @return the fragment or {@code null} if not cached
+     */
+    synchronized String getFragment(final DomNode node) {
+        final Entry entry = getEntry(node);
+        if (entry == null) {
+            return null;
+        }
+        return entry.fragment_;
+    }
+
+    /**
+     * Stores the raw fragment of the specified node.
+     * @param node the node
+     * @param fragment the fragment
+     */
+    synchronized void putFragment(final DomNode node, final String fragment) {
+        final Entry entry = getOrCreateEntry(node, fragment.length());
+        if (entry != null && entry.fragment_ == null) {
+            entry.fragment_ = fragment;
+            size_ += fragment.length();
+        }
+    }
+
+    private Entry getOrCreateEntry(final DomNode node, final int length) {
+        if (size_ + length > MAX_SIZE) {
+            if (marks_.isEmpty()) {
+                return null;
+            }
+            purge();
+            if (size_ + length > MAX_SIZE) {
+                return null;
+            }
+        }
+        Entry entry = getEntry(node);
+        if (entry == null) {
+            entry = new Entry(generation_);
+            entries_.put(node, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the entry of the specified node, removing it if one of the ancestors has been invalidated since.
+     */
+    private Entry getEntry(final DomNode node) {
+        final Entry entry = entries_.get(node);
+        if (entry != null && isStale(node, entry)) {
+            remove(node);
+            return null;
+        }
+        return entry;
+    }
+
+    private boolean isStale(final DomNode node, final Entry entry) {
+        if (marks_.isEmpty()) {
+            return false;
+        }
+        for (DomNode ancestor = node; ancestor != null; ancestor = ancestor.getParentNode()) {
+            final Long mark = marks_.get(ancestor);
+            if (mark != null && mark > entry.generation_) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the stale entries and forgets the marks.
+     */
+    private void purge() {
+        for (final Iterator<Map.Entry<DomNode, Entry>> it = entries_.entrySet().iterator(); it.hasNext();) {
+            final Map.Entry<DomNode, Entry> mapEntry = it.next();
+            final Entry entry = mapEntry.getValue();
+            if (isStale(mapEntry.getKey(), entry)) {
+                it.remove();
+                size_ -= entry.getLength();
+            }
+        }
+        marks_.clear();
+    }
+
+    /**
+     * Removes all entries.
+     */
+    synchronized void clear() {
+        entries_.clear();
+        marks_.clear();
+        size_ = 0;
+    }
+
+    /**
+     * Invalidates the entries affected by a change of the children of the specified node:
+     * the node itself, its siblings (affected by selectors like <tt>:empty + span</tt>),
+     * their descendants and the ancestors.
+     * @param changed the removed node or the node whose children changed
+     * @param parent the (former) parent of the changed node
+     */
+    synchronized void invalidate(final DomNode changed, final DomNode parent) {
+        if (entries_.isEmpty()) {
+            return;
+        }
+
+        if (parent == null) {
+            removeSubtree(changed);
+            return;
+        }
+        final DomNode grandParent = parent.getParentNode();
+        invalidateSubtree(grandParent == null ? parent : grandParent);
+        if (changed.getParentNode() != parent) {
+            removeSubtree(changed);
+        }
+    }
+
+    /**
+     * Invalidates the entries affected by a change of the state of the specified element:
+     * the element, its siblings (affected by selectors like <tt>+</tt> or <tt>~</tt>),
+     * their descendants and the ancestors.
+     * @param element the element
+     */
+    synchronized void invalidateElement(final DomNode element) {
+        if (entries_.isEmpty()) {
+            return;
+        }
+
+        final DomNode parent = element.getParentNode();
+        invalidateSubtree(parent == null ? element : parent);
+    }
+
+    private void invalidateSubtree(final DomNode root) {
+        for (DomNode node = root.getParentNode(); node != null; node = node.getParentNode()) {
+            remove(node);
+        }
+        removeSubtree(root);
+    }
+
+    private void removeSubtree(final DomNode root) {
+        remove(root);
+        if (root.getFirstChild() != null) {
+            marks_.put(root, ++generation_);
+            if (marks_.size() > Math.max(MIN_PURGE_MARKS, entries_.size())) {
+                purge();
+            }
+        }
+    }
+
+    private void remove(final DomNode node) {
+        final Entry entry = entries_.remove(node);
+        if (entry != null) {
+            size_ -= entry.getLength();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void nodeAdded(final DomChangeEvent event) {
+        final DomNode changed = event.getChangedNode();
+        if (isStyleSheet(changed)) {
+            clear();
+            return;
+        }
+        invalidate(changed, changed.getParentNode());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void nodeDeleted(final DomChangeEvent event) {
+        final DomNode changed = event.getChangedNode();
+        if (isStyleSheet(changed)) {
+            clear();
+            return;
+        }
+        invalidate(changed, event.getParentNode());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void attributeAdded(final HtmlAttributeChangeEvent event) {
+        attributeChanged(event.getHtmlElement());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void attributeRemoved(final HtmlAttributeChangeEvent event) {
+        attributeChanged(event.getHtmlElement());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void attributeReplaced(final HtmlAttributeChangeEvent event) {
+        attributeChanged(event.getHtmlElement());
+    }
+
+    private void attributeChanged(final HtmlElement element) {
+        if (isStyleSheet(element)) {
+            clear();
+            return;
+        }
+        invalidateElement(element);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void characterDataChanged(final CharacterDataChangeEvent event) {
+        final DomNode changed = event.getCharacterData();
+        final DomNode parent = changed.getParentNode();
+        if (parent instanceof HtmlStyle) {
+            clear();
+            return;
+        }
+        // the parent may become empty or not
+        invalidate(changed, parent);
+    }
+
+    private static boolean isStyleSheet(final DomNode node) {
+        if (node instanceof HtmlStyle) {
+            return true;
+        }
+        if (node instanceof HtmlLink) {
+            return "stylesheet".equals(((HtmlLink) node).getRelAttribute().toLowerCase(Locale.ROOT));
+        }
+        return false;
+    }
+}
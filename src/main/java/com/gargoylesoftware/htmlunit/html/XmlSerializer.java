@@ -16,14 +16,23 @@ package com.gargoylesoftware.htmlunit.html;
 
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
@@ -32,6 +41,8 @@ import org.apache.commons.lang3.StringUtils;
 
 import com.gargoylesoftware.htmlunit.Page;
 import com.gargoylesoftware.htmlunit.SgmlPage;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebRequest;
 import com.gargoylesoftware.htmlunit.WebResponse;
 import com.gargoylesoftware.htmlunit.util.MimeType;
 
@@ -46,11 +57,29 @@ class XmlSerializer {
     private static final String FILE_SEPARATOR = "/";
     private static final Pattern CREATE_FILE_PATTERN = Pattern.compile(".*/");
 
+    /** The number of buffered characters after which they are written to the output. */
+    private static final int CHUNK_SIZE = 8 * 1024;
+
     private final StringBuilder builder_ = new StringBuilder();
     private final StringBuilder indent_ = new StringBuilder();
     private File outputDir_;
+    private Writer writer_;
+    private ExecutorService executor_;
+    private Map<DomNode, WebResponse> prefetchedResponses_ = Collections.emptyMap();
 
     public void save(final SgmlPage page, final File file) throws IOException {
+        save(page, file, null);
+    }
+
+    /**
+     * Saves the page and its resources.
+     * @param page the page
+     * @param file the file to write the page into
+     * @param executor the executor used to download the images and style sheets concurrently,
+     *        or {@code null} to download them one after the other while serializing
+     * @throws IOException in case of problem saving the page or its resources
+     */
+    public void save(final SgmlPage page, final File file, final ExecutorService executor) throws IOException {
         String fileName = file.getName();
         if (!fileName.endsWith(".htm") && !fileName.endsWith(".html")) {
             fileName += ".html";
@@ -61,7 +90,47 @@ class XmlSerializer {
         }
         fileName = fileName.substring(0, fileName.lastIndexOf('.'));
         outputDir_ = new File(file.getParentFile(), fileName);
-        FileUtils.writeStringToFile(outputFile, asXml(page.getDocumentElement()), ISO_8859_1);
+        executor_ = executor;
+
+        final DomElement root = page.getDocumentElement();
+        if (executor == null) {
+            prefetchedResponses_ = Collections.emptyMap();
+        }
+        else {
+            prefetchedResponses_ = prefetchResources(root, executor);
+        }
+
+        boolean done = false;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile), ISO_8859_1))) {
+            writeXml(root, writer);
+            done = true;
+        }
+        finally {
+            if (!done) {
+                FileUtils.deleteQuietly(outputFile);
+            }
+        }
+    }
+
+    /**
+     * Writes the xml representation of the node to the writer. The content is written in chunks,
+     * the complete document is never held in memory.
+     * @param node a node
+     * @param writer the writer
+     * @throws IOException in case of problem writing or saving resources
+     */
+    public void writeXml(final DomElement node, final Writer writer) throws IOException {
+        writer_ = writer;
+        try {
+            printXmlDeclaration(node);
+            printXml(node);
+            writer.append(builder_);
+            writer.flush();
+        }
+        finally {
+            writer_ = null;
+            builder_.setLength(0);
+        }
     }
 
     /**
@@ -71,6 +140,14 @@ class XmlSerializer {
      */
     public String asXml(final DomElement node) throws IOException {
         builder_.setLength(0);
+        printXmlDeclaration(node);
+        printXml(node);
+        final String response = builder_.toString();
+        builder_.setLength(0);
+        return response;
+    }
+
+    private void printXmlDeclaration(final DomElement node) {
         indent_.setLength(0);
         final SgmlPage page = node.getPage();
         if (null != page && page.isHtmlPage()) {
@@ -79,14 +156,22 @@ class XmlSerializer {
                 builder_.append("<?xml version=\"1.0\" encoding=\"").append(charsetName).append("\"?>").append('\n');
             }
         }
-        printXml(node);
-        final String response = builder_.toString();
-        builder_.setLength(0);
-        return response;
+    }
+
+    /**
+     * Writes the buffered content to the output, if streaming and enough content is available.
+     * @throws IOException in case of problem writing
+     */
+    private void flushChunk() throws IOException {
+        if (writer_ != null && builder_.length() >= CHUNK_SIZE) {
+            writer_.append(builder_);
+            builder_.setLength(0);
+        }
     }
 
     protected void printXml(final DomElement node) throws IOException {
         if (!isExcluded(node)) {
+            flushChunk();
             final boolean hasChildren = node.getFirstChild() != null;
             builder_.append(indent_).append('<');
             printOpeningTag(node);
@@ -204,7 +289,7 @@ class XmlSerializer {
             if (enclosedPage.isHtmlPage()) {
                 file.delete(); // TODO: refactor as it is stupid to create empty file at one place
                 // and then to complain that it already exists
-                ((HtmlPage) enclosedPage).save(file);
+                new XmlSerializer().save((HtmlPage) enclosedPage, file, executor_);
             }
             else {
                 try (InputStream is = enclosedPage.getWebResponse().getContentAsStream()) {
@@ -241,7 +326,11 @@ class XmlSerializer {
             final String protocol = link.getWebRequest().getUrl().getProtocol();
             if ("http".equals(protocol) || "https".equals(protocol)) {
                 final File file = createFile(hrefAttr.getValue(), ".css");
-                FileUtils.writeStringToFile(file, link.getWebResponse(true).getContentAsString(), ISO_8859_1);
+                WebResponse response = prefetchedResponses_.get(link);
+                if (response == null) {
+                    response = link.getWebResponse(true);
+                }
+                FileUtils.writeStringToFile(file, response.getContentAsString(), ISO_8859_1);
                 hrefAttr.setValue(outputDir_.getName() + FILE_SEPARATOR + file.getName());
             }
         }
@@ -253,7 +342,10 @@ class XmlSerializer {
         final Map<String, DomAttr> map = createAttributesCopyWithClonedAttribute(image, "src");
         final DomAttr srcAttr = map.get("src");
         if (srcAttr != null && StringUtils.isNotBlank(srcAttr.getValue())) {
-            final WebResponse response = image.getWebResponse(true);
+            WebResponse response = prefetchedResponses_.get(image);
+            if (response == null) {
+                response = image.getWebResponse(true);
+            }
 
             final File file = createFile(srcAttr.getValue(), "." + getSuffix(response));
             FileUtils.copyInputStreamToFile(response.getContentAsStream(), file);
@@ -264,6 +356,76 @@ class XmlSerializer {
         return map;
     }
 
+    /**
+     * Downloads the images and style sheets of the specified subtree concurrently, so that the serialization
+     * doesn't have to wait for each of them in turn. The downloads only use the {@link WebClient}: the
+     * elements are neither read nor modified outside of the calling thread. The resources already
+     * downloaded by their element are not downloaded again.
+     * @param root the root of the subtree
+     * @param executor the executor performing the downloads
+     * @return the responses by element
+     * @throws IOException if a download failed; all the downloads are finished then
+     */
+    private static Map<DomNode, WebResponse> prefetchResources(final DomElement root,
+            final ExecutorService executor) throws IOException {
+        final WebClient webClient = root.getPage().getWebClient();
+        final Map<DomNode, Future<WebResponse>> futures = new LinkedHashMap<>();
+        for (DomNode node = root; node != null; node = root.getNextDescendant(node, false)) {
+            if (node instanceof HtmlImage) {
+                final HtmlImage image = (HtmlImage) node;
+                if (StringUtils.isNotBlank(image.getSrcAttribute()) && image.getWebResponse(false) == null) {
+                    futures.put(image, load(webClient, image.getWebRequest(), executor));
+                }
+            }
+            else if (node instanceof HtmlLink) {
+                final HtmlLink link = (HtmlLink) node;
+                if (StringUtils.isNotBlank(link.getHrefAttribute()) && link.getWebResponse(false) == null) {
+                    final WebRequest request = link.getWebRequest();
+                    final String protocol = request.getUrl().getProtocol();
+                    if ("http".equals(protocol) || "https".equals(protocol)) {
+                        futures.put(link, load(webClient, request, executor));
+                    }
+                }
+            }
+        }
+
+        // wait for all the downloads, even if one failed
+        final Map<DomNode, WebResponse> responses = new HashMap<>();
+        IOException failure = null;
+        for (final Map.Entry<DomNode, Future<WebResponse>> entry : futures.entrySet()) {
+            try {
+                responses.put(entry.getKey(), entry.getValue().get());
+            }
+            catch (final InterruptedException e) {
+                for (final Future<WebResponse> future : futures.values()) {
+                    future.cancel(true);
+                }
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while downloading the resources", e);
+            }
+            catch (final ExecutionException e) {
+                if (failure == null) {
+                    final Throwable cause = e.getCause();
+                    failure = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return responses;
+    }
+
+    private static Future<WebResponse> load(final WebClient webClient, final WebRequest request,
+            final ExecutorService executor) {
+        return executor.submit(new Callable<WebResponse>() {
+            @Override
+            public WebResponse call() throws IOException {
+                return webClient.loadWebResponse(request);
+            }
+        });
+    }
+
     private static String getSuffix(final WebResponse response) {
         // first try to take the one from the requested file
         final String url = response.getWebRequest().getUrl().toString();
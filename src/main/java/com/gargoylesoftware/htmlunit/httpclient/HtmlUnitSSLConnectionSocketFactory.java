@@ -48,7 +48,9 @@ import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.protocol.HttpContext;
 import org.apache.http.ssl.SSLContexts;
 
+import com.gargoylesoftware.htmlunit.HttpWebConnection;
 import com.gargoylesoftware.htmlunit.WebClientOptions;
+import com.gargoylesoftware.htmlunit.WebResponseTiming;
 
 /**
  * Socket factory offering facilities for insecure SSL and for SOCKS proxy support.
@@ -197,6 +199,25 @@ public final class HtmlUnitSSLConnectionSocketFactory extends SSLConnectionSocke
         }
     }
 
+    /**
+     * Records the start of the TLS handshake, before layering it over the connected socket.
+     * @param socket the connected socket
+     * @param target the target host
+     * @param port the port
+     * @param context the context
+     * @return the SSL socket
+     * @throws IOException in case of problems
+     */
+    @Override
+    public Socket createLayeredSocket(final Socket socket, final String target, final int port,
+            final HttpContext context) throws IOException {
+        final WebResponseTiming timing = HttpWebConnection.getTiming(context);
+        if (timing != null) {
+            timing.markSecureConnectionStart();
+        }
+        return super.createLayeredSocket(socket, target, port, context);
+    }
+
     private static void setEmptyHostname(final HttpHost host) {
         try {
             final Field field = HttpHost.class.getDeclaredField("hostname");
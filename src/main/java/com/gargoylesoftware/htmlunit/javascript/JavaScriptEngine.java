@@ -38,12 +38,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.gargoylesoftware.htmlunit.MetricsListener;
 import com.gargoylesoftware.htmlunit.ScriptException;
 import com.gargoylesoftware.htmlunit.WebAssert;
 import com.gargoylesoftware.htmlunit.WebClient;
@@ -62,6 +64,7 @@ import com.gargoylesoftware.htmlunit.javascript.host.Reflect;
 import com.gargoylesoftware.htmlunit.javascript.host.StringCustom;
 import com.gargoylesoftware.htmlunit.javascript.host.Window;
 import com.gargoylesoftware.htmlunit.javascript.host.intl.Intl;
+import com.gargoylesoftware.htmlunit.jfr.FlightRecorderEvents;
 
 import net.sourceforge.htmlunit.corejs.javascript.BaseFunction;
 import net.sourceforge.htmlunit.corejs.javascript.Context;
@@ -74,6 +77,7 @@ import net.sourceforge.htmlunit.corejs.javascript.ScriptRuntime;
 import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
 import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
 import net.sourceforge.htmlunit.corejs.javascript.UniqueTag;
+import net.sourceforge.htmlunit.corejs.javascript.debug.DebuggableScript;
 
 /**
  * A wrapper for the <a href="http://www.mozilla.org/rhino">Rhino JavaScript engine</a>
@@ -106,11 +110,14 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
     private final JavaScriptConfiguration jsConfig_;
 
     private transient ThreadLocal<Boolean> javaScriptRunning_;
+    private transient AtomicInteger runningScripts_;
     private transient ThreadLocal<List<PostponedAction>> postponedActions_;
     private transient boolean holdPostponedActions_;
 
     /** The JavaScriptExecutor corresponding to all windows of this Web client */
     private transient JavaScriptExecutor javaScriptExecutor_;
+    /** Whether the JavaScriptExecutor has been set from outside, and must not be replaced by an own one */
+    private transient boolean javaScriptExecutorSet_;
 
     /**
      * Key used to place the scope in which the execution of some JavaScript code
@@ -188,6 +195,18 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
         return javaScriptExecutor_;
     }
 
+    /**
+     * Sets the JavaScriptExecutor to register the windows with, instead of the one created
+     * by {@link BackgroundJavaScriptFactory#createJavaScriptExecutor(WebClient)}.
+     * Once this engine is {@link #shutdown() shut down}, no window can be registered anymore,
+     * rather than falling back to an own executor.
+     * @param javaScriptExecutor the JavaScriptExecutor
+     */
+    public synchronized void setJavaScriptExecutor(final JavaScriptExecutor javaScriptExecutor) {
+        javaScriptExecutor_ = javaScriptExecutor;
+        javaScriptExecutorSet_ = javaScriptExecutor != null;
+    }
+
     /**
      * Initializes all the JS stuff for the window.
      * @param webWindow the web window
@@ -488,6 +507,7 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
         final ScriptableObject datePrototype = (ScriptableObject) ScriptableObject.getClassPrototype(window, "Date");
         datePrototype.defineFunctionProperties(new String[] {"toLocaleDateString", "toLocaleTimeString"},
                 DateCustom.class, ScriptableObject.DONTENUM);
+        WebClockDateFunction.install(window);
 
         window.setPrototypes(prototypes, prototypesPerJSName);
         window.initialize(webWindow);
@@ -630,6 +650,9 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
      */
     @Override
     public synchronized void registerWindowAndMaybeStartEventLoop(final WebWindow webWindow) {
+        if (javaScriptExecutor_ == null && javaScriptExecutorSet_) {
+            throw new IllegalStateException("The JavaScript executor of this engine has been shut down");
+        }
         if (webClient_ != null) {
             if (javaScriptExecutor_ == null) {
                 javaScriptExecutor_ = BackgroundJavaScriptFactory.theFactory().createJavaScriptExecutor(webClient_);
@@ -705,7 +728,7 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
         }
 
         final String source = sourceCode;
-        final ContextAction action = new HtmlUnitContextAction(scope, owningPage) {
+        final ContextAction action = new HtmlUnitContextAction(scope, owningPage, MetricsListener.JS_COMPILE) {
             @Override
             public Object doRun(final Context cx) {
                 return cx.compileString(source, sourceName, startLine, null);
@@ -715,6 +738,11 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
             protected String getSourceCode(final Context cx) {
                 return source;
             }
+
+            @Override
+            protected String getSourceName() {
+                return sourceName;
+            }
         };
 
         return (Script) getContextFactory().call(action);
@@ -763,7 +791,7 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
      * @return the result of executing the specified code
      */
     public Object execute(final HtmlPage page, final Scriptable scope, final Script script) {
-        final ContextAction action = new HtmlUnitContextAction(scope, page) {
+        final ContextAction action = new HtmlUnitContextAction(scope, page, MetricsListener.JS_EXECUTE) {
             @Override
             public Object doRun(final Context cx) {
                 return script.exec(cx, scope);
@@ -773,6 +801,11 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
             protected String getSourceCode(final Context cx) {
                 return null;
             }
+
+            @Override
+            protected String getSourceName() {
+                return JavaScriptEngine.getSourceName(script);
+            }
         };
 
         return getContextFactory().call(action);
@@ -811,7 +844,7 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
     public Object callFunction(final HtmlPage page, final Function function,
             final Scriptable scope, final Scriptable thisObject, final Object[] args) {
 
-        final ContextAction action = new HtmlUnitContextAction(scope, page) {
+        final ContextAction action = new HtmlUnitContextAction(scope, page, MetricsListener.JS_EXECUTE) {
             @Override
             public Object doRun(final Context cx) {
                 if (ScriptRuntime.hasTopCall(cx)) {
@@ -823,10 +856,25 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
             protected String getSourceCode(final Context cx) {
                 return cx.decompileFunction(function, 2);
             }
+
+            @Override
+            protected String getSourceName() {
+                return JavaScriptEngine.getSourceName(function);
+            }
         };
         return getContextFactory().call(action);
     }
 
+    private static String getSourceName(final Object script) {
+        if (script instanceof Script) {
+            final DebuggableScript debuggable = Context.getDebuggableView((Script) script);
+            if (debuggable != null) {
+                return debuggable.getSourceName();
+            }
+        }
+        return null;
+    }
+
     private static Scriptable getScope(final HtmlPage page, final DomNode node) {
         if (node != null) {
             return node.getScriptableObject();
@@ -844,6 +892,15 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
         return Boolean.TRUE.equals(javaScriptRunning_.get());
     }
 
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     * Indicates if JavaScript is running in any thread.
+     * @return {@code true} if JavaScript is running
+     */
+    public boolean isAnyScriptRunning() {
+        return runningScripts_.get() > 0;
+    }
+
     /**
      * Facility for ContextAction usage.
      * ContextAction should be preferred because according to Rhino doc it
@@ -852,10 +909,12 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
     private abstract class HtmlUnitContextAction implements ContextAction {
         private final Scriptable scope_;
         private final HtmlPage page_;
+        private final String metricName_;
 
-        HtmlUnitContextAction(final Scriptable scope, final HtmlPage page) {
+        HtmlUnitContextAction(final Scriptable scope, final HtmlPage page, final String metricName) {
             scope_ = scope;
             page_ = page;
+            metricName_ = metricName;
         }
 
         @Override
@@ -863,6 +922,20 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
             final Boolean javaScriptAlreadyRunning = javaScriptRunning_.get();
             javaScriptRunning_.set(Boolean.TRUE);
 
+            // nested executions are part of the enclosing one
+            final WebClient webClient = getWebClient();
+            final boolean compile = MetricsListener.JS_COMPILE.equals(metricName_);
+            MetricsListener metrics = null;
+            Object event = null;
+            if (compile || !Boolean.TRUE.equals(javaScriptAlreadyRunning)) {
+                if (webClient != null) {
+                    metrics = webClient.getMetricsListener();
+                }
+                event = FlightRecorderEvents.beginScript();
+            }
+            final long start = System.nanoTime();
+
+            runningScripts_.incrementAndGet();
             try {
                 // KEY_STARTING_SCOPE maintains a stack of scopes
                 @SuppressWarnings("unchecked")
@@ -899,6 +972,10 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
                 return null;
             }
             catch (final TimeoutError e) {
+                final MetricsListener timeoutMetrics = getWebClient().getMetricsListener();
+                if (timeoutMetrics != null) {
+                    timeoutMetrics.increment(MetricsListener.JS_TIMEOUTS, 1);
+                }
                 getWebClient().getJavaScriptErrorListener().timeoutError(page_, e.getAllowedTime(), e.getExecutionTime());
                 if (getWebClient().getOptions().isThrowExceptionOnScriptError()) {
                     throw new RuntimeException(e);
@@ -907,13 +984,22 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
                 return null;
             }
             finally {
+                runningScripts_.decrementAndGet();
                 javaScriptRunning_.set(javaScriptAlreadyRunning);
+                if (metrics != null) {
+                    metrics.record(metricName_, System.nanoTime() - start);
+                }
+                if (event != null) {
+                    FlightRecorderEvents.commitScript(event, compile ? "compile" : "execute", getSourceName());
+                }
             }
         }
 
         protected abstract Object doRun(Context cx);
 
         protected abstract String getSourceCode(Context cx);
+
+        protected abstract String getSourceName();
     }
 
     private void doProcessPostponedActions() {
@@ -1028,6 +1114,7 @@ public class JavaScriptEngine implements AbstractJavaScriptEngine {
 
     private void initTransientFields() {
         javaScriptRunning_ = new ThreadLocal<>();
+        runningScripts_ = new AtomicInteger();
         postponedActions_ = new ThreadLocal<>();
         holdPostponedActions_ = false;
     }
@@ -0,0 +1,477 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.debug.DebugFrame;
+import net.sourceforge.htmlunit.corejs.javascript.debug.DebuggableScript;
+
+/**
+ * <p>A sampling profiler for the JavaScript code, built on the debugger hooks of Rhino.</p>
+ *
+ * <p>While the profiler is running, the debug frames only maintain the stack of the JavaScript functions
+ * of every thread. A background thread takes a sample of these stacks at a fixed interval, together
+ * with the Java stack of the thread: if the JavaScript code is currently calling HtmlUnit (a host object,
+ * the DOM, the CSS engine...), the sample ends with a frame <tt>[host] Class.method</tt>. This shows whether
+ * the time is spent in the JavaScript code of the page or in HtmlUnit.</p>
+ *
+ * <p>The samples can be exported in the collapsed stack format of the flame graph tools, or as a
+ * <tt>.cpuprofile</tt> file, which can be opened in the Chrome developer tools.</p>
+ *
+ * <pre>
+ * final JavaScriptProfiler profiler = new JavaScriptProfiler();
+ * webClient.getJavaScriptEngine().getContextFactory().setDebugger(profiler);
+ * profiler.start();
+ * ...
+ * profiler.stop();
+ * profiler.writeCollapsedStacks(writer);
+ * </pre>
+ *
+ * @see HtmlUnitContextFactory#setDebugger(net.sourceforge.htmlunit.corejs.javascript.debug.Debugger)
+ */
+public class JavaScriptProfiler extends DebuggerAdapter {
+
+    private static final String INTERPRETER_CLASS = "net.sourceforge.htmlunit.corejs.javascript.Interpreter";
+    private static final String HTMLUNIT_PACKAGE = "com.gargoylesoftware.htmlunit.";
+
+    private final long interval_;
+    private final Map<Thread, ThreadStack> stacks_ = new ConcurrentHashMap<>();
+    private final ThreadLocal<ThreadStack> threadStack_ = new ThreadLocal<>();
+    private final ProfileNode root_ = new ProfileNode("(root)", "", 0);
+    private volatile boolean running_;
+    private Thread samplingThread_;
+    private long startTime_;
+    private long endTime_;
+    private int sampleCount_;
+
+    /**
+     * Creates a new profiler, taking a sample every millisecond.
+     */
+    public JavaScriptProfiler() {
+        this(1);
+    }
+
+    /**
+     * Creates a new profiler.
+     * @param interval the sampling interval in milliseconds
+     */
+    public JavaScriptProfiler(final long interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Illegal value for interval: " + interval);
+        }
+        interval_ = interval;
+    }
+
+    /**
+     * Returns the sampling interval.
+     * @return the sampling interval in milliseconds
+     */
+    public long getInterval() {
+        return interval_;
+    }
+
+    /**
+     * Starts the sampling. The samples taken before are kept.
+     */
+    public synchronized void start() {
+        if (running_) {
+            return;
+        }
+        running_ = true;
+        if (sampleCount_ == 0) {
+            startTime_ = System.currentTimeMillis();
+        }
+        samplingThread_ = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (running_) {
+                    try {
+                        Thread.sleep(interval_);
+                    }
+                    catch (final InterruptedException e) {
+                        return;
+                    }
+                    sample();
+                }
+            }
+        }, "HtmlUnit JavaScript profiler");
+        samplingThread_.setDaemon(true);
+        samplingThread_.start();
+    }
+
+    /**
+     * Stops the sampling.
+     */
+    public void stop() {
+        final Thread thread;
+        synchronized (this) {
+            if (!running_) {
+                return;
+            }
+            running_ = false;
+            thread = samplingThread_;
+            samplingThread_ = null;
+        }
+        thread.interrupt();
+        try {
+            thread.join();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            endTime_ = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Returns whether the sampling is running.
+     * @return whether the sampling is running
+     */
+    public boolean isRunning() {
+        return running_;
+    }
+
+    /**
+     * Removes all samples.
+     */
+    public synchronized void clear() {
+        root_.children_.clear();
+        root_.hitCount_ = 0;
+        sampleCount_ = 0;
+        startTime_ = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the number of samples taken while JavaScript code was running.
+     * @return the number of samples
+     */
+    public synchronized int getSampleCount() {
+        return sampleCount_;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DebugFrame getFrame(final Context cx, final DebuggableScript fnOrScript) {
+        if (!running_) {
+            // no frame at all: no cost when the profiler is stopped
+            return null;
+        }
+        ThreadStack stack = threadStack_.get();
+        if (stack == null) {
+            stack = new ThreadStack();
+            threadStack_.set(stack);
+            stacks_.put(Thread.currentThread(), stack);
+        }
+        return new ProfilerFrame(stack, fnOrScript);
+    }
+
+    /**
+     * Takes one sample of all threads executing JavaScript code.
+     */
+    void sample() {
+        for (final Map.Entry<Thread, ThreadStack> entry : stacks_.entrySet()) {
+            final Thread thread = entry.getKey();
+            if (!thread.isAlive()) {
+                stacks_.remove(thread);
+                continue;
+            }
+            final DebuggableScript[] frames = entry.getValue().snapshot();
+            if (frames.length == 0) {
+                continue;
+            }
+            final String hostFrame = getHostFrame(thread.getStackTrace());
+
+            synchronized (this) {
+                ProfileNode node = root_;
+                for (final DebuggableScript frame : frames) {
+                    if (frame != null) {
+                        node = node.getChild(frame);
+                    }
+                }
+                if (hostFrame != null) {
+                    node = node.getChild(hostFrame);
+                }
+                node.hitCount_++;
+                sampleCount_++;
+            }
+        }
+    }
+
+    /**
+     * Returns the HtmlUnit method called by the innermost JavaScript function, if any.
+     * @param trace the Java stack of the thread, innermost frame first
+     * @return the label of the frame or {@code null}
+     */
+    private static String getHostFrame(final StackTraceElement[] trace) {
+        int interpreter = -1;
+        for (int i = 0; i < trace.length; i++) {
+            if (trace[i].getClassName().startsWith(INTERPRETER_CLASS)) {
+                interpreter = i;
+                break;
+            }
+        }
+        for (int i = interpreter - 1; i >= 0; i--) {
+            final String className = trace[i].getClassName();
+            if (className.startsWith(HTMLUNIT_PACKAGE)) {
+                return "[host] " + StringUtils.substringAfterLast(className, ".") + "." + trace[i].getMethodName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the samples in the collapsed stack format: one line per distinct stack, with the frames
+     * separated by semicolons, followed by the number of samples.
+     * The output can be fed to <tt>flamegraph.pl</tt> or <tt>speedscope</tt>.
+     * @param writer the writer
+     * @throws IOException in case of error
+     */
+    public synchronized void writeCollapsedStacks(final Writer writer) throws IOException {
+        for (final ProfileNode child : root_.children_.values()) {
+            writeCollapsedStacks(writer, child, child.getLabel());
+        }
+        writer.flush();
+    }
+
+    private static void writeCollapsedStacks(final Writer writer, final ProfileNode node, final String path)
+        throws IOException {
+        if (node.hitCount_ > 0) {
+            writer.write(path);
+            writer.write(' ');
+            writer.write(Integer.toString(node.hitCount_));
+            writer.write('\n');
+        }
+        for (final ProfileNode child : node.children_.values()) {
+            writeCollapsedStacks(writer, child, path + ';' + child.getLabel());
+        }
+    }
+
+    /**
+     * Writes the samples in the <tt>.cpuprofile</tt> format of the Chrome developer tools.
+     * @param writer the writer
+     * @throws IOException in case of error
+     */
+    public synchronized void writeCpuProfile(final Writer writer) throws IOException {
+        final List<ProfileNode> nodes = new ArrayList<>();
+        root_.collect(nodes);
+
+        final long startMicros = startTime_ * 1000;
+        final long endMicros = (running_ || endTime_ < startTime_ ? System.currentTimeMillis() : endTime_) * 1000;
+
+        writer.write("{\"nodes\":[");
+        for (int i = 0; i < nodes.size(); i++) {
+            final ProfileNode node = nodes.get(i);
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write("{\"id\":" + node.id_
+                    + ",\"callFrame\":{\"functionName\":" + quote(node.functionName_)
+                    + ",\"scriptId\":\"0\",\"url\":" + quote(node.url_)
+                    + ",\"lineNumber\":" + (node.lineNumber_ - 1)
+                    + ",\"columnNumber\":-1}"
+                    + ",\"hitCount\":" + node.hitCount_
+                    + ",\"children\":[");
+            boolean first = true;
+            for (final ProfileNode child : node.children_.values()) {
+                if (!first) {
+                    writer.write(',');
+                }
+                writer.write(Integer.toString(child.id_));
+                first = false;
+            }
+            writer.write("]}");
+        }
+
+        writer.write("],\"startTime\":" + startMicros + ",\"endTime\":" + endMicros + ",\"samples\":[");
+        // the order of the samples is lost by the aggregation: they are written node by node
+        final StringBuilder deltas = new StringBuilder();
+        boolean first = true;
+        for (final ProfileNode node : nodes) {
+            for (int i = 0; i < node.hitCount_; i++) {
+                if (!first) {
+                    writer.write(',');
+                    deltas.append(',');
+                }
+                writer.write(Integer.toString(node.id_));
+                deltas.append(first ? 0 : interval_ * 1000);
+                first = false;
+            }
+        }
+        writer.write("],\"timeDeltas\":[");
+        writer.write(deltas.toString());
+        writer.write("]}");
+        writer.flush();
+    }
+
+    private static String quote(final String s) {
+        final StringBuilder builder = new StringBuilder(s.length() + 2);
+        builder.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                builder.append('\\').append(c);
+            }
+            else if (c < ' ') {
+                builder.append(String.format("\\u%04x", (int) c));
+            }
+            else {
+                builder.append(c);
+            }
+        }
+        return builder.append('"').toString();
+    }
+
+    /**
+     * The stack of the JavaScript functions of one thread. It is only modified by its thread and
+     * read without locking by the sampling thread; a sample may be slightly off, but never fails.
+     */
+    private static final class ThreadStack {
+        private DebuggableScript[] frames_ = new DebuggableScript[32];
+        private volatile int depth_;
+
+        void push(final DebuggableScript frame) {
+            final int depth = depth_;
+            if (depth == frames_.length) {
+                final DebuggableScript[] frames = new DebuggableScript[depth * 2];
+                System.arraycopy(frames_, 0, frames, 0, depth);
+                frames_ = frames;
+            }
+            frames_[depth] = frame;
+            depth_ = depth + 1;
+        }
+
+        void pop() {
+            final int depth = depth_;
+            if (depth > 0) {
+                frames_[depth - 1] = null;
+                depth_ = depth - 1;
+            }
+        }
+
+        DebuggableScript[] snapshot() {
+            final int depth = depth_;
+            final DebuggableScript[] frames = frames_;
+            final DebuggableScript[] snapshot = new DebuggableScript[Math.min(depth, frames.length)];
+            System.arraycopy(frames, 0, snapshot, 0, snapshot.length);
+            return snapshot;
+        }
+    }
+
+    /**
+     * The debug frame of a function call, maintaining the {@link ThreadStack}.
+     */
+    private static final class ProfilerFrame extends DebugFrameAdapter {
+        private final ThreadStack stack_;
+        private final DebuggableScript functionOrScript_;
+
+        ProfilerFrame(final ThreadStack stack, final DebuggableScript functionOrScript) {
+            stack_ = stack;
+            functionOrScript_ = functionOrScript;
+        }
+
+        @Override
+        public void onEnter(final Context cx, final Scriptable activation, final Scriptable thisObj,
+                final Object[] args) {
+            stack_.push(functionOrScript_);
+        }
+
+        @Override
+        public void onExit(final Context cx, final boolean byThrow, final Object resultOrException) {
+            stack_.pop();
+        }
+    }
+
+    /**
+     * A node of the call tree.
+     */
+    private static final class ProfileNode {
+        private final String functionName_;
+        private final String url_;
+        private final int lineNumber_;
+        private final Map<Object, ProfileNode> children_ = new LinkedHashMap<>();
+        private int hitCount_;
+        private int id_;
+
+        ProfileNode(final String functionName, final String url, final int lineNumber) {
+            functionName_ = functionName;
+            url_ = url;
+            lineNumber_ = lineNumber;
+        }
+
+        /**
+         * Returns the child for the specified key, a {@link DebuggableScript} or the label of a host frame.
+         */
+        ProfileNode getChild(final Object key) {
+            ProfileNode child = children_.get(key);
+            if (child == null) {
+                if (key instanceof DebuggableScript) {
+                    final DebuggableScript script = (DebuggableScript) key;
+                    String name = "(program)";
+                    if (script.isFunction()) {
+                        name = StringUtils.defaultIfEmpty(script.getFunctionName(), "(anonymous)");
+                    }
+                    child = new ProfileNode(name, StringUtils.defaultString(script.getSourceName()),
+                            getFirstLine(script));
+                }
+                else {
+                    child = new ProfileNode((String) key, "", 0);
+                }
+                children_.put(key, child);
+            }
+            return child;
+        }
+
+        String getLabel() {
+            if (url_.isEmpty()) {
+                return functionName_;
+            }
+            return functionName_ + " (" + url_ + ":" + lineNumber_ + ")";
+        }
+
+        void collect(final List<ProfileNode> nodes) {
+            nodes.add(this);
+            id_ = nodes.size();
+            for (final ProfileNode child : children_.values()) {
+                child.collect(nodes);
+            }
+        }
+
+        private static int getFirstLine(final DebuggableScript script) {
+            final int[] lines = script.getLineNumbers();
+            if (lines == null || lines.length == 0) {
+                return 0;
+            }
+            int first = Integer.MAX_VALUE;
+            for (final int line : lines) {
+                first = Math.min(first, line);
+            }
+            return first;
+        }
+    }
+}
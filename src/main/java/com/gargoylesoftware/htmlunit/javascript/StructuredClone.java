@@ -0,0 +1,579 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.gargoylesoftware.htmlunit.javascript.host.Set;
+import com.gargoylesoftware.htmlunit.javascript.host.Window;
+import com.gargoylesoftware.htmlunit.javascript.host.arrays.ArrayBuffer;
+import com.gargoylesoftware.htmlunit.javascript.host.arrays.ArrayBufferView;
+import com.gargoylesoftware.htmlunit.javascript.host.arrays.ArrayBufferViewBase;
+import com.gargoylesoftware.htmlunit.javascript.host.arrays.DataView;
+import com.gargoylesoftware.htmlunit.javascript.host.worker.DedicatedWorkerGlobalScope;
+
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.Function;
+import net.sourceforge.htmlunit.corejs.javascript.NativeArray;
+import net.sourceforge.htmlunit.corejs.javascript.NativeObject;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
+import net.sourceforge.htmlunit.corejs.javascript.Undefined;
+
+/**
+ * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+ *
+ * Copies JavaScript values between scopes, like the messages exchanged between a page and its dedicated
+ * workers, which run in different threads, or the values stored in IndexedDB. {@link #write(Object)} converts
+ * the value into plain Java objects, {@link #read(Object, Context, Scriptable)} converts them into JavaScript
+ * objects of another scope; no JavaScript object is shared. The Java representation can be converted into bytes
+ * with {@link #serialize(Object)}, to be stored.
+ *
+ * <p>Like the structured clone algorithm of the browsers, primitive values (including <tt>NaN</tt>,
+ * <tt>Infinity</tt> and <tt>undefined</tt>), arrays, dates, plain objects (including cyclic references), maps,
+ * sets, array buffers and their views are supported; functions and other host objects can't be cloned.
+ * The bytes of the array buffers are copied, views sharing a buffer still share the copy.</p>
+ */
+public final class StructuredClone {
+
+    private static final int UNDEFINED = 0;
+    private static final int NULL = 1;
+    private static final int BOOLEAN = 2;
+    private static final int NUMBER = 3;
+    private static final int STRING = 4;
+    private static final int REFERENCE = 5;
+    private static final int DATE = 6;
+    private static final int ARRAY = 7;
+    private static final int OBJECT = 8;
+    private static final int MAP = 9;
+    private static final int SET = 10;
+    private static final int BUFFER = 11;
+    private static final int VIEW = 12;
+
+    /**
+     * The copy of an {@link ArrayBuffer}.
+     */
+    private static final class BufferData {
+        private final byte[] bytes_;
+
+        BufferData(final byte[] bytes) {
+            bytes_ = bytes;
+        }
+    }
+
+    /**
+     * The copy of a typed array or of a {@link DataView}.
+     */
+    private static final class ViewData {
+        private final Class<? extends ArrayBufferView> type_;
+        private BufferData buffer_;
+        private final int byteOffset_;
+        private final int byteLength_;
+
+        ViewData(final Class<? extends ArrayBufferView> type, final int byteOffset, final int byteLength) {
+            type_ = type;
+            byteOffset_ = byteOffset;
+            byteLength_ = byteLength;
+        }
+    }
+
+    /**
+     * The copy of a {@code Map}: the keys and the values, one after the other.
+     */
+    private static final class MapData {
+        private final List<Object> keysAndValues_ = new ArrayList<>();
+    }
+
+    /**
+     * The copy of a {@code Set}.
+     */
+    private static final class SetData {
+        private final List<Object> values_ = new ArrayList<>();
+    }
+
+    private StructuredClone() {
+    }
+
+    /**
+     * Converts the specified JavaScript value into plain Java objects.
+     * @param value the JavaScript value
+     * @return the Java representation
+     */
+    public static Object write(final Object value) {
+        return write(value, new IdentityHashMap<Object, Object>());
+    }
+
+    private static Object write(final Object value, final Map<Object, Object> written) {
+        if (value == null || value == Undefined.instance || value instanceof Boolean || value instanceof Number) {
+            return value;
+        }
+        if (value instanceof CharSequence) {
+            return value.toString();
+        }
+
+        final Object done = written.get(value);
+        if (done != null) {
+            return done;
+        }
+
+        if (value instanceof NativeArray) {
+            final NativeArray array = (NativeArray) value;
+            final long length = array.getLength();
+            final List<Object> list = new ArrayList<>((int) Math.min(length, 1024));
+            written.put(value, list);
+            for (int i = 0; i < length; i++) {
+                final Object element = array.get(i, array);
+                list.add(write(element == Scriptable.NOT_FOUND ? Undefined.instance : element, written));
+            }
+            return list;
+        }
+        if (value instanceof ScriptableObject && "Date".equals(((ScriptableObject) value).getClassName())) {
+            final Date date = (Date) Context.jsToJava(value, Date.class);
+            written.put(value, date);
+            return date;
+        }
+        if (value instanceof NativeObject) {
+            final NativeObject object = (NativeObject) value;
+            final Map<Object, Object> map = new LinkedHashMap<>();
+            written.put(value, map);
+            for (final Object id : object.getIds()) {
+                final Object property;
+                if (id instanceof Integer) {
+                    property = object.get(((Integer) id).intValue(), object);
+                }
+                else {
+                    property = object.get(id.toString(), object);
+                }
+                if (property != Scriptable.NOT_FOUND) {
+                    map.put(id, write(property, written));
+                }
+            }
+            return map;
+        }
+        if (value instanceof com.gargoylesoftware.htmlunit.javascript.host.Map) {
+            final MapData map = new MapData();
+            written.put(value, map);
+            for (final Map.Entry<Object, Object> entry
+                    : ((com.gargoylesoftware.htmlunit.javascript.host.Map) value).getMap().entrySet()) {
+                map.keysAndValues_.add(write(entry.getKey(), written));
+                map.keysAndValues_.add(write(entry.getValue(), written));
+            }
+            return map;
+        }
+        if (value instanceof Set) {
+            final SetData set = new SetData();
+            written.put(value, set);
+            for (final Object element : ((Set) value).getSet()) {
+                set.values_.add(write(element, written));
+            }
+            return set;
+        }
+        if (value instanceof ArrayBuffer) {
+            final BufferData buffer = new BufferData(((ArrayBuffer) value).getBytes().clone());
+            written.put(value, buffer);
+            return buffer;
+        }
+        if (value instanceof ArrayBufferView) {
+            final ArrayBufferView view = (ArrayBufferView) value;
+            final ViewData viewData = new ViewData(view.getClass(), view.getByteOffset(), view.getByteLength());
+            written.put(value, viewData);
+            viewData.buffer_ = (BufferData) write(view.getBuffer(), written);
+            return viewData;
+        }
+
+        final String type = value instanceof Function ? "function" : Context.toString(value);
+        throw Context.reportRuntimeError("DataCloneError: " + type + " could not be cloned.");
+    }
+
+    /**
+     * Converts the Java representation created by {@link #write(Object)} into JavaScript objects.
+     * @param data the Java representation
+     * @param cx the context of the current thread
+     * @param scope the scope of the created objects
+     * @return the JavaScript value
+     */
+    public static Object read(final Object data, final Context cx, final Scriptable scope) {
+        return read(data, cx, scope, new IdentityHashMap<Object, Scriptable>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object read(final Object data, final Context cx, final Scriptable scope,
+            final Map<Object, Scriptable> read) {
+        final Scriptable done = read.get(data);
+        if (done != null) {
+            return done;
+        }
+
+        if (data instanceof List) {
+            final List<Object> list = (List<Object>) data;
+            final Scriptable array = cx.newArray(scope, list.size());
+            read.put(data, array);
+            for (int i = 0; i < list.size(); i++) {
+                array.put(i, array, read(list.get(i), cx, scope, read));
+            }
+            return array;
+        }
+        if (data instanceof Date) {
+            final Scriptable date = cx.newObject(scope, "Date",
+                    new Object[] {Double.valueOf(((Date) data).getTime())});
+            read.put(data, date);
+            return date;
+        }
+        if (data instanceof Map) {
+            final Scriptable object = cx.newObject(scope);
+            read.put(data, object);
+            for (final Map.Entry<Object, Object> entry : ((Map<Object, Object>) data).entrySet()) {
+                final Object value = read(entry.getValue(), cx, scope, read);
+                if (entry.getKey() instanceof Integer) {
+                    object.put(((Integer) entry.getKey()).intValue(), object, value);
+                }
+                else {
+                    object.put(entry.getKey().toString(), object, value);
+                }
+            }
+            return object;
+        }
+        if (data instanceof MapData) {
+            final com.gargoylesoftware.htmlunit.javascript.host.Map map
+                = new com.gargoylesoftware.htmlunit.javascript.host.Map();
+            initialize(map, scope);
+            read.put(data, map);
+            final List<Object> keysAndValues = ((MapData) data).keysAndValues_;
+            for (int i = 0; i < keysAndValues.size(); i += 2) {
+                map.set(read(keysAndValues.get(i), cx, scope, read), read(keysAndValues.get(i + 1), cx, scope, read));
+            }
+            return map;
+        }
+        if (data instanceof SetData) {
+            final Set set = new Set();
+            initialize(set, scope);
+            read.put(data, set);
+            for (final Object value : ((SetData) data).values_) {
+                set.add(read(value, cx, scope, read));
+            }
+            return set;
+        }
+        if (data instanceof BufferData) {
+            final byte[] bytes = ((BufferData) data).bytes_;
+            final ArrayBuffer buffer = new ArrayBuffer();
+            buffer.constructor(bytes.length);
+            buffer.setBytes(0, bytes);
+            initialize(buffer, scope);
+            read.put(data, buffer);
+            return buffer;
+        }
+        if (data instanceof ViewData) {
+            final ViewData viewData = (ViewData) data;
+            final ArrayBuffer buffer = (ArrayBuffer) read(viewData.buffer_, cx, scope, read);
+            final ArrayBufferView view;
+            try {
+                view = viewData.type_.newInstance();
+            }
+            catch (final InstantiationException | IllegalAccessException e) {
+                throw Context.throwAsScriptRuntimeEx(e);
+            }
+            if (view instanceof DataView) {
+                ((DataView) view).constructor(buffer, viewData.byteOffset_, Integer.valueOf(viewData.byteLength_));
+            }
+            else {
+                ((ArrayBufferViewBase) view).constructor(buffer, Integer.valueOf(viewData.byteOffset_),
+                        Integer.valueOf(viewData.byteLength_));
+            }
+            initialize(view, scope);
+            read.put(data, view);
+            return view;
+        }
+        return data;
+    }
+
+    /**
+     * Sets the scope and the prototype of a host object created by {@link #read(Object, Context, Scriptable)}.
+     */
+    private static void initialize(final SimpleScriptable object, final Scriptable scope) {
+        final Scriptable topScope = ScriptableObject.getTopLevelScope(scope);
+        object.setParentScope(topScope);
+        if (topScope instanceof DedicatedWorkerGlobalScope) {
+            object.setPrototype(((DedicatedWorkerGlobalScope) topScope).getHostPrototype(object.getClass()));
+        }
+        else {
+            object.setPrototype(((Window) topScope).getPrototype(object.getClass()));
+        }
+    }
+
+    /**
+     * Converts the Java representation created by {@link #write(Object)} into bytes.
+     * @param data the Java representation
+     * @return the bytes
+     */
+    public static byte[] serialize(final Object data) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            serialize(data, out, new IdentityHashMap<Object, Integer>());
+        }
+        catch (final IOException e) {
+            // can't happen with a byte array
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void serialize(final Object data, final DataOutputStream out, final Map<Object, Integer> ids)
+        throws IOException {
+        if (data == null) {
+            out.write(NULL);
+            return;
+        }
+        if (data == Undefined.instance) {
+            out.write(UNDEFINED);
+            return;
+        }
+        if (data instanceof Boolean) {
+            out.write(BOOLEAN);
+            out.writeBoolean(((Boolean) data).booleanValue());
+            return;
+        }
+        if (data instanceof Number) {
+            out.write(NUMBER);
+            out.writeDouble(((Number) data).doubleValue());
+            return;
+        }
+        if (data instanceof String) {
+            out.write(STRING);
+            writeString(out, (String) data);
+            return;
+        }
+
+        final Integer id = ids.get(data);
+        if (id != null) {
+            out.write(REFERENCE);
+            out.writeInt(id.intValue());
+            return;
+        }
+        ids.put(data, Integer.valueOf(ids.size()));
+
+        if (data instanceof Date) {
+            out.write(DATE);
+            out.writeLong(((Date) data).getTime());
+        }
+        else if (data instanceof List) {
+            final List<Object> list = (List<Object>) data;
+            out.write(ARRAY);
+            out.writeInt(list.size());
+            for (final Object element : list) {
+                serialize(element, out, ids);
+            }
+        }
+        else if (data instanceof Map) {
+            final Map<Object, Object> map = (Map<Object, Object>) data;
+            out.write(OBJECT);
+            out.writeInt(map.size());
+            for (final Map.Entry<Object, Object> entry : map.entrySet()) {
+                final boolean index = entry.getKey() instanceof Integer;
+                out.writeBoolean(index);
+                if (index) {
+                    out.writeInt(((Integer) entry.getKey()).intValue());
+                }
+                else {
+                    writeString(out, entry.getKey().toString());
+                }
+                serialize(entry.getValue(), out, ids);
+            }
+        }
+        else if (data instanceof MapData) {
+            final List<Object> keysAndValues = ((MapData) data).keysAndValues_;
+            out.write(MAP);
+            out.writeInt(keysAndValues.size());
+            for (final Object element : keysAndValues) {
+                serialize(element, out, ids);
+            }
+        }
+        else if (data instanceof SetData) {
+            final List<Object> values = ((SetData) data).values_;
+            out.write(SET);
+            out.writeInt(values.size());
+            for (final Object element : values) {
+                serialize(element, out, ids);
+            }
+        }
+        else if (data instanceof BufferData) {
+            final byte[] bytes = ((BufferData) data).bytes_;
+            out.write(BUFFER);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        else if (data instanceof ViewData) {
+            final ViewData view = (ViewData) data;
+            out.write(VIEW);
+            writeString(out, view.type_.getName());
+            out.writeInt(view.byteOffset_);
+            out.writeInt(view.byteLength_);
+            serialize(view.buffer_, out, ids);
+        }
+        else {
+            throw new IllegalArgumentException("Not a structured clone: " + data.getClass().getName());
+        }
+    }
+
+    /**
+     * Converts the bytes created by {@link #serialize(Object)} into the Java representation.
+     * @param bytes the bytes
+     * @return the Java representation
+     * @throws IOException if the bytes are corrupted
+     */
+    public static Object deserialize(final byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return deserialize(in, new ArrayList<>());
+        }
+    }
+
+    private static Object deserialize(final DataInputStream in, final List<Object> objects) throws IOException {
+        final int type = in.read();
+        switch (type) {
+            case UNDEFINED:
+                return Undefined.instance;
+
+            case NULL:
+                return null;
+
+            case BOOLEAN:
+                return Boolean.valueOf(in.readBoolean());
+
+            case NUMBER:
+                return Double.valueOf(in.readDouble());
+
+            case STRING:
+                return readString(in);
+
+            case REFERENCE:
+                final int id = in.readInt();
+                if (id < 0 || id >= objects.size()) {
+                    throw new IOException("Invalid reference " + id);
+                }
+                return objects.get(id);
+
+            case DATE:
+                final Date date = new Date(in.readLong());
+                objects.add(date);
+                return date;
+
+            case ARRAY:
+                final int length = readLength(in);
+                final List<Object> list = new ArrayList<>(Math.min(length, 1024));
+                objects.add(list);
+                for (int i = 0; i < length; i++) {
+                    list.add(deserialize(in, objects));
+                }
+                return list;
+
+            case OBJECT:
+                final int size = readLength(in);
+                final Map<Object, Object> map = new LinkedHashMap<>();
+                objects.add(map);
+                for (int i = 0; i < size; i++) {
+                    final Object key;
+                    if (in.readBoolean()) {
+                        key = Integer.valueOf(in.readInt());
+                    }
+                    else {
+                        key = readString(in);
+                    }
+                    map.put(key, deserialize(in, objects));
+                }
+                return map;
+
+            case MAP:
+                final int mapSize = readLength(in);
+                final MapData mapData = new MapData();
+                objects.add(mapData);
+                for (int i = 0; i < mapSize; i++) {
+                    mapData.keysAndValues_.add(deserialize(in, objects));
+                }
+                if (mapSize % 2 != 0) {
+                    throw new IOException("Invalid map size " + mapSize);
+                }
+                return mapData;
+
+            case SET:
+                final int setSize = readLength(in);
+                final SetData setData = new SetData();
+                objects.add(setData);
+                for (int i = 0; i < setSize; i++) {
+                    setData.values_.add(deserialize(in, objects));
+                }
+                return setData;
+
+            case BUFFER:
+                final byte[] bytes = new byte[readLength(in)];
+                in.readFully(bytes);
+                final BufferData buffer = new BufferData(bytes);
+                objects.add(buffer);
+                return buffer;
+
+            case VIEW:
+                final String typeName = readString(in);
+                final Class<? extends ArrayBufferView> viewType;
+                try {
+                    viewType = Class.forName(typeName).asSubclass(ArrayBufferView.class);
+                }
+                catch (final ClassNotFoundException | ClassCastException e) {
+                    throw new IOException("Invalid view type " + typeName, e);
+                }
+                final ViewData view = new ViewData(viewType, in.readInt(), in.readInt());
+                objects.add(view);
+                final Object viewBuffer = deserialize(in, objects);
+                if (!(viewBuffer instanceof BufferData)) {
+                    throw new IOException("Invalid view buffer");
+                }
+                view.buffer_ = (BufferData) viewBuffer;
+                return view;
+
+            default:
+                throw new IOException("Invalid type " + type);
+        }
+    }
+
+    private static void writeString(final DataOutputStream out, final String s) throws IOException {
+        final byte[] bytes = s.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final byte[] bytes = new byte[readLength(in)];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static int readLength(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid length " + length);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript;
+
+import com.gargoylesoftware.htmlunit.javascript.host.DateCustom;
+import com.gargoylesoftware.htmlunit.javascript.host.Window;
+
+import net.sourceforge.htmlunit.corejs.javascript.BaseFunction;
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.Function;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptRuntime;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
+
+/**
+ * Replacement for Rhino's native {@code Date} constructor reading the current time from the
+ * {@link com.gargoylesoftware.htmlunit.WebClock} of the web client, for {@code new Date()},
+ * {@code Date()} and {@code Date.now()}.
+ */
+class WebClockDateFunction extends BaseFunction {
+
+    private final Function nativeDate_;
+
+    /**
+     * Installs the replacement in place of the native {@code Date} constructor.
+     * @param window the scope
+     */
+    static void install(final ScriptableObject window) {
+        final Function nativeDate = (Function) ScriptableObject.getProperty(window, "Date");
+        final ScriptableObject datePrototype = (ScriptableObject) ScriptableObject.getClassPrototype(window, "Date");
+        final WebClockDateFunction date = new WebClockDateFunction(window, nativeDate, datePrototype);
+
+        for (final String name : new String[] {"parse", "UTC"}) {
+            date.defineProperty(name, ScriptableObject.getProperty(nativeDate, name), ScriptableObject.DONTENUM);
+        }
+        date.defineFunctionProperties(new String[] {"now"}, DateCustom.class, ScriptableObject.DONTENUM);
+
+        datePrototype.defineProperty("constructor", date, ScriptableObject.DONTENUM);
+        window.defineProperty("Date", date, ScriptableObject.DONTENUM);
+    }
+
+    private WebClockDateFunction(final Scriptable scope, final Function nativeDate, final Scriptable datePrototype) {
+        super(scope, ScriptableObject.getFunctionPrototype(scope));
+        nativeDate_ = nativeDate;
+        setImmunePrototypeProperty(datePrototype);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Scriptable construct(final Context cx, final Scriptable scope, final Object[] args) {
+        if (args.length == 0) {
+            return nativeDate_.construct(cx, scope, new Object[] {currentTimeMillis(scope)});
+        }
+        return nativeDate_.construct(cx, scope, args);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object call(final Context cx, final Scriptable scope, final Scriptable thisObj, final Object[] args) {
+        // called as a function, Date() ignores its arguments and returns the current time as a string
+        return Context.toString(construct(cx, scope, ScriptRuntime.emptyArgs));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getFunctionName() {
+        return "Date";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getArity() {
+        return 7;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLength() {
+        return 7;
+    }
+
+    private static double currentTimeMillis(final Scriptable scope) {
+        final Window window = (Window) ScriptableObject.getTopLevelScope(scope);
+        return window.getWebWindow().getWebClient().getClock().currentTimeMillis();
+    }
+}
@@ -22,7 +22,9 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebClock;
 import com.gargoylesoftware.htmlunit.WebWindow;
+import com.gargoylesoftware.htmlunit.util.VirtualThreads;
 
 /**
  * An event loop to execute all the JavaScript jobs.
@@ -42,6 +44,8 @@ public class DefaultJavaScriptExecutor implements JavaScriptExecutor {
 
     private transient Thread eventLoopThread_ = null;
 
+    private final transient FastForwardPolicy fastForwardPolicy_ = new FastForwardPolicy();
+
     /** Logging support. */
     private static final Log LOG = LogFactory.getLog(DefaultJavaScriptExecutor.class);
 
@@ -58,8 +62,15 @@ public class DefaultJavaScriptExecutor implements JavaScriptExecutor {
      */
     protected void startThreadIfNeeded() {
         if (eventLoopThread_ == null) {
-            eventLoopThread_ = new Thread(this, getThreadName());
-            eventLoopThread_.setDaemon(true);
+            final WebClient webClient = webClient_.get();
+            if (webClient != null && webClient.getOptions().isVirtualThreadsEnabled()
+                    && VirtualThreads.isSupported()) {
+                eventLoopThread_ = VirtualThreads.newThread(this, getThreadName());
+            }
+            else {
+                eventLoopThread_ = new Thread(this, getThreadName());
+                eventLoopThread_.setDaemon(true);
+            }
             eventLoopThread_.start();
         }
     }
@@ -95,7 +106,13 @@ public class DefaultJavaScriptExecutor implements JavaScriptExecutor {
             }
 
             // Stop the thread
-            eventLoopThread_.stop();
+            try {
+                eventLoopThread_.stop();
+            }
+            catch (final UnsupportedOperationException e) {
+                // virtual threads can't be stopped
+                LOG.warn("Event loop thread can't be stopped", e);
+            }
         }
     }
 
@@ -120,6 +137,28 @@ public class DefaultJavaScriptExecutor implements JavaScriptExecutor {
         return javaScriptJobManager;
     }
 
+    /**
+     * Returns the clock of the web client.
+     * @return the clock
+     */
+    protected WebClock getClock() {
+        final WebClient webClient = webClient_.get();
+        if (webClient == null) {
+            return new WebClock();
+        }
+        return webClient.getClock();
+    }
+
+    /**
+     * Moves the clock of the web client forward to the target time of the specified job,
+     * if the clock supports it and the web client is idle.
+     * @param job the earliest job, not yet due
+     * @return whether the clock has been moved forward
+     */
+    protected boolean fastForward(final JavaScriptJob job) {
+        return fastForwardPolicy_.fastForward(webClient_.get(), job);
+    }
+
     /**
      * Executes the jobs in the eventLoop till timeoutMillis expires or the eventLoop becomes empty.
      * No use in non-GAE mode.
@@ -144,7 +183,8 @@ public class DefaultJavaScriptExecutor implements JavaScriptExecutor {
             if (jobManager != null) {
                 final JavaScriptJob earliestJob = jobManager.getEarliestJob();
                 if (earliestJob != null) {
-                    final long waitTime = earliestJob.getTargetExecutionTime() - System.currentTimeMillis();
+                    final WebClock clock = getClock();
+                    final long waitTime = earliestJob.getTargetExecutionTime() - clock.currentTimeMillis();
 
                     // do we have to execute the earliest job
                     if (waitTime < 1) {
@@ -160,6 +200,11 @@ public class DefaultJavaScriptExecutor implements JavaScriptExecutor {
                         // job is done, have a look for another one
                         continue;
                     }
+
+                    // nothing else to do, a virtual clock can jump to the next job
+                    if (fastForward(earliestJob)) {
+                        continue;
+                    }
                 }
             }
 
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript.background;
+
+import java.util.concurrent.TimeUnit;
+
+import com.gargoylesoftware.htmlunit.VirtualWebClock;
+import com.gargoylesoftware.htmlunit.WebClient;
+
+/**
+ * Decides whether a JavaScript executor may move the clock of a web client forward to the target time
+ * of the next job instead of waiting for it.
+ *
+ * <p>The clock is only moved when the web client is not {@link WebClient#isBusy() busy}: a page being
+ * loaded or a script being executed may still schedule an earlier job. Periodic jobs executed back to back
+ * are throttled: after {@link #MAX_PERIODIC_FAST_FORWARDS} jumps in a row, the clock jumps at most once per
+ * {@link #THROTTLE_INTERVAL_MILLIS}, so that a <tt>setInterval</tt> never cleared doesn't keep a thread busy.</p>
+ *
+ * @see VirtualWebClock
+ */
+final class FastForwardPolicy {
+
+    /** The number of jumps in a row to periodic jobs made without throttling. */
+    static final int MAX_PERIODIC_FAST_FORWARDS = 100;
+
+    /** The minimal (real) time between two throttled jumps. */
+    static final long THROTTLE_INTERVAL_MILLIS = 10;
+
+    private int periodicFastForwards_;
+    private long lastFastForwardNanos_;
+
+    /**
+     * Moves the clock of the web client forward to the target time of the job, if allowed.
+     * @param webClient the web client, may be {@code null} if already garbage collected
+     * @param job the earliest job of the web client, not yet due
+     * @return whether the clock has been moved forward, so that the executor doesn't have to wait
+     */
+    synchronized boolean fastForward(final WebClient webClient, final JavaScriptJob job) {
+        if (webClient == null || webClient.isBusy()) {
+            return false;
+        }
+        if (!job.isPeriodic()) {
+            periodicFastForwards_ = 0;
+        }
+        else if (periodicFastForwards_ < MAX_PERIODIC_FAST_FORWARDS) {
+            periodicFastForwards_++;
+        }
+        else if (System.nanoTime() - lastFastForwardNanos_
+                < TimeUnit.MILLISECONDS.toNanos(THROTTLE_INTERVAL_MILLIS)) {
+            return false;
+        }
+
+        if (!webClient.getClock().fastForward(job.getTargetExecutionTime())) {
+            return false;
+        }
+        lastFastForwardNanos_ = System.nanoTime();
+        return true;
+    }
+}
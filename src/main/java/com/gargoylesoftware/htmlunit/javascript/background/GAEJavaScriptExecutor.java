@@ -15,6 +15,7 @@
 package com.gargoylesoftware.htmlunit.javascript.background;
 
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebClock;
 
 /**
  * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
@@ -51,7 +52,8 @@ public class GAEJavaScriptExecutor extends DefaultJavaScriptExecutor {
     @Override
     public int pumpEventLoop(final long timeoutMillis) {
         int count = 0;
-        long currentTime = System.currentTimeMillis();
+        final WebClock clock = getClock();
+        long currentTime = clock.currentTimeMillis();
         final long expirationTime = currentTime + timeoutMillis;
 
         while (currentTime < expirationTime) {
@@ -70,7 +72,7 @@ public class GAEJavaScriptExecutor extends DefaultJavaScriptExecutor {
 
             // sleep if there is time remaining in the earliestJob.
             final long sleepTime = earliestJob.getTargetExecutionTime() - currentTime;
-            if (sleepTime > 0) {
+            if (sleepTime > 0 && !fastForward(earliestJob)) {
                 try {
                     Thread.sleep(sleepTime);
                 }
@@ -82,7 +84,7 @@ public class GAEJavaScriptExecutor extends DefaultJavaScriptExecutor {
             if (ran) {
                 count++;
             }
-            currentTime = System.currentTimeMillis();
+            currentTime = clock.currentTimeMillis();
         }
         return count;
     }
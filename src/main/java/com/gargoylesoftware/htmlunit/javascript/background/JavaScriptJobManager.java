@@ -143,6 +143,18 @@ public interface JavaScriptJobManager extends Serializable {
      */
     boolean runSingleJob(JavaScriptJob job);
 
+    /**
+     * Notes that some work of the window is executed outside of this job manager, for instance by
+     * the thread of a dedicated worker. Until {@link #externalJobFinished()} is called, this work is
+     * counted as an active job, so that waiting for the jobs also waits for it.
+     */
+    void externalJobStarted();
+
+    /**
+     * Notes that some work announced with {@link #externalJobStarted()} is finished.
+     */
+    void externalJobFinished();
+
     /**
      * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
      *
@@ -17,14 +17,20 @@ package com.gargoylesoftware.htmlunit.javascript.background;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.lang.ref.WeakReference;
-import java.util.ArrayList;
-import java.util.PriorityQueue;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import com.gargoylesoftware.htmlunit.MetricsListener;
 import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebClock;
 import com.gargoylesoftware.htmlunit.WebWindow;
 
 /**
@@ -49,15 +55,43 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
     private final transient WeakReference<WebWindow> window_;
 
     /**
-     * Queue of jobs that are scheduled to run. This is a priority queue, sorted
-     * by closest target execution time.
+     * Orders the jobs like {@link JavaScriptJob#compareTo(Object)}; jobs with the same
+     * target execution time are ordered by id, i.e. in the order they have been added.
      */
-    private transient PriorityQueue<JavaScriptJob> scheduledJobsQ_ = new PriorityQueue<>();
+    private static final Comparator<JavaScriptJob> JOB_COMPARATOR = new Comparator<JavaScriptJob>() {
+        @Override
+        public int compare(final JavaScriptJob job1, final JavaScriptJob job2) {
+            final int result = job1.compareTo(job2);
+            if (result != 0) {
+                return result;
+            }
+            return job1.getId().compareTo(job2.getId());
+        }
+    };
+
+    /**
+     * Queue of jobs that are scheduled to run, sorted by closest target execution time.
+     * Together with {@link #scheduledJobsById_}, jobs are added and removed in O(log n).
+     */
+    private transient TreeSet<JavaScriptJob> scheduledJobsQ_ = new TreeSet<>(JOB_COMPARATOR);
 
-    private transient ArrayList<Integer> cancelledJobs_ = new ArrayList<>();
+    /** The jobs of {@link #scheduledJobsQ_}, by id. */
+    private transient Map<Integer, JavaScriptJob> scheduledJobsById_ = new HashMap<>();
 
     private transient JavaScriptJob currentlyRunningJob_ = null;
 
+    /** Whether the currently running job has been removed; if periodic, it must not be rescheduled. */
+    private transient boolean currentlyRunningJobCancelled_;
+
+    /** The number of jobs executed outside of this manager, see {@link #externalJobStarted()}. */
+    private transient int externalJobCount_;
+
+    /** Notified of the added jobs, see {@link #setJobAddedListener(JobAddedListener)}. */
+    private transient volatile JobAddedListener jobAddedListener_;
+
+    /** The clock used when the window is not (or no more) attached to a web client. */
+    private static final WebClock SYSTEM_CLOCK = new WebClock();
+
     /** A counter used to generate the IDs assigned to {@link JavaScriptJob}s. */
     private static final AtomicInteger NEXT_JOB_ID_ = new AtomicInteger(1);
 
@@ -76,14 +110,14 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
     /** {@inheritDoc} */
     @Override
     public synchronized int getJobCount() {
-        return scheduledJobsQ_.size() + (currentlyRunningJob_ != null ? 1 : 0);
+        return scheduledJobsQ_.size() + (currentlyRunningJob_ != null ? 1 : 0) + externalJobCount_;
     }
 
     /** {@inheritDoc} */
     @Override
     public synchronized int getJobCount(final JavaScriptJobFilter filter) {
         if (filter == null) {
-            return scheduledJobsQ_.size() + (currentlyRunningJob_ != null ? 1 : 0);
+            return getJobCount();
         }
 
         int count = 0;
@@ -118,9 +152,16 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
         }
         final int id = NEXT_JOB_ID_.getAndIncrement();
         job.setId(Integer.valueOf(id));
+        if (job instanceof BasicJavaScriptJob) {
+            // the jobs are scheduled against the clock of the web client
+            final int initialDelay = ((BasicJavaScriptJob) job).getInitialDelay();
+            job.setTargetExecutionTime(getClock().currentTimeMillis() + initialDelay);
+        }
 
+        final int queueDepth;
         synchronized (this) {
-            scheduledJobsQ_.add(job);
+            schedule(job);
+            queueDepth = scheduledJobsQ_.size();
 
             if (LOG.isDebugEnabled()) {
                 LOG.debug("job added to queue");
@@ -133,48 +174,83 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
             notify();
         }
 
+        final MetricsListener metrics = getMetricsListener();
+        if (metrics != null) {
+            metrics.record(MetricsListener.JS_JOB_QUEUE_DEPTH, queueDepth);
+        }
+
+        final JobAddedListener listener = jobAddedListener_;
+        if (listener != null) {
+            listener.jobAdded(job);
+        }
         return id;
     }
 
+    /**
+     * Notified when a job is added to a job manager, so that an executor doesn't have to poll it.
+     */
+    interface JobAddedListener {
+        /**
+         * Called after the job has been scheduled, without holding the lock of the job manager.
+         * @param job the added job
+         */
+        void jobAdded(JavaScriptJob job);
+    }
+
+    /**
+     * Sets the listener notified when a job is added.
+     * @param listener the listener or {@code null}
+     */
+    void setJobAddedListener(final JobAddedListener listener) {
+        jobAddedListener_ = listener;
+    }
+
     /** {@inheritDoc} */
     @Override
     public synchronized void removeJob(final int id) {
-        for (final JavaScriptJob job : scheduledJobsQ_) {
-            final int jobId = job.getId().intValue();
-            if (jobId == id) {
-                scheduledJobsQ_.remove(job);
-                break;
-            }
-        }
-        cancelledJobs_.add(Integer.valueOf(id));
+        cancel(id);
         notify();
     }
 
     /** {@inheritDoc} */
     @Override
     public synchronized void stopJob(final int id) {
-        for (final JavaScriptJob job : scheduledJobsQ_) {
-            final int jobId = job.getId().intValue();
-            if (jobId == id) {
-                scheduledJobsQ_.remove(job);
-                // TODO: should we try to interrupt the job if it is running?
-                break;
-            }
-        }
-        cancelledJobs_.add(Integer.valueOf(id));
+        // TODO: should we try to interrupt the job if it is running?
+        cancel(id);
         notify();
     }
 
+    private void cancel(final int id) {
+        final JavaScriptJob job = scheduledJobsById_.remove(Integer.valueOf(id));
+        if (job != null) {
+            scheduledJobsQ_.remove(job);
+        }
+        else if (currentlyRunningJob_ != null && currentlyRunningJob_.getId().intValue() == id) {
+            currentlyRunningJobCancelled_ = true;
+        }
+    }
+
+    private void schedule(final JavaScriptJob job) {
+        scheduledJobsQ_.add(job);
+        scheduledJobsById_.put(job.getId(), job);
+    }
+
+    private boolean unschedule(final JavaScriptJob job) {
+        if (scheduledJobsQ_.remove(job)) {
+            scheduledJobsById_.remove(job.getId());
+            return true;
+        }
+        return false;
+    }
+
     /** {@inheritDoc} */
     @Override
     public synchronized void removeAllJobs() {
         if (currentlyRunningJob_ != null) {
-            cancelledJobs_.add(currentlyRunningJob_.getId());
-        }
-        for (final JavaScriptJob job : scheduledJobsQ_) {
-            cancelledJobs_.add(job.getId());
+            currentlyRunningJobCancelled_ = true;
         }
         scheduledJobsQ_.clear();
+        scheduledJobsById_.clear();
         notify();
     }
 
@@ -186,7 +262,8 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
             LOG.debug("Waiting for all jobs to finish (will wait max " + timeoutMillis + " millis).");
         }
         if (timeoutMillis > 0) {
-            long now = System.currentTimeMillis();
+            final WebClock clock = getClock();
+            long now = clock.currentTimeMillis();
             final long end = now + timeoutMillis;
 
             synchronized (this) {
@@ -199,7 +276,7 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
                     }
                     // maybe a change triggers the wakup; we have to recalculate the
                     // wait time
-                    now = System.currentTimeMillis();
+                    now = clock.currentTimeMillis();
                 }
             }
         }
@@ -221,7 +298,7 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
     public int waitForJobsStartingBefore(final long delayMillis, final JavaScriptJobFilter filter) {
         final boolean debug = LOG.isDebugEnabled();
 
-        final long latestExecutionTime = System.currentTimeMillis() + delayMillis;
+        final long latestExecutionTime = getClock().currentTimeMillis() + delayMillis;
         if (debug) {
             LOG.debug("Waiting for all jobs that have execution time before "
                   + delayMillis + " (" + latestExecutionTime + ") to finish");
@@ -269,6 +346,7 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
     @Override
     public synchronized void shutdown() {
         scheduledJobsQ_.clear();
+        scheduledJobsById_.clear();
         notify();
     }
 
@@ -283,6 +361,36 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
         return window_.get();
     }
 
+    /**
+     * Returns the clock of the web client of the window.
+     * @return the clock
+     */
+    private WebClock getClock() {
+        final WebWindow window = getWindow();
+        if (window != null) {
+            final WebClient webClient = window.getWebClient();
+            if (webClient != null) {
+                return webClient.getClock();
+            }
+        }
+        return SYSTEM_CLOCK;
+    }
+
+    /**
+     * Returns the metrics listener of the web client of the window.
+     * @return the listener or {@code null}
+     */
+    private MetricsListener getMetricsListener() {
+        final WebWindow window = getWindow();
+        if (window != null) {
+            final WebClient webClient = window.getWebClient();
+            if (webClient != null) {
+                return webClient.getMetricsListener();
+            }
+        }
+        return null;
+    }
+
     /**
      * Utility method to print current queue.
      */
@@ -323,9 +431,10 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
         status.append("  number of jobs on the queue: " + scheduledJobsQ_.size());
         status.append(lineSeparator);
         int count = 1;
+        final WebClock clock = getClock();
         for (final JavaScriptJob job : scheduledJobsQ_) {
             if (filter == null || filter.passes(job)) {
-                final long now = System.currentTimeMillis();
+                final long now = clock.currentTimeMillis();
                 final long execTime = job.getTargetExecutionTime();
                 status.append("  " + count);
                 status.append(")  Job target execution time: " + execTime);
@@ -352,8 +461,11 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
      * {@inheritDoc}
      */
     @Override
-    public JavaScriptJob getEarliestJob() {
-        return scheduledJobsQ_.peek();
+    public synchronized JavaScriptJob getEarliestJob() {
+        if (scheduledJobsQ_.isEmpty()) {
+            return null;
+        }
+        return scheduledJobsQ_.first();
     }
 
     /**
@@ -362,7 +474,7 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
     @Override
     public synchronized JavaScriptJob getEarliestJob(final JavaScriptJobFilter filter) {
         if (filter == null) {
-            return scheduledJobsQ_.peek();
+            return getEarliestJob();
         }
 
         for (JavaScriptJob job : scheduledJobsQ_) {
@@ -384,17 +496,26 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
             return false;
         }
 
-        final long currentTime = System.currentTimeMillis();
+        final long currentTime = getClock().currentTimeMillis();
         if (job.getTargetExecutionTime() > currentTime) {
             return false;
         }
         synchronized (this) {
-            if (scheduledJobsQ_.remove(job)) {
-                currentlyRunningJob_ = job;
+            if (!unschedule(job)) {
+                // removed in the meantime
+                return false;
             }
+            currentlyRunningJob_ = job;
+            currentlyRunningJobCancelled_ = false;
             // no need to notify if processing is started
         }
 
+        final MetricsListener metrics = getMetricsListener();
+        if (metrics != null) {
+            metrics.record(MetricsListener.JS_JOB_LATENCY,
+                    TimeUnit.MILLISECONDS.toNanos(currentTime - job.getTargetExecutionTime()));
+        }
+
         final boolean debug = LOG.isDebugEnabled();
         final boolean isPeriodicJob = job.isPeriodic();
         if (isPeriodicJob) {
@@ -407,11 +528,11 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
 
             // queue
             synchronized (this) {
-                if (!cancelledJobs_.contains(job.getId())) {
+                if (!currentlyRunningJobCancelled_) {
                     if (debug) {
                         LOG.debug("Reschedulling job " + job);
                     }
-                    scheduledJobsQ_.add(job);
+                    schedule(job);
                     notify();
                 }
             }
@@ -441,6 +562,25 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
         return true;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void externalJobStarted() {
+        externalJobCount_++;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void externalJobFinished() {
+        if (externalJobCount_ > 0) {
+            externalJobCount_--;
+        }
+        notify();
+    }
+
     /**
      * Our own serialization (to handle the weak reference)
      * @param in the stream to read form
@@ -451,8 +591,9 @@ class JavaScriptJobManagerImpl implements JavaScriptJobManager {
         in.defaultReadObject();
 
         // we do not store the jobs (at the moment)
-        scheduledJobsQ_ = new PriorityQueue<>();
-        cancelledJobs_ = new ArrayList<>();
+        scheduledJobsQ_ = new TreeSet<>(JOB_COMPARATOR);
+        scheduledJobsById_ = new HashMap<>();
         currentlyRunningJob_ = null;
+        externalJobCount_ = 0;
     }
 }
@@ -0,0 +1,470 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript.background;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebClock;
+import com.gargoylesoftware.htmlunit.WebWindow;
+import com.gargoylesoftware.htmlunit.util.VirtualThreads;
+
+/**
+ * An event loop executing the JavaScript jobs of several {@link WebClient}s with a fixed number of threads,
+ * instead of one thread per web client as done by {@link DefaultJavaScriptExecutor}.
+ * The jobs of one web client are never executed concurrently.
+ *
+ * <p>The web clients having jobs are kept in one queue ordered by the time their next job is due; the job
+ * managers report the added jobs, so an idle thread just waits for the head of the queue instead of
+ * looking at every web client.</p>
+ */
+public class SharedJavaScriptExecutor {
+
+    /** Logging support. */
+    private static final Log LOG = LogFactory.getLog(SharedJavaScriptExecutor.class);
+
+    /**
+     * The delay after which a web client is looked at again when its next job can't be predicted:
+     * a clock which is not the system one, or a job manager not reporting the added jobs.
+     */
+    private static final long RECHECK_DELAY_MILLIS = FastForwardPolicy.THROTTLE_INTERVAL_MILLIS;
+
+    private final List<ClientExecutor> clients_ = new CopyOnWriteArrayList<>();
+    private final PriorityQueue<Wakeup> wakeups_ = new PriorityQueue<>();
+    private final List<Thread> threads_ = new ArrayList<>();
+    private final int threadCount_;
+    private final boolean virtualThreads_;
+    private volatile boolean shutdown_;
+
+    /**
+     * Creates a new instance.
+     * @param threadCount the number of threads executing the jobs
+     */
+    public SharedJavaScriptExecutor(final int threadCount) {
+        this(threadCount, false);
+    }
+
+    /**
+     * Creates a new instance.
+     * @param threadCount the number of threads executing the jobs
+     * @param virtualThreads whether to use virtual threads, if supported by the Java runtime
+     */
+    public SharedJavaScriptExecutor(final int threadCount, final boolean virtualThreads) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Illegal value for threadCount: " + threadCount);
+        }
+        threadCount_ = threadCount;
+        virtualThreads_ = virtualThreads && VirtualThreads.isSupported();
+    }
+
+    /**
+     * Creates the {@link JavaScriptExecutor} a web client uses to register its windows with this executor.
+     * Shutting the returned executor down only removes the windows of this web client.
+     * @param webClient the web client
+     * @return the executor of the web client
+     */
+    public JavaScriptExecutor createJavaScriptExecutor(final WebClient webClient) {
+        return new ClientExecutor(webClient);
+    }
+
+    /**
+     * Starts the threads, if not yet done.
+     */
+    protected synchronized void startThreadsIfNeeded() {
+        if (shutdown_ || !threads_.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < threadCount_; i++) {
+            final Thread thread = createThread(new EventLoop(), getThreadName() + " " + i);
+            threads_.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Creates a daemon or virtual thread running the given event loop.
+     * @param eventLoop the event loop to run
+     * @param name the name of the thread
+     * @return the new thread, not yet started
+     */
+    protected Thread createThread(final Runnable eventLoop, final String name) {
+        if (virtualThreads_) {
+            return VirtualThreads.newThread(eventLoop, name);
+        }
+        final Thread thread = new Thread(eventLoop, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Defines the thread name; overload if needed.
+     * @return the name of the js executor threads
+     */
+    protected String getThreadName() {
+        return "Shared JS executor";
+    }
+
+    /**
+     * Returns the number of web clients currently registered.
+     * @return the number of web clients
+     */
+    public int getClientCount() {
+        return clients_.size();
+    }
+
+    /**
+     * Stops all threads.
+     */
+    public void shutdown() {
+        shutdown_ = true;
+
+        final List<Thread> threads;
+        synchronized (this) {
+            threads = new ArrayList<>(threads_);
+            threads_.clear();
+        }
+        for (final Thread thread : threads) {
+            thread.interrupt();
+        }
+        for (final Thread thread : threads) {
+            try {
+                thread.join(10_000);
+            }
+            catch (final InterruptedException e) {
+                LOG.warn("InterruptedException while waiting for the shared executor thread to join ", e);
+                // ignore, this doesn't matter, we want to stop it
+            }
+        }
+        clients_.clear();
+        synchronized (wakeups_) {
+            wakeups_.clear();
+        }
+    }
+
+    /**
+     * Queues a wake up of the web client at the given time, unless an earlier one is already queued.
+     * @param client the web client
+     * @param deadline the time, as given by {@link System#nanoTime()}
+     */
+    private void wakeUp(final ClientExecutor client, final long deadline) {
+        synchronized (wakeups_) {
+            final Wakeup queued = client.wakeup_;
+            if (queued != null && queued.deadline_ - deadline <= 0) {
+                return;
+            }
+            // the wake up queued before is skipped when polled
+            final Wakeup wakeup = new Wakeup(client, deadline);
+            client.wakeup_ = wakeup;
+            wakeups_.add(wakeup);
+            if (wakeups_.peek() == wakeup) {
+                wakeups_.notify();
+            }
+        }
+    }
+
+    /**
+     * Waits for the next web client to be due.
+     * @return the web client
+     * @throws InterruptedException if interrupted while waiting
+     */
+    ClientExecutor takeDueClient() throws InterruptedException {
+        synchronized (wakeups_) {
+            while (true) {
+                final Wakeup head = wakeups_.peek();
+                if (head == null) {
+                    wakeups_.wait();
+                    continue;
+                }
+                final long waitNanos = head.deadline_ - System.nanoTime();
+                if (waitNanos > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(wakeups_, waitNanos);
+                    continue;
+                }
+                wakeups_.poll();
+                if (!wakeups_.isEmpty()) {
+                    // let an other thread look at the next one
+                    wakeups_.notify();
+                }
+                if (head.client_.wakeup_ == head) {
+                    head.client_.wakeup_ = null;
+                    return head.client_;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the earliest job of the web client if it is due, and queues the next wake up of the web client.
+     * Nothing is done if the web client is executing a job in an other thread: this thread queues
+     * the next wake up when done.
+     * @param client the web client
+     */
+    void runEarliestJob(final ClientExecutor client) {
+        if (!client.running_.compareAndSet(false, true)) {
+            return;
+        }
+        boolean notDue = false;
+        try {
+            final JavaScriptJobManager jobManager = client.getJobManagerWithEarliestJob();
+            if (jobManager != null) {
+                final JavaScriptJob job = jobManager.getEarliestJob();
+                if (job != null) {
+                    if (client.isDue(job)) {
+                        jobManager.runSingleJob(job);
+                    }
+                    else {
+                        notDue = true;
+                    }
+                }
+            }
+        }
+        finally {
+            client.running_.set(false);
+        }
+        client.scheduleNextJob(notDue);
+    }
+
+    /**
+     * A web client to look at when the deadline is reached.
+     */
+    private static final class Wakeup implements Comparable<Wakeup> {
+        private final ClientExecutor client_;
+        private final long deadline_;
+
+        Wakeup(final ClientExecutor client, final long deadline) {
+            client_ = client;
+            deadline_ = deadline;
+        }
+
+        @Override
+        public int compareTo(final Wakeup other) {
+            return Long.signum(deadline_ - other.deadline_);
+        }
+    }
+
+    /**
+     * The loop run by each thread.
+     */
+    private final class EventLoop implements Runnable {
+
+        @Override
+        public void run() {
+            while (!shutdown_ && !Thread.currentThread().isInterrupted()) {
+                try {
+                    runEarliestJob(takeDueClient());
+                }
+                catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * The part of the shared executor dedicated to one web client.
+     */
+    private final class ClientExecutor implements JavaScriptExecutor, JavaScriptJobManagerImpl.JobAddedListener {
+
+        private final transient WeakReference<WebClient> webClient_;
+        private transient volatile List<WeakReference<JavaScriptJobManager>> jobManagerList_ = new LinkedList<>();
+        private final transient AtomicBoolean running_ = new AtomicBoolean();
+        private final transient FastForwardPolicy fastForwardPolicy_ = new FastForwardPolicy();
+
+        /** Whether a job manager doesn't report its added jobs. */
+        private transient volatile boolean unobservedJobManager_;
+
+        /** The queued wake up, guarded by the lock of {@link SharedJavaScriptExecutor#wakeups_}. */
+        private transient Wakeup wakeup_;
+
+        ClientExecutor(final WebClient webClient) {
+            webClient_ = new WeakReference<>(webClient);
+        }
+
+        @Override
+        public void addWindow(final WebWindow newWindow) {
+            final JavaScriptJobManager jobManager = newWindow.getJobManager();
+            if (jobManager != null) {
+                if (updateJobMangerList(jobManager)) {
+                    if (jobManager instanceof JavaScriptJobManagerImpl) {
+                        ((JavaScriptJobManagerImpl) jobManager).setJobAddedListener(this);
+                    }
+                    else {
+                        unobservedJobManager_ = true;
+                    }
+                }
+                if (!clients_.contains(this)) {
+                    clients_.add(this);
+                }
+                startThreadsIfNeeded();
+                scheduleNextJob(false);
+            }
+        }
+
+        private synchronized boolean updateJobMangerList(final JavaScriptJobManager newJobManager) {
+            for (WeakReference<JavaScriptJobManager> weakReference : jobManagerList_) {
+                final JavaScriptJobManager manager = weakReference.get();
+                if (newJobManager == manager) {
+                    return false;
+                }
+            }
+
+            final List<WeakReference<JavaScriptJobManager>> managers = new LinkedList<>();
+            for (WeakReference<JavaScriptJobManager> weakReference : jobManagerList_) {
+                final JavaScriptJobManager manager = weakReference.get();
+                if (null != manager) {
+                    managers.add(weakReference);
+                }
+            }
+            managers.add(new WeakReference<>(newJobManager));
+            jobManagerList_ = managers;
+            return true;
+        }
+
+        JavaScriptJobManager getJobManagerWithEarliestJob() {
+            if (webClient_.get() == null) {
+                clients_.remove(this);
+                return null;
+            }
+
+            JavaScriptJobManager javaScriptJobManager = null;
+            JavaScriptJob earliestJob = null;
+            for (WeakReference<JavaScriptJobManager> weakReference : jobManagerList_) {
+                final JavaScriptJobManager jobManager = weakReference.get();
+                if (jobManager != null) {
+                    final JavaScriptJob newJob = jobManager.getEarliestJob();
+                    if (newJob != null && (earliestJob == null || earliestJob.compareTo(newJob) > 0)) {
+                        earliestJob = newJob;
+                        javaScriptJobManager = jobManager;
+                    }
+                }
+            }
+            return javaScriptJobManager;
+        }
+
+        /**
+         * Queues the wake up of this web client for its earliest job, if any.
+         * @param notDue whether the earliest job was just found not to be due
+         */
+        void scheduleNextJob(final boolean notDue) {
+            if (shutdown_) {
+                return;
+            }
+            final JavaScriptJobManager jobManager = getJobManagerWithEarliestJob();
+            final JavaScriptJob job = jobManager == null ? null : jobManager.getEarliestJob();
+            if (job == null) {
+                if (unobservedJobManager_ && webClient_.get() != null) {
+                    wakeUp(this, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RECHECK_DELAY_MILLIS));
+                }
+                return;
+            }
+            wakeUp(this, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getDelay(job, notDue)));
+        }
+
+        /**
+         * Returns the (real) time to wait before looking at the job again.
+         * @param job the job
+         * @param notDue whether the job was just found not to be due
+         */
+        private long getDelay(final JavaScriptJob job, final boolean notDue) {
+            final WebClock clock = getClock();
+            final long delay = job.getTargetExecutionTime() - clock.currentTimeMillis();
+            if (delay <= 0) {
+                return 0;
+            }
+            if (clock.getClass() != WebClock.class) {
+                // an other clock may be moved forward when the web client is idle, or may not follow the real time
+                return notDue ? Math.min(delay, RECHECK_DELAY_MILLIS) : 0;
+            }
+            return delay;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void jobAdded(final JavaScriptJob job) {
+            if (webClient_.get() != null) {
+                wakeUp(this, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getDelay(job, false)));
+            }
+        }
+
+        WebClock getClock() {
+            final WebClient webClient = webClient_.get();
+            if (webClient == null) {
+                return new WebClock();
+            }
+            return webClient.getClock();
+        }
+
+        /**
+         * Returns whether the specified job is due; if this web client is idle,
+         * a virtual clock jumps to the target time of the job.
+         * @param job the earliest job of this web client
+         * @return whether the job is due
+         */
+        boolean isDue(final JavaScriptJob job) {
+            return job.getTargetExecutionTime() <= getClock().currentTimeMillis()
+                    || fastForwardPolicy_.fastForward(webClient_.get(), job);
+        }
+
+        /**
+         * Does nothing, the jobs are executed by the threads of the shared executor.
+         */
+        @Override
+        public void run() {
+            // nothing
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int pumpEventLoop(final long timeoutMillis) {
+            return 0;
+        }
+
+        /**
+         * Removes the windows of this web client from the shared executor.
+         */
+        @Override
+        public void shutdown() {
+            clients_.remove(this);
+            webClient_.clear();
+            for (WeakReference<JavaScriptJobManager> weakReference : jobManagerList_) {
+                final JavaScriptJobManager manager = weakReference.get();
+                if (manager instanceof JavaScriptJobManagerImpl) {
+                    ((JavaScriptJobManagerImpl) manager).setJobAddedListener(null);
+                }
+            }
+            jobManagerList_ = new LinkedList<>();
+            synchronized (wakeups_) {
+                if (wakeup_ != null) {
+                    wakeups_.remove(wakeup_);
+                    wakeup_ = null;
+                }
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ import com.gargoylesoftware.htmlunit.BrowserVersion;
 import net.sourceforge.htmlunit.corejs.javascript.Context;
 import net.sourceforge.htmlunit.corejs.javascript.Function;
 import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
 
 /**
  * Contains some missing features of Rhino NativeDate.
@@ -108,6 +109,20 @@ public final class DateCustom {
         return DateFormatUtils.format(date, "EEE, d MMM yyyy HH:mm:ss z", UTC_TIME_ZONE, Locale.ENGLISH);
     }
 
+    /**
+     * Returns the current time of the clock of the web client, replacing {@code Date.now()}.
+     * @param context the JavaScript context
+     * @param thisObj the scriptable
+     * @param args the arguments passed into the method
+     * @param function the function
+     * @return the number of milliseconds since the epoch
+     */
+    public static double now(
+            final Context context, final Scriptable thisObj, final Object[] args, final Function function) {
+        final Window window = (Window) ScriptableObject.getTopLevelScope(function);
+        return window.getWebWindow().getWebClient().getClock().currentTimeMillis();
+    }
+
     private static long getDateValue(final Scriptable thisObj) {
         final Date date = (Date) Context.jsToJava(thisObj, Date.class);
         return date.getTime();
@@ -222,6 +222,11 @@ public class Element extends EventNode {
                 protected boolean isMatching(final DomNode nodeToMatch) {
                     return true;
                 }
+
+                @Override
+                protected boolean isIncrementallyUpdatable() {
+                    return true;
+                }
             };
         }
         else {
@@ -230,6 +235,11 @@ public class Element extends EventNode {
                 protected boolean isMatching(final DomNode nodeToMatch) {
                     return tagNameLC.equalsIgnoreCase(nodeToMatch.getNodeName());
                 }
+
+                @Override
+                protected boolean isIncrementallyUpdatable() {
+                    return true;
+                }
             };
         }
 
@@ -269,6 +279,11 @@ public class Element extends EventNode {
                 return ("*".equals(namespaceURI) || Objects.equals(namespaceURI, node.getNamespaceURI()))
                         && ("*".equals(localName) || Objects.equals(localName, node.getLocalName()));
             }
+
+            @Override
+            protected boolean isIncrementallyUpdatable() {
+                return true;
+            }
         };
 
         return collection;
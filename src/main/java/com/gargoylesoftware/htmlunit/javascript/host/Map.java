@@ -19,6 +19,7 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
@@ -246,4 +247,13 @@ public class Map extends SimpleScriptable {
         }
     }
 
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns the entries of this map, in insertion order.
+     * @return an unmodifiable view of the entries
+     */
+    public java.util.Map<Object, Object> getMap() {
+        return Collections.unmodifiableMap(map_);
+    }
 }
@@ -19,6 +19,7 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
+import java.util.Collections;
 import java.util.LinkedHashSet;
 
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
@@ -201,4 +202,13 @@ public class Set extends SimpleScriptable {
         }
     }
 
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns the values of this set, in insertion order.
+     * @return an unmodifiable view of the values
+     */
+    public java.util.Set<Object> getSet() {
+        return Collections.unmodifiableSet(set_);
+    }
 }
@@ -18,6 +18,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.Future;
 
 import org.apache.commons.lang3.ArrayUtils;
@@ -32,6 +33,7 @@ import org.eclipse.jetty.websocket.client.WebSocketClient;
 
 import com.gargoylesoftware.htmlunit.ScriptResult;
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebClientOptions;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.gargoylesoftware.htmlunit.javascript.JavaScriptEngine;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
@@ -89,6 +91,7 @@ public class WebSocket extends EventTarget implements AutoCloseable {
 
     private HtmlPage containingPage_;
     private WebSocketClient client_;
+    private Future<Session> connectFuture_;
     private volatile Session incomingSession_;
     private Session outgoingSession_;
     private WebSocketListener listener_;
@@ -129,20 +132,14 @@ public class WebSocket extends EventTarget implements AutoCloseable {
             setDomNode(containingPage_.getBody(), false);
 
             final WebClient webClient = window.getWebWindow().getWebClient();
-            if (webClient.getOptions().isUseInsecureSSL()) {
-                client_ = new WebSocketClient(new SslContextFactory(true));
-            }
-            else {
-                client_ = new WebSocketClient();
-            }
-            client_.setCookieStore(new WebSocketCookieStore(webClient));
-            client_.start();
+            client_ = webClient.getWebSocketClient();
             containingPage_.addAutoCloseable(this);
             url_ = new URI(url);
 
             webClient.getInternals().created(this);
 
             final Future<Session> connectFuture = client_.connect(new WebSocketImpl(), url_);
+            connectFuture_ = connectFuture;
             client_.getExecutor().execute(new Runnable() {
                 @Override
                 public void run() {
@@ -150,6 +147,9 @@ public class WebSocket extends EventTarget implements AutoCloseable {
                         readyState_ = CONNECTING;
                         incomingSession_ = connectFuture.get();
                     }
+                    catch (final CancellationException e) {
+                        // closed before being connected
+                    }
                     catch (final Exception e) {
                         LOG.error("WS connect error", e);
                     }
@@ -162,6 +162,37 @@ public class WebSocket extends EventTarget implements AutoCloseable {
         }
     }
 
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Creates the client shared by all WebSockets of the specified web client, configured
+     * from its options. The client is not yet started.
+     * @param webClient the web client
+     * @return the new WebSocket client
+     * @see WebClient#getWebSocketClient()
+     */
+    public static WebSocketClient createWebSocketClient(final WebClient webClient) {
+        final WebClientOptions options = webClient.getOptions();
+        final WebSocketClient client;
+        if (options.isUseInsecureSSL()) {
+            client = new WebSocketClient(new SslContextFactory(true));
+        }
+        else {
+            client = new WebSocketClient();
+        }
+        client.setCookieStore(new WebSocketCookieStore(webClient));
+        if (options.getTimeout() > 0) {
+            client.setConnectTimeout(options.getTimeout());
+        }
+        if (options.getWebSocketMaxTextMessageSize() >= 0) {
+            client.getPolicy().setMaxTextMessageSize(options.getWebSocketMaxTextMessageSize());
+        }
+        if (options.getWebSocketMaxBinaryMessageSize() >= 0) {
+            client.getPolicy().setMaxBinaryMessageSize(options.getWebSocketMaxBinaryMessageSize());
+        }
+        return client;
+    }
+
     /**
      * JavaScript constructor.
      * @param cx the current context
@@ -342,15 +373,12 @@ public class WebSocket extends EventTarget implements AutoCloseable {
             }
         }
 
-        try {
-            if (client_ != null) {
-                client_.stop();
-                client_ = null;
-            }
-        }
-        catch (final Exception e) {
-            throw new RuntimeException(e);
+        // the client is shared by all WebSockets of the web client and stopped with it
+        if (connectFuture_ != null) {
+            connectFuture_.cancel(true);
+            connectFuture_ = null;
         }
+        client_ = null;
     }
 
     /**
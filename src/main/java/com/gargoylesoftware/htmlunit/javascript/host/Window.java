@@ -49,6 +49,7 @@ import com.gargoylesoftware.htmlunit.AlertHandler;
 import com.gargoylesoftware.htmlunit.ConfirmHandler;
 import com.gargoylesoftware.htmlunit.DialogWindow;
 import com.gargoylesoftware.htmlunit.ElementNotFoundException;
+import com.gargoylesoftware.htmlunit.MetricsListener;
 import com.gargoylesoftware.htmlunit.Page;
 import com.gargoylesoftware.htmlunit.PromptHandler;
 import com.gargoylesoftware.htmlunit.ScriptException;
@@ -59,6 +60,7 @@ import com.gargoylesoftware.htmlunit.StorageHolder.Type;
 import com.gargoylesoftware.htmlunit.TopLevelWindow;
 import com.gargoylesoftware.htmlunit.WebAssert;
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebClientOptions;
 import com.gargoylesoftware.htmlunit.WebWindow;
 import com.gargoylesoftware.htmlunit.WebWindowNotFoundException;
 import com.gargoylesoftware.htmlunit.html.BaseFrameElement;
@@ -116,9 +118,11 @@ import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLBodyElement;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLCollection;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLDocument;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLElement;
+import com.gargoylesoftware.htmlunit.javascript.host.idb.IDBFactory;
 import com.gargoylesoftware.htmlunit.javascript.host.performance.Performance;
 import com.gargoylesoftware.htmlunit.javascript.host.speech.SpeechSynthesis;
 import com.gargoylesoftware.htmlunit.javascript.host.xml.XMLDocument;
+import com.gargoylesoftware.htmlunit.jfr.FlightRecorderEvents;
 import com.gargoylesoftware.htmlunit.xml.XmlPage;
 
 import net.sourceforge.htmlunit.corejs.javascript.Context;
@@ -197,7 +201,15 @@ public class Window extends EventTarget implements Function, AutoCloseable {
      */
     private transient WeakHashMap<Element, Map<String, CSS2Properties>> computedStyles_ = new WeakHashMap<>();
 
+    /** The values used to evaluate media queries when {@link #mediaGeneration_} was last changed. */
+    private int mediaInnerWidth_;
+    private int mediaInnerHeight_;
+    private int mediaScreenWidth_;
+    private int mediaScreenHeight_;
+    private int mediaGeneration_;
+
     private final Map<Type, Storage> storages_ = new HashMap<>();
+    private IDBFactory indexedDB_;
 
     /**
      * Creates an instance.
@@ -601,6 +613,18 @@ public class Window extends EventTarget implements Function, AutoCloseable {
         return getStorage(Type.SESSION_STORAGE);
     }
 
+    /**
+     * Returns the {@code indexedDB} property.
+     * @return the {@code indexedDB} property
+     */
+    @JsxGetter({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
+    public IDBFactory getIndexedDB() {
+        if (indexedDB_ == null) {
+            indexedDB_ = new IDBFactory(this);
+        }
+        return indexedDB_;
+    }
+
     /**
      * Gets the storage of the specified type.
      * @param storageType the type
@@ -1602,6 +1626,10 @@ public class Window extends EventTarget implements Function, AutoCloseable {
             }
         }
 
+        final MetricsListener metrics = getWebWindow().getWebClient().getMetricsListener();
+        final long start = System.nanoTime();
+        final Object event = FlightRecorderEvents.beginComputedStyle();
+
         final CSSStyleDeclaration original = e.getStyle();
         final CSS2Properties style = new CSS2Properties(original);
 
@@ -1626,6 +1654,10 @@ public class Window extends EventTarget implements Function, AutoCloseable {
             elementMap.put(pseudoElement, style);
         }
 
+        if (metrics != null) {
+            metrics.record(MetricsListener.CSS_COMPUTE_STYLE, System.nanoTime() - start);
+        }
+        FlightRecorderEvents.commitComputedStyle(event, e.getDomNodeOrDie().getNodeName(), pseudoElement);
         return style;
     }
 
@@ -1799,6 +1831,37 @@ public class Window extends EventTarget implements Function, AutoCloseable {
         synchronized (computedStyles_) {
             computedStyles_.clear();
         }
+        final Page page = webWindow_ == null ? null : webWindow_.getEnclosedPage();
+        if (page instanceof HtmlPage) {
+            // the text depends on the computed styles
+            ((HtmlPage) page).clearAsTextCache();
+        }
+    }
+
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns a counter which changes whenever the values used to evaluate media queries change,
+     * i.e. the inner dimensions of the window or the dimensions of the screen.
+     * Results of media queries can be cached as long as this counter doesn't change.
+     * @return the media generation
+     */
+    public synchronized int getMediaGeneration() {
+        final WebWindow webWindow = getWebWindow();
+        final WebClientOptions options = webWindow.getWebClient().getOptions();
+        final int innerWidth = webWindow.getInnerWidth();
+        final int innerHeight = webWindow.getInnerHeight();
+        final int screenWidth = options.getScreenWidth();
+        final int screenHeight = options.getScreenHeight();
+        if (innerWidth != mediaInnerWidth_ || innerHeight != mediaInnerHeight_
+                || screenWidth != mediaScreenWidth_ || screenHeight != mediaScreenHeight_) {
+            mediaInnerWidth_ = innerWidth;
+            mediaInnerHeight_ = innerHeight;
+            mediaScreenWidth_ = screenWidth;
+            mediaScreenHeight_ = screenHeight;
+            mediaGeneration_++;
+        }
+        return mediaGeneration_;
     }
 
     /**
@@ -1809,6 +1872,10 @@ public class Window extends EventTarget implements Function, AutoCloseable {
         synchronized (computedStyles_) {
             computedStyles_.remove(element);
         }
+        final Page page = webWindow_ == null ? null : webWindow_.getEnclosedPage();
+        if (page instanceof HtmlPage) {
+            ((HtmlPage) page).clearAsTextCache(element.getDomNodeOrNull());
+        }
     }
 
     /**
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript.host.css;
+
+import org.w3c.css.sac.CSSException;
+import org.w3c.css.sac.CSSParseException;
+import org.w3c.css.sac.ErrorHandler;
+
+import com.steadystate.css.parser.CSSOMParser;
+import com.steadystate.css.parser.SACParserCSS3;
+
+/**
+ * Reusable {@link CSSOMParser}s, one per thread. Creating a parser allocates the generated
+ * token manager and its buffers, which is noticeable for the small inputs like selectors
+ * and media queries that are parsed again and again.
+ *
+ * <p>A parser has to be given back with {@link #release(CSSOMParser)} once done;
+ * nested uses on the same thread simply get a new parser.</p>
+ */
+public final class CSSParserPool {
+
+    private static final ThreadLocal<CSSOMParser> PARSERS = new ThreadLocal<>();
+
+    /** Used while the parser is unused, not to keep a reference to the error handler of a web client. */
+    private static final ErrorHandler SILENT_ERROR_HANDLER = new ErrorHandler() {
+        @Override
+        public void warning(final CSSParseException exception) throws CSSException {
+            // ignore
+        }
+
+        @Override
+        public void error(final CSSParseException exception) throws CSSException {
+            // ignore
+        }
+
+        @Override
+        public void fatalError(final CSSParseException exception) throws CSSException {
+            // ignore
+        }
+    };
+
+    private CSSParserPool() {
+    }
+
+    /**
+     * Returns a parser for the current thread.
+     * @param errorHandler the error handler to use
+     * @return the parser
+     */
+    public static CSSOMParser acquire(final ErrorHandler errorHandler) {
+        CSSOMParser parser = PARSERS.get();
+        if (parser == null) {
+            parser = new CSSOMParser(new SACParserCSS3());
+        }
+        else {
+            PARSERS.remove();
+        }
+        parser.setErrorHandler(errorHandler);
+        return parser;
+    }
+
+    /**
+     * Gives back a parser obtained with {@link #acquire(ErrorHandler)}.
+     * @param parser the parser
+     */
+    public static void release(final CSSOMParser parser) {
+        parser.setErrorHandler(SILENT_ERROR_HANDLER);
+        PARSERS.set(parser);
+    }
+}
@@ -104,13 +104,12 @@ import java.io.IOException;
 import java.io.StringReader;
 import java.text.MessageFormat;
 import java.text.ParseException;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -142,7 +141,6 @@ import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLElement;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLHtmlElement;
 import com.steadystate.css.dom.CSSValueImpl;
 import com.steadystate.css.parser.CSSOMParser;
-import com.steadystate.css.parser.SACParserCSS3;
 
 import net.sourceforge.htmlunit.corejs.javascript.Context;
 import net.sourceforge.htmlunit.corejs.javascript.ScriptRuntime;
@@ -354,6 +352,16 @@ public class CSSStyleDeclaration extends SimpleScriptable {
         return jsElement_.getDomNodeOrDie().getStyleElement(name);
     }
 
+    /**
+     * Determines the StyleElement for the given definition.
+     *
+     * @param definition the definition of the requested StyleElement
+     * @return the StyleElement or null if not found
+     */
+    protected StyleElement getStyleElement(final Definition definition) {
+        return getStyleElement(definition.getAttributeName());
+    }
+
     /**
      * Determines the StyleElement for the given name.
      * This ignores the case of the name.
@@ -402,8 +410,8 @@ public class CSSStyleDeclaration extends SimpleScriptable {
             value = value2;
         }
         else {
-            final StyleElement element1 = getStyleElement(name1.getAttributeName());
-            final StyleElement element2 = getStyleElement(name2.getAttributeName());
+            final StyleElement element1 = getStyleElement(name1);
+            final StyleElement element2 = getStyleElement(name2);
 
             if (element2 == null) {
                 if (element1 == null) {
@@ -1644,14 +1652,20 @@ public class CSSStyleDeclaration extends SimpleScriptable {
      * @return the value
      */
     public String getStyleAttribute(final Definition definition, final boolean getDefaultValueIfEmpty) {
-        return getStyleAttributeImpl(definition.getAttributeName());
+        if (styleDeclaration_ != null) {
+            return styleDeclaration_.getPropertyValue(definition.getAttributeName());
+        }
+        return getStyleValue(getStyleElement(definition));
     }
 
     private String getStyleAttributeImpl(final String string) {
         if (styleDeclaration_ != null) {
             return styleDeclaration_.getPropertyValue(string);
         }
-        final StyleElement element = getStyleElement(string);
+        return getStyleValue(getStyleElement(string));
+    }
+
+    private String getStyleValue(final StyleElement element) {
         if (element != null && element.getValue() != null) {
             final String value = element.getValue();
             if (!value.contains("url")
@@ -1704,16 +1718,11 @@ public class CSSStyleDeclaration extends SimpleScriptable {
 
     @Override
     public Object[] getIds() {
-        final List<Object> ids = new ArrayList<>();
+        final Set<Object> ids = new LinkedHashSet<>();
         for (final Definition styleAttribute : StyleAttributes.getDefinitions(getBrowserVersion())) {
             ids.add(styleAttribute.getPropertyName());
         }
-        final Object[] normalIds = super.getIds();
-        for (final Object o : normalIds) {
-            if (!ids.contains(o)) {
-                ids.add(o);
-            }
-        }
+        Collections.addAll(ids, super.getIds());
         return ids.toArray();
     }
 
@@ -2557,14 +2566,16 @@ public class CSSStyleDeclaration extends SimpleScriptable {
             final InputSource source = new InputSource(new StringReader(styleAttribute));
             source.setURI(uri);
             final ErrorHandler errorHandler = getWindow().getWebWindow().getWebClient().getCssErrorHandler();
-            final CSSOMParser parser = new CSSOMParser(new SACParserCSS3());
-            parser.setErrorHandler(errorHandler);
+            final CSSOMParser parser = CSSParserPool.acquire(errorHandler);
             try {
                 styleDeclaration_ = parser.parseStyleDeclaration(source);
             }
             catch (final IOException e) {
                 throw new RuntimeException(e);
             }
+            finally {
+                CSSParserPool.release(parser);
+            }
         }
         org.w3c.dom.css.CSSValue cssValue = styleDeclaration_.getPropertyCSSValue(name);
         if (cssValue == null) {
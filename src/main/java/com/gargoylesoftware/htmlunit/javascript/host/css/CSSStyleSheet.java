@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +46,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.commons.logging.Log;
@@ -117,7 +119,6 @@ import com.steadystate.css.dom.MediaListImpl;
 import com.steadystate.css.dom.Property;
 import com.steadystate.css.parser.CSSOMParser;
 import com.steadystate.css.parser.SACMediaListImpl;
-import com.steadystate.css.parser.SACParserCSS3;
 import com.steadystate.css.parser.SelectorListImpl;
 import com.steadystate.css.parser.media.MediaQuery;
 import com.steadystate.css.parser.selectors.GeneralAdjacentSelectorImpl;
@@ -148,8 +149,14 @@ public class CSSStyleSheet extends StyleSheet {
     private static final Pattern NTH_COMPLEX = Pattern.compile("[+-]?\\d*n\\w*([+-]\\w\\d*)?");
     private static final Pattern UNESCAPE_SELECTOR = Pattern.compile("\\\\([\\[\\]\\.:])");
 
+    private static final ParsedStyleSheetCache PARSED_STYLE_SHEET_CACHE
+        = new ParsedStyleSheetCache(200, 4 * 1024 * 1024);
+
     /** The parsed stylesheet which this host object wraps. */
-    private final org.w3c.dom.css.CSSStyleSheet wrapped_;
+    private org.w3c.dom.css.CSSStyleSheet wrapped_;
+
+    /** Whether {@link #wrapped_} is shared through the {@link #PARSED_STYLE_SHEET_CACHE}. */
+    private boolean shared_;
 
     /** The HTML element which owns this stylesheet. */
     private final HTMLElement ownerNode_;
@@ -166,6 +173,14 @@ public class CSSStyleSheet extends StyleSheet {
 
     private boolean enabled_ = true;
 
+    /** The results of the evaluated media lists, valid while the window's media generation is unchanged. */
+    private final Map<MediaList, Boolean> mediaCache_ = new IdentityHashMap<>();
+    private int mediaGeneration_ = -1;
+
+    /** The last media attribute of the owner node and the corresponding parsed media list. */
+    private String ownerMedia_;
+    private MediaList ownerMediaList_;
+
     private static final Set<String> CSS2_PSEUDO_CLASSES = new HashSet<>(Arrays.asList(
             "link", "visited", "hover", "active",
             "focus", "lang", "first-child"));
@@ -220,6 +235,49 @@ public class CSSStyleSheet extends StyleSheet {
         ownerNode_ = element;
     }
 
+    /**
+     * Creates a new stylesheet representing the specified inline CSS. The parsed rules are shared
+     * with the other stylesheets having the same content, see {@link #getParsedStyleSheetCache()}.
+     * Stylesheets with parse errors are never shared, so that every web client gets the errors reported
+     * to its own CSS error handler.
+     * @param element the owning node
+     * @param css the CSS
+     * @param uri this stylesheet's URI (used to resolved contained @import rules)
+     */
+    public CSSStyleSheet(final HTMLElement element, final String css, final String uri) {
+        setParentScope(element.getWindow());
+        setPrototype(getPrototype(CSSStyleSheet.class));
+        final BrowserVersion browserVersion = element.getBrowserVersion();
+        org.w3c.dom.css.CSSStyleSheet wrapped = PARSED_STYLE_SHEET_CACHE.get(css, browserVersion);
+        if (wrapped == null) {
+            final InputSource source = new InputSource(new StringReader(css));
+            source.setURI(uri);
+            final ReportingErrorHandler errorHandler = new ReportingErrorHandler(
+                    getWindow().getWebWindow().getWebClient().getCssErrorHandler());
+            wrapped = parseCSS(source, errorHandler);
+            if (errorHandler.errorReported()) {
+                shared_ = false;
+            }
+            else {
+                shared_ = PARSED_STYLE_SHEET_CACHE.put(css, browserVersion, wrapped);
+            }
+        }
+        else {
+            shared_ = true;
+        }
+        wrapped_ = wrapped;
+        uri_ = uri;
+        ownerNode_ = element;
+    }
+
+    /**
+     * Returns the cache of the parsed inline stylesheets, shared by all web clients.
+     * @return the cache
+     */
+    public static ParsedStyleSheetCache getParsedStyleSheetCache() {
+        return PARSED_STYLE_SHEET_CACHE;
+    }
+
     /**
      * Returns the wrapped stylesheet.
      * @return the wrapped stylesheet
@@ -271,7 +329,7 @@ public class CSSStyleSheet extends StyleSheet {
             else if (CSSRule.IMPORT_RULE == ruleType) {
                 final CSSImportRuleImpl importRule = (CSSImportRuleImpl) rule;
                 final MediaList mediaList = importRule.getMedia();
-                if (isActive(this, mediaList)) {
+                if (isActive(mediaList)) {
                     CSSStyleSheet sheet = imports_.get(importRule);
                     if (sheet == null) {
                         // TODO: surely wrong: in which case is it null and why?
@@ -292,7 +350,7 @@ public class CSSStyleSheet extends StyleSheet {
             else if (CSSRule.MEDIA_RULE == ruleType) {
                 final CSSMediaRuleImpl mediaRule = (CSSMediaRuleImpl) rule;
                 final MediaList mediaList = mediaRule.getMedia();
-                if (isActive(this, mediaList)) {
+                if (isActive(mediaList)) {
                     final CSSRuleList internalRules = mediaRule.getCssRules();
                     modifyIfNecessary(style, element, pseudoElement, internalRules, alreadyProcessing);
                 }
@@ -346,12 +404,13 @@ public class CSSStyleSheet extends StyleSheet {
                 // loadWebResponse check the cache for the web response
                 // AND also fixes the request url for the following cache lookups
                 response = client.loadWebResponse(request);
+                page.addResourceTiming(response, "css");
             }
 
             // now we can look into the cache with the fixed request for
             // a cached script
             final Cache cache = client.getCache();
-            final Object fromCache = cache.getCachedObject(request);
+            final Object fromCache = cache.getCachedObject(request, client.getMetricsListener());
             if (fromCache != null && fromCache instanceof org.w3c.dom.css.CSSStyleSheet) {
                 uri = request.getUrl().toExternalForm();
                 sheet = new CSSStyleSheet(element, (org.w3c.dom.css.CSSStyleSheet) fromCache, uri);
@@ -374,7 +433,7 @@ public class CSSStyleSheet extends StyleSheet {
                 sheet = new CSSStyleSheet(element, source, uri);
 
                 // cache the style sheet
-                if (!cache.cacheIfPossible(request, response, sheet.getWrappedSheet())) {
+                if (!cache.cacheIfPossible(request, response, sheet.getWrappedSheet(), client.getMetricsListener())) {
                     response.cleanUp();
                 }
             }
@@ -850,24 +909,26 @@ public class CSSStyleSheet extends StyleSheet {
                             errorOccured.set(true);
                         }
                     };
-                    final CSSOMParser parser = new CSSOMParser(new SACParserCSS3());
-                    parser.setErrorHandler(errorHandler);
+                    final SelectorList selectorList;
+                    final CSSOMParser parser = CSSParserPool.acquire(errorHandler);
                     try {
-                        final SelectorList selectorList
-                            = parser.parseSelectors(new InputSource(new StringReader(selectors)));
-                        if (errorOccured.get() || selectorList == null || selectorList.getLength() != 1) {
-                            throw new CSSException("Invalid selectors: " + selectors);
-                        }
-
-                        validateSelectors(selectorList, 9, element);
-
-                        return !CSSStyleSheet.selects(browserVersion, selectorList.item(0), element,
-                                null, fromQuerySelectorAll);
+                        selectorList = parser.parseSelectors(new InputSource(new StringReader(selectors)));
                     }
                     catch (final IOException e) {
                         throw new CSSException("Error parsing CSS selectors from '" + selectors + "': "
                                 + e.getMessage());
                     }
+                    finally {
+                        CSSParserPool.release(parser);
+                    }
+                    if (errorOccured.get() || selectorList == null || selectorList.getLength() != 1) {
+                        throw new CSSException("Invalid selectors: " + selectors);
+                    }
+
+                    validateSelectors(selectorList, 9, element);
+
+                    return !CSSStyleSheet.selects(browserVersion, selectorList.item(0), element,
+                            null, fromQuerySelectorAll);
                 }
                 return false;
         }
@@ -928,20 +989,72 @@ public class CSSStyleSheet extends StyleSheet {
      * @return the stylesheet parsed from the specified input source
      */
     private org.w3c.dom.css.CSSStyleSheet parseCSS(final InputSource source) {
+        return parseCSS(source, getWindow().getWebWindow().getWebClient().getCssErrorHandler());
+    }
+
+    /**
+     * Parses the CSS at the specified input source, reporting the problems to the specified handler.
+     * If anything at all goes wrong, this method returns an empty stylesheet.
+     *
+     * @param source the source from which to retrieve the CSS to be parsed
+     * @param errorHandler the handler to report the parse problems to
+     * @return the stylesheet parsed from the specified input source
+     */
+    private org.w3c.dom.css.CSSStyleSheet parseCSS(final InputSource source, final ErrorHandler errorHandler) {
         org.w3c.dom.css.CSSStyleSheet ss;
         try {
-            final ErrorHandler errorHandler = getWindow().getWebWindow().getWebClient().getCssErrorHandler();
-            final CSSOMParser parser = new CSSOMParser(new SACParserCSS3());
-            parser.setErrorHandler(errorHandler);
-            ss = parser.parseStyleSheet(source, null, null);
+            final CSSOMParser parser = CSSParserPool.acquire(errorHandler);
+            try {
+                ss = parser.parseStyleSheet(source, null, null);
+            }
+            finally {
+                CSSParserPool.release(parser);
+            }
         }
         catch (final Throwable t) {
             LOG.error("Error parsing CSS from '" + toString(source) + "': " + t.getMessage(), t);
+            if (errorHandler instanceof ReportingErrorHandler) {
+                ((ReportingErrorHandler) errorHandler).errorReported_ = true;
+            }
             ss = new CSSStyleSheetImpl();
         }
         return ss;
     }
 
+    /**
+     * Forwards the parse problems to the web client's handler, remembering if there were any.
+     */
+    private static final class ReportingErrorHandler implements ErrorHandler {
+        private final ErrorHandler delegate_;
+        private boolean errorReported_;
+
+        ReportingErrorHandler(final ErrorHandler delegate) {
+            delegate_ = delegate;
+        }
+
+        boolean errorReported() {
+            return errorReported_;
+        }
+
+        @Override
+        public void warning(final CSSParseException exception) throws CSSException {
+            errorReported_ = true;
+            delegate_.warning(exception);
+        }
+
+        @Override
+        public void error(final CSSParseException exception) throws CSSException {
+            errorReported_ = true;
+            delegate_.error(exception);
+        }
+
+        @Override
+        public void fatalError(final CSSParseException exception) throws CSSException {
+            errorReported_ = true;
+            delegate_.fatalError(exception);
+        }
+    }
+
     /**
      * Parses the selectors at the specified input source. If anything at all goes wrong, this
      * method returns an empty selector list.
@@ -953,9 +1066,13 @@ public class CSSStyleSheet extends StyleSheet {
         SelectorList selectors;
         try {
             final ErrorHandler errorHandler = getWindow().getWebWindow().getWebClient().getCssErrorHandler();
-            final CSSOMParser parser = new CSSOMParser(new SACParserCSS3());
-            parser.setErrorHandler(errorHandler);
-            selectors = parser.parseSelectors(source);
+            final CSSOMParser parser = CSSParserPool.acquire(errorHandler);
+            try {
+                selectors = parser.parseSelectors(source);
+            }
+            finally {
+                CSSParserPool.release(parser);
+            }
             // in case of error parseSelectors returns null
             if (null == selectors) {
                 selectors = new SelectorListImpl();
@@ -977,11 +1094,15 @@ public class CSSStyleSheet extends StyleSheet {
      */
     static SACMediaList parseMedia(final ErrorHandler errorHandler, final String mediaString) {
         try {
-            final CSSOMParser parser = new CSSOMParser(new SACParserCSS3());
-            parser.setErrorHandler(errorHandler);
-
             final InputSource source = new InputSource(new StringReader(mediaString));
-            final SACMediaList media = parser.parseMedia(source);
+            final SACMediaList media;
+            final CSSOMParser parser = CSSParserPool.acquire(errorHandler);
+            try {
+                media = parser.parseMedia(source);
+            }
+            finally {
+                CSSParserPool.release(parser);
+            }
             if (media != null) {
                 return media;
             }
@@ -1121,6 +1242,9 @@ public class CSSStyleSheet extends StyleSheet {
 
         cssRules_.clearRules();
         cssRulesIndexFix_.clear();
+        synchronized (mediaCache_) {
+            mediaCache_.clear();
+        }
 
         final CSSRuleList ruleList = getWrappedSheet().getCssRules();
         final List<org.w3c.dom.css.CSSRule> rules = ((CSSRuleListImpl) ruleList).getRules();
@@ -1240,9 +1364,36 @@ public class CSSStyleSheet extends StyleSheet {
             return true;
         }
 
-        final WebClient webClient = getWindow().getWebWindow().getWebClient();
-        final SACMediaList mediaList = parseMedia(webClient.getCssErrorHandler(), media);
-        return isActive(this, new MediaListImpl(mediaList));
+        if (!media.equals(ownerMedia_)) {
+            final WebClient webClient = getWindow().getWebWindow().getWebClient();
+            final SACMediaList mediaList = parseMedia(webClient.getCssErrorHandler(), media);
+            ownerMediaList_ = new MediaListImpl(mediaList);
+            ownerMedia_ = media;
+        }
+        return isActive(ownerMediaList_);
+    }
+
+    /**
+     * Returns whether the specified {@link MediaList} of this stylesheet is active or not.
+     * The result is cached as long as the {@link Window#getMediaGeneration() media generation}
+     * of the window doesn't change.
+     * @param mediaList the media list
+     * @return whether the specified {@link MediaList} is active or not
+     */
+    private boolean isActive(final MediaList mediaList) {
+        final int generation = getWindow().getMediaGeneration();
+        synchronized (mediaCache_) {
+            if (generation != mediaGeneration_) {
+                mediaCache_.clear();
+                mediaGeneration_ = generation;
+            }
+            Boolean active = mediaCache_.get(mediaList);
+            if (active == null) {
+                active = isActive(this, mediaList);
+                mediaCache_.put(mediaList, active);
+            }
+            return active;
+        }
     }
 
     /**
@@ -1549,6 +1700,12 @@ public class CSSStyleSheet extends StyleSheet {
 
     private void initCssRules() {
         if (cssRules_ == null) {
+            if (shared_) {
+                // the rules are about to be exposed to scripts, which may modify them
+                wrapped_ = SerializationUtils.clone((CSSStyleSheetImpl) wrapped_);
+                imports_.clear();
+                shared_ = false;
+            }
             cssRules_ = new com.gargoylesoftware.htmlunit.javascript.host.css.CSSRuleList(this);
             cssRulesIndexFix_ = new ArrayList<>();
             refreshCssRules();
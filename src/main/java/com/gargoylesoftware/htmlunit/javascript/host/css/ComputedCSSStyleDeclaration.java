@@ -88,10 +88,10 @@ import static com.gargoylesoftware.htmlunit.javascript.host.css.StyleAttributes.
 import static com.gargoylesoftware.htmlunit.javascript.host.css.StyleAttributes.Definition.WORD_SPACING;
 
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.w3c.css.sac.Selector;
@@ -196,11 +196,18 @@ public class ComputedCSSStyleDeclaration extends CSSStyleDeclaration {
         WIDOWS,
         WORD_SPACING);
 
+    /** The number of attributes per chunk of {@link #localModifications_}, a power of two. */
+    private static final int CHUNK_SIZE = 32;
+
     /**
-     * Local modifications maintained here rather than in the element. We use a sorted
-     * map so that results are deterministic and thus easily testable.
+     * Local modifications maintained here rather than in the element, indexed by
+     * {@link StyleAttributes#getAttributeIndex(Definition)}. An element usually has only a few of them,
+     * so the array is split into chunks of {@link #CHUNK_SIZE} attributes, allocated when first used.
      */
-    private final SortedMap<String, StyleElement> localModifications_ = new TreeMap<>();
+    private StyleElement[][] localModifications_;
+
+    /** Local modifications of the attributes without {@link StyleAttributes.Definition}. */
+    private Map<String, StyleElement> otherLocalModifications_;
 
     /** The computed, cached width of the element to which this computed style belongs (no padding, borders, etc). */
     private Integer width_;
@@ -279,8 +286,9 @@ public class ComputedCSSStyleDeclaration extends CSSStyleDeclaration {
 
     private void applyLocalStyleAttribute(final String name, final String newValue, final String priority,
             final SelectorSpecificity specificity) {
+        final Definition definition = StyleAttributes.getDefinitionByAttributeName(name);
         if (!StyleElement.PRIORITY_IMPORTANT.equals(priority)) {
-            final StyleElement existingElement = localModifications_.get(name);
+            final StyleElement existingElement = getLocalModification(definition, name);
             if (existingElement != null) {
                 if (StyleElement.PRIORITY_IMPORTANT.equals(existingElement.getPriority())) {
                     return; // can't override a !important rule by a normal rule. Ignore it!
@@ -291,7 +299,7 @@ public class ComputedCSSStyleDeclaration extends CSSStyleDeclaration {
             }
         }
         final StyleElement element = new StyleElement(name, newValue, priority, specificity);
-        localModifications_.put(name, element);
+        putLocalModification(definition, name, element);
     }
 
     /**
@@ -304,19 +312,69 @@ public class ComputedCSSStyleDeclaration extends CSSStyleDeclaration {
      */
     public void setDefaultLocalStyleAttribute(final String name, final String newValue) {
         final StyleElement element = new StyleElement(name, newValue);
-        localModifications_.put(name, element);
+        putLocalModification(StyleAttributes.getDefinitionByAttributeName(name), name, element);
+    }
+
+    /**
+     * Returns the local modification of the style attribute.
+     * @param definition the definition of the style attribute, {@code null} if it has none
+     * @param name the name of the style attribute, only used if it has no definition
+     */
+    private StyleElement getLocalModification(final Definition definition, final String name) {
+        if (definition != null) {
+            final int index = StyleAttributes.getAttributeIndex(definition);
+            if (localModifications_ == null) {
+                return null;
+            }
+            final StyleElement[] chunk = localModifications_[index / CHUNK_SIZE];
+            if (chunk == null) {
+                return null;
+            }
+            return chunk[index % CHUNK_SIZE];
+        }
+        if (otherLocalModifications_ == null) {
+            return null;
+        }
+        return otherLocalModifications_.get(name);
+    }
+
+    private void putLocalModification(final Definition definition, final String name, final StyleElement element) {
+        if (definition != null) {
+            final int index = StyleAttributes.getAttributeIndex(definition);
+            if (localModifications_ == null) {
+                final int count = StyleAttributes.getAttributeCount();
+                localModifications_ = new StyleElement[(count + CHUNK_SIZE - 1) / CHUNK_SIZE][];
+            }
+            StyleElement[] chunk = localModifications_[index / CHUNK_SIZE];
+            if (chunk == null) {
+                chunk = new StyleElement[CHUNK_SIZE];
+                localModifications_[index / CHUNK_SIZE] = chunk;
+            }
+            chunk[index % CHUNK_SIZE] = element;
+        }
+        else {
+            if (otherLocalModifications_ == null) {
+                otherLocalModifications_ = new HashMap<>();
+            }
+            otherLocalModifications_.put(name, element);
+        }
     }
 
     @Override
     protected StyleElement getStyleElement(final String name) {
-        final StyleElement existent = super.getStyleElement(name);
+        return getStyleElement(StyleAttributes.getDefinitionByAttributeName(name), name);
+    }
 
-        if (localModifications_ != null) {
-            final StyleElement localStyleMod = localModifications_.get(name);
-            if (localStyleMod == null) {
-                return existent;
-            }
+    @Override
+    protected StyleElement getStyleElement(final Definition definition) {
+        return getStyleElement(definition, definition.getAttributeName());
+    }
+
+    private StyleElement getStyleElement(final Definition definition, final String name) {
+        final StyleElement existent = super.getStyleElement(name);
 
+        final StyleElement localStyleMod = getLocalModification(definition, name);
+        if (localStyleMod != null) {
             if (existent == null) {
                 // Local modifications represent either default style elements or style elements
                 // defined in stylesheets; either way, they shouldn't overwrite any style
@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript.host.css;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.w3c.dom.css.CSSStyleSheet;
+
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+
+/**
+ * Cache of the parsed style sheets of inline {@code <style>} elements, shared by all web clients.
+ * Sites often inline the same large block of CSS in every page; with this cache it is parsed only once.
+ * Unlike {@link com.gargoylesoftware.htmlunit.Cache}, the entries don't compete with the
+ * cached HTTP responses.
+ *
+ * <p>The entries are looked up by the hash of the CSS and the browser version; the CSS itself is
+ * compared to rule out collisions. The cache is bounded by the number of entries and by
+ * the total length of the cached CSS, the least recently used entries are removed first.</p>
+ *
+ * <p>The parsed style sheets are shared, {@link com.gargoylesoftware.htmlunit.javascript.host.css.CSSStyleSheet}
+ * copies them before they can be modified by scripts.</p>
+ *
+ * @see com.gargoylesoftware.htmlunit.javascript.host.css.CSSStyleSheet#getParsedStyleSheetCache()
+ */
+public class ParsedStyleSheetCache {
+
+    private final Map<Key, CSSStyleSheet> entries_ = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong hits_ = new AtomicLong();
+    private final AtomicLong misses_ = new AtomicLong();
+    private int maxSize_;
+    private long maxLength_;
+    private long length_;
+
+    private static final class Key {
+        private final String css_;
+        private final String browser_;
+        private final int hash_;
+
+        Key(final String css, final BrowserVersion browserVersion) {
+            css_ = css;
+            browser_ = browserVersion.getNickname();
+            hash_ = 31 * css.hashCode() + browser_.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash_;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return hash_ == other.hash_ && browser_.equals(other.browser_) && css_.equals(other.css_);
+        }
+    }
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximal number of cached style sheets
+     * @param maxLength the maximal total length of the cached CSS
+     */
+    public ParsedStyleSheetCache(final int maxSize, final long maxLength) {
+        setMaxSize(maxSize);
+        setMaxLength(maxLength);
+    }
+
+    /**
+     * Returns the parsed style sheet for the specified CSS, if cached.
+     * @param css the CSS
+     * @param browserVersion the browser version
+     * @return the parsed style sheet or {@code null}
+     */
+    public synchronized CSSStyleSheet get(final String css, final BrowserVersion browserVersion) {
+        final CSSStyleSheet sheet = entries_.get(new Key(css, browserVersion));
+        if (sheet == null) {
+            misses_.incrementAndGet();
+        }
+        else {
+            hits_.incrementAndGet();
+        }
+        return sheet;
+    }
+
+    /**
+     * Caches the parsed style sheet for the specified CSS.
+     * The style sheet must not be modified afterwards.
+     * @param css the CSS
+     * @param browserVersion the browser version
+     * @param sheet the parsed style sheet
+     * @return whether the style sheet has been cached
+     */
+    public synchronized boolean put(final String css, final BrowserVersion browserVersion,
+            final CSSStyleSheet sheet) {
+        if (maxSize_ == 0 || css.length() > maxLength_) {
+            return false;
+        }
+        final CSSStyleSheet old = entries_.put(new Key(css, browserVersion), sheet);
+        if (old == null) {
+            length_ += css.length();
+        }
+        deleteOverflow();
+        return true;
+    }
+
+    private void deleteOverflow() {
+        final Iterator<Key> it = entries_.keySet().iterator();
+        while ((entries_.size() > maxSize_ || length_ > maxLength_) && it.hasNext()) {
+            length_ -= it.next().css_.length();
+            it.remove();
+        }
+    }
+
+    /**
+     * Returns the maximal number of cached style sheets.
+     * @return the maximal number of cached style sheets
+     */
+    public synchronized int getMaxSize() {
+        return maxSize_;
+    }
+
+    /**
+     * Sets the maximal number of cached style sheets; 0 disables the caching.
+     * @param maxSize the maximal number of cached style sheets (must be &gt;= 0)
+     */
+    public synchronized void setMaxSize(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Illegal value for maxSize: " + maxSize);
+        }
+        maxSize_ = maxSize;
+        deleteOverflow();
+    }
+
+    /**
+     * Returns the maximal total length of the cached CSS.
+     * @return the maximal total length
+     */
+    public synchronized long getMaxLength() {
+        return maxLength_;
+    }
+
+    /**
+     * Sets the maximal total length of the cached CSS.
+     * @param maxLength the maximal total length (must be &gt;= 0)
+     */
+    public synchronized void setMaxLength(final long maxLength) {
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("Illegal value for maxLength: " + maxLength);
+        }
+        maxLength_ = maxLength;
+        deleteOverflow();
+    }
+
+    /**
+     * Returns the number of cached style sheets.
+     * @return the number of cached style sheets
+     */
+    public synchronized int getSize() {
+        return entries_.size();
+    }
+
+    /**
+     * Returns the total length of the cached CSS.
+     * @return the total length
+     */
+    public synchronized long getLength() {
+        return length_;
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hits_.get();
+    }
+
+    /**
+     * Returns the number of lookups which had to parse the CSS.
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return misses_.get();
+    }
+
+    /**
+     * Removes all cached style sheets and resets the counters.
+     */
+    public synchronized void clear() {
+        entries_.clear();
+        length_ = 0;
+        hits_.set(0);
+        misses_.set(0);
+    }
+}
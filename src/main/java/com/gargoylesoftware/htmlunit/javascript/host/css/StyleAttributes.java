@@ -19,6 +19,7 @@ import static com.gargoylesoftware.htmlunit.javascript.host.css.BrowserConfigura
 import static com.gargoylesoftware.htmlunit.javascript.host.css.BrowserConfiguration.ie;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,9 +36,29 @@ import com.gargoylesoftware.htmlunit.BrowserVersion;
 public final class StyleAttributes {
     private static final Map<String, Definition> styles_ = new HashMap<>();
 
+    /** The definitions by attribute name, the first one when several definitions share the attribute name. */
+    private static final Map<String, Definition> attributes_ = new HashMap<>();
+
+    /** The dense index of the attribute name of each definition, by {@link Definition#ordinal()}. */
+    private static final int[] attributeIndexes_ = new int[Definition.values().length];
+
+    /** The maximal number of browser versions for which the availability is kept. */
+    private static final int MAX_AVAILABILITIES = 16;
+
+    /** The precomputed availability for the browser versions used so far, compared by identity. */
+    private static volatile Availability[] availabilities_ = new Availability[0];
+
     static {
         for (final Definition definition : Definition.values()) {
             styles_.put(definition.getPropertyName(), definition);
+            final Definition first = attributes_.get(definition.getAttributeName());
+            if (first == null) {
+                attributeIndexes_[definition.ordinal()] = attributes_.size();
+                attributes_.put(definition.getAttributeName(), definition);
+            }
+            else {
+                attributeIndexes_[definition.ordinal()] = attributeIndexes_[first.ordinal()];
+            }
         }
     }
 
@@ -60,7 +81,7 @@ public final class StyleAttributes {
         if (definition == null) {
             return null;
         }
-        if (!definition.isAvailable(browserVersion, false)) {
+        if (!getAvailability(browserVersion).available_.get(definition.ordinal())) {
             return null;
         }
         return definition;
@@ -72,14 +93,87 @@ public final class StyleAttributes {
      * @return the list
      */
     public static List<Definition> getDefinitions(final BrowserVersion browserVersion) {
-        final List<Definition> list = new ArrayList<>();
-        for (final Definition definition : Definition.values()) {
-            if (definition.isAvailable(browserVersion, true)) {
-                list.add(definition);
+        return new ArrayList<>(getAvailability(browserVersion).iteratables_);
+    }
+
+    /**
+     * Gets the style attributes definition with the given attribute name, regardless of the browser version.
+     * @param attributeName the name of the style attribute (like {@code border-top-width})
+     * @return the definition, or {@code null} if no definition has this attribute name
+     */
+    public static Definition getDefinitionByAttributeName(final String attributeName) {
+        return attributes_.get(attributeName);
+    }
+
+    /**
+     * Returns the dense index of the attribute name of the specified definition, allowing to store the values
+     * of the style attributes in an array instead of a map. The definitions sharing the same attribute
+     * name have the same index.
+     * @param definition the definition
+     * @return the index
+     * @see #getAttributeCount()
+     */
+    public static int getAttributeIndex(final Definition definition) {
+        return attributeIndexes_[definition.ordinal()];
+    }
+
+    /**
+     * Returns the number of distinct style attribute names.
+     * @return the number of attribute names
+     * @see #getAttributeIndex(Definition)
+     */
+    public static int getAttributeCount() {
+        return attributes_.size();
+    }
+
+    /**
+     * Returns the availability of the definitions for the specified browser version, computing it if needed.
+     * The lookup is done by identity as {@link BrowserVersion#equals(Object)} is expensive.
+     */
+    private static Availability getAvailability(final BrowserVersion browserVersion) {
+        for (final Availability availability : availabilities_) {
+            if (availability.browserVersion_ == browserVersion) {
+                return availability;
+            }
+        }
+
+        synchronized (StyleAttributes.class) {
+            final Availability[] availabilities = availabilities_;
+            for (final Availability availability : availabilities) {
+                if (availability.browserVersion_ == browserVersion) {
+                    return availability;
+                }
             }
+
+            final Availability availability = new Availability(browserVersion);
+            final int kept = Math.min(availabilities.length, MAX_AVAILABILITIES - 1);
+            final Availability[] newAvailabilities = new Availability[kept + 1];
+            newAvailabilities[0] = availability;
+            System.arraycopy(availabilities, 0, newAvailabilities, 1, kept);
+            availabilities_ = newAvailabilities;
+            return availability;
         }
+    }
 
-        return list;
+    /**
+     * The definitions available for one browser version.
+     */
+    private static final class Availability {
+        private final BrowserVersion browserVersion_;
+        private final BitSet available_ = new BitSet();
+        private final List<Definition> iteratables_ = new ArrayList<>();
+
+        Availability(final BrowserVersion browserVersion) {
+            browserVersion_ = browserVersion;
+            for (final Definition definition : Definition.values()) {
+                if (definition.isAvailable(browserVersion, false)) {
+                    available_.set(definition.ordinal());
+                }
+                if (definition.isAvailable(browserVersion, true)) {
+                    iteratables_.add(definition);
+                }
+            }
+        }
     }
 
     /**
@@ -23,6 +23,7 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.gargoylesoftware.htmlunit.BrowserVersion;
@@ -76,6 +77,8 @@ public class AbstractList extends SimpleScriptable implements Function {
 
     /**
      * Cache collection elements when possible, so as to avoid expensive XPath expression evaluations.
+     * The incremental updates modify the list in place: callers iterating over it while the DOM changes
+     * get a {@link java.util.ConcurrentModificationException} and have to copy it first.
      */
     private List<Object> cachedElements_;
 
@@ -291,6 +294,193 @@ public class AbstractList extends SimpleScriptable implements Function {
         return false;
     }
 
+    /**
+     * Indicates if the cache can be updated when nodes are added or removed (or when attributes change)
+     * instead of being computed again. This is only possible when the candidates are the descendants
+     * of the reference node and {@link #isMatching(DomNode)} only depends on the tested node itself,
+     * like for the collections filtering by tag or class name.
+     * @return {@code false} here as subclasses for concrete collections should decide it
+     */
+    protected boolean isIncrementallyUpdatable() {
+        return false;
+    }
+
+    /**
+     * Updates the cache after the addition of a node.
+     * @param addedNode the added node
+     * @return {@code false} if the cache has to be reset
+     */
+    private boolean updateCacheOnNodeAdded(final DomNode addedNode) {
+        final List<Object> cachedElements = cachedElements_;
+        final DomNode domNode = getDomNodeOrNull();
+        if (cachedElements == null || domNode == null) {
+            return true;
+        }
+        // insertBefore() notifies the listeners of the reference sibling too
+        if (addedNode == domNode || !domNode.isAncestorOf(addedNode)) {
+            return true;
+        }
+
+        final List<DomNode> matchingNodes = getMatchingNodes(addedNode);
+        if (matchingNodes.isEmpty()) {
+            return true;
+        }
+        if (isAfterLastElement(cachedElements, addedNode)) {
+            cachedElements.addAll(matchingNodes);
+            return true;
+        }
+        final DomNode first = matchingNodes.get(0);
+        final int index = getDocumentPositionIndex(cachedElements, first);
+        if (index < 0 || (index < cachedElements.size() && cachedElements.get(index) == first)) {
+            return false;
+        }
+        cachedElements.addAll(index, matchingNodes);
+        return true;
+    }
+
+    /**
+     * Indicates, without walking the document, if the added node follows the last element of the list.
+     * This is the case of the appended nodes: the last element is their previous sibling or one of its
+     * descendants, or their parent if they have no previous sibling.
+     * @param elements the elements
+     * @param addedNode the added node
+     * @return {@code true} if the node is known to follow the last element
+     */
+    private static boolean isAfterLastElement(final List<Object> elements, final DomNode addedNode) {
+        if (elements.isEmpty()) {
+            return true;
+        }
+        final DomNode last = (DomNode) elements.get(elements.size() - 1);
+        final DomNode previous = addedNode.getPreviousSibling();
+        if (previous == null) {
+            return last == addedNode.getParentNode();
+        }
+        return last == previous || previous.isAncestorOf(last);
+    }
+
+    /**
+     * Updates the cache after the removal of a node.
+     * @param deletedNode the removed node, already detached
+     * @return {@code false} if the cache has to be reset
+     */
+    private boolean updateCacheOnNodeDeleted(final DomNode deletedNode) {
+        final List<Object> cachedElements = cachedElements_;
+        if (cachedElements == null || deletedNode == getDomNodeOrNull()) {
+            return true;
+        }
+
+        final List<DomNode> matchingNodes = getMatchingNodes(deletedNode);
+        if (matchingNodes.isEmpty()) {
+            return true;
+        }
+
+        // the removed elements are contiguous in document order
+        final DomNode first = matchingNodes.get(0);
+        int index = -1;
+        for (int i = cachedElements.size() - 1; i >= 0; i--) {
+            if (cachedElements.get(i) == first) {
+                index = i;
+                break;
+            }
+        }
+        final int end = index + matchingNodes.size();
+        if (index < 0 || end > cachedElements.size()) {
+            return false;
+        }
+        for (int i = 1; i < matchingNodes.size(); i++) {
+            if (cachedElements.get(index + i) != matchingNodes.get(i)) {
+                return false;
+            }
+        }
+        cachedElements.subList(index, end).clear();
+        return true;
+    }
+
+    /**
+     * Updates the cache after the change of an attribute.
+     * @param element the element whose attribute has changed
+     * @return {@code false} if the cache has to be reset
+     */
+    private boolean updateCacheOnAttributeChange(final DomElement element) {
+        final List<Object> cachedElements = cachedElements_;
+        if (cachedElements == null || element == getDomNodeOrNull()) {
+            return true;
+        }
+
+        final int index = getDocumentPositionIndex(cachedElements, element);
+        if (index < 0) {
+            return false;
+        }
+        final boolean present = index < cachedElements.size() && cachedElements.get(index) == element;
+        final boolean matching = isMatching(element);
+        if (matching != present) {
+            if (matching) {
+                cachedElements.add(index, element);
+            }
+            else {
+                cachedElements.remove(index);
+            }
+        }
+        return true;
+    }
+
+    private List<DomNode> getMatchingNodes(final DomNode root) {
+        final boolean element = root instanceof DomElement;
+        if (!element && root.getFirstChild() == null) {
+            // text nodes and comments
+            return Collections.emptyList();
+        }
+        final List<DomNode> matchingNodes = new ArrayList<>();
+        if (element && isMatching(root)) {
+            matchingNodes.add(root);
+        }
+        for (DomNode node = root.getFirstChild(); node != null; node = root.getNextDescendant(node, false)) {
+            if (node instanceof DomElement && isMatching(node)) {
+                matchingNodes.add(node);
+            }
+        }
+        return matchingNodes;
+    }
+
+    /**
+     * Returns the index of the first element of the (document ordered) list not preceding the node.
+     * @param elements the elements
+     * @param node the node
+     * @return the index or {@code -1} if the position can't be determined
+     */
+    private static int getDocumentPositionIndex(final List<Object> elements, final DomNode node) {
+        int high = elements.size();
+        if (high == 0) {
+            return 0;
+        }
+
+        // most nodes are appended
+        int position = ((DomNode) elements.get(high - 1)).compareDocumentPosition(node);
+        if ((position & DomNode.DOCUMENT_POSITION_DISCONNECTED) != 0) {
+            return -1;
+        }
+        if ((position & DomNode.DOCUMENT_POSITION_FOLLOWING) != 0) {
+            return high;
+        }
+
+        int low = 0;
+        high--;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            position = ((DomNode) elements.get(middle)).compareDocumentPosition(node);
+            if ((position & DomNode.DOCUMENT_POSITION_DISCONNECTED) != 0) {
+                return -1;
+            }
+            if ((position & DomNode.DOCUMENT_POSITION_FOLLOWING) != 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
     /**
      * Returns the element or elements that match the specified key. If it is the name
      * of a property, the property value is returned. If it is the id of an element in
@@ -570,7 +760,13 @@ public class AbstractList extends SimpleScriptable implements Function {
          */
         @Override
         public void nodeAdded(final DomChangeEvent event) {
-            clearCache();
+            final AbstractList nodes = nodeList_.get();
+            if (null == nodes) {
+                return;
+            }
+            if (!nodes.isIncrementallyUpdatable() || !nodes.updateCacheOnNodeAdded(event.getChangedNode())) {
+                clearCache();
+            }
         }
 
         /**
@@ -578,7 +774,13 @@ public class AbstractList extends SimpleScriptable implements Function {
          */
         @Override
         public void nodeDeleted(final DomChangeEvent event) {
-            clearCache();
+            final AbstractList nodes = nodeList_.get();
+            if (null == nodes) {
+                return;
+            }
+            if (!nodes.isIncrementallyUpdatable() || !nodes.updateCacheOnNodeDeleted(event.getChangedNode())) {
+                clearCache();
+            }
         }
 
         /**
@@ -622,7 +824,10 @@ public class AbstractList extends SimpleScriptable implements Function {
                 return;
             }
             if (EffectOnCache.RESET == effectOnCache) {
-                clearCache();
+                if (!nodes.isIncrementallyUpdatable()
+                        || !nodes.updateCacheOnAttributeChange(event.getHtmlElement())) {
+                    clearCache();
+                }
             }
         }
 
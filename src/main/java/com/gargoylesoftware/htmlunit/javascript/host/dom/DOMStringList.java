@@ -18,10 +18,18 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxFunction;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
+import com.gargoylesoftware.htmlunit.javascript.host.Window;
+
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
 
 /**
  * A JavaScript object for {@code DOMStringList}.
@@ -31,6 +39,8 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 @JsxClass
 public class DOMStringList extends SimpleScriptable {
 
+    private List<String> strings_ = new ArrayList<>();
+
     /**
      * Creates an instance.
      */
@@ -38,4 +48,57 @@ public class DOMStringList extends SimpleScriptable {
     public DOMStringList() {
     }
 
+    /**
+     * Creates an instance.
+     * @param window the window
+     * @param strings the strings
+     */
+    public DOMStringList(final Window window, final List<String> strings) {
+        setParentScope(window);
+        setPrototype(window.getPrototype(DOMStringList.class));
+        strings_ = new ArrayList<>(strings);
+    }
+
+    /**
+     * Returns the {@code length} property.
+     * @return the {@code length} property
+     */
+    @JsxGetter
+    public int getLength() {
+        return strings_.size();
+    }
+
+    /**
+     * Returns the string at the given index.
+     * @param index the index
+     * @return the string or {@code null} if the index is out of range
+     */
+    @JsxFunction
+    public String item(final int index) {
+        if (index < 0 || index >= strings_.size()) {
+            return null;
+        }
+        return strings_.get(index);
+    }
+
+    /**
+     * Returns whether the list contains the given string.
+     * @param string the string
+     * @return whether the list contains the string
+     */
+    @JsxFunction
+    public boolean contains(final String string) {
+        return strings_.contains(string);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object get(final int index, final Scriptable start) {
+        if (index >= 0 && index < strings_.size()) {
+            return strings_.get(index);
+        }
+        return super.get(index, start);
+    }
 }
@@ -549,6 +549,11 @@ public class Document extends EventNode {
                 protected boolean isMatching(final DomNode node) {
                     return true;
                 }
+
+                @Override
+                protected boolean isIncrementallyUpdatable() {
+                    return true;
+                }
             };
         }
         else {
@@ -557,6 +562,11 @@ public class Document extends EventNode {
                 protected boolean isMatching(final DomNode node) {
                     return tagName.equalsIgnoreCase(node.getNodeName());
                 }
+
+                @Override
+                protected boolean isIncrementallyUpdatable() {
+                    return true;
+                }
             };
         }
 
@@ -577,6 +587,11 @@ public class Document extends EventNode {
             protected boolean isMatching(final DomNode node) {
                 return localName.equals(node.getLocalName());
             }
+
+            @Override
+            protected boolean isIncrementallyUpdatable() {
+                return true;
+            }
         };
 
         return collection;
@@ -20,6 +20,7 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 
 /**
@@ -30,10 +31,50 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 @JsxClass
 public class IDBVersionChangeEvent extends Event {
 
+    private long oldVersion_;
+    private Long newVersion_;
+
     /**
      * Creates a new instance.
      */
     @JsxConstructor({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
     public IDBVersionChangeEvent() {
     }
+
+    /**
+     * Creates a new event, which doesn't bubble and is not cancelable.
+     * @param target the target
+     * @param type the event type
+     * @param oldVersion the previous version of the database
+     * @param newVersion the new version of the database, {@code null} if it is deleted
+     */
+    public IDBVersionChangeEvent(final EventTarget target, final String type, final long oldVersion,
+            final Long newVersion) {
+        super(target, type);
+        setBubbles(false);
+        setCancelable(false);
+        oldVersion_ = oldVersion;
+        newVersion_ = newVersion;
+    }
+
+    /**
+     * Returns the {@code oldVersion} property.
+     * @return the {@code oldVersion} property
+     */
+    @JsxGetter
+    public double getOldVersion() {
+        return oldVersion_;
+    }
+
+    /**
+     * Returns the {@code newVersion} property.
+     * @return the {@code newVersion} property
+     */
+    @JsxGetter
+    public Object getNewVersion() {
+        if (newVersion_ == null) {
+            return null;
+        }
+        return newVersion_.doubleValue();
+    }
 }
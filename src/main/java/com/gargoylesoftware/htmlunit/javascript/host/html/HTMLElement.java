@@ -700,6 +700,11 @@ public class HTMLElement extends Element {
                 }
                 return true;
             }
+
+            @Override
+            protected boolean isIncrementallyUpdatable() {
+                return true;
+            }
         };
 
         return collection;
@@ -18,11 +18,6 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
-import java.io.StringReader;
-
-import org.w3c.css.sac.InputSource;
-
-import com.gargoylesoftware.htmlunit.Cache;
 import com.gargoylesoftware.htmlunit.html.HtmlStyle;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
@@ -65,18 +60,9 @@ public class HTMLStyleElement extends HTMLElement {
         final HtmlStyle style = (HtmlStyle) getDomNodeOrDie();
         final String css = style.getTextContent();
 
-        final Cache cache = getWindow().getWebWindow().getWebClient().getCache();
-        final org.w3c.dom.css.CSSStyleSheet cached = cache.getCachedStyleSheet(css);
         final String uri = getDomNodeOrDie().getPage().getWebResponse().getWebRequest()
                 .getUrl().toExternalForm();
-        if (cached != null) {
-            sheet_ = new CSSStyleSheet(this, cached, uri);
-        }
-        else {
-            final InputSource source = new InputSource(new StringReader(css));
-            sheet_ = new CSSStyleSheet(this, source, uri);
-            cache.cache(css, sheet_.getWrappedSheet());
-        }
+        sheet_ = new CSSStyleSheet(this, css, uri);
 
         return sheet_;
     }
@@ -18,23 +18,389 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeSet;
+
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxFunction;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
+import com.gargoylesoftware.htmlunit.javascript.host.Window;
+
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptRuntime;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.Undefined;
 
 /**
  * A JavaScript object for {@code IDBCursor}.
  *
+ * <p>The cursor keeps its position as keys, and moves to the next position in the trees
+ * of the database when it is continued; the records changed in the meantime are therefore seen.</p>
+ *
  * @author Ahmed Ashour
  */
 @JsxClass
 public class IDBCursor extends SimpleScriptable {
 
+    private static final String NEXT = "next";
+    private static final String NEXT_UNIQUE = "nextunique";
+    private static final String PREV = "prev";
+    private static final String PREV_UNIQUE = "prevunique";
+
+    private IDBObjectStore objectStore_;
+    private IDBIndex index_;
+    private IDBKeyRange range_;
+    private String direction_;
+    private IDBRequest request_;
+    private IndexedDBKey key_;
+    private IndexedDBKey primaryKey_;
+    private Object value_ = Undefined.instance;
+    private boolean gotValue_;
+
     /**
      * Creates a new instance.
      */
     @JsxConstructor({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
     public IDBCursor() {
     }
+
+    /**
+     * Places the request opening a cursor.
+     * @param objectStore the object store
+     * @param index the index, {@code null} to iterate over the object store
+     * @param range the range, {@code null} for all keys
+     * @param direction the direction, {@code undefined} for {@code next}
+     * @param withValue whether the cursor provides the values
+     * @return the request
+     */
+    static IDBRequest open(final IDBObjectStore objectStore, final IDBIndex index, final IDBKeyRange range,
+            final Object direction, final boolean withValue) {
+        String cursorDirection = NEXT;
+        if (direction != Undefined.instance && direction != null) {
+            cursorDirection = Context.toString(direction);
+            if (!NEXT.equals(cursorDirection) && !NEXT_UNIQUE.equals(cursorDirection)
+                    && !PREV.equals(cursorDirection) && !PREV_UNIQUE.equals(cursorDirection)) {
+                throw ScriptRuntime.typeError("Invalid cursor direction: " + cursorDirection);
+            }
+        }
+
+        final IDBCursor cursor;
+        if (withValue) {
+            cursor = new IDBCursorWithValue();
+        }
+        else {
+            cursor = new IDBCursor();
+        }
+        final Window window = objectStore.getWindow();
+        cursor.setParentScope(window);
+        cursor.setPrototype(window.getPrototype(cursor.getClass()));
+        cursor.objectStore_ = objectStore;
+        cursor.index_ = index;
+        cursor.range_ = range;
+        cursor.direction_ = cursorDirection;
+
+        final Scriptable source;
+        if (index != null) {
+            source = index;
+        }
+        else {
+            source = objectStore;
+        }
+        cursor.request_ = objectStore.getTransactionInternal().enqueue(source, false, cursor.move(null, 1));
+        return cursor.request_;
+    }
+
+    /**
+     * Returns the {@code source} property.
+     * @return the {@code source} property
+     */
+    @JsxGetter
+    public Scriptable getSource() {
+        if (index_ != null) {
+            return index_;
+        }
+        return objectStore_;
+    }
+
+    /**
+     * Returns the {@code direction} property.
+     * @return the {@code direction} property
+     */
+    @JsxGetter
+    public String getDirection() {
+        return direction_;
+    }
+
+    /**
+     * Returns the {@code key} property.
+     * @return the {@code key} property
+     */
+    @JsxGetter
+    public Object getKey() {
+        if (key_ == null) {
+            return Undefined.instance;
+        }
+        return key_.toJavaScript(Context.getCurrentContext(), getWindow());
+    }
+
+    /**
+     * Returns the {@code primaryKey} property.
+     * @return the {@code primaryKey} property
+     */
+    @JsxGetter
+    public Object getPrimaryKey() {
+        if (primaryKey_ == null) {
+            return Undefined.instance;
+        }
+        return primaryKey_.toJavaScript(Context.getCurrentContext(), getWindow());
+    }
+
+    /**
+     * Returns the value of the current record.
+     * @return the value
+     */
+    Object getValueInternal() {
+        return value_;
+    }
+
+    /**
+     * Advances the cursor to the next record, or to the next record with a key not less
+     * (not greater when iterating backwards) than the given key.
+     * @param key the key or {@code undefined}
+     */
+    @JsxFunction(functionName = "continue")
+    public void continue_js(final Object key) {
+        IndexedDBKey target = null;
+        if (key != Undefined.instance && key != null) {
+            target = IDBFactory.toKey(getWindow(), key);
+        }
+        checkGotValue();
+        if (target != null && key_ != null) {
+            final int cmp = target.compareTo(key_);
+            if (isForward() ? cmp <= 0 : cmp >= 0) {
+                throw newException(IndexedDBException.DATA_ERROR,
+                        "The key doesn't follow the current position of the cursor");
+            }
+        }
+        gotValue_ = false;
+        objectStore_.getTransactionInternal().enqueue(request_, move(target, 1));
+    }
+
+    /**
+     * Advances the cursor by the given number of records.
+     * @param count the number of records
+     */
+    @JsxFunction
+    public void advance(final Object count) {
+        final double number = ScriptRuntime.toNumber(count);
+        if (Double.isNaN(number) || number < 1 || number > Integer.MAX_VALUE) {
+            throw ScriptRuntime.typeError("Invalid count: " + Context.toString(count));
+        }
+        checkGotValue();
+        gotValue_ = false;
+        objectStore_.getTransactionInternal().enqueue(request_, move(null, (int) number));
+    }
+
+    /**
+     * Replaces the value of the current record.
+     * @param value the new value
+     * @return the request
+     */
+    @JsxFunction
+    public IDBRequest update(final Object value) {
+        objectStore_.getTransactionInternal().checkActive(true);
+        checkGotValue();
+        if (!(this instanceof IDBCursorWithValue)) {
+            throw newException(IndexedDBException.INVALID_STATE_ERROR, "The cursor has no value");
+        }
+        final IndexedDBDatabase.ObjectStore store = getStore();
+        if (store.getKeyPath() != null) {
+            final Object inlineKey = IDBObjectStore.evaluateKeyPath(Context.getCurrentContext(), getWindow(), value,
+                    store.getKeyPath());
+            if (inlineKey == null || !primaryKey_.equals(IndexedDBKey.fromJavaScript(inlineKey))) {
+                throw newException(IndexedDBException.DATA_ERROR, "The key of the value has been changed");
+            }
+            return objectStore_.store(this, value, Undefined.instance, false);
+        }
+        return objectStore_.store(this, value, getPrimaryKey(), false);
+    }
+
+    /**
+     * Deletes the current record.
+     * @return the request
+     */
+    @JsxFunction(functionName = "delete")
+    public IDBRequest delete_js() {
+        objectStore_.getTransactionInternal().checkActive(true);
+        checkGotValue();
+        if (!(this instanceof IDBCursorWithValue)) {
+            throw newException(IndexedDBException.INVALID_STATE_ERROR, "The cursor has no value");
+        }
+        return objectStore_.delete(this, new IDBKeyRange(this, primaryKey_, primaryKey_, false, false));
+    }
+
+    private IndexedDBDatabase.ObjectStore getStore() {
+        final IndexedDBDatabase database = objectStore_.getTransactionInternal().getDb().getDatabase();
+        database.getLock().lock();
+        try {
+            return objectStore_.getStore(database);
+        }
+        catch (final IndexedDBException e) {
+            throw e.toJavaScriptException(getWindow());
+        }
+        finally {
+            database.getLock().unlock();
+        }
+    }
+
+    private void checkGotValue() {
+        if (objectStore_.getTransactionInternal().isAborted()) {
+            throw newException(IndexedDBException.TRANSACTION_INACTIVE_ERROR, "The transaction is not active");
+        }
+        if (!gotValue_) {
+            throw newException(IndexedDBException.INVALID_STATE_ERROR, "The cursor is being iterated or has ended");
+        }
+    }
+
+    private boolean isForward() {
+        return NEXT.equals(direction_) || NEXT_UNIQUE.equals(direction_);
+    }
+
+    private boolean isUnique() {
+        return NEXT_UNIQUE.equals(direction_) || PREV_UNIQUE.equals(direction_);
+    }
+
+    /**
+     * Returns the operation moving the cursor.
+     * @param target the key to reach, {@code null} for the next record
+     * @param count the number of records to move by
+     * @return the operation; its result is the cursor or {@code null} when the range is exhausted
+     */
+    private IDBRequest.Operation move(final IndexedDBKey target, final int count) {
+        final Window window = getWindow();
+        return new IDBRequest.Operation() {
+            @Override
+            Object execute(final Context cx, final IndexedDBDatabase database) {
+                final NavigableMap<IndexedDBKey, IndexedDBDatabase.Record> records =
+                        objectStore_.getStore(database).getRecords();
+                for (int i = 0; i < count; i++) {
+                    final boolean found;
+                    if (index_ == null) {
+                        found = moveInStore(IndexedDBDatabase.subMap(records, range_), i == 0 ? target : null);
+                    }
+                    else {
+                        found = moveInIndex(IndexedDBDatabase.subMap(index_.getIndex(database).getEntries(), range_),
+                                i == 0 ? target : null);
+                    }
+                    if (!found) {
+                        key_ = null;
+                        primaryKey_ = null;
+                        value_ = Undefined.instance;
+                        return null;
+                    }
+                }
+                if (IDBCursor.this instanceof IDBCursorWithValue) {
+                    value_ = IDBObjectStore.fromBytes(cx, window, records.get(primaryKey_).getValue());
+                }
+                gotValue_ = true;
+                return IDBCursor.this;
+            }
+        };
+    }
+
+    private boolean moveInStore(final NavigableMap<IndexedDBKey, IndexedDBDatabase.Record> records,
+            final IndexedDBKey target) {
+        final IndexedDBKey next;
+        if (isForward()) {
+            if (target != null) {
+                next = records.ceilingKey(target);
+            }
+            else if (key_ == null) {
+                next = records.isEmpty() ? null : records.firstKey();
+            }
+            else {
+                next = records.higherKey(key_);
+            }
+        }
+        else {
+            if (target != null) {
+                next = records.floorKey(target);
+            }
+            else if (key_ == null) {
+                next = records.isEmpty() ? null : records.lastKey();
+            }
+            else {
+                next = records.lowerKey(key_);
+            }
+        }
+        if (next == null) {
+            return false;
+        }
+        key_ = next;
+        primaryKey_ = next;
+        return true;
+    }
+
+    private boolean moveInIndex(final NavigableMap<IndexedDBKey, TreeSet<IndexedDBKey>> entries,
+            final IndexedDBKey target) {
+        final Map.Entry<IndexedDBKey, TreeSet<IndexedDBKey>> entry;
+        if (isForward()) {
+            if (target != null) {
+                entry = entries.ceilingEntry(target);
+            }
+            else if (key_ == null) {
+                entry = entries.firstEntry();
+            }
+            else {
+                if (!isUnique()) {
+                    final TreeSet<IndexedDBKey> primaryKeys = entries.get(key_);
+                    final IndexedDBKey next = primaryKeys == null ? null : primaryKeys.higher(primaryKey_);
+                    if (next != null) {
+                        primaryKey_ = next;
+                        return true;
+                    }
+                }
+                entry = entries.higherEntry(key_);
+            }
+        }
+        else {
+            if (target != null) {
+                entry = entries.floorEntry(target);
+            }
+            else if (key_ == null) {
+                entry = entries.lastEntry();
+            }
+            else {
+                if (!isUnique()) {
+                    final TreeSet<IndexedDBKey> primaryKeys = entries.get(key_);
+                    final IndexedDBKey next = primaryKeys == null ? null : primaryKeys.lower(primaryKey_);
+                    if (next != null) {
+                        primaryKey_ = next;
+                        return true;
+                    }
+                }
+                entry = entries.lowerEntry(key_);
+            }
+        }
+        if (entry == null) {
+            return false;
+        }
+        key_ = entry.getKey();
+        // the unique directions take the first record of each key
+        if (isForward() || isUnique()) {
+            primaryKey_ = entry.getValue().first();
+        }
+        else {
+            primaryKey_ = entry.getValue().last();
+        }
+        return true;
+    }
+
+    private RuntimeException newException(final String name, final String message) {
+        return new IndexedDBException(name, message).toJavaScriptException(getWindow());
+    }
 }
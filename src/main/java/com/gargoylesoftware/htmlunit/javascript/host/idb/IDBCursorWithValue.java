@@ -20,6 +20,7 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 
 /**
@@ -36,4 +37,13 @@ public class IDBCursorWithValue extends IDBCursor {
     @JsxConstructor({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
     public IDBCursorWithValue() {
     }
+
+    /**
+     * Returns the {@code value} property.
+     * @return the {@code value} property
+     */
+    @JsxGetter
+    public Object getValue() {
+        return getValueInternal();
+    }
 }
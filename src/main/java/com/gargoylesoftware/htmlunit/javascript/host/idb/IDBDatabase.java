@@ -18,23 +18,285 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxFunction;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxSetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
+import com.gargoylesoftware.htmlunit.javascript.host.Window;
+import com.gargoylesoftware.htmlunit.javascript.host.dom.DOMStringList;
 import com.gargoylesoftware.htmlunit.javascript.host.event.EventTarget;
 
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.NativeArray;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptRuntime;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
+import net.sourceforge.htmlunit.corejs.javascript.Undefined;
+
 /**
- * A JavaScript object for {@code IDBDatabase}.
+ * A JavaScript object for {@code IDBDatabase}, a connection to a database.
  *
  * @author Ahmed Ashour
  */
 @JsxClass
 public class IDBDatabase extends EventTarget {
 
+    private IndexedDBDatabase database_;
+    private long version_;
+    private IDBTransaction upgradeTransaction_;
+    private boolean closed_;
+
     /**
      * Creates a new instance.
      */
     @JsxConstructor({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
     public IDBDatabase() {
     }
+
+    /**
+     * Creates a new connection.
+     * @param window the window
+     * @param database the database
+     * @param version the version
+     */
+    IDBDatabase(final Window window, final IndexedDBDatabase database, final long version) {
+        setParentScope(window);
+        setPrototype(window.getPrototype(getClass()));
+        database_ = database;
+        version_ = version;
+    }
+
+    IndexedDBDatabase getDatabase() {
+        return database_;
+    }
+
+    void setUpgradeTransaction(final IDBTransaction transaction) {
+        upgradeTransaction_ = transaction;
+    }
+
+    /**
+     * Returns the {@code name} property.
+     * @return the {@code name} property
+     */
+    @JsxGetter
+    public String getName() {
+        return database_.getName();
+    }
+
+    /**
+     * Returns the {@code version} property.
+     * @return the {@code version} property
+     */
+    @JsxGetter
+    public double getVersion() {
+        return version_;
+    }
+
+    /**
+     * Returns the {@code objectStoreNames} property.
+     * @return the {@code objectStoreNames} property
+     */
+    @JsxGetter
+    public DOMStringList getObjectStoreNames() {
+        final List<String> names;
+        database_.getLock().lock();
+        try {
+            names = new ArrayList<>(database_.getObjectStoreNames());
+        }
+        finally {
+            database_.getLock().unlock();
+        }
+        return new DOMStringList(getWindow(), names);
+    }
+
+    /**
+     * Creates an object store; only allowed in the {@code upgradeneeded} event.
+     * @param name the name
+     * @param options the options ({@code keyPath} and {@code autoIncrement})
+     * @return the object store
+     */
+    @JsxFunction
+    public IDBObjectStore createObjectStore(final String name, final Object options) {
+        final IDBTransaction transaction = checkUpgrade();
+        Object keyPath = null;
+        boolean autoIncrement = false;
+        if (options instanceof Scriptable) {
+            final Scriptable scriptable = (Scriptable) options;
+            keyPath = IDBObjectStore.toKeyPath(ScriptableObject.getProperty(scriptable, "keyPath"));
+            final Object value = ScriptableObject.getProperty(scriptable, "autoIncrement");
+            autoIncrement = value != Scriptable.NOT_FOUND && ScriptRuntime.toBoolean(value);
+        }
+        if (autoIncrement && ("".equals(keyPath) || keyPath instanceof String[])) {
+            throw newException(IndexedDBException.INVALID_ACCESS_ERROR,
+                    "An object store with a key generator can't have an empty or an array key path");
+        }
+        if (database_.getObjectStore(name) != null) {
+            throw newException(IndexedDBException.CONSTRAINT_ERROR,
+                    "The object store '" + name + "' already exists");
+        }
+        database_.createObjectStore(name, keyPath, autoIncrement);
+        return transaction.objectStore(name);
+    }
+
+    /**
+     * Deletes an object store; only allowed in the {@code upgradeneeded} event.
+     * @param name the name
+     */
+    @JsxFunction
+    public void deleteObjectStore(final String name) {
+        checkUpgrade();
+        final IndexedDBDatabase.ObjectStore store = database_.getObjectStore(name);
+        if (store == null) {
+            throw newException(IndexedDBException.NOT_FOUND_ERROR, "The object store '" + name + "' doesn't exist");
+        }
+        database_.deleteObjectStore(store);
+    }
+
+    private IDBTransaction checkUpgrade() {
+        final IDBTransaction transaction = upgradeTransaction_;
+        if (transaction == null) {
+            throw newException(IndexedDBException.INVALID_STATE_ERROR,
+                    "The database is not running a version change transaction");
+        }
+        transaction.checkActive(true);
+        return transaction;
+    }
+
+    /**
+     * Starts a transaction.
+     * @param storeNames the name or the names of the object stores in the scope of the transaction
+     * @param mode the mode, {@code readonly} or {@code readwrite}
+     * @return the transaction
+     */
+    @JsxFunction
+    public IDBTransaction transaction(final Object storeNames, final Object mode) {
+        final String transactionMode;
+        if (mode == Undefined.instance) {
+            transactionMode = IDBTransaction.READ_ONLY;
+        }
+        else {
+            transactionMode = Context.toString(mode);
+            if (!IDBTransaction.READ_ONLY.equals(transactionMode)
+                    && !IDBTransaction.READ_WRITE.equals(transactionMode)) {
+                throw ScriptRuntime.typeError("Invalid transaction mode: " + transactionMode);
+            }
+        }
+        if (closed_ || database_.isDeleted()) {
+            throw newException(IndexedDBException.INVALID_STATE_ERROR, "The connection is closed");
+        }
+        if (upgradeTransaction_ != null) {
+            throw newException(IndexedDBException.INVALID_STATE_ERROR,
+                    "A version change transaction is running");
+        }
+
+        final Set<String> names = new LinkedHashSet<>();
+        if (storeNames instanceof NativeArray) {
+            final NativeArray array = (NativeArray) storeNames;
+            for (int i = 0; i < array.getLength(); i++) {
+                names.add(Context.toString(array.get(i, array)));
+            }
+        }
+        else if (storeNames instanceof DOMStringList) {
+            final DOMStringList list = (DOMStringList) storeNames;
+            for (int i = 0; i < list.getLength(); i++) {
+                names.add(list.item(i));
+            }
+        }
+        else {
+            names.add(Context.toString(storeNames));
+        }
+        if (names.isEmpty()) {
+            throw newException(IndexedDBException.INVALID_ACCESS_ERROR, "No object store is given");
+        }
+        database_.getLock().lock();
+        try {
+            for (final String name : names) {
+                if (database_.getObjectStore(name) == null) {
+                    throw newException(IndexedDBException.NOT_FOUND_ERROR,
+                            "The object store '" + name + "' doesn't exist");
+                }
+            }
+        }
+        finally {
+            database_.getLock().unlock();
+        }
+
+        final IDBTransaction transaction = new IDBTransaction(getWindow(), this,
+                names.toArray(new String[names.size()]), transactionMode);
+        transaction.schedule();
+        return transaction;
+    }
+
+    /**
+     * Closes the connection; the running transactions are completed.
+     */
+    @JsxFunction
+    public void close() {
+        closed_ = true;
+    }
+
+    /**
+     * Returns the {@code onabort} event handler.
+     * @return the {@code onabort} event handler
+     */
+    @JsxGetter
+    public Object getOnabort() {
+        return getEventHandlerProp("onabort");
+    }
+
+    /**
+     * Sets the {@code onabort} event handler.
+     * @param handler the {@code onabort} event handler
+     */
+    @JsxSetter
+    public void setOnabort(final Object handler) {
+        setEventHandlerProp("onabort", handler);
+    }
+
+    /**
+     * Returns the {@code onerror} event handler.
+     * @return the {@code onerror} event handler
+     */
+    @JsxGetter
+    public Object getOnerror() {
+        return getEventHandlerProp("onerror");
+    }
+
+    /**
+     * Sets the {@code onerror} event handler.
+     * @param handler the {@code onerror} event handler
+     */
+    @JsxSetter
+    public void setOnerror(final Object handler) {
+        setEventHandlerProp("onerror", handler);
+    }
+
+    /**
+     * Returns the {@code onversionchange} event handler.
+     * @return the {@code onversionchange} event handler
+     */
+    @JsxGetter
+    public Object getOnversionchange() {
+        return getEventHandlerProp("onversionchange");
+    }
+
+    /**
+     * Sets the {@code onversionchange} event handler.
+     * @param handler the {@code onversionchange} event handler
+     */
+    @JsxSetter
+    public void setOnversionchange(final Object handler) {
+        setEventHandlerProp("onversionchange", handler);
+    }
+
+    private RuntimeException newException(final String name, final String message) {
+        return new IndexedDBException(name, message).toJavaScriptException(getWindow());
+    }
 }
@@ -18,14 +18,33 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
+import java.net.URL;
+import java.util.Stack;
+
+import com.gargoylesoftware.htmlunit.WebWindow;
+import com.gargoylesoftware.htmlunit.javascript.JavaScriptEngine;
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
+import com.gargoylesoftware.htmlunit.javascript.background.BackgroundJavaScriptFactory;
+import com.gargoylesoftware.htmlunit.javascript.background.JavaScriptJob;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxFunction;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
+import com.gargoylesoftware.htmlunit.javascript.host.Window;
+
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.ContextAction;
+import net.sourceforge.htmlunit.corejs.javascript.ContextFactory;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptRuntime;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.Undefined;
 
 /**
  * A JavaScript object for {@code IDBFactory}.
  *
+ * <p>The databases are provided by the {@link IndexedDBStorage} of the
+ * {@link com.gargoylesoftware.htmlunit.StorageHolder} of the web client, by origin.</p>
+ *
  * @author Ahmed Ashour
  */
 @JsxClass
@@ -37,4 +56,225 @@ public class IDBFactory extends SimpleScriptable {
     @JsxConstructor({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
     public IDBFactory() {
     }
+
+    /**
+     * Creates a new instance.
+     * @param window the window
+     */
+    public IDBFactory(final Window window) {
+        setParentScope(window);
+        setPrototype(window.getPrototype(IDBFactory.class));
+    }
+
+    /**
+     * Opens a connection to a database, creating or upgrading it if needed.
+     * @param name the name of the database
+     * @param version the version, {@code undefined} for the current one
+     * @return the request
+     */
+    @JsxFunction
+    public IDBOpenDBRequest open(final String name, final Object version) {
+        final Long requestedVersion;
+        if (version == Undefined.instance) {
+            requestedVersion = null;
+        }
+        else {
+            final double number = ScriptRuntime.toNumber(version);
+            if (Double.isNaN(number) || number < 1 || number > Long.MAX_VALUE) {
+                throw ScriptRuntime.typeError("Invalid version: " + Context.toString(version));
+            }
+            requestedVersion = (long) number;
+        }
+
+        final Window window = getWindow();
+        final String origin = getOrigin(window);
+        final IDBOpenDBRequest request = new IDBOpenDBRequest(window);
+        runLater(window, new ContextAction() {
+            @Override
+            public Object run(final Context cx) {
+                final IndexedDBDatabase database = getStorage(window).getDatabase(origin, name);
+                database.getLock().lock();
+                try {
+                    open(cx, window, request, database, requestedVersion);
+                }
+                finally {
+                    database.getLock().unlock();
+                }
+                return null;
+            }
+
+            @Override
+            public String toString() {
+                return "IDBFactory.open('" + name + "')";
+            }
+        });
+        return request;
+    }
+
+    private static void open(final Context cx, final Window window, final IDBOpenDBRequest request,
+            final IndexedDBDatabase database, final Long requestedVersion) {
+        final long oldVersion = database.getVersion();
+        final long newVersion;
+        if (requestedVersion == null) {
+            newVersion = Math.max(1, oldVersion);
+        }
+        else {
+            newVersion = requestedVersion;
+        }
+        if (newVersion < oldVersion) {
+            request.fail(new IndexedDBException(IndexedDBException.VERSION_ERROR,
+                    "The requested version " + newVersion + " is less than the existing version " + oldVersion)
+                    .toJavaScript(window));
+            return;
+        }
+
+        final IDBDatabase db = new IDBDatabase(window, database, newVersion);
+        if (newVersion > oldVersion) {
+            final IDBTransaction transaction =
+                    new IDBTransaction(window, db, null, IDBTransaction.VERSION_CHANGE);
+            db.setUpgradeTransaction(transaction);
+            request.setTransaction(transaction);
+            final boolean committed;
+            try {
+                database.setVersion(newVersion);
+                request.upgradeNeeded(db, oldVersion, newVersion);
+                committed = transaction.execute(cx);
+            }
+            catch (final RuntimeException e) {
+                database.abort();
+                throw e;
+            }
+            finally {
+                db.setUpgradeTransaction(null);
+                request.setTransaction(null);
+            }
+            if (!committed) {
+                db.close();
+                request.fail(new IndexedDBException(IndexedDBException.ABORT_ERROR,
+                        "The version change transaction was aborted").toJavaScript(window));
+                return;
+            }
+        }
+        request.succeed(db);
+    }
+
+    /**
+     * Deletes a database.
+     * @param name the name of the database
+     * @return the request
+     */
+    @JsxFunction
+    public IDBOpenDBRequest deleteDatabase(final String name) {
+        final Window window = getWindow();
+        final String origin = getOrigin(window);
+        final IDBOpenDBRequest request = new IDBOpenDBRequest(window);
+        runLater(window, new ContextAction() {
+            @Override
+            public Object run(final Context cx) {
+                final IndexedDBStorage storage = getStorage(window);
+                final IndexedDBDatabase database = storage.getDatabase(origin, name);
+                final long oldVersion;
+                database.getLock().lock();
+                try {
+                    oldVersion = storage.deleteDatabase(origin, name);
+                }
+                finally {
+                    database.getLock().unlock();
+                }
+                request.deleted(oldVersion);
+                return null;
+            }
+
+            @Override
+            public String toString() {
+                return "IDBFactory.deleteDatabase('" + name + "')";
+            }
+        });
+        return request;
+    }
+
+    /**
+     * Compares two keys.
+     * @param first the first key
+     * @param second the second key
+     * @return -1, 0 or 1
+     */
+    @JsxFunction
+    public int cmp(final Object first, final Object second) {
+        final Window window = getWindow();
+        return Integer.signum(toKey(window, first).compareTo(toKey(window, second)));
+    }
+
+    /**
+     * Converts a JavaScript value to a key.
+     * @param scope the scope
+     * @param value the value
+     * @return the key
+     * @throws net.sourceforge.htmlunit.corejs.javascript.JavaScriptException a {@code DataError}
+     *         if the value is not a valid key
+     */
+    static IndexedDBKey toKey(final Scriptable scope, final Object value) {
+        final IndexedDBKey key = IndexedDBKey.fromJavaScript(value);
+        if (key == null) {
+            throw new IndexedDBException(IndexedDBException.DATA_ERROR,
+                    "The parameter is not a valid key").toJavaScriptException(scope);
+        }
+        return key;
+    }
+
+    /**
+     * Runs an action later, in a job of the window.
+     * @param window the window
+     * @param action the action
+     */
+    static void runLater(final Window window, final ContextAction action) {
+        final WebWindow webWindow = window.getWebWindow();
+        final ContextFactory cf = webWindow.getWebClient().getJavaScriptEngine().getContextFactory();
+        final ContextAction scopedAction = new ContextAction() {
+            @Override
+            public Object run(final Context cx) {
+                // KEY_STARTING_SCOPE maintains a stack of scopes
+                @SuppressWarnings("unchecked")
+                Stack<Scriptable> stack =
+                        (Stack<Scriptable>) cx.getThreadLocal(JavaScriptEngine.KEY_STARTING_SCOPE);
+                if (null == stack) {
+                    stack = new Stack<>();
+                    cx.putThreadLocal(JavaScriptEngine.KEY_STARTING_SCOPE, stack);
+                }
+                stack.push(window);
+                try {
+                    return action.run(cx);
+                }
+                finally {
+                    stack.pop();
+                }
+            }
+        };
+        final JavaScriptJob job = BackgroundJavaScriptFactory.theFactory().createJavaScriptJob(0, null,
+            new Runnable() {
+                @Override
+                public void run() {
+                    cf.call(scopedAction);
+                }
+
+                @Override
+                public String toString() {
+                    return action.toString();
+                }
+            });
+        webWindow.getJobManager().addJob(job, webWindow.getEnclosedPage());
+    }
+
+    private static IndexedDBStorage getStorage(final Window window) {
+        return window.getWebWindow().getWebClient().getStorageHolder().getIndexedDBStorage();
+    }
+
+    private static String getOrigin(final Window window) {
+        final URL url = window.getWebWindow().getEnclosedPage().getUrl();
+        int port = url.getPort();
+        if (port == -1) {
+            port = url.getDefaultPort();
+        }
+        return url.getProtocol() + "://" + url.getHost() + ':' + port;
+    }
 }
@@ -18,10 +18,22 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeSet;
+
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxFunction;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
+import com.gargoylesoftware.htmlunit.javascript.host.Window;
+
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.Undefined;
 
 /**
  * A JavaScript object for {@code IDBIndex}.
@@ -31,10 +43,229 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 @JsxClass
 public class IDBIndex extends SimpleScriptable {
 
+    private IDBObjectStore objectStore_;
+    private IndexedDBDatabase.Index index_;
+
     /**
      * Creates a new instance.
      */
     @JsxConstructor({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
     public IDBIndex() {
     }
+
+    /**
+     * Creates a new index.
+     * @param window the window
+     * @param objectStore the object store
+     * @param index the index of the database
+     */
+    IDBIndex(final Window window, final IDBObjectStore objectStore, final IndexedDBDatabase.Index index) {
+        setParentScope(window);
+        setPrototype(window.getPrototype(getClass()));
+        objectStore_ = objectStore;
+        index_ = index;
+    }
+
+    IndexedDBDatabase.Index getIndex() {
+        return index_;
+    }
+
+    IDBObjectStore getObjectStoreInternal() {
+        return objectStore_;
+    }
+
+    /**
+     * Returns the index of the database, checking that it has not been deleted.
+     * @param database the database
+     * @return the index
+     */
+    IndexedDBDatabase.Index getIndex(final IndexedDBDatabase database) {
+        if (objectStore_.getStore(database).getIndex(index_.getName()) != index_) {
+            throw new IndexedDBException(IndexedDBException.INVALID_STATE_ERROR,
+                    "The index '" + index_.getName() + "' has been deleted");
+        }
+        return index_;
+    }
+
+    /**
+     * Returns the {@code name} property.
+     * @return the {@code name} property
+     */
+    @JsxGetter
+    public String getName() {
+        return index_.getName();
+    }
+
+    /**
+     * Returns the {@code keyPath} property.
+     * @return the {@code keyPath} property
+     */
+    @JsxGetter
+    public Object getKeyPath() {
+        return IDBObjectStore.keyPathToJavaScript(getWindow(), index_.getKeyPath());
+    }
+
+    /**
+     * Returns the {@code unique} property.
+     * @return the {@code unique} property
+     */
+    @JsxGetter
+    public boolean getUnique() {
+        return index_.isUnique();
+    }
+
+    /**
+     * Returns the {@code multiEntry} property.
+     * @return the {@code multiEntry} property
+     */
+    @JsxGetter
+    public boolean getMultiEntry() {
+        return index_.isMultiEntry();
+    }
+
+    /**
+     * Returns the {@code objectStore} property.
+     * @return the {@code objectStore} property
+     */
+    @JsxGetter
+    public IDBObjectStore getObjectStore() {
+        return objectStore_;
+    }
+
+    /**
+     * Returns the value of the first record in the given range.
+     * @param query a key or a key range
+     * @return the request
+     */
+    @Override
+    @JsxFunction
+    public IDBRequest get(final Object query) {
+        return getFirst(query, true);
+    }
+
+    /**
+     * Returns the primary key of the first record in the given range.
+     * @param query a key or a key range
+     * @return the request
+     */
+    @JsxFunction
+    public IDBRequest getKey(final Object query) {
+        return getFirst(query, false);
+    }
+
+    private IDBRequest getFirst(final Object query, final boolean value) {
+        final IDBKeyRange range = IDBObjectStore.toRange(this, query, false);
+        final Window window = getWindow();
+        return objectStore_.getTransactionInternal().enqueue(this, false, new IDBRequest.Operation() {
+            @Override
+            Object execute(final Context cx, final IndexedDBDatabase database) {
+                final Map.Entry<IndexedDBKey, TreeSet<IndexedDBKey>> entry =
+                        IndexedDBDatabase.subMap(getIndex(database).getEntries(), range).firstEntry();
+                if (entry == null) {
+                    return Undefined.instance;
+                }
+                final IndexedDBKey primaryKey = entry.getValue().first();
+                if (value) {
+                    final IndexedDBDatabase.Record record =
+                            objectStore_.getStore(database).getRecords().get(primaryKey);
+                    return IDBObjectStore.fromBytes(cx, window, record.getValue());
+                }
+                return primaryKey.toJavaScript(cx, window);
+            }
+        });
+    }
+
+    /**
+     * Returns the values of the records in the given range.
+     * @param query a key or a key range
+     * @param count the maximal number of values
+     * @return the request
+     */
+    @JsxFunction({@WebBrowser(CHROME), @WebBrowser(FF)})
+    public IDBRequest getAll(final Object query, final Object count) {
+        return getAll(query, count, true);
+    }
+
+    /**
+     * Returns the primary keys of the records in the given range.
+     * @param query a key or a key range
+     * @param count the maximal number of keys
+     * @return the request
+     */
+    @JsxFunction({@WebBrowser(CHROME), @WebBrowser(FF)})
+    public IDBRequest getAllKeys(final Object query, final Object count) {
+        return getAll(query, count, false);
+    }
+
+    private IDBRequest getAll(final Object query, final Object count, final boolean values) {
+        final IDBKeyRange range = IDBObjectStore.toRange(this, query, true);
+        final int max = IDBObjectStore.toCount(count);
+        final Window window = getWindow();
+        return objectStore_.getTransactionInternal().enqueue(this, false, new IDBRequest.Operation() {
+            @Override
+            Object execute(final Context cx, final IndexedDBDatabase database) {
+                final NavigableMap<IndexedDBKey, IndexedDBDatabase.Record> records =
+                        objectStore_.getStore(database).getRecords();
+                final List<Object> result = new ArrayList<>();
+                for (final TreeSet<IndexedDBKey> primaryKeys
+                        : IndexedDBDatabase.subMap(getIndex(database).getEntries(), range).values()) {
+                    for (final IndexedDBKey primaryKey : primaryKeys) {
+                        if (result.size() == max) {
+                            return cx.newArray(window, result.toArray());
+                        }
+                        if (values) {
+                            result.add(IDBObjectStore.fromBytes(cx, window, records.get(primaryKey).getValue()));
+                        }
+                        else {
+                            result.add(primaryKey.toJavaScript(cx, window));
+                        }
+                    }
+                }
+                return cx.newArray(window, result.toArray());
+            }
+        });
+    }
+
+    /**
+     * Counts the records in the given range.
+     * @param query a key or a key range
+     * @return the request
+     */
+    @JsxFunction
+    public IDBRequest count(final Object query) {
+        final IDBKeyRange range = IDBObjectStore.toRange(this, query, true);
+        return objectStore_.getTransactionInternal().enqueue(this, false, new IDBRequest.Operation() {
+            @Override
+            Object execute(final Context cx, final IndexedDBDatabase database) {
+                int count = 0;
+                for (final TreeSet<IndexedDBKey> primaryKeys
+                        : IndexedDBDatabase.subMap(getIndex(database).getEntries(), range).values()) {
+                    count += primaryKeys.size();
+                }
+                return count;
+            }
+        });
+    }
+
+    /**
+     * Opens a cursor over the records in the given range.
+     * @param query a key or a key range
+     * @param direction the direction
+     * @return the request
+     */
+    @JsxFunction
+    public IDBRequest openCursor(final Object query, final Object direction) {
+        return IDBCursor.open(objectStore_, this, IDBObjectStore.toRange(this, query, true), direction, true);
+    }
+
+    /**
+     * Opens a cursor over the primary keys of the records in the given range.
+     * @param query a key or a key range
+     * @param direction the direction
+     * @return the request
+     */
+    @JsxFunction
+    public IDBRequest openKeyCursor(final Object query, final Object direction) {
+        return IDBCursor.open(objectStore_, this, IDBObjectStore.toRange(this, query, true), direction, false);
+    }
 }
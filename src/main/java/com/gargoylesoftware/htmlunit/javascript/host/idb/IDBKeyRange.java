@@ -21,8 +21,17 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxFunction;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxStaticFunction;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.Function;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptRuntime;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.Undefined;
+
 /**
  * A JavaScript object for {@code IDBKeyRange}.
  *
@@ -31,10 +40,207 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 @JsxClass
 public class IDBKeyRange extends SimpleScriptable {
 
+    private IndexedDBKey lower_;
+    private IndexedDBKey upper_;
+    private boolean lowerOpen_;
+    private boolean upperOpen_;
+
     /**
      * Creates a new instance.
      */
     @JsxConstructor({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
     public IDBKeyRange() {
     }
+
+    /**
+     * Creates a new range.
+     * @param scope the scope
+     * @param lower the lower bound, {@code null} if unbounded
+     * @param upper the upper bound, {@code null} if unbounded
+     * @param lowerOpen whether the lower bound is excluded
+     * @param upperOpen whether the upper bound is excluded
+     */
+    IDBKeyRange(final SimpleScriptable scope, final IndexedDBKey lower, final IndexedDBKey upper,
+            final boolean lowerOpen, final boolean upperOpen) {
+        setParentScope(scope);
+        setPrototype(scope.getPrototype(IDBKeyRange.class));
+        lower_ = lower;
+        upper_ = upper;
+        lowerOpen_ = lowerOpen;
+        upperOpen_ = upperOpen;
+    }
+
+    IndexedDBKey getLowerKey() {
+        return lower_;
+    }
+
+    IndexedDBKey getUpperKey() {
+        return upper_;
+    }
+
+    boolean isLowerOpenInternal() {
+        return lowerOpen_;
+    }
+
+    boolean isUpperOpenInternal() {
+        return upperOpen_;
+    }
+
+    /**
+     * Returns whether the given key is in this range.
+     * @param key the key
+     * @return whether the key is in this range
+     */
+    boolean contains(final IndexedDBKey key) {
+        if (lower_ != null) {
+            final int cmp = key.compareTo(lower_);
+            if (cmp < 0 || (cmp == 0 && lowerOpen_)) {
+                return false;
+            }
+        }
+        if (upper_ != null) {
+            final int cmp = key.compareTo(upper_);
+            if (cmp > 0 || (cmp == 0 && upperOpen_)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the {@code lower} property.
+     * @return the {@code lower} property
+     */
+    @JsxGetter
+    public Object getLower() {
+        if (lower_ == null) {
+            return Undefined.instance;
+        }
+        return lower_.toJavaScript(Context.getCurrentContext(), getWindow());
+    }
+
+    /**
+     * Returns the {@code upper} property.
+     * @return the {@code upper} property
+     */
+    @JsxGetter
+    public Object getUpper() {
+        if (upper_ == null) {
+            return Undefined.instance;
+        }
+        return upper_.toJavaScript(Context.getCurrentContext(), getWindow());
+    }
+
+    /**
+     * Returns the {@code lowerOpen} property.
+     * @return the {@code lowerOpen} property
+     */
+    @JsxGetter
+    public boolean getLowerOpen() {
+        return lowerOpen_;
+    }
+
+    /**
+     * Returns the {@code upperOpen} property.
+     * @return the {@code upperOpen} property
+     */
+    @JsxGetter
+    public boolean getUpperOpen() {
+        return upperOpen_;
+    }
+
+    /**
+     * Returns whether the given key is in this range.
+     * @param key the key
+     * @return whether the key is in this range
+     */
+    @JsxFunction({@WebBrowser(CHROME), @WebBrowser(FF)})
+    public boolean includes(final Object key) {
+        return contains(IDBFactory.toKey(getWindow(), key));
+    }
+
+    /**
+     * Creates a range containing a single key.
+     * @param context the context
+     * @param thisObj this object
+     * @param args the arguments
+     * @param function the function
+     * @return the range
+     */
+    @JsxStaticFunction
+    public static IDBKeyRange only(final Context context, final Scriptable thisObj, final Object[] args,
+            final Function function) {
+        final IndexedDBKey key = getKey(thisObj, args, 0);
+        return new IDBKeyRange(getScope(thisObj), key, key, false, false);
+    }
+
+    /**
+     * Creates a range with a lower bound.
+     * @param context the context
+     * @param thisObj this object
+     * @param args the arguments
+     * @param function the function
+     * @return the range
+     */
+    @JsxStaticFunction
+    public static IDBKeyRange lowerBound(final Context context, final Scriptable thisObj, final Object[] args,
+            final Function function) {
+        return new IDBKeyRange(getScope(thisObj), getKey(thisObj, args, 0), null, getFlag(args, 1), false);
+    }
+
+    /**
+     * Creates a range with an upper bound.
+     * @param context the context
+     * @param thisObj this object
+     * @param args the arguments
+     * @param function the function
+     * @return the range
+     */
+    @JsxStaticFunction
+    public static IDBKeyRange upperBound(final Context context, final Scriptable thisObj, final Object[] args,
+            final Function function) {
+        return new IDBKeyRange(getScope(thisObj), null, getKey(thisObj, args, 0), false, getFlag(args, 1));
+    }
+
+    /**
+     * Creates a range with a lower and an upper bound.
+     * @param context the context
+     * @param thisObj this object
+     * @param args the arguments
+     * @param function the function
+     * @return the range
+     */
+    @JsxStaticFunction
+    public static IDBKeyRange bound(final Context context, final Scriptable thisObj, final Object[] args,
+            final Function function) {
+        final IndexedDBKey lower = getKey(thisObj, args, 0);
+        final IndexedDBKey upper = getKey(thisObj, args, 1);
+        final boolean lowerOpen = getFlag(args, 2);
+        final boolean upperOpen = getFlag(args, 3);
+        final int cmp = lower.compareTo(upper);
+        if (cmp > 0 || (cmp == 0 && (lowerOpen || upperOpen))) {
+            throw new IndexedDBException(IndexedDBException.DATA_ERROR, "The lower bound is greater than the upper")
+                    .toJavaScriptException(getScope(thisObj));
+        }
+        return new IDBKeyRange(getScope(thisObj), lower, upper, lowerOpen, upperOpen);
+    }
+
+    private static SimpleScriptable getScope(final Scriptable thisObj) {
+        return (SimpleScriptable) thisObj.getParentScope();
+    }
+
+    private static IndexedDBKey getKey(final Scriptable thisObj, final Object[] args, final int index) {
+        final Object value;
+        if (args.length > index) {
+            value = args[index];
+        }
+        else {
+            value = Undefined.instance;
+        }
+        return IDBFactory.toKey(getScope(thisObj), value);
+    }
+
+    private static boolean getFlag(final Object[] args, final int index) {
+        return args.length > index && ScriptRuntime.toBoolean(args[index]);
+    }
 }
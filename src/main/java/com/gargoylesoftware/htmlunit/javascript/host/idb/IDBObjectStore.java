@@ -18,23 +18,705 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
+import com.gargoylesoftware.htmlunit.javascript.StructuredClone;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxFunction;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
+import com.gargoylesoftware.htmlunit.javascript.host.Window;
+import com.gargoylesoftware.htmlunit.javascript.host.dom.DOMStringList;
+
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.NativeArray;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptRuntime;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
+import net.sourceforge.htmlunit.corejs.javascript.Undefined;
 
 /**
  * A JavaScript object for {@code IDBObjectStore}.
  *
+ * <p>The values are cloned with {@link StructuredClone}: they are serialized when the request is placed
+ * and read again for every read.</p>
+ *
  * @author Ahmed Ashour
  */
 @JsxClass
 public class IDBObjectStore extends SimpleScriptable {
 
+    private IDBTransaction transaction_;
+    private IndexedDBDatabase.ObjectStore store_;
+    private final Map<String, IDBIndex> indexes_ = new HashMap<>();
+
     /**
      * Creates a new instance.
      */
     @JsxConstructor({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
     public IDBObjectStore() {
     }
+
+    /**
+     * Creates a new object store.
+     * @param window the window
+     * @param transaction the transaction
+     * @param name the name
+     */
+    IDBObjectStore(final Window window, final IDBTransaction transaction, final String name) {
+        setParentScope(window);
+        setPrototype(window.getPrototype(getClass()));
+        transaction_ = transaction;
+        final IndexedDBDatabase database = transaction.getDb().getDatabase();
+        database.getLock().lock();
+        try {
+            store_ = database.getObjectStore(name);
+        }
+        finally {
+            database.getLock().unlock();
+        }
+    }
+
+    IDBTransaction getTransactionInternal() {
+        return transaction_;
+    }
+
+    /**
+     * Returns the store of the database, checking that it has not been deleted.
+     * @param database the database
+     * @return the store
+     */
+    IndexedDBDatabase.ObjectStore getStore(final IndexedDBDatabase database) {
+        if (database.getObjectStore(store_.getName()) != store_) {
+            throw new IndexedDBException(IndexedDBException.INVALID_STATE_ERROR,
+                    "The object store '" + store_.getName() + "' has been deleted");
+        }
+        return store_;
+    }
+
+    /**
+     * Returns the {@code name} property.
+     * @return the {@code name} property
+     */
+    @JsxGetter
+    public String getName() {
+        return store_.getName();
+    }
+
+    /**
+     * Returns the {@code keyPath} property.
+     * @return the {@code keyPath} property
+     */
+    @JsxGetter
+    public Object getKeyPath() {
+        return keyPathToJavaScript(getWindow(), store_.getKeyPath());
+    }
+
+    /**
+     * Returns the {@code autoIncrement} property.
+     * @return the {@code autoIncrement} property
+     */
+    @JsxGetter
+    public boolean getAutoIncrement() {
+        return store_.isAutoIncrement();
+    }
+
+    /**
+     * Returns the {@code transaction} property.
+     * @return the {@code transaction} property
+     */
+    @JsxGetter
+    public IDBTransaction getTransaction() {
+        return transaction_;
+    }
+
+    /**
+     * Returns the {@code indexNames} property.
+     * @return the {@code indexNames} property
+     */
+    @JsxGetter
+    public DOMStringList getIndexNames() {
+        final IndexedDBDatabase database = transaction_.getDb().getDatabase();
+        final List<String> names;
+        database.getLock().lock();
+        try {
+            names = new ArrayList<>(store_.getIndexNames());
+        }
+        finally {
+            database.getLock().unlock();
+        }
+        return new DOMStringList(getWindow(), names);
+    }
+
+    /**
+     * Stores a value, replacing an existing record with the same key.
+     * @param value the value
+     * @param key the key, if the store has no key path
+     * @return the request
+     */
+    @JsxFunction
+    public IDBRequest put(final Object value, final Object key) {
+        return store(this, value, key, false);
+    }
+
+    /**
+     * Stores a value; it is an error if a record with the same key exists.
+     * @param value the value
+     * @param key the key, if the store has no key path
+     * @return the request
+     */
+    @JsxFunction
+    public IDBRequest add(final Object value, final Object key) {
+        return store(this, value, key, true);
+    }
+
+    /**
+     * Places a request storing a value.
+     * @param source the source of the request
+     * @param value the value
+     * @param key the key, {@code undefined} if the store has a key path or a key generator
+     * @param noOverwrite whether an existing record is an error
+     * @return the request
+     */
+    IDBRequest store(final Scriptable source, final Object value, final Object key, final boolean noOverwrite) {
+        transaction_.checkActive(true);
+        final Window window = getWindow();
+        final Object keyPath = store_.getKeyPath();
+        final boolean autoIncrement = store_.isAutoIncrement();
+
+        IndexedDBKey explicitKey = null;
+        if (keyPath != null) {
+            if (key != Undefined.instance) {
+                throw newException(IndexedDBException.DATA_ERROR,
+                        "The object store uses in-line keys and the key parameter was provided");
+            }
+            final Object inlineKey = evaluateKeyPath(Context.getCurrentContext(), window, value, keyPath);
+            if (inlineKey != null) {
+                explicitKey = IDBFactory.toKey(window, inlineKey);
+            }
+            else if (!autoIncrement) {
+                throw newException(IndexedDBException.DATA_ERROR, "The key path doesn't yield a value");
+            }
+            else if (!(value instanceof Scriptable)) {
+                throw newException(IndexedDBException.DATA_ERROR, "The generated key can't be injected");
+            }
+        }
+        else if (key != Undefined.instance) {
+            explicitKey = IDBFactory.toKey(window, key);
+        }
+        else if (!autoIncrement) {
+            throw newException(IndexedDBException.DATA_ERROR,
+                    "The object store uses out-of-line keys and has no key generator");
+        }
+
+        final byte[] bytes = toBytes(value);
+        final IndexedDBKey recordKey = explicitKey;
+        return transaction_.enqueue(source, true, new IDBRequest.Operation() {
+            @Override
+            Object execute(final Context cx, final IndexedDBDatabase database) {
+                final IndexedDBDatabase.ObjectStore store = getStore(database);
+                IndexedDBKey primaryKey = recordKey;
+                byte[] storedBytes = bytes;
+                final Object clone = fromBytes(cx, window, bytes);
+                if (primaryKey == null) {
+                    primaryKey = database.generateKey(store);
+                    if (keyPath != null) {
+                        injectKey(cx, window, clone, (String) keyPath, primaryKey);
+                        storedBytes = toBytes(clone);
+                    }
+                }
+                final Map<String, List<IndexedDBKey>> indexKeys = new HashMap<>();
+                for (final String indexName : store.getIndexNames()) {
+                    final IndexedDBDatabase.Index index = store.getIndex(indexName);
+                    indexKeys.put(indexName,
+                            getIndexKeys(cx, window, clone, index.getKeyPath(), index.isMultiEntry()));
+                }
+                database.put(store, primaryKey, storedBytes, indexKeys, noOverwrite);
+                return primaryKey.toJavaScript(cx, window);
+            }
+        });
+    }
+
+    /**
+     * Returns the value of the first record in the given range.
+     * @param query a key or a key range
+     * @return the request
+     */
+    @Override
+    @JsxFunction
+    public IDBRequest get(final Object query) {
+        final IDBKeyRange range = toRange(this, query, false);
+        final Window window = getWindow();
+        return transaction_.enqueue(this, false, new IDBRequest.Operation() {
+            @Override
+            Object execute(final Context cx, final IndexedDBDatabase database) {
+                final Map.Entry<IndexedDBKey, IndexedDBDatabase.Record> entry =
+                        IndexedDBDatabase.subMap(getStore(database).getRecords(), range).firstEntry();
+                if (entry == null) {
+                    return Undefined.instance;
+                }
+                return fromBytes(cx, window, entry.getValue().getValue());
+            }
+        });
+    }
+
+    /**
+     * Returns the values of the records in the given range.
+     * @param query a key or a key range
+     * @param count the maximal number of values
+     * @return the request
+     */
+    @JsxFunction({@WebBrowser(CHROME), @WebBrowser(FF)})
+    public IDBRequest getAll(final Object query, final Object count) {
+        return getAll(query, count, true);
+    }
+
+    /**
+     * Returns the keys of the records in the given range.
+     * @param query a key or a key range
+     * @param count the maximal number of keys
+     * @return the request
+     */
+    @JsxFunction({@WebBrowser(CHROME), @WebBrowser(FF)})
+    public IDBRequest getAllKeys(final Object query, final Object count) {
+        return getAll(query, count, false);
+    }
+
+    private IDBRequest getAll(final Object query, final Object count, final boolean values) {
+        final IDBKeyRange range = toRange(this, query, true);
+        final int max = toCount(count);
+        final Window window = getWindow();
+        return transaction_.enqueue(this, false, new IDBRequest.Operation() {
+            @Override
+            Object execute(final Context cx, final IndexedDBDatabase database) {
+                final List<Object> result = new ArrayList<>();
+                for (final Map.Entry<IndexedDBKey, IndexedDBDatabase.Record> entry
+                        : IndexedDBDatabase.subMap(getStore(database).getRecords(), range).entrySet()) {
+                    if (result.size() == max) {
+                        break;
+                    }
+                    if (values) {
+                        result.add(fromBytes(cx, window, entry.getValue().getValue()));
+                    }
+                    else {
+                        result.add(entry.getKey().toJavaScript(cx, window));
+                    }
+                }
+                return cx.newArray(window, result.toArray());
+            }
+        });
+    }
+
+    /**
+     * Counts the records in the given range.
+     * @param query a key or a key range
+     * @return the request
+     */
+    @JsxFunction
+    public IDBRequest count(final Object query) {
+        final IDBKeyRange range = toRange(this, query, true);
+        return transaction_.enqueue(this, false, new IDBRequest.Operation() {
+            @Override
+            Object execute(final Context cx, final IndexedDBDatabase database) {
+                return IndexedDBDatabase.subMap(getStore(database).getRecords(), range).size();
+            }
+        });
+    }
+
+    /**
+     * Deletes the records in the given range.
+     * @param query a key or a key range
+     * @return the request
+     */
+    @JsxFunction(functionName = "delete")
+    public IDBRequest delete_js(final Object query) {
+        return delete(this, toRange(this, query, false));
+    }
+
+    /**
+     * Places a request deleting the records in the given range.
+     * @param source the source of the request
+     * @param range the range
+     * @return the request
+     */
+    IDBRequest delete(final Scriptable source, final IDBKeyRange range) {
+        return transaction_.enqueue(source, true, new IDBRequest.Operation() {
+            @Override
+            Object execute(final Context cx, final IndexedDBDatabase database) {
+                database.delete(getStore(database), range);
+                return Undefined.instance;
+            }
+        });
+    }
+
+    /**
+     * Deletes all records.
+     * @return the request
+     */
+    @JsxFunction
+    public IDBRequest clear() {
+        return transaction_.enqueue(this, true, new IDBRequest.Operation() {
+            @Override
+            Object execute(final Context cx, final IndexedDBDatabase database) {
+                database.clear(getStore(database));
+                return Undefined.instance;
+            }
+        });
+    }
+
+    /**
+     * Opens a cursor over the records in the given range.
+     * @param query a key or a key range
+     * @param direction the direction
+     * @return the request
+     */
+    @JsxFunction
+    public IDBRequest openCursor(final Object query, final Object direction) {
+        return IDBCursor.open(this, null, toRange(this, query, true), direction, true);
+    }
+
+    /**
+     * Opens a cursor over the keys of the records in the given range.
+     * @param query a key or a key range
+     * @param direction the direction
+     * @return the request
+     */
+    @JsxFunction({@WebBrowser(CHROME), @WebBrowser(FF)})
+    public IDBRequest openKeyCursor(final Object query, final Object direction) {
+        return IDBCursor.open(this, null, toRange(this, query, true), direction, false);
+    }
+
+    /**
+     * Returns the index with the given name.
+     * @param name the name
+     * @return the index
+     */
+    @JsxFunction
+    public IDBIndex index(final String name) {
+        if (transaction_.isAborted()) {
+            throw newException(IndexedDBException.INVALID_STATE_ERROR, "The transaction has finished");
+        }
+        final IndexedDBDatabase database = transaction_.getDb().getDatabase();
+        final IndexedDBDatabase.Index index;
+        database.getLock().lock();
+        try {
+            index = store_.getIndex(name);
+        }
+        finally {
+            database.getLock().unlock();
+        }
+        if (index == null) {
+            throw newException(IndexedDBException.NOT_FOUND_ERROR, "The index '" + name + "' doesn't exist");
+        }
+        IDBIndex result = indexes_.get(name);
+        if (result == null || result.getIndex() != index) {
+            result = new IDBIndex(getWindow(), this, index);
+            indexes_.put(name, result);
+        }
+        return result;
+    }
+
+    /**
+     * Creates an index; only allowed in the {@code upgradeneeded} event.
+     * @param name the name
+     * @param keyPath the key path
+     * @param options the options ({@code unique} and {@code multiEntry})
+     * @return the index
+     */
+    @JsxFunction
+    public IDBIndex createIndex(final String name, final Object keyPath, final Object options) {
+        if (!transaction_.isVersionChange()) {
+            throw newException(IndexedDBException.INVALID_STATE_ERROR,
+                    "Indexes can only be created in a version change transaction");
+        }
+        transaction_.checkActive(true);
+        final Window window = getWindow();
+        final IndexedDBDatabase database = transaction_.getDb().getDatabase();
+        final IndexedDBDatabase.ObjectStore store = getStore(database);
+        final Object path = toKeyPath(keyPath);
+        if (path == null) {
+            throw newException(IndexedDBException.DATA_ERROR, "Invalid key path");
+        }
+        boolean unique = false;
+        boolean multiEntry = false;
+        if (options instanceof Scriptable) {
+            unique = getFlag((Scriptable) options, "unique");
+            multiEntry = getFlag((Scriptable) options, "multiEntry");
+        }
+        if (multiEntry && path instanceof String[]) {
+            throw newException(IndexedDBException.INVALID_ACCESS_ERROR,
+                    "A multi entry index can't have an array key path");
+        }
+        if (store.getIndex(name) != null) {
+            throw newException(IndexedDBException.CONSTRAINT_ERROR, "The index '" + name + "' already exists");
+        }
+
+        final Context cx = Context.getCurrentContext();
+        final Map<IndexedDBKey, List<IndexedDBKey>> keys = new HashMap<>();
+        for (final Map.Entry<IndexedDBKey, IndexedDBDatabase.Record> entry : store.getRecords().entrySet()) {
+            final Object value = fromBytes(cx, window, entry.getValue().getValue());
+            keys.put(entry.getKey(), getIndexKeys(cx, window, value, path, multiEntry));
+        }
+        IndexedDBDatabase.Index index;
+        try {
+            index = database.createIndex(store, name, path, unique, multiEntry, keys);
+        }
+        catch (final IndexedDBException e) {
+            // the creation fails asynchronously, aborting the transaction
+            transaction_.abort(e.toJavaScript(window));
+            index = new IndexedDBDatabase.Index(name, path, unique, multiEntry);
+        }
+        final IDBIndex result = new IDBIndex(window, this, index);
+        indexes_.put(name, result);
+        return result;
+    }
+
+    /**
+     * Deletes an index; only allowed in the {@code upgradeneeded} event.
+     * @param name the name
+     */
+    @JsxFunction
+    public void deleteIndex(final String name) {
+        if (!transaction_.isVersionChange()) {
+            throw newException(IndexedDBException.INVALID_STATE_ERROR,
+                    "Indexes can only be deleted in a version change transaction");
+        }
+        transaction_.checkActive(true);
+        final IndexedDBDatabase database = transaction_.getDb().getDatabase();
+        final IndexedDBDatabase.ObjectStore store = getStore(database);
+        final IndexedDBDatabase.Index index = store.getIndex(name);
+        if (index == null) {
+            throw newException(IndexedDBException.NOT_FOUND_ERROR, "The index '" + name + "' doesn't exist");
+        }
+        database.deleteIndex(store, index);
+        indexes_.remove(name);
+    }
+
+    private RuntimeException newException(final String name, final String message) {
+        return new IndexedDBException(name, message).toJavaScriptException(getWindow());
+    }
+
+    private static boolean getFlag(final Scriptable options, final String name) {
+        final Object value = ScriptableObject.getProperty(options, name);
+        return value != Scriptable.NOT_FOUND && ScriptRuntime.toBoolean(value);
+    }
+
+    /**
+     * Converts the maximal number of results of {@code getAll()}.
+     * @param count the JavaScript value
+     * @return the count, {@link Integer#MAX_VALUE} if not limited
+     */
+    static int toCount(final Object count) {
+        if (count == Undefined.instance || count == null) {
+            return Integer.MAX_VALUE;
+        }
+        final double value = ScriptRuntime.toNumber(count);
+        if (Double.isNaN(value) || value < 0 || value > 4294967295.0) {
+            throw ScriptRuntime.typeError("Invalid count: " + Context.toString(count));
+        }
+        if (value == 0 || value > Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Converts a query to a key range.
+     * @param scope the scope
+     * @param query a key, a key range, {@code null} or {@code undefined}
+     * @param nullAllowed whether {@code null} and {@code undefined} are allowed, meaning all keys
+     * @return the range, {@code null} for all keys
+     */
+    static IDBKeyRange toRange(final SimpleScriptable scope, final Object query, final boolean nullAllowed) {
+        if (query instanceof IDBKeyRange) {
+            return (IDBKeyRange) query;
+        }
+        if (nullAllowed && (query == null || query == Undefined.instance)) {
+            return null;
+        }
+        final IndexedDBKey key = IDBFactory.toKey(scope.getWindow(), query);
+        return new IDBKeyRange(scope, key, key, false, false);
+    }
+
+    /**
+     * Converts a JavaScript key path.
+     * @param keyPath {@code null}, {@code undefined}, a string or an array of strings
+     * @return {@code null}, a {@link String} or a {@code String[]}
+     */
+    static Object toKeyPath(final Object keyPath) {
+        if (keyPath == null || keyPath == Undefined.instance || keyPath == Scriptable.NOT_FOUND) {
+            return null;
+        }
+        if (keyPath instanceof NativeArray) {
+            final NativeArray array = (NativeArray) keyPath;
+            final String[] paths = new String[(int) array.getLength()];
+            for (int i = 0; i < paths.length; i++) {
+                paths[i] = checkKeyPath(Context.toString(array.get(i, array)));
+            }
+            return paths;
+        }
+        return checkKeyPath(Context.toString(keyPath));
+    }
+
+    private static String checkKeyPath(final String keyPath) {
+        if (!keyPath.isEmpty()) {
+            for (final String part : keyPath.split("\\.", -1)) {
+                boolean valid = !part.isEmpty() && Character.isJavaIdentifierStart(part.charAt(0));
+                for (int i = 1; valid && i < part.length(); i++) {
+                    valid = Character.isJavaIdentifierPart(part.charAt(i));
+                }
+                if (!valid) {
+                    throw ScriptRuntime.constructError("SyntaxError", "Invalid key path '" + keyPath + "'");
+                }
+            }
+        }
+        return keyPath;
+    }
+
+    /**
+     * Converts a key path to JavaScript.
+     * @param scope the scope
+     * @param keyPath {@code null}, a {@link String} or a {@code String[]}
+     * @return the JavaScript value
+     */
+    static Object keyPathToJavaScript(final Scriptable scope, final Object keyPath) {
+        if (keyPath instanceof String[]) {
+            return Context.getCurrentContext().newArray(scope, ((String[]) keyPath).clone());
+        }
+        return keyPath;
+    }
+
+    /**
+     * Evaluates a key path on a value.
+     * @param cx the context
+     * @param scope the scope
+     * @param value the value
+     * @param keyPath a {@link String} or a {@code String[]}
+     * @return the JavaScript value, {@code null} if the key path doesn't yield a value
+     */
+    static Object evaluateKeyPath(final Context cx, final Scriptable scope, final Object value,
+            final Object keyPath) {
+        if (keyPath instanceof String[]) {
+            final String[] paths = (String[]) keyPath;
+            final Object[] elements = new Object[paths.length];
+            for (int i = 0; i < paths.length; i++) {
+                elements[i] = evaluateKeyPath(cx, scope, value, paths[i]);
+                if (elements[i] == null) {
+                    return null;
+                }
+            }
+            return cx.newArray(scope, elements);
+        }
+
+        final String path = (String) keyPath;
+        if (path.isEmpty()) {
+            return value;
+        }
+        Object current = value;
+        for (final String part : path.split("\\.")) {
+            if (current instanceof CharSequence && "length".equals(part)) {
+                current = ((CharSequence) current).length();
+            }
+            else if (current instanceof Scriptable) {
+                current = ScriptableObject.getProperty((Scriptable) current, part);
+                if (current == Scriptable.NOT_FOUND || current == Undefined.instance) {
+                    return null;
+                }
+            }
+            else {
+                return null;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Returns the keys of a value in an index.
+     * @param cx the context
+     * @param scope the scope
+     * @param value the value
+     * @param keyPath the key path of the index
+     * @param multiEntry whether an array produces one key per element
+     * @return the keys, empty if the value has no valid key
+     */
+    static List<IndexedDBKey> getIndexKeys(final Context cx, final Scriptable scope, final Object value,
+            final Object keyPath, final boolean multiEntry) {
+        final Object keyValue = evaluateKeyPath(cx, scope, value, keyPath);
+        final List<IndexedDBKey> keys = new ArrayList<>();
+        if (multiEntry && keyValue instanceof NativeArray) {
+            final NativeArray array = (NativeArray) keyValue;
+            final Set<IndexedDBKey> unique = new LinkedHashSet<>();
+            for (int i = 0; i < array.getLength(); i++) {
+                final IndexedDBKey key = IndexedDBKey.fromJavaScript(array.get(i, array));
+                if (key != null) {
+                    unique.add(key);
+                }
+            }
+            keys.addAll(unique);
+        }
+        else if (keyValue != null) {
+            final IndexedDBKey key = IndexedDBKey.fromJavaScript(keyValue);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static void injectKey(final Context cx, final Scriptable scope, final Object value, final String keyPath,
+            final IndexedDBKey key) {
+        if (!(value instanceof Scriptable)) {
+            throw new IndexedDBException(IndexedDBException.DATA_ERROR, "The generated key can't be injected");
+        }
+        Scriptable current = (Scriptable) value;
+        final String[] parts = keyPath.split("\\.");
+        for (int i = 0; i < parts.length - 1; i++) {
+            final Object child = ScriptableObject.getProperty(current, parts[i]);
+            if (child instanceof Scriptable) {
+                current = (Scriptable) child;
+            }
+            else if (child == Scriptable.NOT_FOUND || child == Undefined.instance) {
+                final Scriptable created = cx.newObject(scope);
+                ScriptableObject.putProperty(current, parts[i], created);
+                current = created;
+            }
+            else {
+                throw new IndexedDBException(IndexedDBException.DATA_ERROR, "The generated key can't be injected");
+            }
+        }
+        ScriptableObject.putProperty(current, parts[parts.length - 1], key.toJavaScript(cx, scope));
+    }
+
+    /**
+     * Serializes a value with {@link StructuredClone}.
+     * @param value the value
+     * @return the bytes
+     */
+    static byte[] toBytes(final Object value) {
+        return StructuredClone.serialize(StructuredClone.write(value));
+    }
+
+    /**
+     * Reads a value serialized by {@link #toBytes(Object)}.
+     * @param cx the context
+     * @param scope the scope
+     * @param bytes the bytes
+     * @return the value
+     */
+    static Object fromBytes(final Context cx, final Scriptable scope, final byte[] bytes) {
+        try {
+            return StructuredClone.read(StructuredClone.deserialize(bytes), cx, scope);
+        }
+        catch (final IOException e) {
+            throw new IndexedDBException(IndexedDBException.UNKNOWN_ERROR, "The value can't be read: " + e);
+        }
+    }
 }
@@ -20,7 +20,13 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxSetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
+import com.gargoylesoftware.htmlunit.javascript.host.Window;
+import com.gargoylesoftware.htmlunit.javascript.host.event.IDBVersionChangeEvent;
+
+import net.sourceforge.htmlunit.corejs.javascript.Undefined;
 
 /**
  * A JavaScript object for {@code IDBOpenDBRequest}.
@@ -36,4 +42,68 @@ public class IDBOpenDBRequest extends IDBRequest {
     @JsxConstructor({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
     public IDBOpenDBRequest() {
     }
+
+    /**
+     * Creates a new request.
+     * @param window the window
+     */
+    IDBOpenDBRequest(final Window window) {
+        super(window, null, null, null);
+    }
+
+    /**
+     * Returns the {@code onupgradeneeded} event handler.
+     * @return the {@code onupgradeneeded} event handler
+     */
+    @JsxGetter
+    public Object getOnupgradeneeded() {
+        return getEventHandlerProp("onupgradeneeded");
+    }
+
+    /**
+     * Sets the {@code onupgradeneeded} event handler.
+     * @param handler the {@code onupgradeneeded} event handler
+     */
+    @JsxSetter
+    public void setOnupgradeneeded(final Object handler) {
+        setEventHandlerProp("onupgradeneeded", handler);
+    }
+
+    /**
+     * Returns the {@code onblocked} event handler.
+     * @return the {@code onblocked} event handler
+     */
+    @JsxGetter
+    public Object getOnblocked() {
+        return getEventHandlerProp("onblocked");
+    }
+
+    /**
+     * Sets the {@code onblocked} event handler.
+     * @param handler the {@code onblocked} event handler
+     */
+    @JsxSetter
+    public void setOnblocked(final Object handler) {
+        setEventHandlerProp("onblocked", handler);
+    }
+
+    /**
+     * Fires the {@code upgradeneeded} event; the result is the connection.
+     * @param db the connection
+     * @param oldVersion the previous version
+     * @param newVersion the new version
+     */
+    void upgradeNeeded(final IDBDatabase db, final long oldVersion, final long newVersion) {
+        setResult(db);
+        dispatch(new IDBVersionChangeEvent(this, "upgradeneeded", oldVersion, newVersion), this);
+    }
+
+    /**
+     * Fires the {@code success} event of a deletion.
+     * @param oldVersion the version of the deleted database
+     */
+    void deleted(final long oldVersion) {
+        setResult(Undefined.instance);
+        dispatch(new IDBVersionChangeEvent(this, "success", oldVersion, null), this);
+    }
 }
@@ -18,11 +18,27 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
+import java.util.List;
+
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxSetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
+import com.gargoylesoftware.htmlunit.javascript.host.Window;
+import com.gargoylesoftware.htmlunit.javascript.host.event.Event;
+import com.gargoylesoftware.htmlunit.javascript.host.event.EventListenersContainer;
 import com.gargoylesoftware.htmlunit.javascript.host.event.EventTarget;
 
+import net.sourceforge.htmlunit.corejs.javascript.BaseFunction;
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.Function;
+import net.sourceforge.htmlunit.corejs.javascript.NativeObject;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
+import net.sourceforge.htmlunit.corejs.javascript.Undefined;
+
 /**
  * A JavaScript object for {@code IDBRequest}.
  *
@@ -31,10 +47,275 @@ import com.gargoylesoftware.htmlunit.javascript.host.event.EventTarget;
 @JsxClass
 public class IDBRequest extends EventTarget {
 
+    /**
+     * The operation of a request, executed by its transaction.
+     */
+    abstract static class Operation {
+
+        /**
+         * Executes the operation.
+         * @param cx the context
+         * @param database the database, locked by the transaction
+         * @return the result of the request
+         * @throws IndexedDBException if the operation fails
+         */
+        abstract Object execute(Context cx, IndexedDBDatabase database);
+    }
+
+    private Scriptable source_;
+    private IDBTransaction transaction_;
+    private Operation operation_;
+    private boolean done_;
+    private Object result_ = Undefined.instance;
+    private Object error_;
+
     /**
      * Creates a new instance.
      */
     @JsxConstructor({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
     public IDBRequest() {
     }
+
+    /**
+     * Creates a new request.
+     * @param window the window
+     * @param source the source: an object store, an index, a cursor or {@code null}
+     * @param transaction the transaction or {@code null}
+     * @param operation the operation or {@code null}
+     */
+    IDBRequest(final Window window, final Scriptable source, final IDBTransaction transaction,
+            final Operation operation) {
+        setParentScope(window);
+        setPrototype(window.getPrototype(getClass()));
+        source_ = source;
+        transaction_ = transaction;
+        operation_ = operation;
+    }
+
+    Operation getOperation() {
+        return operation_;
+    }
+
+    void setOperation(final Operation operation) {
+        operation_ = operation;
+        done_ = false;
+    }
+
+    void setResult(final Object result) {
+        done_ = true;
+        result_ = result;
+        error_ = null;
+    }
+
+    void setTransaction(final IDBTransaction transaction) {
+        transaction_ = transaction;
+    }
+
+    /**
+     * Returns the {@code result} property.
+     * @return the {@code result} property
+     */
+    @JsxGetter
+    public Object getResult() {
+        if (!done_) {
+            throw new IndexedDBException(IndexedDBException.INVALID_STATE_ERROR, "The request is not finished")
+                    .toJavaScriptException(getWindow());
+        }
+        return result_;
+    }
+
+    /**
+     * Returns the {@code error} property.
+     * @return the {@code error} property
+     */
+    @JsxGetter
+    public Object getError() {
+        if (!done_) {
+            throw new IndexedDBException(IndexedDBException.INVALID_STATE_ERROR, "The request is not finished")
+                    .toJavaScriptException(getWindow());
+        }
+        return error_;
+    }
+
+    /**
+     * Returns the {@code source} property.
+     * @return the {@code source} property
+     */
+    @JsxGetter
+    public Scriptable getSource() {
+        return source_;
+    }
+
+    /**
+     * Returns the {@code transaction} property.
+     * @return the {@code transaction} property
+     */
+    @JsxGetter
+    public IDBTransaction getTransaction() {
+        return transaction_;
+    }
+
+    /**
+     * Returns the {@code readyState} property.
+     * @return the {@code readyState} property
+     */
+    @JsxGetter
+    public String getReadyState() {
+        if (done_) {
+            return "done";
+        }
+        return "pending";
+    }
+
+    /**
+     * Returns the {@code onsuccess} event handler.
+     * @return the {@code onsuccess} event handler
+     */
+    @JsxGetter
+    public Object getOnsuccess() {
+        return getEventHandlerProp("onsuccess");
+    }
+
+    /**
+     * Sets the {@code onsuccess} event handler.
+     * @param handler the {@code onsuccess} event handler
+     */
+    @JsxSetter
+    public void setOnsuccess(final Object handler) {
+        setEventHandlerProp("onsuccess", handler);
+    }
+
+    /**
+     * Returns the {@code onerror} event handler.
+     * @return the {@code onerror} event handler
+     */
+    @JsxGetter
+    public Object getOnerror() {
+        return getEventHandlerProp("onerror");
+    }
+
+    /**
+     * Sets the {@code onerror} event handler.
+     * @param handler the {@code onerror} event handler
+     */
+    @JsxSetter
+    public void setOnerror(final Object handler) {
+        setEventHandlerProp("onerror", handler);
+    }
+
+    /**
+     * Completes the request successfully and fires the {@code success} event.
+     * @param result the result
+     */
+    void succeed(final Object result) {
+        setResult(result);
+        final Event event = new Event(this, "success");
+        event.initEvent("success", false, false);
+        dispatch(event, this);
+    }
+
+    /**
+     * Completes the request with an error and fires the {@code error} event,
+     * which bubbles to the transaction and the database.
+     * @param error the error
+     * @return whether the default action, aborting the transaction, has been prevented
+     */
+    boolean fail(final Object error) {
+        done_ = true;
+        result_ = Undefined.instance;
+        error_ = error;
+        final Event event = new Event(this, "error");
+        event.initEvent("error", true, true);
+        if (transaction_ == null) {
+            return dispatch(event, this);
+        }
+        return dispatch(event, this, transaction_, transaction_.getDb());
+    }
+
+    /**
+     * Dispatches an event along the given path; the targets of IndexedDB are no DOM nodes,
+     * and their listeners are called here rather than through the DOM event propagation.
+     * If a listener throws while the request of the event belongs to a running transaction,
+     * the transaction is aborted, even if the exception is only reported to the error listener.
+     * @param event the event
+     * @param path the targets, starting with the target of the event
+     * @return whether the default action has been prevented
+     */
+    static boolean dispatch(final Event event, final EventTarget... path) {
+        event.setTarget(path[0]);
+        boolean thrown = false;
+        for (final EventTarget target : path) {
+            event.setCurrentTarget(target);
+            final EventListenersContainer container = target.getEventListenersContainer();
+            final Function handler = container.getEventHandler(event.getType());
+            if (handler != null) {
+                thrown |= call(target, handler, target, event);
+            }
+            final List<Scriptable> listeners = container.getListeners(event.getType(), false);
+            if (listeners != null) {
+                // no need for a copy, listeners are copy on write
+                for (final Scriptable listener : listeners) {
+                    if (listener instanceof Function) {
+                        thrown |= call(target, (Function) listener, target, event);
+                    }
+                    else if (listener instanceof NativeObject) {
+                        final Object handleEvent = ScriptableObject.getProperty(listener, "handleEvent");
+                        if (handleEvent instanceof Function) {
+                            thrown |= call(target, (Function) handleEvent, listener, event);
+                        }
+                    }
+                    if (event.isImmediatePropagationStopped()) {
+                        break;
+                    }
+                }
+            }
+            if (event.isPropagationStopped() || !event.getBubbles()) {
+                break;
+            }
+        }
+        if (thrown && path[0] instanceof IDBRequest) {
+            final IDBTransaction transaction = ((IDBRequest) path[0]).transaction_;
+            if (transaction != null) {
+                transaction.abort(new IndexedDBException(IndexedDBException.ABORT_ERROR,
+                        "An event listener threw an exception").toJavaScript(transaction.getWindow()));
+            }
+        }
+        return event.getDefaultPrevented();
+    }
+
+    /**
+     * Calls a listener.
+     * @return whether the listener has thrown an exception
+     */
+    private static boolean call(final EventTarget target, final Function function, final Scriptable thisObject,
+            final Event event) {
+        final HtmlPage page = (HtmlPage) target.getWindow().getWebWindow().getEnclosedPage();
+        final GuardedFunction guarded = new GuardedFunction(function);
+        page.executeJavaScriptFunctionIfPossible(guarded, thisObject, new Object[] {event}, page);
+        return guarded.thrown_;
+    }
+
+    /**
+     * Remembers whether a listener has thrown; the engine swallows the exception
+     * unless {@code throwExceptionOnScriptError} is set.
+     */
+    private static final class GuardedFunction extends BaseFunction {
+        private final Function function_;
+        private boolean thrown_;
+
+        GuardedFunction(final Function function) {
+            function_ = function;
+        }
+
+        @Override
+        public Object call(final Context cx, final Scriptable scope, final Scriptable thisObj, final Object[] args) {
+            try {
+                return function_.call(cx, scope, thisObj, args);
+            }
+            catch (final RuntimeException e) {
+                thrown_ = true;
+                throw e;
+            }
+        }
+    }
 }
@@ -18,23 +18,346 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxFunction;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxSetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
+import com.gargoylesoftware.htmlunit.javascript.host.Window;
+import com.gargoylesoftware.htmlunit.javascript.host.dom.DOMStringList;
+import com.gargoylesoftware.htmlunit.javascript.host.event.Event;
 import com.gargoylesoftware.htmlunit.javascript.host.event.EventTarget;
 
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.ContextAction;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+
 /**
  * A JavaScript object for {@code IDBTransaction}.
  *
+ * <p>The requests of a transaction are queued; the transaction is executed by a job of the window,
+ * which holds the lock of the database while it executes the requests and their callbacks,
+ * and commits when no request is left.</p>
+ *
  * @author Ahmed Ashour
  */
 @JsxClass
 public class IDBTransaction extends EventTarget {
 
+    static final String READ_ONLY = "readonly";
+    static final String READ_WRITE = "readwrite";
+    static final String VERSION_CHANGE = "versionchange";
+
+    private IDBDatabase db_;
+    private String[] storeNames_;
+    private String mode_;
+    private final Deque<IDBRequest> requests_ = new ArrayDeque<>();
+    private final Map<String, IDBObjectStore> objectStores_ = new HashMap<>();
+    private boolean finished_;
+    private boolean aborted_;
+    private Object error_;
+
     /**
      * Creates a new instance.
      */
     @JsxConstructor({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
     public IDBTransaction() {
     }
+
+    /**
+     * Creates a new transaction.
+     * @param window the window
+     * @param db the connection
+     * @param storeNames the names of the object stores in the scope, {@code null} for a version change
+     * @param mode the mode
+     */
+    IDBTransaction(final Window window, final IDBDatabase db, final String[] storeNames, final String mode) {
+        setParentScope(window);
+        setPrototype(window.getPrototype(getClass()));
+        db_ = db;
+        storeNames_ = storeNames;
+        mode_ = mode;
+    }
+
+    /**
+     * Returns the {@code db} property.
+     * @return the {@code db} property
+     */
+    @JsxGetter
+    public IDBDatabase getDb() {
+        return db_;
+    }
+
+    /**
+     * Returns the {@code mode} property.
+     * @return the {@code mode} property
+     */
+    @JsxGetter
+    public String getMode() {
+        return mode_;
+    }
+
+    /**
+     * Returns the {@code error} property.
+     * @return the {@code error} property
+     */
+    @JsxGetter
+    public Object getError() {
+        return error_;
+    }
+
+    /**
+     * Returns the {@code objectStoreNames} property.
+     * @return the {@code objectStoreNames} property
+     */
+    @JsxGetter
+    public DOMStringList getObjectStoreNames() {
+        if (storeNames_ == null) {
+            return db_.getObjectStoreNames();
+        }
+        final String[] names = storeNames_.clone();
+        Arrays.sort(names);
+        return new DOMStringList(getWindow(), Arrays.asList(names));
+    }
+
+    /**
+     * Returns the object store with the given name.
+     * @param name the name
+     * @return the object store
+     */
+    @JsxFunction
+    public IDBObjectStore objectStore(final String name) {
+        if (finished_) {
+            throw newException(IndexedDBException.INVALID_STATE_ERROR, "The transaction has finished");
+        }
+        final boolean inScope;
+        if (storeNames_ == null) {
+            // the object stores can be created and deleted by a version change
+            inScope = db_.getDatabase().getObjectStore(name) != null;
+        }
+        else {
+            inScope = Arrays.asList(storeNames_).contains(name);
+        }
+        if (!inScope) {
+            throw newException(IndexedDBException.NOT_FOUND_ERROR,
+                    "The object store '" + name + "' is not in the scope of the transaction");
+        }
+        IDBObjectStore objectStore = objectStores_.get(name);
+        if (objectStore == null) {
+            objectStore = new IDBObjectStore(getWindow(), this, name);
+            objectStores_.put(name, objectStore);
+        }
+        return objectStore;
+    }
+
+    /**
+     * Aborts the transaction; all its changes are reverted.
+     */
+    @JsxFunction
+    public void abort() {
+        if (finished_ || aborted_) {
+            throw newException(IndexedDBException.INVALID_STATE_ERROR, "The transaction has finished");
+        }
+        aborted_ = true;
+    }
+
+    /**
+     * Returns the {@code oncomplete} event handler.
+     * @return the {@code oncomplete} event handler
+     */
+    @JsxGetter
+    public Object getOncomplete() {
+        return getEventHandlerProp("oncomplete");
+    }
+
+    /**
+     * Sets the {@code oncomplete} event handler.
+     * @param handler the {@code oncomplete} event handler
+     */
+    @JsxSetter
+    public void setOncomplete(final Object handler) {
+        setEventHandlerProp("oncomplete", handler);
+    }
+
+    /**
+     * Returns the {@code onerror} event handler.
+     * @return the {@code onerror} event handler
+     */
+    @JsxGetter
+    public Object getOnerror() {
+        return getEventHandlerProp("onerror");
+    }
+
+    /**
+     * Sets the {@code onerror} event handler.
+     * @param handler the {@code onerror} event handler
+     */
+    @JsxSetter
+    public void setOnerror(final Object handler) {
+        setEventHandlerProp("onerror", handler);
+    }
+
+    /**
+     * Returns the {@code onabort} event handler.
+     * @return the {@code onabort} event handler
+     */
+    @JsxGetter
+    public Object getOnabort() {
+        return getEventHandlerProp("onabort");
+    }
+
+    /**
+     * Sets the {@code onabort} event handler.
+     * @param handler the {@code onabort} event handler
+     */
+    @JsxSetter
+    public void setOnabort(final Object handler) {
+        setEventHandlerProp("onabort", handler);
+    }
+
+    /**
+     * Aborts the transaction because of an error.
+     * @param error the error
+     */
+    void abort(final Object error) {
+        if (!aborted_) {
+            aborted_ = true;
+            error_ = error;
+        }
+    }
+
+    boolean isVersionChange() {
+        return storeNames_ == null;
+    }
+
+    boolean isAborted() {
+        return aborted_;
+    }
+
+    /**
+     * Checks that requests can be placed against the transaction.
+     * @param write whether the request modifies the database
+     */
+    void checkActive(final boolean write) {
+        if (finished_ || aborted_) {
+            throw newException(IndexedDBException.TRANSACTION_INACTIVE_ERROR, "The transaction is not active");
+        }
+        if (write && READ_ONLY.equals(mode_)) {
+            throw newException(IndexedDBException.READ_ONLY_ERROR, "The transaction is read-only");
+        }
+    }
+
+    /**
+     * Places a request against the transaction.
+     * @param source the source of the request
+     * @param write whether the request modifies the database
+     * @param operation the operation
+     * @return the request
+     */
+    IDBRequest enqueue(final Scriptable source, final boolean write, final IDBRequest.Operation operation) {
+        checkActive(write);
+        final IDBRequest request = new IDBRequest(getWindow(), source, this, operation);
+        requests_.add(request);
+        return request;
+    }
+
+    /**
+     * Places an existing request (of a cursor) again against the transaction.
+     * @param request the request
+     * @param operation the new operation
+     */
+    void enqueue(final IDBRequest request, final IDBRequest.Operation operation) {
+        checkActive(false);
+        request.setOperation(operation);
+        requests_.add(request);
+    }
+
+    /**
+     * Executes the transaction in a job of the window.
+     */
+    void schedule() {
+        IDBFactory.runLater(getWindow(), new ContextAction() {
+            @Override
+            public Object run(final Context cx) {
+                final IndexedDBDatabase database = db_.getDatabase();
+                database.getLock().lock();
+                try {
+                    execute(cx);
+                }
+                finally {
+                    database.getLock().unlock();
+                }
+                return null;
+            }
+
+            @Override
+            public String toString() {
+                return "IDBTransaction " + mode_ + " on '" + db_.getName() + "'";
+            }
+        });
+    }
+
+    /**
+     * Executes the requests, then commits or aborts the transaction and fires the corresponding event.
+     * The lock of the database must be held.
+     * @param cx the context
+     * @return whether the transaction has been committed
+     */
+    boolean execute(final Context cx) {
+        final IndexedDBDatabase database = db_.getDatabase();
+        try {
+            IDBRequest request;
+            while (!aborted_ && (request = requests_.poll()) != null) {
+                final Object result;
+                try {
+                    result = request.getOperation().execute(cx, database);
+                }
+                catch (final IndexedDBException e) {
+                    final Object error = e.toJavaScript(getWindow());
+                    if (!request.fail(error) && !aborted_) {
+                        aborted_ = true;
+                        error_ = error;
+                    }
+                    continue;
+                }
+                request.succeed(result);
+            }
+        }
+        catch (final RuntimeException e) {
+            finished_ = true;
+            database.abort();
+            throw e;
+        }
+        finished_ = true;
+
+        if (!aborted_) {
+            database.commit();
+            final Event event = new Event(this, "complete");
+            event.initEvent("complete", false, false);
+            IDBRequest.dispatch(event, this);
+            return true;
+        }
+
+        database.abort();
+        IDBRequest request;
+        while ((request = requests_.poll()) != null) {
+            request.fail(new IndexedDBException(IndexedDBException.ABORT_ERROR, "The transaction was aborted")
+                    .toJavaScript(getWindow()));
+        }
+        final Event event = new Event(this, "abort");
+        event.initEvent("abort", true, false);
+        IDBRequest.dispatch(event, this, db_);
+        return false;
+    }
+
+    private RuntimeException newException(final String name, final String message) {
+        return new IndexedDBException(name, message).toJavaScriptException(getWindow());
+    }
 }
@@ -0,0 +1,1012 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript.host.idb;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * The storage engine of one IndexedDB database.
+ *
+ * <p>The records of each object store and the entries of each index are kept in key-ordered trees.
+ * All changes are made in place while a transaction runs; the transaction keeps an undo list to roll
+ * them back on abort, and a redo list which is appended to the log of the database with a single write
+ * when it commits. When the log contains too many obsolete records, it is rewritten with the current
+ * content. A database without file is kept in memory only.</p>
+ *
+ * <p>The transactions of a database are serialized with {@link #getLock()}, which must be held
+ * to call any method of this class.</p>
+ */
+final class IndexedDBDatabase {
+
+    private static final Log LOG = LogFactory.getLog(IndexedDBDatabase.class);
+
+    private static final int FORMAT_VERSION = 2;
+
+    private static final int VERSION = 1;
+    private static final int CREATE_STORE = 2;
+    private static final int DELETE_STORE = 3;
+    private static final int CREATE_INDEX = 4;
+    private static final int DELETE_INDEX = 5;
+    private static final int PUT = 6;
+    private static final int DELETE = 7;
+    private static final int CLEAR = 8;
+    private static final int KEY_GENERATOR = 9;
+
+    /** The minimal number of records of a log before it is compacted. */
+    private static final int MIN_COMPACTION_RECORDS = 1024;
+
+    /** The maximal value of a key generator, 2^53. */
+    private static final long MAX_GENERATED_KEY = 9007199254740992L;
+
+    private final String origin_;
+    private final String name_;
+    private final File file_;
+    private final ReentrantLock lock_ = new ReentrantLock();
+
+    private long version_;
+    private final Map<String, ObjectStore> stores_ = new TreeMap<>();
+
+    private final List<UndoEntry> undo_ = new ArrayList<>();
+    private final ByteArrayOutputStream redoBytes_ = new ByteArrayOutputStream();
+    private final DataOutputStream redo_ = new DataOutputStream(redoBytes_);
+    private int redoRecords_;
+    private int logRecords_;
+    private boolean compactionNeeded_;
+    private boolean replaying_;
+    private boolean deleted_;
+
+    /**
+     * An object store.
+     */
+    static final class ObjectStore {
+        private final String name_;
+        private final Object keyPath_;
+        private final boolean autoIncrement_;
+        private long keyGenerator_ = 1;
+        private TreeMap<IndexedDBKey, Record> records_ = new TreeMap<>();
+        private final Map<String, Index> indexes_ = new TreeMap<>();
+
+        ObjectStore(final String name, final Object keyPath, final boolean autoIncrement) {
+            name_ = name;
+            keyPath_ = keyPath;
+            autoIncrement_ = autoIncrement;
+        }
+
+        String getName() {
+            return name_;
+        }
+
+        /**
+         * Returns the key path: {@code null}, a {@link String} or a {@code String[]}.
+         */
+        Object getKeyPath() {
+            return keyPath_;
+        }
+
+        boolean isAutoIncrement() {
+            return autoIncrement_;
+        }
+
+        NavigableMap<IndexedDBKey, Record> getRecords() {
+            return records_;
+        }
+
+        Set<String> getIndexNames() {
+            return indexes_.keySet();
+        }
+
+        Index getIndex(final String name) {
+            return indexes_.get(name);
+        }
+    }
+
+    /**
+     * A record of an object store, with its keys in the indexes.
+     */
+    static final class Record {
+        private final byte[] value_;
+        private final Map<String, List<IndexedDBKey>> indexKeys_;
+
+        Record(final byte[] value, final Map<String, List<IndexedDBKey>> indexKeys) {
+            value_ = value;
+            indexKeys_ = indexKeys;
+        }
+
+        /**
+         * Returns the value, serialized by {@link IDBObjectStore#toBytes(Object)}.
+         */
+        byte[] getValue() {
+            return value_;
+        }
+    }
+
+    /**
+     * An index of an object store; the primary keys of the records are grouped by index key.
+     */
+    static final class Index {
+        private final String name_;
+        private final Object keyPath_;
+        private final boolean unique_;
+        private final boolean multiEntry_;
+        private TreeMap<IndexedDBKey, TreeSet<IndexedDBKey>> entries_ = new TreeMap<>();
+
+        Index(final String name, final Object keyPath, final boolean unique, final boolean multiEntry) {
+            name_ = name;
+            keyPath_ = keyPath;
+            unique_ = unique;
+            multiEntry_ = multiEntry;
+        }
+
+        String getName() {
+            return name_;
+        }
+
+        Object getKeyPath() {
+            return keyPath_;
+        }
+
+        boolean isUnique() {
+            return unique_;
+        }
+
+        boolean isMultiEntry() {
+            return multiEntry_;
+        }
+
+        NavigableMap<IndexedDBKey, TreeSet<IndexedDBKey>> getEntries() {
+            return entries_;
+        }
+
+        private void add(final IndexedDBKey key, final IndexedDBKey primaryKey) {
+            TreeSet<IndexedDBKey> primaryKeys = entries_.get(key);
+            if (primaryKeys == null) {
+                primaryKeys = new TreeSet<>();
+                entries_.put(key, primaryKeys);
+            }
+            primaryKeys.add(primaryKey);
+        }
+
+        private void remove(final IndexedDBKey key, final IndexedDBKey primaryKey) {
+            final TreeSet<IndexedDBKey> primaryKeys = entries_.get(key);
+            if (primaryKeys != null) {
+                primaryKeys.remove(primaryKey);
+                if (primaryKeys.isEmpty()) {
+                    entries_.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * A change to revert if the transaction is aborted.
+     */
+    private static final class UndoEntry {
+        private final int type_;
+        private final ObjectStore store_;
+        private final Object object_;
+        private final IndexedDBKey key_;
+        private final long number_;
+
+        UndoEntry(final int type, final ObjectStore store, final Object object, final IndexedDBKey key,
+                final long number) {
+            type_ = type;
+            store_ = store;
+            object_ = object;
+            key_ = key;
+            number_ = number;
+        }
+    }
+
+    /**
+     * Creates a new database.
+     * @param origin the origin owning the database
+     * @param name the name of the database
+     * @param file the log file, {@code null} to keep the database in memory
+     */
+    IndexedDBDatabase(final String origin, final String name, final File file) {
+        origin_ = origin;
+        name_ = name;
+        file_ = file;
+    }
+
+    /**
+     * Returns the lock serializing the transactions.
+     * @return the lock
+     */
+    ReentrantLock getLock() {
+        return lock_;
+    }
+
+    String getName() {
+        return name_;
+    }
+
+    File getFile() {
+        return file_;
+    }
+
+    /**
+     * Marks the database as deleted: it is not written anymore and the existing connections can't use it.
+     */
+    void markDeleted() {
+        deleted_ = true;
+    }
+
+    boolean isDeleted() {
+        return deleted_;
+    }
+
+    long getVersion() {
+        return version_;
+    }
+
+    void setVersion(final long version) {
+        addUndo(VERSION, null, null, null, version_);
+        version_ = version;
+        if (log(VERSION)) {
+            try {
+                redo_.writeLong(version);
+            }
+            catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    Set<String> getObjectStoreNames() {
+        return stores_.keySet();
+    }
+
+    ObjectStore getObjectStore(final String name) {
+        return stores_.get(name);
+    }
+
+    ObjectStore createObjectStore(final String name, final Object keyPath, final boolean autoIncrement) {
+        final ObjectStore store = new ObjectStore(name, keyPath, autoIncrement);
+        stores_.put(name, store);
+        addUndo(CREATE_STORE, store, null, null, 0);
+        if (log(CREATE_STORE)) {
+            try {
+                writeString(redo_, name);
+                writeKeyPath(redo_, keyPath);
+                redo_.writeBoolean(autoIncrement);
+            }
+            catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return store;
+    }
+
+    void deleteObjectStore(final ObjectStore store) {
+        stores_.remove(store.name_);
+        addUndo(DELETE_STORE, store, null, null, 0);
+        if (log(DELETE_STORE)) {
+            try {
+                writeString(redo_, store.name_);
+            }
+            catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Creates an index.
+     * @param store the object store
+     * @param name the name of the index
+     * @param keyPath the key path
+     * @param unique whether the keys must be unique
+     * @param multiEntry whether an array produces one entry per element
+     * @param keys the keys of the existing records, by primary key
+     * @return the index
+     * @throws IndexedDBException if a unique index can't be created
+     */
+    Index createIndex(final ObjectStore store, final String name, final Object keyPath, final boolean unique,
+            final boolean multiEntry, final Map<IndexedDBKey, List<IndexedDBKey>> keys) {
+        final Index index = new Index(name, keyPath, unique, multiEntry);
+        for (final Map.Entry<IndexedDBKey, Record> entry : store.records_.entrySet()) {
+            List<IndexedDBKey> recordKeys = keys.get(entry.getKey());
+            if (recordKeys == null) {
+                recordKeys = Collections.emptyList();
+            }
+            for (final IndexedDBKey key : recordKeys) {
+                if (unique && index.entries_.containsKey(key)) {
+                    throw new IndexedDBException(IndexedDBException.CONSTRAINT_ERROR,
+                            "Unable to create unique index '" + name + "': duplicate key " + key);
+                }
+                index.add(key, entry.getKey());
+            }
+            entry.getValue().indexKeys_.put(name, recordKeys);
+        }
+        store.indexes_.put(name, index);
+        addUndo(CREATE_INDEX, store, index, null, 0);
+
+        if (log(CREATE_INDEX)) {
+            try {
+                writeString(redo_, store.name_);
+                writeString(redo_, name);
+                writeKeyPath(redo_, keyPath);
+                redo_.writeBoolean(unique);
+                redo_.writeBoolean(multiEntry);
+                redo_.writeInt(keys.size());
+                for (final Map.Entry<IndexedDBKey, List<IndexedDBKey>> entry : keys.entrySet()) {
+                    entry.getKey().write(redo_);
+                    writeKeys(redo_, entry.getValue());
+                }
+            }
+            catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return index;
+    }
+
+    void deleteIndex(final ObjectStore store, final Index index) {
+        store.indexes_.remove(index.name_);
+        addUndo(DELETE_INDEX, store, index, null, 0);
+        if (log(DELETE_INDEX)) {
+            try {
+                writeString(redo_, store.name_);
+                writeString(redo_, index.name_);
+            }
+            catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Returns the next key of the key generator of the store.
+     * @param store the object store
+     * @return the key
+     * @throws IndexedDBException if the generator is exhausted
+     */
+    IndexedDBKey generateKey(final ObjectStore store) {
+        final long key = store.keyGenerator_;
+        if (key > MAX_GENERATED_KEY) {
+            throw new IndexedDBException(IndexedDBException.CONSTRAINT_ERROR, "The key generator is exhausted");
+        }
+        setKeyGenerator(store, key + 1);
+        return IndexedDBKey.number(key);
+    }
+
+    private void setKeyGenerator(final ObjectStore store, final long value) {
+        addUndo(KEY_GENERATOR, store, null, null, store.keyGenerator_);
+        store.keyGenerator_ = value;
+        if (log(KEY_GENERATOR)) {
+            try {
+                writeString(redo_, store.name_);
+                redo_.writeLong(value);
+            }
+            catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Stores a record.
+     * @param store the object store
+     * @param key the primary key
+     * @param value the serialized value
+     * @param indexKeys the keys of the record in the indexes of the store
+     * @param noOverwrite whether an existing record is an error
+     * @throws IndexedDBException if a constraint is violated
+     */
+    void put(final ObjectStore store, final IndexedDBKey key, final byte[] value,
+            final Map<String, List<IndexedDBKey>> indexKeys, final boolean noOverwrite) {
+        if (noOverwrite && store.records_.containsKey(key)) {
+            throw new IndexedDBException(IndexedDBException.CONSTRAINT_ERROR,
+                    "A record with the key " + key + " already exists in the object store '" + store.name_ + "'");
+        }
+        for (final Index index : store.indexes_.values()) {
+            if (index.unique_) {
+                final List<IndexedDBKey> keys = indexKeys.get(index.name_);
+                if (keys != null) {
+                    for (final IndexedDBKey indexKey : keys) {
+                        final TreeSet<IndexedDBKey> primaryKeys = index.entries_.get(indexKey);
+                        if (primaryKeys != null && (primaryKeys.size() > 1 || !primaryKeys.contains(key))) {
+                            throw new IndexedDBException(IndexedDBException.CONSTRAINT_ERROR,
+                                    "The key " + indexKey + " already exists in the unique index '"
+                                    + index.name_ + "'");
+                        }
+                    }
+                }
+            }
+        }
+
+        if (store.autoIncrement_ && key.isNumber() && key.getNumber() >= store.keyGenerator_) {
+            setKeyGenerator(store, (long) Math.min(Math.floor(key.getNumber()) + 1, MAX_GENERATED_KEY + 1));
+        }
+
+        final Record old = setRecord(store, key, new Record(value, new HashMap<>(indexKeys)));
+        addUndo(PUT, store, old, key, 0);
+        if (log(PUT)) {
+            try {
+                writeString(redo_, store.name_);
+                key.write(redo_);
+                writeBytes(redo_, value);
+                redo_.writeInt(indexKeys.size());
+                for (final Map.Entry<String, List<IndexedDBKey>> entry : indexKeys.entrySet()) {
+                    writeString(redo_, entry.getKey());
+                    writeKeys(redo_, entry.getValue());
+                }
+            }
+            catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Deletes the records in the given range.
+     * @param store the object store
+     * @param range the range, {@code null} for all records
+     */
+    void delete(final ObjectStore store, final IDBKeyRange range) {
+        final List<IndexedDBKey> keys = new ArrayList<>(subMap(store.records_, range).keySet());
+        for (final IndexedDBKey key : keys) {
+            delete(store, key);
+        }
+    }
+
+    private void delete(final ObjectStore store, final IndexedDBKey key) {
+        final Record old = setRecord(store, key, null);
+        addUndo(PUT, store, old, key, 0);
+        if (log(DELETE)) {
+            try {
+                writeString(redo_, store.name_);
+                key.write(redo_);
+            }
+            catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Deletes all records of the store.
+     * @param store the object store
+     */
+    void clear(final ObjectStore store) {
+        final Map<String, TreeMap<IndexedDBKey, TreeSet<IndexedDBKey>>> oldEntries = new HashMap<>();
+        for (final Index index : store.indexes_.values()) {
+            oldEntries.put(index.name_, index.entries_);
+            index.entries_ = new TreeMap<>();
+        }
+        addUndo(CLEAR, store, new Object[] {store.records_, oldEntries}, null, 0);
+        store.records_ = new TreeMap<>();
+        if (log(CLEAR)) {
+            try {
+                writeString(redo_, store.name_);
+            }
+            catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Replaces a record, maintaining the indexes.
+     * @return the previous record
+     */
+    private static Record setRecord(final ObjectStore store, final IndexedDBKey key, final Record record) {
+        final Record old;
+        if (record == null) {
+            old = store.records_.remove(key);
+        }
+        else {
+            old = store.records_.put(key, record);
+        }
+        for (final Index index : store.indexes_.values()) {
+            if (old != null) {
+                final List<IndexedDBKey> keys = old.indexKeys_.get(index.name_);
+                if (keys != null) {
+                    for (final IndexedDBKey indexKey : keys) {
+                        index.remove(indexKey, key);
+                    }
+                }
+            }
+            if (record != null) {
+                final List<IndexedDBKey> keys = record.indexKeys_.get(index.name_);
+                if (keys != null) {
+                    for (final IndexedDBKey indexKey : keys) {
+                        index.add(indexKey, key);
+                    }
+                }
+            }
+        }
+        return old;
+    }
+
+    /**
+     * Returns the part of a tree within the given range.
+     * @param map the tree
+     * @param range the range, {@code null} for all keys
+     * @param <V> the type of the values
+     * @return the view of the tree
+     */
+    static <V> NavigableMap<IndexedDBKey, V> subMap(final NavigableMap<IndexedDBKey, V> map,
+            final IDBKeyRange range) {
+        if (range == null) {
+            return map;
+        }
+        final IndexedDBKey lower = range.getLowerKey();
+        final IndexedDBKey upper = range.getUpperKey();
+        if (lower != null && upper != null) {
+            if (lower.compareTo(upper) > 0) {
+                return Collections.emptyNavigableMap();
+            }
+            return map.subMap(lower, !range.isLowerOpenInternal(), upper, !range.isUpperOpenInternal());
+        }
+        if (lower != null) {
+            return map.tailMap(lower, !range.isLowerOpenInternal());
+        }
+        if (upper != null) {
+            return map.headMap(upper, !range.isUpperOpenInternal());
+        }
+        return map;
+    }
+
+    private void addUndo(final int type, final ObjectStore store, final Object object, final IndexedDBKey key,
+            final long number) {
+        if (!replaying_) {
+            undo_.add(new UndoEntry(type, store, object, key, number));
+        }
+    }
+
+    /**
+     * Starts a record of the redo log.
+     * @return whether the record has to be written
+     */
+    private boolean log(final int type) {
+        if (replaying_ || file_ == null) {
+            return false;
+        }
+        try {
+            redo_.write(type);
+        }
+        catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+        redoRecords_++;
+        return true;
+    }
+
+    /**
+     * Commits the changes of the current transaction: appends them to the log.
+     */
+    void commit() {
+        undo_.clear();
+        if (redoRecords_ == 0 || deleted_) {
+            redoBytes_.reset();
+            redoRecords_ = 0;
+            return;
+        }
+        try {
+            if (compactionNeeded_ || logRecords_ + redoRecords_ > Math.max(MIN_COMPACTION_RECORDS, 2 * getSize())) {
+                compact();
+            }
+            else {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                if (logRecords_ == 0 && file_.length() == 0) {
+                    writeHeader(new DataOutputStream(bytes));
+                }
+                redoBytes_.writeTo(bytes);
+                try (FileOutputStream out = new FileOutputStream(file_, true)) {
+                    bytes.writeTo(out);
+                }
+                logRecords_ += redoRecords_;
+            }
+        }
+        catch (final IOException e) {
+            LOG.warn("Can't write the IndexedDB log '" + file_ + "' of '" + name_ + "' for '" + origin_ + "'", e);
+            // the next commit writes everything again
+            compactionNeeded_ = true;
+        }
+        finally {
+            redoBytes_.reset();
+            redoRecords_ = 0;
+        }
+    }
+
+    /**
+     * Reverts the changes of the current transaction.
+     */
+    void abort() {
+        for (int i = undo_.size() - 1; i >= 0; i--) {
+            final UndoEntry entry = undo_.get(i);
+            final ObjectStore store = entry.store_;
+            switch (entry.type_) {
+                case VERSION:
+                    version_ = entry.number_;
+                    break;
+
+                case CREATE_STORE:
+                    stores_.remove(store.name_);
+                    break;
+
+                case DELETE_STORE:
+                    stores_.put(store.name_, store);
+                    break;
+
+                case CREATE_INDEX:
+                    final Index created = (Index) entry.object_;
+                    store.indexes_.remove(created.name_);
+                    for (final Record record : store.records_.values()) {
+                        record.indexKeys_.remove(created.name_);
+                    }
+                    break;
+
+                case DELETE_INDEX:
+                    final Index deleted = (Index) entry.object_;
+                    store.indexes_.put(deleted.name_, deleted);
+                    break;
+
+                case KEY_GENERATOR:
+                    store.keyGenerator_ = entry.number_;
+                    break;
+
+                case PUT:
+                    setRecord(store, entry.key_, (Record) entry.object_);
+                    break;
+
+                case CLEAR:
+                    final Object[] old = (Object[]) entry.object_;
+                    @SuppressWarnings("unchecked")
+                    final TreeMap<IndexedDBKey, Record> records = (TreeMap<IndexedDBKey, Record>) old[0];
+                    @SuppressWarnings("unchecked")
+                    final Map<String, TreeMap<IndexedDBKey, TreeSet<IndexedDBKey>>> entries =
+                            (Map<String, TreeMap<IndexedDBKey, TreeSet<IndexedDBKey>>>) old[1];
+                    store.records_ = records;
+                    for (final Index index : store.indexes_.values()) {
+                        final TreeMap<IndexedDBKey, TreeSet<IndexedDBKey>> indexEntries = entries.get(index.name_);
+                        if (indexEntries != null) {
+                            index.entries_ = indexEntries;
+                        }
+                    }
+                    break;
+
+                default:
+                    throw new IllegalStateException("Unknown undo entry " + entry.type_);
+            }
+        }
+        undo_.clear();
+        redoBytes_.reset();
+        redoRecords_ = 0;
+    }
+
+    private int getSize() {
+        int size = 1;
+        for (final ObjectStore store : stores_.values()) {
+            size += 2 + store.indexes_.size() + store.records_.size();
+        }
+        return size;
+    }
+
+    /**
+     * Reads the log, if any.
+     */
+    void load() {
+        if (file_ == null || !file_.isFile()) {
+            return;
+        }
+        boolean complete = false;
+        replaying_ = true;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file_)))) {
+            if (in.readInt() != FORMAT_VERSION || !origin_.equals(readString(in)) || !name_.equals(readString(in))) {
+                // other format or hash collision
+                LOG.warn("Ignoring the IndexedDB log '" + file_ + "' of '" + name_ + "' for '" + origin_ + "'");
+                compactionNeeded_ = true;
+                return;
+            }
+            int type;
+            while ((type = in.read()) != -1) {
+                replay(type, in);
+                logRecords_++;
+            }
+            complete = true;
+        }
+        catch (final EOFException e) {
+            // the last write has been interrupted
+        }
+        catch (final IOException | RuntimeException e) {
+            LOG.warn("Can't read the IndexedDB log '" + file_ + "' of '" + name_ + "' for '" + origin_ + "'", e);
+        }
+        finally {
+            replaying_ = false;
+        }
+        if (!complete) {
+            // rewrites the log, as new records can't be appended after a broken one
+            try {
+                compact();
+            }
+            catch (final IOException e) {
+                LOG.warn("Can't write the IndexedDB log '" + file_ + "' of '" + name_ + "' for '" + origin_ + "'", e);
+                compactionNeeded_ = true;
+            }
+        }
+    }
+
+    private void replay(final int type, final DataInputStream in) throws IOException {
+        switch (type) {
+            case VERSION:
+                setVersion(in.readLong());
+                break;
+
+            case CREATE_STORE:
+                createObjectStore(readString(in), readKeyPath(in), in.readBoolean());
+                break;
+
+            case DELETE_STORE:
+                deleteObjectStore(getStoreOrFail(readString(in)));
+                break;
+
+            case CREATE_INDEX:
+                final ObjectStore store = getStoreOrFail(readString(in));
+                final String name = readString(in);
+                final Object keyPath = readKeyPath(in);
+                final boolean unique = in.readBoolean();
+                final boolean multiEntry = in.readBoolean();
+                final int count = in.readInt();
+                final Map<IndexedDBKey, List<IndexedDBKey>> keys = new HashMap<>();
+                for (int i = 0; i < count; i++) {
+                    keys.put(IndexedDBKey.read(in), readKeys(in));
+                }
+                createIndex(store, name, keyPath, unique, multiEntry, keys);
+                break;
+
+            case DELETE_INDEX:
+                final ObjectStore indexStore = getStoreOrFail(readString(in));
+                final Index index = indexStore.indexes_.get(readString(in));
+                if (index == null) {
+                    throw new IOException("Unknown index");
+                }
+                deleteIndex(indexStore, index);
+                break;
+
+            case PUT:
+                final ObjectStore putStore = getStoreOrFail(readString(in));
+                final IndexedDBKey key = IndexedDBKey.read(in);
+                final byte[] value = readBytes(in);
+                final int indexCount = in.readInt();
+                final Map<String, List<IndexedDBKey>> indexKeys = new HashMap<>();
+                for (int i = 0; i < indexCount; i++) {
+                    indexKeys.put(readString(in), readKeys(in));
+                }
+                put(putStore, key, value, indexKeys, false);
+                break;
+
+            case DELETE:
+                delete(getStoreOrFail(readString(in)), IndexedDBKey.read(in));
+                break;
+
+            case CLEAR:
+                clear(getStoreOrFail(readString(in)));
+                break;
+
+            case KEY_GENERATOR:
+                setKeyGenerator(getStoreOrFail(readString(in)), in.readLong());
+                break;
+
+            default:
+                throw new IOException("Unknown record type " + type);
+        }
+    }
+
+    private ObjectStore getStoreOrFail(final String name) throws IOException {
+        final ObjectStore store = stores_.get(name);
+        if (store == null) {
+            throw new IOException("Unknown object store '" + name + "'");
+        }
+        return store;
+    }
+
+    /**
+     * Replaces the log by one containing only the current content.
+     */
+    private void compact() throws IOException {
+        File tmpFile = null;
+        int records = 0;
+        try {
+            tmpFile = File.createTempFile("htmlunit", ".tmp", file_.getParentFile());
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                writeHeader(out);
+                out.write(VERSION);
+                out.writeLong(version_);
+                records++;
+                for (final ObjectStore store : stores_.values()) {
+                    out.write(CREATE_STORE);
+                    writeString(out, store.name_);
+                    writeKeyPath(out, store.keyPath_);
+                    out.writeBoolean(store.autoIncrement_);
+                    out.write(KEY_GENERATOR);
+                    writeString(out, store.name_);
+                    out.writeLong(store.keyGenerator_);
+                    records += 2;
+                    for (final Index index : store.indexes_.values()) {
+                        out.write(CREATE_INDEX);
+                        writeString(out, store.name_);
+                        writeString(out, index.name_);
+                        writeKeyPath(out, index.keyPath_);
+                        out.writeBoolean(index.unique_);
+                        out.writeBoolean(index.multiEntry_);
+                        // the keys are restored by the records
+                        out.writeInt(0);
+                        records++;
+                    }
+                    for (final Map.Entry<IndexedDBKey, Record> entry : store.records_.entrySet()) {
+                        final Record record = entry.getValue();
+                        out.write(PUT);
+                        writeString(out, store.name_);
+                        entry.getKey().write(out);
+                        writeBytes(out, record.value_);
+                        int count = 0;
+                        for (final String name : record.indexKeys_.keySet()) {
+                            if (store.indexes_.containsKey(name)) {
+                                count++;
+                            }
+                        }
+                        out.writeInt(count);
+                        for (final Map.Entry<String, List<IndexedDBKey>> keys : record.indexKeys_.entrySet()) {
+                            if (store.indexes_.containsKey(keys.getKey())) {
+                                writeString(out, keys.getKey());
+                                writeKeys(out, keys.getValue());
+                            }
+                        }
+                        records++;
+                    }
+                }
+            }
+            try {
+                Files.move(tmpFile.toPath(), file_.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            catch (final AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), file_.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmpFile = null;
+            logRecords_ = records;
+            compactionNeeded_ = false;
+        }
+        finally {
+            if (tmpFile != null) {
+                FileUtils.deleteQuietly(tmpFile);
+            }
+        }
+    }
+
+    private void writeHeader(final DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, origin_);
+        writeString(out, name_);
+    }
+
+    private static void writeString(final DataOutputStream out, final String s) throws IOException {
+        final byte[] bytes = s.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid string length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid length " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeKeyPath(final DataOutputStream out, final Object keyPath) throws IOException {
+        if (keyPath == null) {
+            out.write(0);
+        }
+        else if (keyPath instanceof String) {
+            out.write(1);
+            writeString(out, (String) keyPath);
+        }
+        else {
+            final String[] paths = (String[]) keyPath;
+            out.write(2);
+            out.writeInt(paths.length);
+            for (final String path : paths) {
+                writeString(out, path);
+            }
+        }
+    }
+
+    private static Object readKeyPath(final DataInputStream in) throws IOException {
+        final int type = in.readUnsignedByte();
+        switch (type) {
+            case 0:
+                return null;
+
+            case 1:
+                return readString(in);
+
+            case 2:
+                final String[] paths = new String[in.readInt()];
+                for (int i = 0; i < paths.length; i++) {
+                    paths[i] = readString(in);
+                }
+                return paths;
+
+            default:
+                throw new IOException("Unknown key path type " + type);
+        }
+    }
+
+    private static void writeKeys(final DataOutputStream out, final List<IndexedDBKey> keys) throws IOException {
+        out.writeInt(keys.size());
+        for (final IndexedDBKey key : keys) {
+            key.write(out);
+        }
+    }
+
+    private static List<IndexedDBKey> readKeys(final DataInputStream in) throws IOException {
+        final int size = in.readInt();
+        final List<IndexedDBKey> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            keys.add(IndexedDBKey.read(in));
+        }
+        return keys;
+    }
+}
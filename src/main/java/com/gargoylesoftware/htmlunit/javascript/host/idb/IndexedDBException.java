@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript.host.idb;
+
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.JavaScriptException;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
+
+/**
+ * An error of the IndexedDB, identified by the name of the corresponding <tt>DOMException</tt>
+ * (<tt>ConstraintError</tt>, <tt>DataError</tt>...).
+ */
+final class IndexedDBException extends RuntimeException {
+
+    static final String ABORT_ERROR = "AbortError";
+    static final String CONSTRAINT_ERROR = "ConstraintError";
+    static final String DATA_ERROR = "DataError";
+    static final String INVALID_ACCESS_ERROR = "InvalidAccessError";
+    static final String INVALID_STATE_ERROR = "InvalidStateError";
+    static final String NOT_FOUND_ERROR = "NotFoundError";
+    static final String READ_ONLY_ERROR = "ReadOnlyError";
+    static final String TRANSACTION_INACTIVE_ERROR = "TransactionInactiveError";
+    static final String UNKNOWN_ERROR = "UnknownError";
+    static final String VERSION_ERROR = "VersionError";
+
+    private final String name_;
+
+    /**
+     * Creates a new instance.
+     * @param name the name of the error
+     * @param message the message
+     */
+    IndexedDBException(final String name, final String message) {
+        super(message);
+        name_ = name;
+    }
+
+    /**
+     * Returns the name of the error.
+     * @return the name
+     */
+    String getName() {
+        return name_;
+    }
+
+    /**
+     * Creates the JavaScript error object, with the properties {@code name} and {@code message}.
+     * @param scope the scope
+     * @return the error object
+     */
+    Scriptable toJavaScript(final Scriptable scope) {
+        final Scriptable error = Context.getCurrentContext().newObject(scope, "Error", new Object[] {getMessage()});
+        ScriptableObject.putProperty(error, "name", name_);
+        return error;
+    }
+
+    /**
+     * Returns the exception to throw to the script.
+     * @param scope the scope
+     * @return the exception
+     */
+    JavaScriptException toJavaScriptException(final Scriptable scope) {
+        return new JavaScriptException(toJavaScript(scope), null, 0);
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript.host.idb;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.NativeArray;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptRuntime;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+
+/**
+ * A key of the IndexedDB: a number, a date, a string or an array of keys.
+ * The keys are ordered first by type (in this order), then by value.
+ */
+final class IndexedDBKey implements Comparable<IndexedDBKey> {
+
+    private static final int NUMBER = 1;
+    private static final int DATE = 2;
+    private static final int STRING = 3;
+    private static final int ARRAY = 4;
+
+    private final int type_;
+    private final double number_;
+    private final String string_;
+    private final List<IndexedDBKey> array_;
+
+    private IndexedDBKey(final int type, final double number, final String string, final List<IndexedDBKey> array) {
+        type_ = type;
+        number_ = number;
+        string_ = string;
+        array_ = array;
+    }
+
+    /**
+     * Creates a number key.
+     * @param number the number
+     * @return the key
+     */
+    static IndexedDBKey number(final double number) {
+        return new IndexedDBKey(NUMBER, number, null, null);
+    }
+
+    /**
+     * Converts a JavaScript value to a key.
+     * @param value the value
+     * @return the key or {@code null} if the value is not a valid key
+     */
+    static IndexedDBKey fromJavaScript(final Object value) {
+        if (value instanceof Number) {
+            final double number = ((Number) value).doubleValue();
+            if (Double.isNaN(number)) {
+                return null;
+            }
+            return number(number);
+        }
+        if (value instanceof CharSequence) {
+            return new IndexedDBKey(STRING, 0, value.toString(), null);
+        }
+        if (value instanceof NativeArray) {
+            final NativeArray array = (NativeArray) value;
+            final List<IndexedDBKey> keys = new ArrayList<>();
+            for (int i = 0; i < array.getLength(); i++) {
+                final IndexedDBKey key = fromJavaScript(array.get(i, array));
+                if (key == null) {
+                    return null;
+                }
+                keys.add(key);
+            }
+            return new IndexedDBKey(ARRAY, 0, null, Collections.unmodifiableList(keys));
+        }
+        if (value instanceof Scriptable && "Date".equals(((Scriptable) value).getClassName())) {
+            final double time = ScriptRuntime.toNumber(value);
+            if (Double.isNaN(time)) {
+                return null;
+            }
+            return new IndexedDBKey(DATE, time, null, null);
+        }
+        return null;
+    }
+
+    /**
+     * Converts this key to a JavaScript value.
+     * @param cx the context
+     * @param scope the scope
+     * @return the value
+     */
+    Object toJavaScript(final Context cx, final Scriptable scope) {
+        switch (type_) {
+            case NUMBER:
+                return number_;
+
+            case DATE:
+                return cx.newObject(scope, "Date", new Object[] {number_});
+
+            case STRING:
+                return string_;
+
+            default:
+                final Object[] elements = new Object[array_.size()];
+                for (int i = 0; i < elements.length; i++) {
+                    elements[i] = array_.get(i).toJavaScript(cx, scope);
+                }
+                return cx.newArray(scope, elements);
+        }
+    }
+
+    /**
+     * Returns whether this key is a number.
+     * @return whether this key is a number
+     */
+    boolean isNumber() {
+        return type_ == NUMBER;
+    }
+
+    /**
+     * Returns the value of a number key.
+     * @return the number
+     */
+    double getNumber() {
+        return number_;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int compareTo(final IndexedDBKey other) {
+        if (type_ != other.type_) {
+            return type_ < other.type_ ? -1 : 1;
+        }
+        switch (type_) {
+            case STRING:
+                return string_.compareTo(other.string_);
+
+            case ARRAY:
+                final int length = Math.min(array_.size(), other.array_.size());
+                for (int i = 0; i < length; i++) {
+                    final int result = array_.get(i).compareTo(other.array_.get(i));
+                    if (result != 0) {
+                        return result;
+                    }
+                }
+                return Integer.compare(array_.size(), other.array_.size());
+
+            default:
+                return Double.compare(number_ == 0 ? 0 : number_, other.number_ == 0 ? 0 : other.number_);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof IndexedDBKey && compareTo((IndexedDBKey) o) == 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        switch (type_) {
+            case STRING:
+                return string_.hashCode();
+
+            case ARRAY:
+                return array_.hashCode();
+
+            default:
+                return 31 * type_ + Double.hashCode(number_ == 0 ? 0 : number_);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        switch (type_) {
+            case STRING:
+                return '"' + string_ + '"';
+
+            case ARRAY:
+                return array_.toString();
+
+            case DATE:
+                return "Date(" + (long) number_ + ")";
+
+            default:
+                return Double.toString(number_);
+        }
+    }
+
+    /**
+     * Writes this key.
+     * @param out the stream
+     * @throws IOException in case of error
+     */
+    void write(final DataOutputStream out) throws IOException {
+        out.write(type_);
+        switch (type_) {
+            case STRING:
+                final byte[] bytes = string_.getBytes(UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                break;
+
+            case ARRAY:
+                out.writeInt(array_.size());
+                for (final IndexedDBKey key : array_) {
+                    key.write(out);
+                }
+                break;
+
+            default:
+                out.writeDouble(number_);
+        }
+    }
+
+    /**
+     * Reads a key written by {@link #write(DataOutputStream)}.
+     * @param in the stream
+     * @return the key
+     * @throws IOException in case of error
+     */
+    static IndexedDBKey read(final DataInputStream in) throws IOException {
+        final int type = in.readUnsignedByte();
+        switch (type) {
+            case NUMBER:
+            case DATE:
+                return new IndexedDBKey(type, in.readDouble(), null, null);
+
+            case STRING:
+                final byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new IndexedDBKey(STRING, 0, new String(bytes, UTF_8), null);
+
+            case ARRAY:
+                final int size = in.readInt();
+                final List<IndexedDBKey> keys = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    keys.add(read(in));
+                }
+                return new IndexedDBKey(ARRAY, 0, null, Collections.unmodifiableList(keys));
+
+            default:
+                throw new IOException("Unknown key type " + type);
+        }
+    }
+}
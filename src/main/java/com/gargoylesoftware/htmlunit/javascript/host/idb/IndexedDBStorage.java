@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript.host.idb;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+
+/**
+ * The IndexedDB databases of a web client, by origin and name.
+ * Each database is kept in memory and, if a directory is given, persisted in a log file of its own.
+ * <p><span style="color:red">Experimental API: May be changed in next release!</span></p>
+ *
+ * @see com.gargoylesoftware.htmlunit.StorageHolder#getIndexedDBStorage()
+ */
+public class IndexedDBStorage {
+
+    private static final String FILE_SUFFIX = ".idb";
+
+    private final File directory_;
+    private final Map<String, IndexedDBDatabase> databases_ = new HashMap<>();
+
+    /**
+     * Creates a new storage.
+     * @param directory the directory of the database files, {@code null} to keep the databases in memory
+     * @throws IOException if the directory can't be created
+     */
+    public IndexedDBStorage(final File directory) throws IOException {
+        if (directory != null) {
+            FileUtils.forceMkdir(directory);
+        }
+        directory_ = directory;
+    }
+
+    /**
+     * Returns the directory of the database files.
+     * @return the directory, {@code null} if the databases are kept in memory
+     */
+    public File getDirectory() {
+        return directory_;
+    }
+
+    /**
+     * Returns the database with the given name, loading it if needed.
+     * A database which doesn't exist yet has the version 0.
+     * @param origin the origin
+     * @param name the name of the database
+     * @return the database
+     */
+    synchronized IndexedDBDatabase getDatabase(final String origin, final String name) {
+        final String key = origin + '\n' + name;
+        IndexedDBDatabase database = databases_.get(key);
+        if (database == null) {
+            database = new IndexedDBDatabase(origin, name, getFile(key));
+            database.load();
+            databases_.put(key, database);
+        }
+        return database;
+    }
+
+    /**
+     * Deletes a database.
+     * @param origin the origin
+     * @param name the name of the database
+     * @return the version of the deleted database, 0 if it didn't exist
+     */
+    synchronized long deleteDatabase(final String origin, final String name) {
+        final String key = origin + '\n' + name;
+        final File file = getFile(key);
+        final IndexedDBDatabase database = databases_.remove(key);
+        long version = 0;
+        if (database != null) {
+            version = database.getVersion();
+            database.markDeleted();
+        }
+        else if (file != null && file.isFile()) {
+            final IndexedDBDatabase loaded = new IndexedDBDatabase(origin, name, file);
+            loaded.load();
+            version = loaded.getVersion();
+        }
+        if (file != null) {
+            FileUtils.deleteQuietly(file);
+        }
+        return version;
+    }
+
+    /**
+     * Deletes all databases.
+     */
+    public synchronized void clear() {
+        databases_.clear();
+        if (directory_ != null) {
+            final File[] files = directory_.listFiles();
+            if (files != null) {
+                for (final File file : files) {
+                    if (file.getName().endsWith(FILE_SUFFIX)) {
+                        FileUtils.deleteQuietly(file);
+                    }
+                }
+            }
+        }
+    }
+
+    private File getFile(final String key) {
+        if (directory_ == null) {
+            return null;
+        }
+        return new File(directory_, DigestUtils.sha256Hex(key) + FILE_SUFFIX);
+    }
+}
@@ -14,10 +14,19 @@
  */
 package com.gargoylesoftware.htmlunit.javascript.host.performance;
 
+import static com.gargoylesoftware.htmlunit.BrowserVersionFeatures.JS_PERFORMANCE_NAVIGATION_ENTRY;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.CHROME;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import com.gargoylesoftware.htmlunit.Page;
+import com.gargoylesoftware.htmlunit.WebClock;
+import com.gargoylesoftware.htmlunit.WebResponseTiming;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxFunction;
@@ -25,6 +34,10 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 import com.gargoylesoftware.htmlunit.javascript.host.event.EventTarget;
 
+import net.sourceforge.htmlunit.corejs.javascript.Context;
+import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.Undefined;
+
 /**
  * A JavaScript object for {@code Performance}.
  *
@@ -34,6 +47,8 @@ import com.gargoylesoftware.htmlunit.javascript.host.event.EventTarget;
 @JsxClass
 public class Performance extends EventTarget {
     private PerformanceTiming timing_;
+    private long timeOrigin_ = -1;
+    private long timeOriginNanos_;
 
     /**
      * Creates an instance.
@@ -61,7 +76,7 @@ public class Performance extends EventTarget {
     @JsxGetter
     public PerformanceTiming getTiming() {
         if (timing_ == null) {
-            final PerformanceTiming timing = new PerformanceTiming();
+            final PerformanceTiming timing = new PerformanceTiming(getClock().currentTimeMillis());
             timing.setParentScope(getParentScope());
             timing.setPrototype(getPrototype(timing.getClass()));
             timing_ = timing;
@@ -71,10 +86,112 @@ public class Performance extends EventTarget {
     }
 
     /**
+     * Returns the milliseconds elapsed since the time origin, like the times of the entries.
      * @return a timestamp
      */
     @JsxFunction
     public double now() {
-        return System.nanoTime() / 1_000_000d;
+        getTimeOrigin();
+        return (getClock().nanoTime() - timeOriginNanos_) / 1_000_000d;
+    }
+
+    /**
+     * Returns the time origin, in milliseconds since the epoch: the start of the fetch of the page
+     * if known, else the navigation start. The nanosecond counter of the clock has no defined origin,
+     * it is mapped once to this one.
+     */
+    private long getTimeOrigin() {
+        if (timeOrigin_ == -1) {
+            long origin = getTiming().getNavigationStart();
+            final Page page = getWindow().getWebWindow().getEnclosedPage();
+            if (page instanceof HtmlPage) {
+                final WebResponseTiming navigation = ((HtmlPage) page).getWebResponse().getTiming();
+                if (navigation != null) {
+                    origin = navigation.getFetchStart();
+                }
+            }
+            final WebClock clock = getClock();
+            timeOriginNanos_ = clock.nanoTime() - (clock.currentTimeMillis() - origin) * 1_000_000L;
+            timeOrigin_ = origin;
+        }
+        return timeOrigin_;
+    }
+
+    /**
+     * Returns the timings of the page and of the resources it loaded.
+     * @return the entries
+     */
+    @JsxFunction
+    public Scriptable getEntries() {
+        return toArray(getEntryList(null, null));
+    }
+
+    /**
+     * Returns the entries of the specified type.
+     * @param type the type of the entries: {@code resource} or {@code navigation}
+     * @return the entries
+     */
+    @JsxFunction
+    public Scriptable getEntriesByType(final String type) {
+        return toArray(getEntryList(null, type));
+    }
+
+    /**
+     * Returns the entries with the specified name, that is the URL of the resource.
+     * @param name the name of the entries
+     * @param type the optional type of the entries
+     * @return the entries
+     */
+    @JsxFunction
+    public Scriptable getEntriesByName(final String name, final Object type) {
+        final String entryType;
+        if (type == Undefined.instance) {
+            entryType = null;
+        }
+        else {
+            entryType = Context.toString(type);
+        }
+        return toArray(getEntryList(name, entryType));
+    }
+
+    private List<SimpleScriptable> getEntryList(final String name, final String type) {
+        final List<SimpleScriptable> entries = new ArrayList<>();
+        final Page page = getWindow().getWebWindow().getEnclosedPage();
+        if (!(page instanceof HtmlPage)) {
+            return entries;
+        }
+
+        final HtmlPage htmlPage = (HtmlPage) page;
+        final WebResponseTiming navigation = htmlPage.getWebResponse().getTiming();
+        final long origin = getTimeOrigin();
+        if (navigation != null
+                && (type == null || "navigation".equals(type))
+                && (name == null || name.equals(navigation.getUrl()))
+                && getBrowserVersion().hasFeature(JS_PERFORMANCE_NAVIGATION_ENTRY)) {
+            entries.add(new PerformanceNavigationTiming(navigation));
+        }
+
+        if (type == null || "resource".equals(type)) {
+            for (final WebResponseTiming timing : htmlPage.getResourceTimings()) {
+                // responses of the cache, received before this page
+                if (timing.getFetchStart() >= origin && (name == null || name.equals(timing.getUrl()))) {
+                    entries.add(new PerformanceResourceTiming(timing, origin));
+                }
+            }
+        }
+
+        for (final SimpleScriptable entry : entries) {
+            entry.setParentScope(getParentScope());
+            entry.setPrototype(getPrototype(entry.getClass()));
+        }
+        return entries;
+    }
+
+    private Scriptable toArray(final List<SimpleScriptable> entries) {
+        return Context.getCurrentContext().newArray(getParentScope(), entries.toArray());
+    }
+
+    private WebClock getClock() {
+        return getWindow().getWebWindow().getWebClient().getClock();
     }
 }
@@ -21,6 +21,7 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 
 /**
@@ -31,6 +32,11 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 @JsxClass
 public class PerformanceEntry extends SimpleScriptable {
 
+    private String name_;
+    private String entryType_;
+    private double startTime_;
+    private double duration_;
+
     /**
      * Creates an instance.
      */
@@ -38,4 +44,53 @@ public class PerformanceEntry extends SimpleScriptable {
     public PerformanceEntry() {
     }
 
+    /**
+     * Creates an instance.
+     * @param name the name
+     * @param entryType the type of the entry
+     * @param startTime the start time, relative to the start of the navigation
+     * @param duration the duration
+     */
+    PerformanceEntry(final String name, final String entryType, final double startTime, final double duration) {
+        name_ = name;
+        entryType_ = entryType;
+        startTime_ = startTime;
+        duration_ = duration;
+    }
+
+    /**
+     * Returns the {@code name} property.
+     * @return the {@code name} property
+     */
+    @JsxGetter
+    public String getName() {
+        return name_;
+    }
+
+    /**
+     * Returns the {@code entryType} property.
+     * @return the {@code entryType} property
+     */
+    @JsxGetter
+    public String getEntryType() {
+        return entryType_;
+    }
+
+    /**
+     * Returns the {@code startTime} property.
+     * @return the {@code startTime} property
+     */
+    @JsxGetter
+    public double getStartTime() {
+        return startTime_;
+    }
+
+    /**
+     * Returns the {@code duration} property.
+     * @return the {@code duration} property
+     */
+    @JsxGetter
+    public double getDuration() {
+        return duration_;
+    }
 }
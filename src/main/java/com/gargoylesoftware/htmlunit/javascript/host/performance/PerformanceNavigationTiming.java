@@ -16,10 +16,13 @@ package com.gargoylesoftware.htmlunit.javascript.host.performance;
 
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.CHROME;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.IE;
+import static com.gargoylesoftware.htmlunit.javascript.host.performance.PerformanceResourceTiming.relative;
 
+import com.gargoylesoftware.htmlunit.WebResponseTiming;
 import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 
 /**
@@ -30,10 +33,143 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 @JsxClass(browsers = {@WebBrowser(CHROME), @WebBrowser(IE)})
 public class PerformanceNavigationTiming extends SimpleScriptable {
 
+    private WebResponseTiming timing_;
+    private long origin_;
+
     /**
      * Creates an instance.
      */
     @JsxConstructor(@WebBrowser(CHROME))
     public PerformanceNavigationTiming() {
     }
+
+    /**
+     * Creates an instance.
+     * @param timing the timings captured while loading the page
+     */
+    PerformanceNavigationTiming(final WebResponseTiming timing) {
+        timing_ = timing;
+        origin_ = timing.getFetchStart();
+    }
+
+    /**
+     * Returns the {@code name} property.
+     * @return the {@code name} property
+     */
+    @JsxGetter
+    public String getName() {
+        return timing_.getUrl();
+    }
+
+    /**
+     * Returns the {@code entryType} property.
+     * @return the {@code entryType} property
+     */
+    @JsxGetter
+    public String getEntryType() {
+        return "navigation";
+    }
+
+    /**
+     * Returns the {@code startTime} property.
+     * @return the {@code startTime} property
+     */
+    @JsxGetter
+    public double getStartTime() {
+        return 0;
+    }
+
+    /**
+     * Returns the {@code duration} property.
+     * @return the {@code duration} property
+     */
+    @JsxGetter
+    public double getDuration() {
+        return timing_.getDuration();
+    }
+
+    /**
+     * Returns the {@code fetchStart} property.
+     * @return the {@code fetchStart} property
+     */
+    @JsxGetter
+    public double getFetchStart() {
+        return relative(timing_.getFetchStart(), origin_);
+    }
+
+    /**
+     * Returns the {@code domainLookupStart} property.
+     * @return the {@code domainLookupStart} property
+     */
+    @JsxGetter
+    public double getDomainLookupStart() {
+        return relative(timing_.getDomainLookupStart(), origin_);
+    }
+
+    /**
+     * Returns the {@code domainLookupEnd} property.
+     * @return the {@code domainLookupEnd} property
+     */
+    @JsxGetter
+    public double getDomainLookupEnd() {
+        return relative(timing_.getDomainLookupEnd(), origin_);
+    }
+
+    /**
+     * Returns the {@code connectStart} property.
+     * @return the {@code connectStart} property
+     */
+    @JsxGetter
+    public double getConnectStart() {
+        return relative(timing_.getConnectStart(), origin_);
+    }
+
+    /**
+     * Returns the {@code connectEnd} property.
+     * @return the {@code connectEnd} property
+     */
+    @JsxGetter
+    public double getConnectEnd() {
+        return relative(timing_.getConnectEnd(), origin_);
+    }
+
+    /**
+     * Returns the {@code secureConnectionStart} property.
+     * @return the {@code secureConnectionStart} property
+     */
+    @JsxGetter
+    public double getSecureConnectionStart() {
+        final long time = timing_.getSecureConnectionStart();
+        if (time == 0) {
+            return 0;
+        }
+        return relative(time, origin_);
+    }
+
+    /**
+     * Returns the {@code requestStart} property.
+     * @return the {@code requestStart} property
+     */
+    @JsxGetter
+    public double getRequestStart() {
+        return relative(timing_.getRequestStart(), origin_);
+    }
+
+    /**
+     * Returns the {@code responseStart} property.
+     * @return the {@code responseStart} property
+     */
+    @JsxGetter
+    public double getResponseStart() {
+        return relative(timing_.getResponseStart(), origin_);
+    }
+
+    /**
+     * Returns the {@code responseEnd} property.
+     * @return the {@code responseEnd} property
+     */
+    @JsxGetter
+    public double getResponseEnd() {
+        return relative(timing_.getResponseEnd(), origin_);
+    }
 }
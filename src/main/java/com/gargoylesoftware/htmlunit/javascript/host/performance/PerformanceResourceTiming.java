@@ -18,8 +18,10 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.EDGE;
 import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName.FF;
 
+import com.gargoylesoftware.htmlunit.WebResponseTiming;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxConstructor;
+import com.gargoylesoftware.htmlunit.javascript.configuration.JsxGetter;
 import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 
 /**
@@ -30,6 +32,9 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 @JsxClass
 public class PerformanceResourceTiming extends PerformanceEntry {
 
+    private WebResponseTiming timing_;
+    private long origin_;
+
     /**
      * Creates an instance.
      */
@@ -37,4 +42,122 @@ public class PerformanceResourceTiming extends PerformanceEntry {
     public PerformanceResourceTiming() {
     }
 
+    /**
+     * Creates an instance.
+     * @param timing the timings captured while loading the resource
+     * @param origin the start of the navigation, the times are relative to it
+     */
+    PerformanceResourceTiming(final WebResponseTiming timing, final long origin) {
+        super(timing.getUrl(), "resource", relative(timing.getFetchStart(), origin), timing.getDuration());
+        timing_ = timing;
+        origin_ = origin;
+    }
+
+    /**
+     * Returns the {@code initiatorType} property.
+     * @return the {@code initiatorType} property
+     */
+    @JsxGetter
+    public String getInitiatorType() {
+        final String initiatorType = timing_.getInitiatorType();
+        if (initiatorType == null) {
+            return "other";
+        }
+        return initiatorType;
+    }
+
+    /**
+     * Returns the {@code fetchStart} property.
+     * @return the {@code fetchStart} property
+     */
+    @JsxGetter
+    public double getFetchStart() {
+        return relative(timing_.getFetchStart(), origin_);
+    }
+
+    /**
+     * Returns the {@code domainLookupStart} property.
+     * @return the {@code domainLookupStart} property
+     */
+    @JsxGetter
+    public double getDomainLookupStart() {
+        return relative(timing_.getDomainLookupStart(), origin_);
+    }
+
+    /**
+     * Returns the {@code domainLookupEnd} property.
+     * @return the {@code domainLookupEnd} property
+     */
+    @JsxGetter
+    public double getDomainLookupEnd() {
+        return relative(timing_.getDomainLookupEnd(), origin_);
+    }
+
+    /**
+     * Returns the {@code connectStart} property.
+     * @return the {@code connectStart} property
+     */
+    @JsxGetter
+    public double getConnectStart() {
+        return relative(timing_.getConnectStart(), origin_);
+    }
+
+    /**
+     * Returns the {@code connectEnd} property.
+     * @return the {@code connectEnd} property
+     */
+    @JsxGetter
+    public double getConnectEnd() {
+        return relative(timing_.getConnectEnd(), origin_);
+    }
+
+    /**
+     * Returns the {@code secureConnectionStart} property.
+     * @return the {@code secureConnectionStart} property
+     */
+    @JsxGetter
+    public double getSecureConnectionStart() {
+        final long time = timing_.getSecureConnectionStart();
+        if (time == 0) {
+            return 0;
+        }
+        return relative(time, origin_);
+    }
+
+    /**
+     * Returns the {@code requestStart} property.
+     * @return the {@code requestStart} property
+     */
+    @JsxGetter
+    public double getRequestStart() {
+        return relative(timing_.getRequestStart(), origin_);
+    }
+
+    /**
+     * Returns the {@code responseStart} property.
+     * @return the {@code responseStart} property
+     */
+    @JsxGetter
+    public double getResponseStart() {
+        return relative(timing_.getResponseStart(), origin_);
+    }
+
+    /**
+     * Returns the {@code responseEnd} property.
+     * @return the {@code responseEnd} property
+     */
+    @JsxGetter
+    public double getResponseEnd() {
+        return relative(timing_.getResponseEnd(), origin_);
+    }
+
+    /**
+     * Returns the specified time relative to the start of the navigation.
+     * @param time the time in milliseconds since the epoch
+     * @param origin the start of the navigation
+     * @return the relative time
+     */
+    static double relative(final long time, final long origin) {
+        return Math.max(0, time - origin);
+    }
 }
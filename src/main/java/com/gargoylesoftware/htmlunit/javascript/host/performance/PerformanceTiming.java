@@ -57,7 +57,14 @@ public class PerformanceTiming extends SimpleScriptable {
      */
     @JsxConstructor({@WebBrowser(CHROME), @WebBrowser(FF), @WebBrowser(EDGE)})
     public PerformanceTiming() {
-        final long now = System.currentTimeMillis();
+        this(System.currentTimeMillis());
+    }
+
+    /**
+     * Creates an instance.
+     * @param now the current time of the clock of the web client
+     */
+    PerformanceTiming(final long now) {
 
         // simulate the fastest browser on earth
         domainLookupStart_ = now;
@@ -20,19 +20,31 @@ import static com.gargoylesoftware.htmlunit.javascript.configuration.BrowserName
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.gargoylesoftware.htmlunit.ScriptException;
 import com.gargoylesoftware.htmlunit.WebClient;
 import com.gargoylesoftware.htmlunit.WebRequest;
 import com.gargoylesoftware.htmlunit.WebResponse;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.gargoylesoftware.htmlunit.javascript.HtmlUnitScriptable;
 import com.gargoylesoftware.htmlunit.javascript.JavaScriptEngine;
+import com.gargoylesoftware.htmlunit.javascript.SimpleScriptable;
+import com.gargoylesoftware.htmlunit.javascript.StructuredClone;
 import com.gargoylesoftware.htmlunit.javascript.background.BasicJavaScriptJob;
 import com.gargoylesoftware.htmlunit.javascript.background.JavaScriptJob;
+import com.gargoylesoftware.htmlunit.javascript.background.JavaScriptJobManager;
 import com.gargoylesoftware.htmlunit.javascript.configuration.AbstractJavaScriptConfiguration;
 import com.gargoylesoftware.htmlunit.javascript.configuration.ClassConfiguration;
 import com.gargoylesoftware.htmlunit.javascript.configuration.JsxClass;
@@ -42,17 +54,25 @@ import com.gargoylesoftware.htmlunit.javascript.configuration.WebBrowser;
 import com.gargoylesoftware.htmlunit.javascript.host.Window;
 import com.gargoylesoftware.htmlunit.javascript.host.event.Event;
 import com.gargoylesoftware.htmlunit.javascript.host.event.MessageEvent;
+import com.gargoylesoftware.htmlunit.util.VirtualThreads;
 
 import net.sourceforge.htmlunit.corejs.javascript.Context;
 import net.sourceforge.htmlunit.corejs.javascript.ContextAction;
 import net.sourceforge.htmlunit.corejs.javascript.ContextFactory;
 import net.sourceforge.htmlunit.corejs.javascript.Function;
+import net.sourceforge.htmlunit.corejs.javascript.RhinoException;
 import net.sourceforge.htmlunit.corejs.javascript.Script;
 import net.sourceforge.htmlunit.corejs.javascript.Scriptable;
+import net.sourceforge.htmlunit.corejs.javascript.ScriptableObject;
 
 /**
  * The scope for the execution of {@link Worker}s.
  *
+ * <p>Each worker has its own thread, executing the worker script and the messages posted to the
+ * worker one after the other, in parallel to the page. The messages are copied with
+ * {@link StructuredClone}; the messages posted by the worker are dispatched as jobs of the
+ * owning window.</p>
+ *
  * @author Marc Guillemot
  */
 @JsxClass(browsers = {@WebBrowser(FF), @WebBrowser(CHROME)})
@@ -61,8 +81,13 @@ public class DedicatedWorkerGlobalScope extends HtmlUnitScriptable {
 
     private static final Log LOG = LogFactory.getLog(DedicatedWorkerGlobalScope.class);
     private final Window owningWindow_;
+    private final HtmlPage owningPage_;
     private final String origin_;
     private final Worker worker_;
+    private final BrowserVersion browserVersion_;
+    private final Map<Class<?>, Scriptable> hostPrototypes_ = new HashMap<>();
+    private final transient ExecutorService executor_;
+    private volatile boolean terminated_;
 
     /**
      * For prototype instantiation.
@@ -70,8 +95,11 @@ public class DedicatedWorkerGlobalScope extends HtmlUnitScriptable {
     public DedicatedWorkerGlobalScope() {
         // prototype constructor
         owningWindow_ = null;
+        owningPage_ = null;
         origin_ = null;
         worker_ = null;
+        browserVersion_ = null;
+        executor_ = null;
     }
 
     /**
@@ -90,10 +118,30 @@ public class DedicatedWorkerGlobalScope extends HtmlUnitScriptable {
         setPrototype(prototype);
 
         owningWindow_ = owningWindow;
+        owningPage_ = (HtmlPage) owningWindow.getDocument().getPage();
         final URL currentURL = owningWindow.getWebWindow().getEnclosedPage().getUrl();
         origin_ = currentURL.getProtocol() + "://" + currentURL.getHost() + ':' + currentURL.getPort();
 
         worker_ = worker;
+        browserVersion_ = browserVersion;
+
+        // a single thread, stopped when idle
+        final WebClient webClient = owningWindow.getWebWindow().getWebClient();
+        final boolean virtualThreads = webClient.getOptions().isVirtualThreadsEnabled()
+                && VirtualThreads.isSupported();
+        final String threadName = "JS worker for " + owningWindow.getWebWindow();
+        executor_ = new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+            new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    if (virtualThreads) {
+                        return VirtualThreads.newThread(runnable, threadName);
+                    }
+                    final Thread thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
     }
 
     /**
@@ -111,10 +159,7 @@ public class DedicatedWorkerGlobalScope extends HtmlUnitScriptable {
      */
     @JsxFunction
     public void postMessage(final Object message) {
-        final MessageEvent event = new MessageEvent();
-        event.initMessageEvent(Event.TYPE_MESSAGE, false, false, message, origin_, "", owningWindow_, null);
-        event.setParentScope(owningWindow_);
-        event.setPrototype(owningWindow_.getPrototype(event.getClass()));
+        final Object data = StructuredClone.write(message);
 
         if (LOG.isDebugEnabled()) {
             LOG.debug("[DedicatedWorker] postMessage: {}" + message);
@@ -123,6 +168,8 @@ public class DedicatedWorkerGlobalScope extends HtmlUnitScriptable {
         final ContextAction action = new ContextAction() {
             @Override
             public Object run(final Context cx) {
+                final MessageEvent event = createMessageEvent(StructuredClone.read(data, cx, owningWindow_),
+                        owningWindow_, owningWindow_.getPrototype(MessageEvent.class), owningWindow_);
                 worker_.getEventListenersContainer().executeCapturingListeners(event, null);
                 final Object[] args = new Object[] {event};
                 return worker_.getEventListenersContainer().executeBubblingListeners(event, args, args);
@@ -133,30 +180,84 @@ public class DedicatedWorkerGlobalScope extends HtmlUnitScriptable {
 
         final JavaScriptJob job = new WorkerJob(cf, action, "postMessage: " + Context.toString(message));
 
-        final HtmlPage page = (HtmlPage) owningWindow_.getDocument().getPage();
-        owningWindow_.getWebWindow().getJobManager().addJob(job, page);
+        owningWindow_.getWebWindow().getJobManager().addJob(job, owningPage_);
+    }
+
+    /**
+     * Stops the worker; the pending messages are discarded.
+     */
+    @JsxFunction
+    public void close() {
+        terminate();
     }
 
     void messagePosted(final Object message) {
-        final MessageEvent event = new MessageEvent();
-        event.initMessageEvent(Event.TYPE_MESSAGE, false, false, message, origin_, "", owningWindow_, null);
-        event.setParentScope(owningWindow_);
-        event.setPrototype(owningWindow_.getPrototype(event.getClass()));
+        final Object data = StructuredClone.write(message);
 
-        final JavaScriptEngine jsEngine = owningWindow_.getWebWindow().getWebClient().getJavaScriptEngine();
+        final DedicatedWorkerGlobalScope thisScope = this;
         final ContextAction action = new ContextAction() {
             @Override
             public Object run(final Context cx) {
+                // the event belongs to the worker, it must not give access to the page
+                final MessageEvent event = createMessageEvent(StructuredClone.read(data, cx, thisScope),
+                        thisScope, getHostPrototype(MessageEvent.class), null);
                 return executeEvent(cx, event);
             }
         };
 
-        final ContextFactory cf = jsEngine.getContextFactory();
+        execute(action);
+    }
 
-        final JavaScriptJob job = new WorkerJob(cf, action, "messagePosted: " + Context.toString(message));
+    private MessageEvent createMessageEvent(final Object data, final Scriptable scope, final Scriptable prototype,
+            final Window source) {
+        final MessageEvent event = new MessageEvent();
+        event.initMessageEvent(Event.TYPE_MESSAGE, false, false, data, origin_, "", source, null);
+        event.setParentScope(scope);
+        event.setPrototype(prototype);
+        return event;
+    }
 
-        final HtmlPage page = (HtmlPage) owningWindow_.getDocument().getPage();
-        owningWindow_.getWebWindow().getJobManager().addJob(job, page);
+    /**
+     * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+     *
+     * Returns the prototype for the host objects of the specified class created in this scope, like the
+     * events and the copies of the typed arrays received from the page. The prototypes of the page can't
+     * be used, as they belong to the page's thread.
+     *
+     * @param hostClass the host class
+     * @return the prototype, configured the first time it is needed
+     */
+    public synchronized Scriptable getHostPrototype(final Class<? extends SimpleScriptable> hostClass) {
+        Scriptable prototype = hostPrototypes_.get(hostClass);
+        if (prototype != null) {
+            return prototype;
+        }
+
+        final Class<?> superClass = hostClass.getSuperclass();
+        final Scriptable parentPrototype;
+        if (superClass != SimpleScriptable.class && SimpleScriptable.class.isAssignableFrom(superClass)) {
+            parentPrototype = getHostPrototype(superClass.asSubclass(SimpleScriptable.class));
+        }
+        else {
+            parentPrototype = ScriptableObject.getObjectPrototype(this);
+        }
+
+        final ClassConfiguration config = AbstractJavaScriptConfiguration.getClassConfiguration(hostClass,
+                browserVersion_);
+        if (config == null) {
+            prototype = parentPrototype;
+        }
+        else {
+            try {
+                prototype = JavaScriptEngine.configureClass(config, this, browserVersion_);
+            }
+            catch (final InstantiationException | IllegalAccessException e) {
+                throw Context.throwAsScriptRuntimeEx(e);
+            }
+            prototype.setPrototype(parentPrototype);
+        }
+        hostPrototypes_.put(hostClass, prototype);
+        return prototype;
     }
 
     private Object executeEvent(final Context cx, final MessageEvent event) {
@@ -190,35 +291,97 @@ public class DedicatedWorkerGlobalScope extends HtmlUnitScriptable {
     }
 
     void loadAndExecute(final String url, final Context context) throws IOException {
-        final HtmlPage page = (HtmlPage) owningWindow_.getDocument().getPage();
-        final URL fullUrl = page.getFullyQualifiedUrl(url);
+        final URL fullUrl = owningPage_.getFullyQualifiedUrl(url);
 
-        final WebClient webClient = owningWindow_.getWebWindow().getWebClient();
-
-        final WebRequest webRequest = new WebRequest(fullUrl);
-        final WebResponse response = webClient.loadWebResponse(webRequest);
-        final String scriptCode = response.getContentAsString();
-        final JavaScriptEngine javaScriptEngine = webClient.getJavaScriptEngine();
+        if (context != null) {
+            loadAndExecute(fullUrl, context);
+            return;
+        }
 
-        final DedicatedWorkerGlobalScope thisScope = this;
         final ContextAction action = new ContextAction() {
             @Override
             public Object run(final Context cx) {
-                final Script script = javaScriptEngine.compile(page, thisScope, scriptCode,
-                        fullUrl.toExternalForm(), 1);
-                return webClient.getJavaScriptEngine().execute(page, thisScope, script);
+                try {
+                    loadAndExecute(fullUrl, cx);
+                }
+                catch (final IOException e) {
+                    LOG.error("Can't load worker script " + fullUrl, e);
+                }
+                return null;
             }
         };
 
-        final ContextFactory cf = javaScriptEngine.getContextFactory();
+        execute(action);
+    }
 
-        if (context != null) {
-            action.run(context);
+    private void loadAndExecute(final URL url, final Context cx) throws IOException {
+        final WebClient webClient = owningWindow_.getWebWindow().getWebClient();
+
+        final WebRequest webRequest = new WebRequest(url);
+        final WebResponse response = webClient.loadWebResponse(webRequest);
+        final String scriptCode = response.getContentAsString();
+
+        // executed directly in the context of the worker thread, the page must not be locked
+        final Script script = cx.compileString(scriptCode, url.toExternalForm(), 1, null);
+        script.exec(cx, this);
+    }
+
+    /**
+     * Executes the specified action in the thread of this worker.
+     * @param action the action
+     */
+    private void execute(final ContextAction action) {
+        if (terminated_) {
+            return;
         }
-        else {
-            final JavaScriptJob job = new WorkerJob(cf, action, "loadAndExecute " + url);
 
-            owningWindow_.getWebWindow().getJobManager().addJob(job, page);
+        final WebClient webClient = owningWindow_.getWebWindow().getWebClient();
+        final ContextFactory cf = webClient.getJavaScriptEngine().getContextFactory();
+        final JavaScriptJobManager jobManager = owningWindow_.getWebWindow().getJobManager();
+
+        // counted as job of the window, so that waiting for the background JavaScript waits for the worker
+        jobManager.externalJobStarted();
+        try {
+            executor_.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (terminated_) {
+                            return;
+                        }
+                        if (owningWindow_.getWebWindow().getEnclosedPage() != owningPage_) {
+                            // the page has been unloaded
+                            terminate();
+                            return;
+                        }
+                        cf.call(action);
+                    }
+                    catch (final RhinoException e) {
+                        webClient.getJavaScriptErrorListener().scriptException(owningPage_,
+                                new ScriptException(owningPage_, e));
+                    }
+                    catch (final RuntimeException e) {
+                        LOG.error("Worker job failed with unexpected RuntimeException: " + e.getMessage(), e);
+                    }
+                    finally {
+                        jobManager.externalJobFinished();
+                    }
+                }
+            });
+        }
+        catch (final RejectedExecutionException e) {
+            // terminated in the meantime
+            jobManager.externalJobFinished();
+        }
+    }
+
+    /**
+     * Stops the worker thread; the pending messages are discarded.
+     */
+    void terminate() {
+        terminated_ = true;
+        if (executor_ != null) {
+            executor_.shutdown();
         }
     }
 }
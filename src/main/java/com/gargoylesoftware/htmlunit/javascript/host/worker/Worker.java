@@ -88,6 +88,14 @@ public class Worker extends EventTarget {
         workerScope_.messagePosted(message);
     }
 
+    /**
+     * Immediately stops the worker; the pending messages are discarded.
+     */
+    @JsxFunction
+    public void terminate() {
+        workerScope_.terminate();
+    }
+
     /**
      * Sets the value of the onmessage event handler.
      * @param onmessage the new handler
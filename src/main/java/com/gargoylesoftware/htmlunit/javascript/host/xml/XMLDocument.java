@@ -270,6 +270,11 @@ public class XMLDocument extends Document {
 
                 return nodeName.equals(tagName);
             }
+
+            @Override
+            protected boolean isIncrementallyUpdatable() {
+                return true;
+            }
         };
 
         return collection;
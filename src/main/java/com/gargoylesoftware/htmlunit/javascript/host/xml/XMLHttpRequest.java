@@ -43,6 +43,9 @@ import java.util.Locale;
 import java.util.Map.Entry;
 import java.util.Stack;
 import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -145,6 +148,7 @@ public class XMLHttpRequest extends XMLHttpRequestEventTarget {
     private boolean async_;
     private int jobID_;
     private WebResponse webResponse_;
+    private transient Future<WebResponse> pendingResponse_;
     private String overriddenMimeType_;
     private HtmlPage containingPage_;
     private final boolean caseSensitiveProperties_;
@@ -451,6 +455,12 @@ public class XMLHttpRequest extends XMLHttpRequestEventTarget {
     @JsxFunction
     public void abort() {
         getWindow().getWebWindow().getJobManager().stopJob(jobID_);
+        final Future<WebResponse> pendingResponse = pendingResponse_;
+        pendingResponse_ = null;
+        if (pendingResponse != null) {
+            // also releases the response if it has already been received
+            WebClient.cancelWebResponseInBackground(pendingResponse);
+        }
     }
 
     /**
@@ -636,6 +646,13 @@ public class XMLHttpRequest extends XMLHttpRequestEventTarget {
                 setState(OPENED, Context.getCurrentContext());
             }
 
+            // with virtual threads, the request itself doesn't need to wait for the job
+            // (when a preflight request is needed, it has to be done first)
+            pendingResponse_ = null;
+            if (webRequest_.getAdditionalHeaders().get(HEADER_ORIGIN) == null || !isPreflight()) {
+                pendingResponse_ = client.loadWebResponseOnVirtualThread(webRequest_);
+            }
+
             // Create and start a thread in which to execute the request.
             final Scriptable startingScope = getWindow();
             final ContextFactory cf = client.getJavaScriptEngine().getContextFactory();
@@ -702,6 +719,36 @@ public class XMLHttpRequest extends XMLHttpRequestEventTarget {
         }
     }
 
+    /**
+     * Waits for the response loaded in background.
+     * @return the response
+     * @throws IOException if the response couldn't be loaded
+     */
+    private WebResponse getPendingResponse() throws IOException {
+        final Future<WebResponse> pendingResponse = pendingResponse_;
+        pendingResponse_ = null;
+        try {
+            return pendingResponse.get();
+        }
+        catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+        catch (final CancellationException e) {
+            throw new IOException("Request aborted: " + webRequest_.getUrl(), e);
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Request interrupted: " + webRequest_.getUrl(), e);
+        }
+    }
+
     /**
      * The real send job.
      * @param context the current context
@@ -749,7 +796,16 @@ public class XMLHttpRequest extends XMLHttpRequestEventTarget {
                     return;
                 }
             }
-            final WebResponse webResponse = wc.loadWebResponse(webRequest_);
+            final WebResponse webResponse;
+            if (pendingResponse_ != null) {
+                webResponse = getPendingResponse();
+            }
+            else {
+                webResponse = wc.loadWebResponse(webRequest_);
+            }
+            if (containingPage_ != null) {
+                containingPage_.addResourceTiming(webResponse, "xmlhttprequest");
+            }
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Web response loaded successfully.");
             }
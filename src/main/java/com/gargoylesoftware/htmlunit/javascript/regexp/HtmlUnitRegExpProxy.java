@@ -51,6 +51,8 @@ public class HtmlUnitRegExpProxy extends RegExpImpl {
 
     private static final Log LOG = LogFactory.getLog(HtmlUnitRegExpProxy.class);
 
+    private static final RegExpPatternCache PATTERN_CACHE = new RegExpPatternCache(1000);
+
     private final RegExpProxy wrapped_;
     private final BrowserVersion browserVersion_;
 
@@ -98,9 +100,7 @@ public class HtmlUnitRegExpProxy extends RegExpImpl {
                 try {
                     final NativeRegExp regexp = (NativeRegExp) arg0;
                     final RegExpData reData = new RegExpData(regexp);
-                    final String regex = reData.getJavaPattern();
-                    final int flags = reData.getJavaFlags();
-                    final Pattern pattern = Pattern.compile(regex, flags);
+                    final Pattern pattern = reData.getPattern();
                     final Matcher matcher = pattern.matcher(thisString);
                     return doReplacement(thisString, replacement, matcher, reData.hasFlag('g'));
                 }
@@ -123,7 +123,7 @@ public class HtmlUnitRegExpProxy extends RegExpImpl {
                 reData = new RegExpData(Context.toString(arg0));
             }
 
-            final Pattern pattern = Pattern.compile(reData.getJavaPattern(), reData.getJavaFlags());
+            final Pattern pattern = reData.getPattern();
             final Matcher matcher = pattern.matcher(thisString);
 
             final boolean found = matcher.find();
@@ -402,6 +402,14 @@ public class HtmlUnitRegExpProxy extends RegExpImpl {
         return wrapped_.isRegExp(obj);
     }
 
+    /**
+     * Returns the cache of the compiled Java patterns, shared by all web clients.
+     * @return the pattern cache
+     */
+    public static RegExpPatternCache getPatternCache() {
+        return PATTERN_CACHE;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -442,6 +450,17 @@ public class HtmlUnitRegExpProxy extends RegExpImpl {
             return jsRegExpToJavaRegExp(jsSource_);
         }
 
+        /**
+         * Returns the compiled Java pattern, from the cache if possible.
+         * @return the Java pattern
+         */
+        Pattern getPattern() {
+            if (PATTERN_CACHE.getMaxSize() == 0) {
+                return Pattern.compile(getJavaPattern(), getJavaFlags());
+            }
+            return PATTERN_CACHE.getPattern(jsSource_, getJavaFlags());
+        }
+
         boolean hasFlag(final char c) {
             return jsFlags_.indexOf(c) != -1;
         }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript.regexp;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of the Java {@link Pattern}s compiled for JavaScript regular expressions.
+ * Converting a JavaScript regular expression with {@link RegExpJsToJavaConverter} and compiling it
+ * is expensive, while scripts typically use the same few expressions again and again.
+ * The cache is thread safe and shared by all web clients.
+ *
+ * @see HtmlUnitRegExpProxy#getPatternCache()
+ */
+public class RegExpPatternCache {
+
+    private final Map<String, Pattern> patterns_ = new ConcurrentHashMap<>();
+    private final AtomicLong hits_ = new AtomicLong();
+    private final AtomicLong misses_ = new AtomicLong();
+    private volatile int maxSize_;
+
+    /**
+     * Creates a new cache.
+     * @param maxSize the maximal number of cached patterns
+     */
+    public RegExpPatternCache(final int maxSize) {
+        setMaxSize(maxSize);
+    }
+
+    /**
+     * Returns the compiled Java pattern for the specified JavaScript regular expression.
+     * @param jsSource the source of the JavaScript regular expression
+     * @param javaFlags the Java flags corresponding to the JavaScript flags
+     * @return the compiled pattern
+     * @throws java.util.regex.PatternSyntaxException if the expression can't be compiled
+     */
+    public Pattern getPattern(final String jsSource, final int javaFlags) {
+        final String key = javaFlags + "/" + jsSource;
+        Pattern pattern = patterns_.get(key);
+        if (pattern != null) {
+            hits_.incrementAndGet();
+            return pattern;
+        }
+
+        misses_.incrementAndGet();
+        pattern = Pattern.compile(HtmlUnitRegExpProxy.jsRegExpToJavaRegExp(jsSource), javaFlags);
+        if (patterns_.size() >= maxSize_) {
+            // no LRU bookkeeping on the hot path: expressions still in use are quickly back
+            patterns_.clear();
+        }
+        patterns_.put(key, pattern);
+        return pattern;
+    }
+
+    /**
+     * Returns the maximal number of cached patterns.
+     * @return the maximal number of cached patterns
+     */
+    public int getMaxSize() {
+        return maxSize_;
+    }
+
+    /**
+     * Sets the maximal number of cached patterns; 0 disables the caching.
+     * @param maxSize the maximal number of cached patterns (must be &gt;= 0)
+     */
+    public void setMaxSize(final int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Illegal value for maxSize: " + maxSize);
+        }
+        maxSize_ = maxSize;
+        if (patterns_.size() > maxSize) {
+            patterns_.clear();
+        }
+    }
+
+    /**
+     * Returns the number of cached patterns.
+     * @return the number of cached patterns
+     */
+    public int getSize() {
+        return patterns_.size();
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     * @return the number of hits
+     */
+    public long getHitCount() {
+        return hits_.get();
+    }
+
+    /**
+     * Returns the number of lookups which had to compile the expression.
+     * @return the number of misses
+     */
+    public long getMissCount() {
+        return misses_.get();
+    }
+
+    /**
+     * Returns the ratio of lookups answered from the cache.
+     * @return the hit rate, between 0 and 1
+     */
+    public double getHitRate() {
+        final long hits = hits_.get();
+        final long total = hits + misses_.get();
+        if (total == 0) {
+            return 0;
+        }
+        return (double) hits / total;
+    }
+
+    /**
+     * Removes all cached patterns and resets the counters.
+     */
+    public void clear() {
+        patterns_.clear();
+        hits_.set(0);
+        misses_.set(0);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.jfr;
+
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+/**
+ * The methods of {@link FlightRecorderEvents} which need the Flight Recorder API, implemented by
+ * {@link JfrSupport} if it has been compiled and the API is available.
+ */
+interface EventRecorder {
+
+    /**
+     * Begins the loading of a page.
+     * @return the event token or {@code null} if the event is disabled
+     */
+    Object beginPageLoad();
+
+    /**
+     * Ends the loading of a page.
+     * @param token the token returned by {@link #beginPageLoad()}
+     * @param url the URL of the page
+     * @param statusCode the status code of the response
+     */
+    void commitPageLoad(Object token, String url, int statusCode);
+
+    /**
+     * Begins an HTTP request.
+     * @return the event token or {@code null} if the event is disabled
+     */
+    Object beginHttpRequest();
+
+    /**
+     * Ends an HTTP request.
+     * @param token the token returned by {@link #beginHttpRequest()}
+     * @param url the URL of the request
+     * @param method the method of the request
+     * @param statusCode the status code of the response
+     * @param bytes the length of the downloaded content
+     * @param timeToFirstByte the time in milliseconds until the first byte of the response was received
+     * @param newConnection whether a new connection was opened
+     */
+    void commitHttpRequest(Object token, String url, String method,
+            int statusCode, long bytes, long timeToFirstByte, boolean newConnection);
+
+    /**
+     * Begins the compilation or the execution of a script.
+     * @return the event token or {@code null} if the event is disabled
+     */
+    Object beginScript();
+
+    /**
+     * Ends the compilation or the execution of a script.
+     * @param token the token returned by {@link #beginScript()}
+     * @param operation the operation ({@code compile} or {@code execute})
+     * @param sourceName the source name of the script, may be {@code null}
+     */
+    void commitScript(Object token, String operation, String sourceName);
+
+    /**
+     * Begins the parsing of a document.
+     * @return the event token or {@code null} if the event is disabled
+     */
+    Object beginHtmlParse();
+
+    /**
+     * Ends the parsing of a document.
+     * @param token the token returned by {@link #beginHtmlParse()}
+     * @param page the parsed page
+     * @param bytes the length of the content
+     */
+    void commitHtmlParse(Object token, HtmlPage page, long bytes);
+
+    /**
+     * Begins the computation of the style of an element.
+     * @return the event token or {@code null} if the event is disabled
+     */
+    Object beginComputedStyle();
+
+    /**
+     * Ends the computation of the style of an element.
+     * @param token the token returned by {@link #beginComputedStyle()}
+     * @param element the tag name of the element
+     * @param pseudoElement the pseudo element, may be {@code null}
+     */
+    void commitComputedStyle(Object token, String element, String pseudoElement);
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.jfr;
+
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+/**
+ * <span style="color:red">INTERNAL API - SUBJECT TO CHANGE AT ANY TIME - USE AT YOUR OWN RISK.</span><br>
+ *
+ * Records the HtmlUnit events of the Java Flight Recorder. The events are disabled unless a recording
+ * is running; they can be enabled with <tt>-XX:StartFlightRecording</tt> or <tt>jcmd &lt;pid&gt; JFR.start</tt>
+ * and are listed in the category "HtmlUnit".
+ *
+ * <p>As HtmlUnit still runs on Java versions without the Flight Recorder, the event classes are only
+ * compiled with the Maven profile <tt>jfr</tt> and loaded by reflection if the module <tt>jdk.jfr</tt>
+ * is available. The {@code begin} methods return an opaque token,
+ * which is {@code null} if the event is not enabled; the matching {@code commit} method does nothing
+ * for {@code null}, so that the disabled events cost no more than a volatile read and a branch.</p>
+ */
+public final class FlightRecorderEvents {
+
+    private static final EventRecorder RECORDER = createRecorder();
+
+    private FlightRecorderEvents() {
+    }
+
+    private static EventRecorder createRecorder() {
+        try {
+            final Class<?> support = Class.forName("com.gargoylesoftware.htmlunit.jfr.JfrSupport");
+            return (EventRecorder) support.getDeclaredConstructor().newInstance();
+        }
+        catch (final ReflectiveOperationException | RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Begins the loading of a page.
+     * @return the event token or {@code null}
+     */
+    public static Object beginPageLoad() {
+        if (RECORDER == null) {
+            return null;
+        }
+        return RECORDER.beginPageLoad();
+    }
+
+    /**
+     * Ends the loading of a page.
+     * @param event the token returned by {@link #beginPageLoad()}
+     * @param url the URL of the page
+     * @param statusCode the status code of the response
+     */
+    public static void commitPageLoad(final Object event, final String url, final int statusCode) {
+        if (event != null) {
+            RECORDER.commitPageLoad(event, url, statusCode);
+        }
+    }
+
+    /**
+     * Begins an HTTP request.
+     * @return the event token or {@code null}
+     */
+    public static Object beginHttpRequest() {
+        if (RECORDER == null) {
+            return null;
+        }
+        return RECORDER.beginHttpRequest();
+    }
+
+    /**
+     * Ends an HTTP request, once the response has been downloaded.
+     * @param event the token returned by {@link #beginHttpRequest()}
+     * @param url the URL of the request
+     * @param method the method of the request
+     * @param statusCode the status code of the response
+     * @param bytes the length of the downloaded content
+     * @param timeToFirstByte the time in milliseconds until the first byte of the response was received
+     * @param newConnection whether a new connection was opened
+     */
+    public static void commitHttpRequest(final Object event, final String url, final String method,
+            final int statusCode, final long bytes, final long timeToFirstByte, final boolean newConnection) {
+        if (event != null) {
+            RECORDER.commitHttpRequest(event, url, method, statusCode, bytes, timeToFirstByte, newConnection);
+        }
+    }
+
+    /**
+     * Begins the compilation or the execution of a script.
+     * @return the event token or {@code null}
+     */
+    public static Object beginScript() {
+        if (RECORDER == null) {
+            return null;
+        }
+        return RECORDER.beginScript();
+    }
+
+    /**
+     * Ends the compilation or the execution of a script.
+     * @param event the token returned by {@link #beginScript()}
+     * @param operation the operation ({@code compile} or {@code execute})
+     * @param sourceName the source name of the script, may be {@code null}
+     */
+    public static void commitScript(final Object event, final String operation, final String sourceName) {
+        if (event != null) {
+            RECORDER.commitScript(event, operation, sourceName);
+        }
+    }
+
+    /**
+     * Begins the parsing of a document.
+     * @return the event token or {@code null}
+     */
+    public static Object beginHtmlParse() {
+        if (RECORDER == null) {
+            return null;
+        }
+        return RECORDER.beginHtmlParse();
+    }
+
+    /**
+     * Ends the parsing of a document. The nodes of the page are only counted if the event is recorded.
+     * @param event the token returned by {@link #beginHtmlParse()}
+     * @param page the parsed page
+     * @param bytes the length of the content
+     */
+    public static void commitHtmlParse(final Object event, final HtmlPage page, final long bytes) {
+        if (event != null) {
+            RECORDER.commitHtmlParse(event, page, bytes);
+        }
+    }
+
+    /**
+     * Begins the computation of the style of an element.
+     * @return the event token or {@code null}
+     */
+    public static Object beginComputedStyle() {
+        if (RECORDER == null) {
+            return null;
+        }
+        return RECORDER.beginComputedStyle();
+    }
+
+    /**
+     * Ends the computation of the style of an element.
+     * @param event the token returned by {@link #beginComputedStyle()}
+     * @param element the tag name of the element
+     * @param pseudoElement the pseudo element, may be {@code null}
+     */
+    public static void commitComputedStyle(final Object event, final String element, final String pseudoElement) {
+        if (event != null) {
+            RECORDER.commitComputedStyle(event, element, pseudoElement);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded for every document parsed by the {@link com.gargoylesoftware.htmlunit.html.HTMLParser}.
+ */
+@Name("htmlunit.HtmlParse")
+@Label("HTML Parse")
+@Category("HtmlUnit")
+@Description("Parsing of an HTML document, including the execution of the inline scripts")
+final class HtmlParseEvent extends jdk.jfr.Event {
+
+    @Label("URL")
+    String url;
+
+    @Label("Content Length")
+    @DataAmount
+    long bytes;
+
+    @Label("Node Count")
+    int nodeCount;
+}
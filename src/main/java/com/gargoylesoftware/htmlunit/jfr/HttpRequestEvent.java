@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Recorded for every request sent by the {@link com.gargoylesoftware.htmlunit.HttpWebConnection}.
+ */
+@Name("htmlunit.HttpRequest")
+@Label("HTTP Request")
+@Category("HtmlUnit")
+@Description("Request sent over the network, until the response has been downloaded")
+final class HttpRequestEvent extends jdk.jfr.Event {
+
+    @Label("URL")
+    String url;
+
+    @Label("Method")
+    String method;
+
+    @Label("Status Code")
+    int statusCode;
+
+    @Label("Content Length")
+    @DataAmount
+    long bytes;
+
+    @Label("Time to First Byte")
+    @Timespan(Timespan.MILLISECONDS)
+    long timeToFirstByte;
+
+    @Label("New Connection")
+    @Description("Whether a new connection has been opened, instead of reusing a pooled one")
+    boolean newConnection;
+}
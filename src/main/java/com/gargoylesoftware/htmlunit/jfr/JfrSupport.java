@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.jfr;
+
+import com.gargoylesoftware.htmlunit.html.DomNode;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+
+/**
+ * The part of {@link FlightRecorderEvents} using the Flight Recorder API; this class is only compiled
+ * with the profile <tt>jfr</tt> and created by reflection if the API is available.
+ *
+ * <p>The event types are looked up once, so that nothing is allocated for a disabled event.</p>
+ */
+final class JfrSupport implements EventRecorder {
+
+    private static final EventType PAGE_LOAD = EventType.getEventType(PageLoadEvent.class);
+    private static final EventType HTTP_REQUEST = EventType.getEventType(HttpRequestEvent.class);
+    private static final EventType SCRIPT = EventType.getEventType(ScriptEvent.class);
+    private static final EventType HTML_PARSE = EventType.getEventType(HtmlParseEvent.class);
+    private static final EventType COMPUTED_STYLE = EventType.getEventType(ComputedStyleEvent.class);
+
+    JfrSupport() {
+        if (!FlightRecorder.isAvailable()) {
+            throw new IllegalStateException("The Flight Recorder is not available");
+        }
+    }
+
+    private static <T extends Event> T begin(final T event) {
+        event.begin();
+        return event;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object beginPageLoad() {
+        if (!PAGE_LOAD.isEnabled()) {
+            return null;
+        }
+        return begin(new PageLoadEvent());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commitPageLoad(final Object token, final String url, final int statusCode) {
+        final PageLoadEvent event = (PageLoadEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.url = url;
+            event.statusCode = statusCode;
+            event.commit();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object beginHttpRequest() {
+        if (!HTTP_REQUEST.isEnabled()) {
+            return null;
+        }
+        return begin(new HttpRequestEvent());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commitHttpRequest(final Object token, final String url, final String method,
+            final int statusCode, final long bytes, final long timeToFirstByte, final boolean newConnection) {
+        final HttpRequestEvent event = (HttpRequestEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.url = url;
+            event.method = method;
+            event.statusCode = statusCode;
+            event.bytes = bytes;
+            event.timeToFirstByte = timeToFirstByte;
+            event.newConnection = newConnection;
+            event.commit();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object beginScript() {
+        if (!SCRIPT.isEnabled()) {
+            return null;
+        }
+        return begin(new ScriptEvent());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commitScript(final Object token, final String operation, final String sourceName) {
+        final ScriptEvent event = (ScriptEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.sourceName = sourceName;
+            event.commit();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object beginHtmlParse() {
+        if (!HTML_PARSE.isEnabled()) {
+            return null;
+        }
+        return begin(new HtmlParseEvent());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commitHtmlParse(final Object token, final HtmlPage page, final long bytes) {
+        final HtmlParseEvent event = (HtmlParseEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.url = page.getUrl().toExternalForm();
+            event.bytes = bytes;
+            int count = 0;
+            for (DomNode node = page.getFirstChild(); node != null; node = page.getNextDescendant(node, false)) {
+                count++;
+            }
+            event.nodeCount = count;
+            event.commit();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object beginComputedStyle() {
+        if (!COMPUTED_STYLE.isEnabled()) {
+            return null;
+        }
+        return begin(new ComputedStyleEvent());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void commitComputedStyle(final Object token, final String element, final String pseudoElement) {
+        final ComputedStyleEvent event = (ComputedStyleEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.element = element;
+            event.pseudoElement = pseudoElement;
+            event.commit();
+        }
+    }
+}
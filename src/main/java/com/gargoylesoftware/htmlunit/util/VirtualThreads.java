@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to the virtual threads of the Java runtime, if available.
+ * HtmlUnit is compiled for Java 8, therefore the corresponding API is accessed through reflection.
+ */
+public final class VirtualThreads {
+
+    /** {@code Thread.ofVirtual()}. */
+    private static final Method OF_VIRTUAL;
+    /** {@code Thread.Builder.name(String)}. */
+    private static final Method BUILDER_NAME;
+    /** {@code Thread.Builder.unstarted(Runnable)}. */
+    private static final Method BUILDER_UNSTARTED;
+    /** {@code Executors.newVirtualThreadPerTaskExecutor()}. */
+    private static final Method NEW_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderUnstarted = null;
+        Method newExecutor = null;
+        try {
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builderClass.getMethod("name", String.class);
+            builderUnstarted = builderClass.getMethod("unstarted", Runnable.class);
+            newExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        }
+        catch (final ClassNotFoundException | NoSuchMethodException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_UNSTARTED = builderUnstarted;
+        NEW_EXECUTOR = newExecutor;
+    }
+
+    /**
+     * Disallow instantiation of this class.
+     */
+    private VirtualThreads() {
+        // Empty.
+    }
+
+    /**
+     * Indicates if the Java runtime supports virtual threads.
+     * @return {@code true} if virtual threads are available
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates a new virtual thread, not yet started.
+     * @param runnable the code to run
+     * @param name the name of the thread
+     * @return the new thread
+     * @throws UnsupportedOperationException if the Java runtime doesn't support virtual threads
+     */
+    public static Thread newThread(final Runnable runnable, final String name) {
+        checkSupported();
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            builder = BUILDER_NAME.invoke(builder, name);
+            return (Thread) BUILDER_UNSTARTED.invoke(builder, runnable);
+        }
+        catch (final IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Creates an executor starting a new virtual thread for each task.
+     * @return the new executor
+     * @throws UnsupportedOperationException if the Java runtime doesn't support virtual threads
+     */
+    public static ExecutorService newThreadPerTaskExecutor() {
+        checkSupported();
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invoke(null);
+        }
+        catch (final IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void checkSupported() {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this Java runtime");
+        }
+    }
+}
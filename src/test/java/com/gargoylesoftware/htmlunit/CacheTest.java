@@ -21,10 +21,12 @@ import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
@@ -32,11 +34,14 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.time.DateUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 
 import com.gargoylesoftware.htmlunit.BrowserRunner.Alerts;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.gargoylesoftware.htmlunit.javascript.host.css.CSSStyleSheet;
 import com.gargoylesoftware.htmlunit.util.NameValuePair;
 import com.gargoylesoftware.htmlunit.util.StringUtils;
 
@@ -50,6 +55,13 @@ import com.gargoylesoftware.htmlunit.util.StringUtils;
 @RunWith(BrowserRunner.class)
 public class CacheTest extends SimpleWebTestCase {
 
+    /**
+     * Utility for temporary folders.
+     * Has to be public due to JUnit's constraints for @Rule.
+     */
+    @Rule
+    public final TemporaryFolder tmpFolderProvider_ = new TemporaryFolder();
+
     /**
      * Test.
      */
@@ -86,6 +98,120 @@ public class CacheTest extends SimpleWebTestCase {
 
         headers.put("Expires", "-1");
         assertFalse(cache.isCacheableContent(response));
+
+        headers.put("Cache-Control", "public, max-age=3600");
+        assertTrue(cache.isCacheableContent(response));
+
+        headers.put("Cache-Control", "max-age=0");
+        assertFalse(cache.isCacheableContent(response));
+
+        headers.put("Expires", formatHttpDate(DateUtils.addHours(new Date(), 1)));
+        headers.put("Cache-Control", "no-cache");
+        assertFalse(cache.isCacheableContent(response));
+
+        headers.put("Cache-Control", "no-store");
+        assertFalse(cache.isCacheableContent(response));
+    }
+
+    /**
+     * Test.
+     */
+    @Test
+    public void isFresh() {
+        final long[] now = {System.currentTimeMillis()};
+        final Cache cache = new Cache() {
+            @Override
+            protected long getCurrentTimestamp() {
+                return now[0];
+            }
+        };
+        final WebRequest request = new WebRequest(URL_FIRST, HttpMethod.GET);
+        final List<NameValuePair> headers = new ArrayList<>();
+        headers.add(new NameValuePair("Cache-Control", "max-age=60"));
+        final WebResponse response = new WebResponse(new WebResponseData(new byte[0], 200, "OK", headers),
+                request, 0);
+
+        assertTrue(cache.cacheIfPossible(request, response, null));
+        assertTrue(cache.isFresh(request));
+
+        now[0] += 61 * DateUtils.MILLIS_PER_SECOND;
+        assertFalse(cache.isFresh(request));
+        assertSame(response, cache.getCachedResponse(request));
+
+        now[0] -= 61 * DateUtils.MILLIS_PER_SECOND;
+        request.setAdditionalHeader("Cache-Control", "no-cache");
+        assertFalse(cache.isFresh(request));
+    }
+
+    /**
+     * A stale response is revalidated, and used again on <tt>304 Not Modified</tt>.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void revalidation() throws Exception {
+        final String html = "<html><head><script src='foo.js'></script></head><body></body></html>";
+        final URL scriptUrl = new URL(URL_FIRST, "foo.js");
+
+        final List<NameValuePair> headers = new ArrayList<>();
+        headers.add(new NameValuePair("Cache-Control", "no-cache"));
+        headers.add(new NameValuePair("ETag", "\"abc\""));
+
+        final List<String> conditions = new ArrayList<>();
+        final MockWebConnection connection = new MockWebConnection() {
+            @Override
+            public WebResponse getResponse(final WebRequest request) throws IOException {
+                if (scriptUrl.equals(request.getUrl())) {
+                    conditions.add(request.getAdditionalHeaders().get("If-None-Match"));
+                }
+                return super.getResponse(request);
+            }
+        };
+        connection.setResponse(URL_FIRST, html);
+        connection.setResponse(scriptUrl, "alert('from script');", 200, "OK", JAVASCRIPT_MIME_TYPE, headers);
+
+        final WebClient webClient = getWebClient();
+        webClient.setWebConnection(connection);
+        final List<String> collectedAlerts = new ArrayList<>();
+        webClient.setAlertHandler(new CollectingAlertHandler(collectedAlerts));
+        webClient.getPage(URL_FIRST);
+
+        connection.setResponse(scriptUrl, "", 304, "Not Modified", JAVASCRIPT_MIME_TYPE, headers);
+        webClient.getPage(URL_FIRST);
+
+        assertEquals(new String[] {"from script", "from script"}, collectedAlerts);
+        assertEquals(Arrays.asList(null, "\"abc\""), conditions);
+    }
+
+    /**
+     * A new response to a revalidation replaces the stale one, even if it can't be cached.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void revalidationWithNewUncacheableResponse() throws Exception {
+        final String html = "<html><head><script src='foo.js'></script></head><body></body></html>";
+        final URL scriptUrl = new URL(URL_FIRST, "foo.js");
+
+        final List<NameValuePair> headers = new ArrayList<>();
+        headers.add(new NameValuePair("Cache-Control", "no-cache"));
+        headers.add(new NameValuePair("ETag", "\"abc\""));
+
+        final MockWebConnection connection = new MockWebConnection();
+        connection.setResponse(URL_FIRST, html);
+        connection.setResponse(scriptUrl, "alert('old');", 200, "OK", JAVASCRIPT_MIME_TYPE, headers);
+
+        final WebClient webClient = getWebClient();
+        webClient.setWebConnection(connection);
+        final List<String> collectedAlerts = new ArrayList<>();
+        webClient.setAlertHandler(new CollectingAlertHandler(collectedAlerts));
+        webClient.getPage(URL_FIRST);
+
+        final List<NameValuePair> noStore = new ArrayList<>();
+        noStore.add(new NameValuePair("Cache-Control", "no-store"));
+        connection.setResponse(scriptUrl, "alert('new');", 200, "OK", JAVASCRIPT_MIME_TYPE, noStore);
+        webClient.getPage(URL_FIRST);
+
+        assertEquals(new String[] {"old", "new"}, collectedAlerts);
+        assertNull(webClient.getCache().getCachedResponse(new WebRequest(scriptUrl)));
     }
 
     /**
@@ -297,7 +423,8 @@ public class CacheTest extends SimpleWebTestCase {
     }
 
     /**
-     * TODO: improve CSS caching to cache a COPY of the object as stylesheet objects can be modified dynamically.
+     * The inline style sheets are cached by the {@link CSSStyleSheet#getParsedStyleSheetCache()},
+     * only the linked one competes with the other responses.
      * @throws Exception if the test fails
      */
     @Test
@@ -322,7 +449,8 @@ public class CacheTest extends SimpleWebTestCase {
         connection.setResponse(new URL(URL_FIRST, "foo.css"), "", 200, "OK", JAVASCRIPT_MIME_TYPE, headers);
 
         client.getPage(pageUrl);
-        assertEquals(2, client.getCache().getSize());
+        assertEquals(1, client.getCache().getSize());
+        assertNotNull(CSSStyleSheet.getParsedStyleSheetCache().get(".x { color: red; }", getBrowserVersion()));
     }
 
     /**
@@ -368,6 +496,8 @@ public class CacheTest extends SimpleWebTestCase {
         final WebResponse response1 = createMock(WebResponse.class);
         expect(response1.getWebRequest()).andReturn(request1);
         expectLastCall().atLeastOnce();
+        expect(response1.getResponseHeaderValue("Cache-Control")).andReturn(null).anyTimes();
+        expect(response1.getResponseHeaderValue("Vary")).andReturn(null).anyTimes();
         expect(response1.getResponseHeaderValue("Last-Modified")).andReturn(null);
         expect(response1.getResponseHeaderValue("Expires")).andReturn(
                 StringUtils.formatHttpDate(DateUtils.addHours(new Date(), 1)));
@@ -376,6 +506,8 @@ public class CacheTest extends SimpleWebTestCase {
         final WebResponse response2 = createMock(WebResponse.class);
         expect(response2.getWebRequest()).andReturn(request2);
         expectLastCall().atLeastOnce();
+        expect(response2.getResponseHeaderValue("Cache-Control")).andReturn(null).anyTimes();
+        expect(response2.getResponseHeaderValue("Vary")).andReturn(null).anyTimes();
         expect(response2.getResponseHeaderValue("Last-Modified")).andReturn(null);
         expect(response2.getResponseHeaderValue("Expires")).andReturn(
                 StringUtils.formatHttpDate(DateUtils.addHours(new Date(), 1)));
@@ -402,6 +534,8 @@ public class CacheTest extends SimpleWebTestCase {
         final WebResponse response1 = createMock(WebResponse.class);
         expect(response1.getWebRequest()).andReturn(request1);
         expectLastCall().atLeastOnce();
+        expect(response1.getResponseHeaderValue("Cache-Control")).andReturn(null).anyTimes();
+        expect(response1.getResponseHeaderValue("Vary")).andReturn(null).anyTimes();
         expect(response1.getResponseHeaderValue("Last-Modified")).andReturn(null);
         expect(response1.getResponseHeaderValue("Expires")).andReturn(
                 StringUtils.formatHttpDate(DateUtils.addHours(new Date(), 1)));
@@ -417,6 +551,124 @@ public class CacheTest extends SimpleWebTestCase {
 
         verify(response1);
     }
+
+    /**
+     * Responses stored in a {@link DiskCache} are used by other web clients.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void diskCacheSharedBetweenClients() throws Exception {
+        final String html = "<html><head><script src='foo.js'></script></head><body></body></html>";
+        final URL scriptUrl = new URL(URL_FIRST, "foo.js");
+
+        final List<NameValuePair> headers = new ArrayList<>();
+        headers.add(new NameValuePair("Last-Modified", "Sun, 15 Jul 2007 20:46:27 GMT"));
+
+        final DiskCache diskCache = new DiskCache(tmpFolderProvider_.newFolder("cache"));
+        for (int i = 0; i < 2; i++) {
+            try (WebClient webClient = new WebClient(getBrowserVersion())) {
+                webClient.getCache().setDiskCache(diskCache);
+                final MockWebConnection connection = new MockWebConnection();
+                connection.setResponse(URL_FIRST, html);
+                connection.setResponse(scriptUrl, "alert('from script');", 200, "ok",
+                        JAVASCRIPT_MIME_TYPE, headers);
+                webClient.setWebConnection(connection);
+
+                final List<String> collectedAlerts = new ArrayList<>();
+                webClient.setAlertHandler(new CollectingAlertHandler(collectedAlerts));
+                webClient.getPage(URL_FIRST);
+
+                assertEquals(new String[] {"from script"}, collectedAlerts);
+                final int expectedRequests = i == 0 ? 2 : 1;
+                assertEquals(expectedRequests, connection.getRequestCount());
+            }
+        }
+        assertTrue(diskCache.getSize() > 0);
+
+        diskCache.clear();
+        assertEquals(0, diskCache.getSize());
+    }
+
+    /**
+     * Headers longer than the 64 KB of {@code writeUTF()} are stored too.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void diskCacheLongHeader() throws Exception {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 40_000; i++) {
+            builder.append("\u00e9x");
+        }
+        final String longValue = builder.toString();
+        final List<NameValuePair> headers = new ArrayList<>();
+        headers.add(new NameValuePair("X-Long", longValue));
+        final WebRequest request = new WebRequest(URL_FIRST);
+        final WebResponse response = new WebResponse(
+                new WebResponseData("content".getBytes("UTF-8"), 200, "OK", headers), request, 0);
+
+        final DiskCache diskCache = new DiskCache(tmpFolderProvider_.newFolder("cache"));
+        assertTrue(diskCache.put("key", response));
+        final WebResponse stored = diskCache.get("key", request);
+        assertNotNull(stored);
+        assertEquals(longValue, stored.getResponseHeaderValue("X-Long"));
+        assertEquals("content", stored.getContentAsString());
+    }
+
+    /**
+     * The cookies set by a response are not stored on disk.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void diskCacheWithoutCookies() throws Exception {
+        final List<NameValuePair> headers = new ArrayList<>();
+        headers.add(new NameValuePair("Set-Cookie", "session=1234"));
+        headers.add(new NameValuePair("Set-Cookie2", "session2=5678"));
+        headers.add(new NameValuePair("X-Other", "other"));
+        final WebRequest request = new WebRequest(URL_FIRST);
+        final WebResponse response = new WebResponse(
+                new WebResponseData("content".getBytes("UTF-8"), 200, "OK", headers), request, 0);
+
+        final DiskCache diskCache = new DiskCache(tmpFolderProvider_.newFolder("cache"));
+        assertTrue(diskCache.put("key", response));
+        final WebResponse stored = diskCache.get("key", request);
+        assertNotNull(stored);
+        assertNull(stored.getResponseHeaderValue("Set-Cookie"));
+        assertNull(stored.getResponseHeaderValue("Set-Cookie2"));
+        assertEquals("other", stored.getResponseHeaderValue("X-Other"));
+    }
+
+    /**
+     * Responses with <tt>Cache-Control: private</tt> are neither stored in shared caches nor on disk.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void privateResponse() throws Exception {
+        final List<NameValuePair> headers = new ArrayList<>();
+        headers.add(new NameValuePair("Cache-Control", "private, max-age=3600"));
+        final WebRequest request = new WebRequest(URL_FIRST);
+        final WebResponse response = new WebResponse(
+                new WebResponseData("content".getBytes("UTF-8"), 200, "OK", headers), request, 0);
+
+        final DiskCache diskCache = new DiskCache(tmpFolderProvider_.newFolder("cache"));
+        final Cache cache = new Cache();
+        cache.setDiskCache(diskCache);
+        assertTrue(cache.cacheIfPossible(request, response, null));
+        assertEquals(1, cache.getSize());
+        assertEquals(0, diskCache.getSize());
+        assertFalse(diskCache.put("key", response));
+        assertNull(diskCache.get("key", request));
+
+        final Cache sharedCache = new Cache();
+        sharedCache.setShared(true);
+        sharedCache.setDiskCache(diskCache);
+        assertFalse(sharedCache.cacheIfPossible(request, response, null));
+        assertEquals(0, sharedCache.getSize());
+        assertNull(sharedCache.getCachedResponse(request));
+
+        try (WebClientPool pool = new WebClientPool(getBrowserVersion(), 1)) {
+            assertTrue(pool.getCache().isShared());
+        }
+    }
 }
 
 class DummyWebResponse extends WebResponse {
@@ -244,6 +244,68 @@ public class HttpWebConnectionTest extends WebServerTestCase {
         assertTrue("createHttpClient has not been called", tabCalled[0]);
     }
 
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void timing() throws Exception {
+        startWebServer("./");
+
+        final WebClient webClient = getWebClient();
+        final Page page = webClient.getPage(URL_FIRST + "LICENSE.txt");
+        final WebResponseTiming timing = page.getWebResponse().getTiming();
+        assertNotNull(timing);
+        assertEquals(URL_FIRST + "LICENSE.txt", timing.getUrl());
+
+        assertTrue(timing.getFetchStart() <= timing.getDomainLookupStart());
+        assertTrue(timing.getDomainLookupStart() <= timing.getDomainLookupEnd());
+        assertTrue(timing.getDomainLookupEnd() <= timing.getConnectStart());
+        assertTrue(timing.getConnectStart() <= timing.getConnectEnd());
+        assertTrue(timing.getConnectEnd() <= timing.getRequestStart());
+        assertTrue(timing.getRequestStart() <= timing.getResponseStart());
+        assertTrue(timing.getResponseStart() <= timing.getResponseEnd());
+        assertEquals(0L, timing.getSecureConnectionStart());
+        assertEquals(timing.getResponseEnd() - timing.getFetchStart(), timing.getDuration());
+    }
+
+    /**
+     * The steps after the start of the fetch are measured with the monotonic time source,
+     * a change of the wall clock has no effect.
+     */
+    @Test
+    public void timingIgnoresWallClockChanges() {
+        final long[] millis = {10_000};
+        final long[] nanos = {0};
+        final WebClock clock = new WebClock() {
+            @Override
+            public long currentTimeMillis() {
+                return millis[0];
+            }
+
+            @Override
+            public long nanoTime() {
+                return nanos[0];
+            }
+        };
+
+        final WebResponseTiming timing = new WebResponseTiming(clock, URL_FIRST.toExternalForm());
+        millis[0] = 5_000;
+        nanos[0] = 3_000_000;
+        timing.markRequestStart();
+        nanos[0] = 7_000_000;
+        timing.markResponseStart();
+        nanos[0] = 12_000_000;
+        timing.markResponseEnd();
+
+        assertEquals(10_000L, timing.getFetchStart());
+        assertEquals(10_003L, timing.getRequestStart());
+        assertEquals(10_007L, timing.getResponseStart());
+        assertEquals(10_012L, timing.getResponseEnd());
+        assertEquals(12L, timing.getDuration());
+        assertFalse(timing.isNewConnection());
+        assertEquals(0L, timing.getSecureConnectionStart());
+    }
+
     /**
      * Test that the HttpClient is reinitialised after being shutdown.
      * @throws Exception if the test fails
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
+
+/**
+ * Tests for {@link MetricsRegistry}.
+ */
+@RunWith(BrowserRunner.class)
+public class MetricsRegistryTest extends SimpleWebTestCase {
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void aggregation() throws Exception {
+        final MetricsRegistry metrics = new MetricsRegistry();
+        metrics.increment("counter", 1);
+        metrics.increment("counter", 2);
+        metrics.record("values", 5);
+        metrics.record("values", 1);
+        metrics.record("values", 3);
+
+        assertEquals(3L, metrics.getCount("counter"));
+        assertEquals(0L, metrics.getCount("unknown"));
+
+        final MetricsRegistry.Statistics statistics = metrics.getStatistics("values");
+        assertEquals(3L, statistics.getCount());
+        assertEquals(9L, statistics.getSum());
+        assertEquals(1L, statistics.getMin());
+        assertEquals(5L, statistics.getMax());
+        assertEquals(3.0, statistics.getMean());
+        assertEquals(0L, metrics.getStatistics("unknown").getCount());
+
+        metrics.clear();
+        assertEquals(0L, metrics.getCount("counter"));
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void pageLoad() throws Exception {
+        final String html = "<html><head>\n"
+            + "<script>\n"
+            + "  function test() {\n"
+            + "    getComputedStyle(document.body, null);\n"
+            + "    setTimeout(function() { document.title = 'done'; }, 10);\n"
+            + "  }\n"
+            + "</script>\n"
+            + "</head>\n"
+            + "<body onload='test()'></body></html>";
+
+        final WebClient client = getWebClientWithMockWebConnection();
+        final MetricsRegistry metrics = new MetricsRegistry();
+        client.setMetricsListener(metrics);
+        getMockWebConnection().setResponse(URL_FIRST, html);
+
+        client.getPage(URL_FIRST);
+        client.waitForBackgroundJavaScript(1000);
+
+        assertEquals(1L, metrics.getStatistics(MetricsListener.HTML_PARSE).getCount());
+        assertTrue(metrics.getStatistics(MetricsListener.JS_COMPILE).getCount() > 0);
+        assertTrue(metrics.getStatistics(MetricsListener.JS_EXECUTE).getCount() > 0);
+        assertEquals(1L, metrics.getStatistics(MetricsListener.CSS_COMPUTE_STYLE).getCount());
+        assertEquals(1L, metrics.getStatistics(MetricsListener.JS_JOB_QUEUE_DEPTH).getCount());
+        assertEquals(1L, metrics.getStatistics(MetricsListener.JS_JOB_LATENCY).getCount());
+        assertEquals(1L, metrics.getCount(MetricsListener.CACHE_MISSES));
+    }
+
+    /**
+     * The evictions of a shared cache are reported to the web client adding the entry.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void sharedCacheEvictions() throws Exception {
+        final List<NameValuePair> headers = new ArrayList<>();
+        headers.add(new NameValuePair("Cache-Control", "max-age=3600"));
+        final MockWebConnection conn = new MockWebConnection();
+        conn.setResponse(URL_FIRST, "first", 200, "OK", "text/plain", headers);
+        conn.setResponse(URL_SECOND, "second", 200, "OK", "text/plain", headers);
+
+        final Cache cache = new Cache();
+        cache.setMaxSize(1);
+        try (WebClient client1 = new WebClient(getBrowserVersion());
+                WebClient client2 = new WebClient(getBrowserVersion())) {
+            final MetricsRegistry metrics1 = new MetricsRegistry();
+            final MetricsRegistry metrics2 = new MetricsRegistry();
+            for (final WebClient client : new WebClient[] {client1, client2}) {
+                client.setCache(cache);
+                client.setWebConnection(conn);
+            }
+            client1.setMetricsListener(metrics1);
+            client2.setMetricsListener(metrics2);
+
+            client1.loadWebResponse(new WebRequest(URL_FIRST));
+            client2.loadWebResponse(new WebRequest(URL_SECOND));
+            assertEquals(1, cache.getSize());
+
+            assertEquals(0L, metrics1.getCount(MetricsListener.CACHE_EVICTIONS));
+            assertEquals(1L, metrics2.getCount(MetricsListener.CACHE_EVICTIONS));
+        }
+    }
+}
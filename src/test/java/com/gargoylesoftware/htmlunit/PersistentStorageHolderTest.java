@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import com.gargoylesoftware.htmlunit.StorageHolder.Type;
+
+/**
+ * Tests for {@link PersistentStorageHolder}.
+ */
+@RunWith(BrowserRunner.class)
+public class PersistentStorageHolderTest extends SimpleWebTestCase {
+
+    /**
+     * Utility for temporary folders.
+     * Has to be public due to JUnit's constraints for @Rule.
+     */
+    @Rule
+    public final TemporaryFolder tmpFolderProvider_ = new TemporaryFolder();
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void survivesRestart() throws Exception {
+        final String html = "<html><head><script>\n"
+            + "  alert(localStorage.getItem('token'));\n"
+            + "  localStorage.setItem('token', 'abc');\n"
+            + "  localStorage.setItem('tmp', '1');\n"
+            + "  localStorage.removeItem('tmp');\n"
+            + "</script></head><body></body></html>";
+
+        final File directory = tmpFolderProvider_.newFolder("storage");
+        final String[][] expectedAlerts = {{"null"}, {"abc"}};
+        for (int i = 0; i < 2; i++) {
+            // a new holder, as after a restart
+            final PersistentStorageHolder holder = new PersistentStorageHolder(directory);
+            try (WebClient webClient = new WebClient(getBrowserVersion())) {
+                webClient.setStorageHolder(holder);
+                final MockWebConnection connection = new MockWebConnection();
+                connection.setResponse(URL_FIRST, html);
+                webClient.setWebConnection(connection);
+
+                final List<String> collectedAlerts = new ArrayList<>();
+                webClient.setAlertHandler(new CollectingAlertHandler(collectedAlerts));
+                webClient.getPage(URL_FIRST);
+
+                assertEquals(expectedAlerts[i], collectedAlerts);
+            }
+            holder.close();
+        }
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void compaction() throws Exception {
+        final File directory = tmpFolderProvider_.newFolder("storage");
+        final PersistentStorageHolder holder = new PersistentStorageHolder(directory);
+        holder.setFlushDelay(0);
+
+        final Map<String, String> store = holder.createStore(Type.LOCAL_STORAGE, "http://localhost:http");
+        for (int i = 0; i < 1000; i++) {
+            store.put("key", "value" + i);
+        }
+        store.put("other", "x");
+        store.remove("other");
+        holder.close();
+
+        final File[] files = directory.listFiles();
+        assertEquals(1, files.length);
+        assertTrue(files[0].length() < 4096);
+
+        final Map<String, String> reloaded = new PersistentStorageHolder(directory)
+                .createStore(Type.LOCAL_STORAGE, "http://localhost:http");
+        assertEquals(1, reloaded.size());
+        assertEquals("value999", reloaded.get("key"));
+    }
+}
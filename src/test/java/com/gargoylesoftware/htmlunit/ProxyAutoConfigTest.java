@@ -14,6 +14,7 @@
  */
 package com.gargoylesoftware.htmlunit;
 
+import java.net.URL;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -127,4 +128,27 @@ public class ProxyAutoConfigTest extends SimpleWebTestCase {
         final boolean isInNet = ProxyAutoConfig.isInNet("www.1234abcd.abc", "172.16.0.0", "255.240.0.0");
         assertFalse(isInNet);
     }
+
+    /**
+     * Test case.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void compiled() throws Exception {
+        final String content = "var count = 0;\n"
+            + "function FindProxyForURL(url, host) {\n"
+            + "  return 'PROXY proxy' + (++count) + ':8080';\n"
+            + "}\n";
+        final ProxyAutoConfig config = ProxyAutoConfig.compile(content);
+        assertEquals("PROXY proxy1:8080", config.evaluate(URL_FIRST));
+        assertEquals("PROXY proxy2:8080", config.evaluate(URL_FIRST));
+
+        config.setResultCacheTtl(60_000);
+        assertEquals("PROXY proxy3:8080", config.evaluate(URL_FIRST));
+        assertEquals("PROXY proxy3:8080", config.evaluate(new URL(URL_FIRST, "other.html")));
+        assertEquals("PROXY proxy4:8080", config.evaluate(new URL("http://other.host/")));
+
+        config.setResultCacheTtl(0);
+        assertEquals("PROXY proxy5:8080", config.evaluate(URL_FIRST));
+    }
 }
@@ -157,6 +157,16 @@ public class TopLevelWindowTest extends SimpleWebTestCase {
                 // Empty
                 return false;
             }
+            /** {@inheritDoc} */
+            @Override
+            public void externalJobStarted() {
+                // Empty.
+            }
+            /** {@inheritDoc} */
+            @Override
+            public void externalJobFinished() {
+                // Empty.
+            }
             @Override
             public String jobStatusDump(final JavaScriptJobFilter filter) {
                 return null;
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+
+/**
+ * Tests for {@link VirtualWebClock}.
+ */
+public class VirtualWebClockTest {
+
+    /**
+     * Test.
+     */
+    @Test
+    public void advance() {
+        final VirtualWebClock clock = new VirtualWebClock(1000);
+        assertEquals(1000, clock.currentTimeMillis());
+        assertEquals(0, clock.nanoTime());
+
+        assertEquals(1500, clock.advance(500));
+        assertEquals(1500, clock.currentTimeMillis());
+        assertEquals(500_000_000L, clock.nanoTime());
+    }
+
+    /**
+     * Test.
+     */
+    @Test
+    public void fastForward() {
+        final VirtualWebClock clock = new VirtualWebClock(1000);
+        assertTrue(clock.fastForward(3000));
+        assertEquals(3000, clock.currentTimeMillis());
+
+        // never goes back
+        assertTrue(clock.fastForward(2000));
+        assertEquals(3000, clock.currentTimeMillis());
+    }
+
+    /**
+     * Test.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void date() throws Exception {
+        final String html = "<html><head><script>\n"
+            + "var d = new Date();\n"
+            + "document.title = Date.now() + ' ' + d.getTime() + ' ' + (d instanceof Date)\n"
+            + "  + ' ' + (d.constructor === Date) + ' ' + new Date(5).getTime()\n"
+            + "  + ' ' + (Date() == d.toString());\n"
+            + "</script></head><body></body></html>";
+
+        try (WebClient client = new WebClient()) {
+            final MockWebConnection conn = new MockWebConnection();
+            conn.setDefaultResponse(html);
+            client.setWebConnection(conn);
+            client.setClock(new VirtualWebClock(1000));
+
+            final HtmlPage page = client.getPage(WebTestCase.URL_FIRST);
+            assertEquals("1000 1000 true true 5 true", page.getTitleText());
+        }
+    }
+
+    /**
+     * Test.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void advanceNegative() {
+        new VirtualWebClock().advance(-1);
+    }
+}
@@ -25,6 +25,7 @@ import java.util.Locale;
 
 import org.apache.commons.lang3.SerializationUtils;
 import org.apache.commons.lang3.time.DateUtils;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -322,4 +323,21 @@ public class WebClient2Test extends SimpleWebTestCase {
         assertEquals(secure, cookie.isSecure());
         assertEquals(date, cookie.getExpires());
     }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void webSocketClientShared() throws Exception {
+        final WebClient client = getWebClient();
+        client.getOptions().setWebSocketMaxTextMessageSize(1024);
+
+        final WebSocketClient webSocketClient = client.getWebSocketClient();
+        assertTrue(webSocketClient.isStarted());
+        assertSame(webSocketClient, client.getWebSocketClient());
+        assertEquals(1024, webSocketClient.getPolicy().getMaxTextMessageSize());
+
+        client.close();
+        assertTrue(webSocketClient.isStopped());
+    }
 }
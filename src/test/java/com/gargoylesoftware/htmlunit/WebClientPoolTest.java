@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.gargoylesoftware.htmlunit.javascript.JavaScriptEngine;
+import com.gargoylesoftware.htmlunit.javascript.background.DefaultJavaScriptExecutor;
+
+/**
+ * Tests for {@link WebClientPool}.
+ */
+@RunWith(BrowserRunner.class)
+public class WebClientPoolTest extends SimpleWebTestCase {
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void backgroundJavaScriptOfSeveralClients() throws Exception {
+        final String html = "<html><head><script>\n"
+            + "  document.cookie = 'session=' + location.search.substring(1);\n"
+            + "  setTimeout(function() { alert(document.cookie); }, 10);\n"
+            + "</script></head><body></body></html>";
+
+        try (WebClientPool pool = new WebClientPool(getBrowserVersion(), 1)) {
+            final List<String> collectedAlerts = new ArrayList<>();
+            final WebClient[] clients = new WebClient[3];
+            for (int i = 0; i < clients.length; i++) {
+                clients[i] = pool.createWebClient();
+                clients[i].setAlertHandler(new CollectingAlertHandler(collectedAlerts));
+                final MockWebConnection connection = new MockWebConnection();
+                connection.setDefaultResponse(html);
+                clients[i].setWebConnection(connection);
+                clients[i].getPage(URL_FIRST + "?" + i);
+            }
+
+            assertEquals(clients.length, pool.getActiveClientCount());
+            for (final WebClient client : clients) {
+                assertEquals(0, client.waitForBackgroundJavaScript(1000));
+            }
+
+            assertEquals(clients.length, collectedAlerts.size());
+            for (int i = 0; i < clients.length; i++) {
+                assertTrue(collectedAlerts.contains("session=" + i));
+            }
+
+            clients[0].close();
+            assertEquals(clients.length - 1, pool.getActiveClientCount());
+            assertSame(pool.getCache(), clients[1].getCache());
+        }
+    }
+
+    /**
+     * The jobs of the web clients are executed in the order they are due, and a job added
+     * while the threads are idle wakes them up.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void jobsRunInDueOrder() throws Exception {
+        final String html = "<html><head><script>\n"
+            + "  var delay = location.search.substring(1);\n"
+            + "  setTimeout(function() { alert(delay); }, delay);\n"
+            + "</script></head><body></body></html>";
+
+        try (WebClientPool pool = new WebClientPool(getBrowserVersion(), 1)) {
+            final List<String> collectedAlerts = Collections.synchronizedList(new ArrayList<String>());
+            final WebClient[] clients = new WebClient[2];
+            final String[] delays = {"400", "50"};
+            for (int i = 0; i < clients.length; i++) {
+                clients[i] = pool.createWebClient();
+                clients[i].setAlertHandler(new CollectingAlertHandler(collectedAlerts));
+                final MockWebConnection connection = new MockWebConnection();
+                connection.setDefaultResponse(html);
+                clients[i].setWebConnection(connection);
+                clients[i].getPage(URL_FIRST + "?" + delays[i]);
+            }
+            for (final WebClient client : clients) {
+                assertEquals(0, client.waitForBackgroundJavaScript(2000));
+            }
+            assertEquals(Arrays.asList("50", "400"), collectedAlerts);
+
+            final HtmlPage page = (HtmlPage) clients[0].getCurrentWindow().getEnclosedPage();
+            page.executeJavaScript("setTimeout(function() { alert('later'); }, 0);");
+            assertEquals(0, clients[0].waitForBackgroundJavaScript(1000));
+            assertEquals(Arrays.asList("50", "400", "later"), collectedAlerts);
+        }
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void replacedEngineKeepsSharedExecutor() throws Exception {
+        try (WebClientPool pool = new WebClientPool(getBrowserVersion(), 1)) {
+            try (WebClient client = pool.createWebClient()) {
+                final JavaScriptEngine engine = new JavaScriptEngine(client);
+                client.setJavaScriptEngine(engine);
+                assertNotNull(engine.getJavaScriptExecutor());
+                assertFalse(engine.getJavaScriptExecutor() instanceof DefaultJavaScriptExecutor);
+
+                final MockWebConnection connection = new MockWebConnection();
+                connection.setDefaultResponse("<html><head><script>\n"
+                        + "  setTimeout(function() { alert('done'); }, 10);\n"
+                        + "</script></head><body></body></html>");
+                client.setWebConnection(connection);
+                final List<String> collectedAlerts = new ArrayList<>();
+                client.setAlertHandler(new CollectingAlertHandler(collectedAlerts));
+                client.getPage(URL_FIRST);
+                assertEquals(0, client.waitForBackgroundJavaScript(1000));
+                assertEquals(1, collectedAlerts.size());
+
+                engine.shutdown();
+                try {
+                    engine.registerWindowAndMaybeStartEventLoop(client.getCurrentWindow());
+                    fail("IllegalStateException expected");
+                }
+                catch (final IllegalStateException e) {
+                    // expected
+                }
+            }
+        }
+    }
+}
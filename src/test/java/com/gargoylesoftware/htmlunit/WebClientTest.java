@@ -55,6 +55,7 @@ import com.gargoylesoftware.htmlunit.html.HtmlButtonInput;
 import com.gargoylesoftware.htmlunit.html.HtmlElement;
 import com.gargoylesoftware.htmlunit.html.HtmlInlineFrame;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
+import com.gargoylesoftware.htmlunit.javascript.host.css.CSSStyleSheet;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLStyleElement;
 import com.gargoylesoftware.htmlunit.util.NameValuePair;
 import com.gargoylesoftware.htmlunit.util.UrlUtils;
@@ -2039,6 +2040,44 @@ public class WebClientTest extends SimpleWebTestCase {
         assertEquals("http://127.0.0.1:" + PORT + "/third/http://127.0.0.1:" + PORT + "/third/", errorUri.toString());
     }
 
+    /**
+     * Inline style sheets with errors are not shared, every client gets the errors reported.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void cssErrorHandlerSharedStyleSheet() throws Exception {
+        final String html = "<html><body><style>.shared{color{}}}</style></body></html>";
+        final MutableInt errors = new MutableInt();
+        final ErrorHandler handler = new ErrorHandler() {
+            @Override
+            public void warning(final CSSParseException exception) throws CSSException {
+                // ignore
+            }
+            @Override
+            public void fatalError(final CSSParseException exception) throws CSSException {
+                errors.increment();
+            }
+            @Override
+            public void error(final CSSParseException exception) throws CSSException {
+                errors.increment();
+            }
+        };
+
+        for (int i = 0; i < 2; i++) {
+            try (WebClient client = new WebClient(getBrowserVersion())) {
+                client.setCssErrorHandler(handler);
+                final MockWebConnection conn = new MockWebConnection();
+                conn.setResponse(URL_FIRST, html);
+                client.setWebConnection(conn);
+
+                final HtmlPage page = client.getPage(URL_FIRST);
+                ((HTMLStyleElement) page.getBody().getFirstChild().getScriptableObject()).getSheet();
+            }
+        }
+        assertEquals(4, errors.intValue());
+        assertNull(CSSStyleSheet.getParsedStyleSheetCache().get(".shared{color{}}}", getBrowserVersion()));
+    }
+
     /**
      * Tests that the JavaScript parent scope is set correctly when shuffling windows around.
      * @throws Exception if test fails
@@ -20,10 +20,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.servlet.Servlet;
 import javax.servlet.http.HttpServlet;
@@ -68,6 +70,63 @@ public class WebResponseDataTest extends WebServerTestCase {
         assertTrue(StringUtils.contains(body, "Test"));
     }
 
+    /**
+     * The charset is sniffed only once, and the content is not read if the headers specify it.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void contentCharsetSniffedOnce() throws Exception {
+        final byte[] content = "<html><head><meta charset='windows-1252'></head></html>".getBytes(UTF_8);
+        final List<NameValuePair> headers = new ArrayList<>();
+        headers.add(new NameValuePair("Content-Type", "text/html"));
+
+        final AtomicInteger streams = new AtomicInteger();
+        final WebResponseData data = new WebResponseData(content, HttpStatus.SC_OK, "OK", headers) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                streams.incrementAndGet();
+                return super.getInputStream();
+            }
+        };
+        assertEquals(Charset.forName("windows-1252"), data.getContentCharsetOrNull());
+        assertEquals(Charset.forName("windows-1252"), data.getContentCharsetOrNull());
+        assertEquals(1, streams.get());
+
+        headers.set(0, new NameValuePair("Content-Type", "text/html; charset=UTF-8"));
+        streams.set(0);
+        final WebResponseData data2 = new WebResponseData(content, HttpStatus.SC_OK, "OK", headers) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                streams.incrementAndGet();
+                return super.getInputStream();
+            }
+        };
+        assertEquals(UTF_8, data2.getContentCharsetOrNull());
+        assertEquals(0, streams.get());
+    }
+
+    /**
+     * A {@link WebResponse} overriding its content is sniffed from that content, not from its data.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void contentCharsetOfOverriddenContent() throws Exception {
+        final byte[] content = "<html><head><meta charset='windows-1252'></head></html>".getBytes(UTF_8);
+        final List<NameValuePair> headers = new ArrayList<>();
+        headers.add(new NameValuePair("Content-Type", "text/html"));
+        final WebResponseData data = new WebResponseData(content, HttpStatus.SC_OK, "OK", headers);
+
+        final WebResponse response = new WebResponse(data, new URL("http://localhost/"), HttpMethod.GET, 0) {
+            @Override
+            public InputStream getContentAsStream() throws IOException {
+                return IOUtils.toInputStream("<html><head><meta charset='ISO-8859-2'></head></html>", UTF_8);
+            }
+        };
+        assertEquals(Charset.forName("ISO-8859-2"), response.getContentCharsetOrNull());
+        assertEquals(Charset.forName("windows-1252"), new WebResponse(data, new URL("http://localhost/"),
+                HttpMethod.GET, 0).getContentCharsetOrNull());
+    }
+
     /**
      * Tests that empty gzipped content is handled correctly (bug 3566999).
      * @throws Exception if the test fails
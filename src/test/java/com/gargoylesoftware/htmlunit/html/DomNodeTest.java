@@ -421,6 +421,34 @@ public class DomNodeTest extends SimpleWebTestCase {
         assertFalse(iterator.hasNext());
     }
 
+    /**
+     * Verifies that {@link DomNode#getNextDescendant(DomNode, boolean)} walks the subtree in document order.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void getNextDescendant() throws Exception {
+        final String html = "<html><body id='0'>"
+            + "<span id='I'><span id='I.1'><span id='I.1.a'></span></span><span id='I.2'></span></span>"
+            + "<span id='II'><span id='II.1'></span></span>"
+            + "</body></html>";
+        final HtmlPage page = loadPage(html);
+        final DomNode root = page.getHtmlElementById("I");
+
+        final List<String> ids = new ArrayList<>();
+        for (DomNode node = root.getFirstChild(); node != null; node = root.getNextDescendant(node, false)) {
+            ids.add(((DomElement) node).getId());
+        }
+        assertEquals(new String[] {"I.1", "I.1.a", "I.2"}, ids);
+
+        ids.clear();
+        final DomNode body = page.getBody();
+        for (DomNode node = body.getFirstChild(); node != null;
+                node = body.getNextDescendant(node, "I".equals(((DomElement) node).getId()))) {
+            ids.add(((DomElement) node).getId());
+        }
+        assertEquals(new String[] {"I", "II", "II.1"}, ids);
+    }
+
     /**
      * @throws Exception if an error occurs
      */
@@ -443,6 +471,137 @@ public class DomNodeTest extends SimpleWebTestCase {
         assertEquals("d", page.asText().replaceAll("\\s", ""));
     }
 
+    /**
+     * The text of an unchanged page is cached, changes are reflected in the next call.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void asText_cached() throws Exception {
+        final String html =
+              "<html><body>\n"
+            + "<div id='a'>a</div><div id='b'>b<span id='c'>c</span></div>\n"
+            + "<input type='checkbox' id='check'>\n"
+            + "</body></html>";
+        final HtmlPage page = loadPage(html);
+        assertEquals("a bc unchecked", page.asText().replaceAll("\\s+", " "));
+        final HtmlElement div = page.getHtmlElementById("b");
+        final String text = div.asText();
+        assertEquals("bc", text);
+        assertSame(text, div.asText());
+
+        ((DomText) page.getHtmlElementById("c").getFirstChild()).setData("x");
+        assertEquals("a bx unchecked", page.asText().replaceAll("\\s+", " "));
+
+        page.getHtmlElementById("a").setAttribute("style", "display: none");
+        assertEquals("bx unchecked", page.asText().replaceAll("\\s+", " "));
+
+        div.appendChild(new DomText(page, "y"));
+        assertEquals("bxy unchecked", page.asText().replaceAll("\\s+", " "));
+        assertEquals("bxy", div.asText());
+
+        div.remove();
+        assertEquals("unchecked", page.asText().trim());
+
+        page.<HtmlCheckBoxInput>getHtmlElementById("check").setChecked(true);
+        assertEquals("checked", page.asText().trim());
+    }
+
+    /**
+     * Adding a child changes the state of the parent, and of the siblings of the parent.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void asText_cachedEmptySelector() throws Exception {
+        final String html =
+              "<html><head><style>#a:empty + span { display: none }</style></head><body>\n"
+            + "<div><div id='a'></div><span id='s'>s</span></div>\n"
+            + "</body></html>";
+        final HtmlPage page = loadPage(html);
+        assertEquals("", page.asText().trim());
+
+        page.getHtmlElementById("a").appendChild(page.createElement("b"));
+        assertEquals("s", page.asText().trim());
+    }
+
+    /**
+     * The siblings of form fields, and their descendants, depend on the state of the fields.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void asText_cachedFormFieldSiblings() throws Exception {
+        final String html =
+              "<html><head><style>\n"
+            + "span { display: none }\n"
+            + "input:checked + span { display: inline }\n"
+            + "input:checked ~ div b { display: none }\n"
+            + "</style></head><body>\n"
+            + "<div><input type='checkbox' id='check'><span>on</span><div><b id='deep'>deep</b></div></div>\n"
+            + "</body></html>";
+        final HtmlPage page = loadPage(html);
+        assertEquals("deep", page.getHtmlElementById("deep").asText());
+        assertEquals("unchecked deep", page.asText().replaceAll("\\s+", " ").trim());
+
+        page.<HtmlCheckBoxInput>getHtmlElementById("check").setChecked(true);
+        assertEquals("checked on", page.asText().replaceAll("\\s+", " ").trim());
+    }
+
+    /**
+     * A script removing itself when attached must not prevent the following nodes from being attached.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    @Alerts({"one", "two"})
+    public void appendSubtreeWithSelfRemovingScript() throws Exception {
+        final String html = "<html><head><script>\n"
+            + "function test() {\n"
+            + "  var div = document.createElement('div');\n"
+            + "  var s1 = document.createElement('script');\n"
+            + "  s1.id = 's1';\n"
+            + "  s1.text = \"var s = document.getElementById('s1'); s.parentNode.removeChild(s); alert('one');\";\n"
+            + "  div.appendChild(s1);\n"
+            + "  var s2 = document.createElement('script');\n"
+            + "  s2.text = \"alert('two');\";\n"
+            + "  div.appendChild(s2);\n"
+            + "  document.body.appendChild(div);\n"
+            + "}\n"
+            + "</script></head><body onload='test()'></body></html>";
+        loadPageWithAlerts(html);
+    }
+
+    /**
+     * The entries below an invalidated node are not used anymore, even after many changes
+     * or when the subtree is moved.
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void asText_cachedDescendantsInvalidated() throws Exception {
+        final String html = "<html><body>\n"
+            + "<div id='outer'><p id='p1'><b id='deep'>x</b></p><p id='p2'></p></div>\n"
+            + "</body></html>";
+        final HtmlPage page = loadPage(html);
+        final HtmlElement deep = page.getHtmlElementById("deep");
+        assertEquals("x", deep.asText());
+
+        deep.getFirstChild().setNodeValue("y");
+        assertEquals("y", deep.asText());
+
+        final HtmlElement p2 = page.getHtmlElementById("p2");
+        for (int i = 0; i < 100; i++) {
+            final DomElement span = page.createElement("span");
+            span.appendChild(page.createTextNode(Integer.toString(i)));
+            p2.appendChild(span);
+            assertEquals(Integer.toString(i), span.asText());
+        }
+
+        final DomNode p1 = page.getHtmlElementById("p1");
+        p1.remove();
+        deep.getFirstChild().setNodeValue("z");
+        p2.appendChild(p1);
+        assertEquals("z", deep.asText());
+        final String text = page.asText().trim();
+        assertTrue(text, text.contains("99") && text.endsWith("z"));
+    }
+
     static class DomChangeListenerTestImpl implements DomChangeListener {
         private final List<String> collectedValues_ = new ArrayList<>();
         @Override
@@ -17,6 +17,10 @@ package com.gargoylesoftware.htmlunit.html;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
@@ -24,6 +28,8 @@ import com.gargoylesoftware.htmlunit.BrowserRunner;
 import com.gargoylesoftware.htmlunit.MockWebConnection;
 import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.WebRequest;
+import com.gargoylesoftware.htmlunit.WebResponse;
 import com.gargoylesoftware.htmlunit.javascript.background.JavaScriptJobManager;
 
 /**
@@ -503,4 +509,57 @@ public class HtmlInlineFrameTest extends SimpleWebTestCase {
         final HtmlPage page = loadPage(html);
         assertEquals("1" + System.lineSeparator() + "2", page.asText());
     }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void concurrentFrameLoading() throws Exception {
+        final String firstContent
+            = "<html><head><title>First</title></head><body>\n"
+            + "<iframe id='iframe1' src='" + URL_SECOND + "'></iframe>\n"
+            + "<iframe id='iframe2' src='" + URL_THIRD + "'></iframe>\n"
+            + "</body></html>";
+        final String secondContent = "<html><head><title>Second</title></head><body></body></html>";
+        final String thirdContent = "<html><head><title>Third</title></head><body>\n"
+            + "<script>parent.document.title += ' loaded';</script>\n"
+            + "</body></html>";
+        final WebClient client = getWebClient();
+        client.getOptions().setFrameLoadingThreads(4);
+
+        // each frame request only gets its response once both are in flight
+        final CountDownLatch bothRequested = new CountDownLatch(2);
+        final MockWebConnection webConnection = new MockWebConnection() {
+            @Override
+            public WebResponse getResponse(final WebRequest request) throws IOException {
+                if (!URL_FIRST.toExternalForm().equals(request.getUrl().toExternalForm())) {
+                    bothRequested.countDown();
+                    try {
+                        if (!bothRequested.await(5, TimeUnit.SECONDS)) {
+                            throw new IOException("Frames not loaded concurrently: " + request.getUrl());
+                        }
+                    }
+                    catch (final InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                synchronized (this) {
+                    return super.getResponse(request);
+                }
+            }
+        };
+        client.setWebConnection(webConnection);
+        webConnection.setResponse(URL_FIRST, firstContent);
+        webConnection.setResponse(URL_SECOND, secondContent);
+        webConnection.setResponse(URL_THIRD, thirdContent);
+
+        final HtmlPage page = client.getPage(URL_FIRST);
+        assertEquals("First loaded", page.getTitleText());
+        assertEquals(3, webConnection.getRequestedUrls(URL_FIRST).size());
+
+        final HtmlInlineFrame iframe1 = page.getHtmlElementById("iframe1");
+        assertEquals("Second", ((HtmlPage) iframe1.getEnclosedPage()).getTitleText());
+        final HtmlInlineFrame iframe2 = page.getHtmlElementById("iframe2");
+        assertEquals("Third", ((HtmlPage) iframe2.getEnclosedPage()).getTitleText());
+    }
 }
@@ -14,8 +14,20 @@
  */
 package com.gargoylesoftware.htmlunit.html;
 
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.StringWriter;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -25,6 +37,7 @@ import com.gargoylesoftware.htmlunit.BrowserRunner;
 import com.gargoylesoftware.htmlunit.MockWebConnection;
 import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.util.NameValuePair;
 
 /**
  * Tests for {@link XmlSerializer}.
@@ -64,4 +77,74 @@ public class XmlSerializerTest extends SimpleWebTestCase {
         assertTrue(file.isFile());
     }
 
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void saveWithExecutor() throws Exception {
+        final String html = "<html><head>"
+                + "<link rel='stylesheet' href='style.css'>\n"
+                + "</head><body>"
+                + "<img src='" + URL_SECOND + "'>\n"
+                + "<img src='" + URL_THIRD + "'>\n"
+                + "</body></html>";
+
+        final URL url = getClass().getClassLoader().getResource("testfiles/tiny-jpg.img");
+        final WebClient client = getWebClientWithMockWebConnection();
+        final MockWebConnection connection = getMockWebConnection();
+        try (FileInputStream fis = new FileInputStream(new File(url.toURI()))) {
+            final byte[] directBytes = IOUtils.toByteArray(fis);
+            final List<NameValuePair> emptyList = Collections.emptyList();
+            connection.setResponse(URL_SECOND, directBytes, 200, "ok", "image/jpg", emptyList);
+            connection.setResponse(URL_THIRD, directBytes, 200, "ok", "image/jpg", emptyList);
+        }
+        connection.setResponse(new URL(URL_FIRST, "style.css"), "body { color: red }", "text/css");
+        connection.setResponse(URL_FIRST, html);
+
+        final HtmlPage page = client.getPage(URL_FIRST);
+
+        final File tmpFolder = tmpFolderProvider_.newFolder("hu");
+        final File file = new File(tmpFolder, "hu_XmlSerializerTest_saveWithExecutor.html");
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            page.save(file, executor);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        final String content = FileUtils.readFileToString(file, ISO_8859_1);
+        assertTrue(content.contains("hu_XmlSerializerTest_saveWithExecutor/second.jpeg"));
+        assertTrue(content.contains("hu_XmlSerializerTest_saveWithExecutor/third.jpeg"));
+        assertTrue(content.contains("hu_XmlSerializerTest_saveWithExecutor/style.css"));
+        assertEquals("body { color: red }", FileUtils.readFileToString(
+                new File(tmpFolder, "hu_XmlSerializerTest_saveWithExecutor/style.css"), ISO_8859_1));
+
+        // the downloads don't touch the elements, which belong to the JavaScript thread
+        for (final HtmlImage image : page.<HtmlImage>getByXPath("//img")) {
+            assertNull(image.getWebResponse(false));
+        }
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void writeXml() throws Exception {
+        final StringBuilder html = new StringBuilder("<html><body>");
+        for (int i = 0; i < 2000; i++) {
+            html.append("<div id='d").append(i).append("'>text &amp; more</div>");
+        }
+        html.append("</body></html>");
+
+        final HtmlPage page = loadPage(html.toString());
+
+        final StringWriter writer = new StringWriter();
+        page.getDocumentElement().writeXml(writer);
+        assertEquals(page.asXml(), writer.toString());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        page.writeXml(out);
+        assertEquals(page.asXml(), new String(out.toByteArray(), page.getCharset()));
+    }
 }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.gargoylesoftware.htmlunit.BrowserRunner;
+import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
+import com.gargoylesoftware.htmlunit.WebClient;
+
+/**
+ * Tests for {@link JavaScriptProfiler}.
+ */
+@RunWith(BrowserRunner.class)
+public class JavaScriptProfilerTest extends SimpleWebTestCase {
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void samples() throws Exception {
+        final String html = "<html><head>\n"
+            + "<script>\n"
+            + "  function busy() {\n"
+            + "    var end = new Date().getTime() + 200;\n"
+            + "    while (new Date().getTime() < end) {\n"
+            + "      document.getElementById('myDiv');\n"
+            + "    }\n"
+            + "  }\n"
+            + "</script>\n"
+            + "</head><body onload='busy()'><div id='myDiv'></div></body></html>";
+
+        final WebClient client = getWebClientWithMockWebConnection();
+        getMockWebConnection().setResponse(URL_FIRST, html);
+
+        final JavaScriptProfiler profiler = new JavaScriptProfiler();
+        final HtmlUnitContextFactory contextFactory = client.getJavaScriptEngine().getContextFactory();
+        contextFactory.setDebugger(profiler);
+        try {
+            profiler.start();
+            client.getPage(URL_FIRST);
+            profiler.stop();
+        }
+        finally {
+            contextFactory.setDebugger(null);
+        }
+        assertTrue(profiler.getSampleCount() > 0);
+
+        final StringWriter collapsed = new StringWriter();
+        profiler.writeCollapsedStacks(collapsed);
+        assertTrue(collapsed.toString(), collapsed.toString().contains("busy (" + URL_FIRST));
+
+        final StringWriter writer = new StringWriter();
+        profiler.writeCpuProfile(writer);
+        final String cpuProfile = writer.toString();
+        assertTrue(cpuProfile.startsWith("{\"nodes\":[{\"id\":1,\"callFrame\":{\"functionName\":\"(root)\""));
+        assertTrue(cpuProfile.contains("\"functionName\":\"busy\""));
+    }
+}
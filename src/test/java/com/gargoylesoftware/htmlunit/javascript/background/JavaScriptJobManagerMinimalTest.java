@@ -126,6 +126,57 @@ public class JavaScriptJobManagerMinimalTest {
         assertEquals(2, count.intValue());
     }
 
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void removeJob_manyJobs() throws Exception {
+        final int[] ids = new int[1000];
+        for (int i = 0; i < ids.length; i++) {
+            final JavaScriptJob job = new BasicJavaScriptJob(100000, null) {
+                @Override
+                public void run() {
+                    // nothing
+                }
+            };
+            ids[i] = manager_.addJob(job, page_);
+        }
+        assertEquals(1000, manager_.getJobCount());
+
+        for (int i = 0; i < ids.length; i += 2) {
+            manager_.removeJob(ids[i]);
+        }
+        assertEquals(500, manager_.getJobCount());
+        manager_.removeJob(ids[0]);
+        assertEquals(500, manager_.getJobCount());
+        assertEquals(ids[1], manager_.getEarliestJob().getId().intValue());
+
+        manager_.removeAllJobs();
+        assertEquals(0, manager_.getJobCount());
+    }
+
+    /**
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void removeJob_periodicJobRemovingItself() throws Exception {
+        final MutableInt count = new MutableInt(0);
+        final MutableInt id = new MutableInt(0);
+        final JavaScriptJob job = new BasicJavaScriptJob(5, Integer.valueOf(10)) {
+            @Override
+            public void run() {
+                count.increment();
+                if (count.intValue() == 3) {
+                    manager_.removeJob(id.intValue());
+                }
+            }
+        };
+        id.setValue(manager_.addJob(job, page_));
+        final int remainingJobs = manager_.waitForJobs(1000);
+        assertEquals(0, remainingJobs);
+        assertEquals(3, count.intValue());
+    }
+
     /**
      * @throws Exception if an error occurs
      */
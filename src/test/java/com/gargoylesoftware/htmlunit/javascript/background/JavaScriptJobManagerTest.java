@@ -25,6 +25,7 @@ import com.gargoylesoftware.htmlunit.BrowserRunner;
 import com.gargoylesoftware.htmlunit.MockWebConnection;
 import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
 import com.gargoylesoftware.htmlunit.TopLevelWindow;
+import com.gargoylesoftware.htmlunit.VirtualWebClock;
 import com.gargoylesoftware.htmlunit.html.HtmlAnchor;
 import com.gargoylesoftware.htmlunit.html.HtmlInlineFrame;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
@@ -216,4 +217,60 @@ public class JavaScriptJobManagerTest extends SimpleWebTestCase {
 
         assertEquals("No new alerts should have happened", finalValue, collectedAlerts.size());
     }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void virtualClock() throws Exception {
+        final String content = "<html>\n"
+            + "<head>\n"
+            + "  <title>test</title>\n"
+            + "  <script>\n"
+            + "    function test() {\n"
+            + "      var start = Date.now();\n"
+            + "      setTimeout(function() { alert(Date.now() - start); }, 60000);\n"
+            + "    }\n"
+            + "  </script>\n"
+            + "</head>\n"
+            + "<body onload='test()'>\n"
+            + "</body>\n"
+            + "</html>";
+
+        getWebClient().setClock(new VirtualWebClock());
+        final List<String> collectedAlerts = Collections.synchronizedList(new ArrayList<String>());
+        startTimedTest();
+        loadPage(content, collectedAlerts);
+
+        assertEquals(0, getWebClient().waitForBackgroundJavaScript(120_000));
+        assertEquals(Collections.singletonList("60000"), collectedAlerts);
+        assertMaxTestRunTime(10_000);
+    }
+
+    /**
+     * A perpetual interval must not keep the executor thread busy with a virtual clock.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void virtualClockThrottlesIntervals() throws Exception {
+        final String content = "<html>\n"
+            + "<head>\n"
+            + "  <title>test</title>\n"
+            + "  <script>\n"
+            + "    var count = 0;\n"
+            + "    setInterval(function() { count++; }, 1000);\n"
+            + "  </script>\n"
+            + "</head>\n"
+            + "<body>\n"
+            + "</body>\n"
+            + "</html>";
+
+        getWebClient().setClock(new VirtualWebClock());
+        final HtmlPage page = loadPage(content);
+        Thread.sleep(500);
+
+        final int count = ((Number) page.executeJavaScript("count").getJavaScriptResult()).intValue();
+        assertTrue("count: " + count, count > 0);
+        assertTrue("count: " + count, count < 1000);
+    }
 }
@@ -31,6 +31,7 @@ import com.gargoylesoftware.htmlunit.html.HtmlForm;
 import com.gargoylesoftware.htmlunit.html.HtmlInput;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.gargoylesoftware.htmlunit.html.HtmlStyle;
+import com.gargoylesoftware.htmlunit.javascript.host.Window;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLElement;
 import com.gargoylesoftware.htmlunit.javascript.host.html.HTMLStyleElement;
 
@@ -242,4 +243,31 @@ public class CSSStyleSheet2Test extends SimpleWebTestCase {
         assertEquals("CSSStyleDeclaration for ''", style.toString());
     }
 
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void mediaRuleAfterResize() throws Exception {
+        final String html = "<html><head>\n"
+            + "<style>@media (max-width: 600px) { div { color: red; } }</style>\n"
+            + "</head><body>\n"
+            + "<div id='d1'>d1</div>\n"
+            + "<div id='d2'>d2</div>\n"
+            + "</body></html>";
+
+        final HtmlPage page = loadPage(html);
+        final Window window = (Window) page.getEnclosingWindow().getScriptableObject();
+        final int generation = window.getMediaGeneration();
+        assertEquals(generation, window.getMediaGeneration());
+
+        final Object d1 = page.getElementById("d1").getScriptableObject();
+        final String color = window.getComputedStyle(d1, null).getColor();
+
+        page.getEnclosingWindow().setInnerWidth(500);
+        assertTrue(generation != window.getMediaGeneration());
+
+        final Object d2 = page.getElementById("d2").getScriptableObject();
+        assertFalse(color.equals(window.getComputedStyle(d2, null).getColor()));
+    }
 }
@@ -74,6 +74,31 @@ public class CSSStyleSheetTest extends WebDriverTestCase {
         loadPageWithAlerts2(html);
     }
 
+    /**
+     * The parsed rules of inline style sheets with the same content are shared;
+     * modifying one of them must not change the other.
+     * @throws Exception on test failure
+     */
+    @Test
+    @Alerts({"0", "1"})
+    public void sameContentModified() throws Exception {
+        final String html = "<html><head>\n"
+                + "<style>.x { color: red; }</style>\n"
+                + "<style>.x { color: red; }</style>\n"
+                + "<script>\n"
+                + "function test() {\n"
+                + "  var sheet0 = document.styleSheets[0];\n"
+                + "  var sheet1 = document.styleSheets[1];\n"
+                + "  sheet0.deleteRule(0);\n"
+                + "  alert(sheet0.cssRules.length);\n"
+                + "  alert(sheet1.cssRules.length);\n"
+                + "}\n"
+                + "</script>\n"
+                + "</head><body onload='test()'>\n"
+                + "</body></html>";
+        loadPageWithAlerts2(html);
+    }
+
     /**
      * @throws Exception on test failure
      */
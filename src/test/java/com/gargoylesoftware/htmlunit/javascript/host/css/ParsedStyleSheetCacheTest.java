@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript.host.css;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.BrowserVersion;
+import com.steadystate.css.dom.CSSStyleSheetImpl;
+
+/**
+ * Tests for {@link ParsedStyleSheetCache}.
+ */
+public class ParsedStyleSheetCacheTest {
+
+    /**
+     * Test.
+     */
+    @Test
+    public void cached() {
+        final ParsedStyleSheetCache cache = new ParsedStyleSheetCache(10, 1000);
+        final CSSStyleSheetImpl sheet = new CSSStyleSheetImpl();
+
+        assertNull(cache.get(".x {}", BrowserVersion.CHROME));
+        assertTrue(cache.put(".x {}", BrowserVersion.CHROME, sheet));
+        assertSame(sheet, cache.get(".x {}", BrowserVersion.CHROME));
+        assertNull(cache.get(".x {}", BrowserVersion.FIREFOX_45));
+        assertNull(cache.get(".y {}", BrowserVersion.CHROME));
+
+        assertEquals(1, cache.getSize());
+        assertEquals(5, cache.getLength());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getLength());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    /**
+     * Test.
+     */
+    @Test
+    public void bounded() {
+        final ParsedStyleSheetCache cache = new ParsedStyleSheetCache(2, 12);
+        cache.put(".a {}", BrowserVersion.CHROME, new CSSStyleSheetImpl());
+        cache.put(".b {}", BrowserVersion.CHROME, new CSSStyleSheetImpl());
+        cache.get(".a {}", BrowserVersion.CHROME);
+        cache.put(".c {}", BrowserVersion.CHROME, new CSSStyleSheetImpl());
+
+        // the least recently used is removed
+        assertEquals(2, cache.getSize());
+        assertNull(cache.get(".b {}", BrowserVersion.CHROME));
+
+        cache.put(".dddd {}", BrowserVersion.CHROME, new CSSStyleSheetImpl());
+        assertEquals(1, cache.getSize());
+        assertEquals(8, cache.getLength());
+
+        assertFalse(cache.put(".much-too-long {}", BrowserVersion.CHROME, new CSSStyleSheetImpl()));
+
+        cache.setMaxSize(0);
+        assertEquals(0, cache.getSize());
+        assertFalse(cache.put(".a {}", BrowserVersion.CHROME, new CSSStyleSheetImpl()));
+    }
+}
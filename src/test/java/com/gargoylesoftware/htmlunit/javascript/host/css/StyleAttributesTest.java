@@ -14,6 +14,10 @@
  */
 package com.gargoylesoftware.htmlunit.javascript.host.css;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
@@ -21,6 +25,7 @@ import java.util.List;
 
 import org.junit.Test;
 
+import com.gargoylesoftware.htmlunit.BrowserVersion;
 import com.gargoylesoftware.htmlunit.javascript.host.css.StyleAttributes.Definition;
 
 /**
@@ -82,4 +87,38 @@ public class StyleAttributesTest {
         }
     }
 
+
+    /**
+     * Test the dense indexes of the attribute names.
+     */
+    @Test
+    public void attributeIndex() {
+        final int count = StyleAttributes.getAttributeCount();
+        for (final Definition definition : StyleAttributes.Definition.values()) {
+            final int index = StyleAttributes.getAttributeIndex(definition);
+            assertTrue(index >= 0 && index < count);
+
+            final Definition byAttributeName = StyleAttributes.getDefinitionByAttributeName(
+                    definition.getAttributeName());
+            assertEquals(definition.getAttributeName(), byAttributeName.getAttributeName());
+            assertEquals(index, StyleAttributes.getAttributeIndex(byAttributeName));
+        }
+        assertEquals(StyleAttributes.getAttributeIndex(Definition.Z_INDEX),
+                StyleAttributes.getAttributeIndex(Definition.Z_INDEX_));
+        assertNull(StyleAttributes.getDefinitionByAttributeName("unknown-attribute"));
+    }
+
+    /**
+     * Test the availability of the definitions.
+     */
+    @Test
+    public void availability() {
+        assertEquals(Definition.ZOOM, StyleAttributes.getDefinition("zoom", BrowserVersion.CHROME));
+        assertNull(StyleAttributes.getDefinition("zoom", BrowserVersion.FIREFOX_45));
+        assertNull(StyleAttributes.getDefinition("zoom", null));
+
+        final List<Definition> definitions = StyleAttributes.getDefinitions(BrowserVersion.CHROME);
+        assertTrue(definitions.contains(Definition.ZOOM));
+        assertFalse(definitions.contains(Definition.Z_INDEX_));
+    }
 }
@@ -29,6 +29,8 @@ import com.gargoylesoftware.htmlunit.CollectingAlertHandler;
 import com.gargoylesoftware.htmlunit.MockWebConnection;
 import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
 import com.gargoylesoftware.htmlunit.WebClient;
+import com.gargoylesoftware.htmlunit.html.DomElement;
+import com.gargoylesoftware.htmlunit.html.HtmlPage;
 
 /**
  * Tests for {@link HTMLCollection}.
@@ -68,4 +70,49 @@ public class HTMLCollection2Test extends SimpleWebTestCase {
         client.getPage(URL_FIRST);
         assertEquals(getExpectedAlerts(), collectedAlerts);
     }
+
+    /**
+     * The updates of a collection are done in place and keep the document order.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void incrementalUpdatesInPlace() throws Exception {
+        final String html = "<html><body>\n"
+            + "<div id='d1' class='a'></div><div id='d2'><span></span></div>\n"
+            + "</body></html>";
+
+        final HtmlPage page = loadPage(html);
+        final HTMLCollection byTag = (HTMLCollection) page.executeJavaScript(
+                "document.getElementsByTagName('div')").getJavaScriptResult();
+        final HTMLCollection byClass = (HTMLCollection) page.executeJavaScript(
+                "document.getElementsByClassName('a')").getJavaScriptResult();
+        final List<Object> tagElements = byTag.getElements();
+        assertEquals(2, tagElements.size());
+        assertEquals(1, byClass.getElements().size());
+
+        page.executeJavaScript("var d3 = document.createElement('div'); d3.id = 'd3';"
+                + "document.body.appendChild(d3);"
+                + "document.getElementById('d2').className = 'a';"
+                + "var d4 = document.createElement('div'); d4.id = 'd4';"
+                + "document.body.insertBefore(d4, document.getElementById('d2'));");
+        assertSame(tagElements, byTag.getElements());
+        assertEquals("d1 d4 d2 d3", ids(tagElements));
+        assertEquals("d1 d2", ids(byClass.getElements()));
+
+        page.executeJavaScript("document.body.removeChild(document.getElementById('d1'));"
+                + "document.getElementById('d2').firstChild.appendChild(document.createElement('div'));");
+        assertEquals("d4 d2  d3", ids(byTag.getElements()));
+        assertEquals("d2", ids(byClass.getElements()));
+    }
+
+    private static String ids(final List<Object> elements) {
+        final StringBuilder builder = new StringBuilder();
+        for (final Object element : elements) {
+            if (builder.length() != 0) {
+                builder.append(' ');
+            }
+            builder.append(((DomElement) element).getId());
+        }
+        return builder.toString();
+    }
 }
@@ -830,6 +830,65 @@ public class HTMLCollectionTest extends WebDriverTestCase {
         item("'1.1'");
     }
 
+    /**
+     * Live collections are updated when nodes are added or removed and when the class changes.
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts({"1", "3", "d1,d3,d2", "2", "d1,d2", "1", "d1", "2", "d1,s1", "3", "d0,d1,s1", "1", "1"})
+    public void liveUpdate() throws Exception {
+        final String html = "<html><head><script>\n"
+            + "function ids(col) {\n"
+            + "  var res = [];\n"
+            + "  for (var i = 0; i < col.length; i++) {\n"
+            + "    res.push(col[i].id);\n"
+            + "  }\n"
+            + "  return res.join(',');\n"
+            + "}\n"
+            + "function test() {\n"
+            + "  var root = document.getElementById('root');\n"
+            + "  var divs = root.getElementsByTagName('div');\n"
+            + "  var marked = root.getElementsByClassName('marked');\n"
+            + "  alert(divs.length);\n"
+
+            + "  var d2 = document.createElement('div');\n"
+            + "  d2.id = 'd2';\n"
+            + "  root.appendChild(d2);\n"
+            + "  var d3 = document.createElement('div');\n"
+            + "  d3.id = 'd3';\n"
+            + "  root.insertBefore(d3, d2);\n"
+            + "  alert(divs.length);\n"
+            + "  alert(ids(divs));\n"
+
+            + "  root.removeChild(d3);\n"
+            + "  alert(divs.length);\n"
+            + "  alert(ids(divs));\n"
+
+            + "  alert(marked.length);\n"
+            + "  alert(ids(marked));\n"
+            + "  var s1 = document.createElement('span');\n"
+            + "  s1.id = 's1';\n"
+            + "  s1.className = 'marked';\n"
+            + "  d2.appendChild(s1);\n"
+            + "  alert(marked.length);\n"
+            + "  alert(ids(marked));\n"
+            + "  document.getElementById('d0').className = 'marked';\n"
+            + "  alert(marked.length);\n"
+            + "  alert(ids(marked));\n"
+
+            + "  root.removeChild(d2);\n"
+            + "  document.getElementById('d0').className = '';\n"
+            + "  alert(marked.length);\n"
+            + "  alert(divs.length);\n"
+            + "}\n"
+            + "</script></head>\n"
+            + "<body onload='test()'>\n"
+            + "  <div id='root'><p id='d0'></p><div id='d1' class='marked'></div></div>\n"
+            + "</body></html>";
+
+        loadPageWithAlerts2(html);
+    }
+
     private void namedItem(final String name) throws Exception {
         final String html
             = "<!doctype html>\n"
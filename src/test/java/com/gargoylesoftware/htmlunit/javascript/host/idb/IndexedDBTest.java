@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript.host.idb;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import com.gargoylesoftware.htmlunit.BrowserRunner;
+import com.gargoylesoftware.htmlunit.BrowserRunner.Alerts;
+import com.gargoylesoftware.htmlunit.CollectingAlertHandler;
+import com.gargoylesoftware.htmlunit.MockWebConnection;
+import com.gargoylesoftware.htmlunit.PersistentStorageHolder;
+import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
+import com.gargoylesoftware.htmlunit.WebClient;
+
+/**
+ * Tests for the IndexedDB.
+ */
+@RunWith(BrowserRunner.class)
+public class IndexedDBTest extends SimpleWebTestCase {
+
+    /**
+     * Utility for temporary folders.
+     * Has to be public due to JUnit's constraints for @Rule.
+     */
+    @Rule
+    public final TemporaryFolder tmpFolderProvider_ = new TemporaryFolder();
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts(DEFAULT = {"upgrade 0 1", "B", "3", "2", "C,B,A"},
+            IE = "no indexedDB")
+    public void objectStore() throws Exception {
+        final String html = "<html><head><script>\n"
+            + "function test() {\n"
+            + "  if (!window.indexedDB) { alert('no indexedDB'); return; }\n"
+            + "  var request = indexedDB.open('library', 1);\n"
+            + "  request.onupgradeneeded = function(e) {\n"
+            + "    alert('upgrade ' + e.oldVersion + ' ' + e.newVersion);\n"
+            + "    var store = request.result.createObjectStore('books', {keyPath: 'isbn'});\n"
+            + "    store.createIndex('by_author', 'author');\n"
+            + "  };\n"
+            + "  request.onsuccess = function() {\n"
+            + "    var db = request.result;\n"
+            + "    var tx = db.transaction('books', 'readwrite');\n"
+            + "    var store = tx.objectStore('books');\n"
+            + "    store.put({isbn: 3, title: 'C', author: 'x'});\n"
+            + "    store.put({isbn: 1, title: 'A', author: 'y'});\n"
+            + "    store.put({isbn: 2, title: 'B', author: 'x'});\n"
+            + "    tx.oncomplete = function() {\n"
+            + "      var store = db.transaction('books').objectStore('books');\n"
+            + "      store.get(2).onsuccess = function(e) { alert(e.target.result.title); };\n"
+            + "      store.count().onsuccess = function(e) { alert(e.target.result); };\n"
+            + "      store.index('by_author').count('x').onsuccess = function(e) { alert(e.target.result); };\n"
+            + "      var titles = [];\n"
+            + "      store.openCursor(null, 'prev').onsuccess = function(e) {\n"
+            + "        var cursor = e.target.result;\n"
+            + "        if (cursor) {\n"
+            + "          titles.push(cursor.value.title);\n"
+            + "          cursor['continue']();\n"
+            + "        } else {\n"
+            + "          alert(titles);\n"
+            + "        }\n"
+            + "      };\n"
+            + "    };\n"
+            + "  };\n"
+            + "}\n"
+            + "</script></head><body onload='test()'></body></html>";
+
+        loadPageWithAlerts(html, URL_FIRST, 5000);
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts(DEFAULT = {"key 1", "ConstraintError", "key 2", "abort null", "count 2"},
+            IE = "no indexedDB")
+    public void errorsAndAbort() throws Exception {
+        final String html = "<html><head><script>\n"
+            + "function test() {\n"
+            + "  if (!window.indexedDB) { alert('no indexedDB'); return; }\n"
+            + "  var request = indexedDB.open('errors', 1);\n"
+            + "  request.onupgradeneeded = function() {\n"
+            + "    request.result.createObjectStore('s', {autoIncrement: true});\n"
+            + "  };\n"
+            + "  request.onsuccess = function() {\n"
+            + "    var db = request.result;\n"
+            + "    var tx = db.transaction(['s'], 'readwrite');\n"
+            + "    var store = tx.objectStore('s');\n"
+            + "    store.add('a').onsuccess = function(e) { alert('key ' + e.target.result); };\n"
+            + "    store.add('b', 1).onerror = function(e) {\n"
+            + "      alert(e.target.error.name);\n"
+            + "      e.preventDefault();\n"
+            + "    };\n"
+            + "    store.add('c').onsuccess = function(e) { alert('key ' + e.target.result); };\n"
+            + "    tx.oncomplete = function() {\n"
+            + "      var tx2 = db.transaction('s', 'readwrite');\n"
+            + "      tx2.objectStore('s').put('d');\n"
+            + "      tx2.onabort = function() {\n"
+            + "        alert('abort ' + tx2.error);\n"
+            + "        db.transaction('s').objectStore('s').count().onsuccess = function(e) {\n"
+            + "          alert('count ' + e.target.result);\n"
+            + "        };\n"
+            + "      };\n"
+            + "      tx2.abort();\n"
+            + "    };\n"
+            + "  };\n"
+            + "}\n"
+            + "</script></head><body onload='test()'></body></html>";
+
+        loadPageWithAlerts(html, URL_FIRST, 5000);
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts(DEFAULT = {"abort AbortError", "count 0"},
+            IE = "no indexedDB")
+    public void throwingListenerAborts() throws Exception {
+        final String html = "<html><head><script>\n"
+            + "function test() {\n"
+            + "  if (!window.indexedDB) { alert('no indexedDB'); return; }\n"
+            + "  var request = indexedDB.open('throwing', 1);\n"
+            + "  request.onupgradeneeded = function() {\n"
+            + "    request.result.createObjectStore('s');\n"
+            + "  };\n"
+            + "  request.onsuccess = function() {\n"
+            + "    var db = request.result;\n"
+            + "    var tx = db.transaction('s', 'readwrite');\n"
+            + "    tx.objectStore('s').put('a', 1).onsuccess = function() { throw 'boom'; };\n"
+            + "    tx.oncomplete = function() { alert('complete'); };\n"
+            + "    tx.onabort = function() {\n"
+            + "      alert('abort ' + tx.error.name);\n"
+            + "      db.transaction('s').objectStore('s').count().onsuccess = function(e) {\n"
+            + "        alert('count ' + e.target.result);\n"
+            + "      };\n"
+            + "    };\n"
+            + "  };\n"
+            + "}\n"
+            + "</script></head><body onload='test()'></body></html>";
+
+        getWebClient().getOptions().setThrowExceptionOnScriptError(false);
+        loadPageWithAlerts(html, URL_FIRST, 5000);
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts(DEFAULT = "1000 true true x",
+            IE = "no indexedDB")
+    public void structuredValues() throws Exception {
+        final String html = "<html><head><script>\n"
+            + "function test() {\n"
+            + "  if (!window.indexedDB) { alert('no indexedDB'); return; }\n"
+            + "  var request = indexedDB.open('values', 1);\n"
+            + "  request.onupgradeneeded = function() {\n"
+            + "    request.result.createObjectStore('s');\n"
+            + "  };\n"
+            + "  request.onsuccess = function() {\n"
+            + "    var store = request.result.transaction('s', 'readwrite').objectStore('s');\n"
+            + "    var map = new Map();\n"
+            + "    map.set(1, 'x');\n"
+            + "    store.put({d: new Date(1000), n: NaN, u: undefined, m: map}, 1);\n"
+            + "    store.get(1).onsuccess = function(e) {\n"
+            + "      var v = e.target.result;\n"
+            + "      alert(v.d.getTime() + ' ' + isNaN(v.n) + ' ' + ('u' in v) + ' ' + v.m.get(1));\n"
+            + "    };\n"
+            + "  };\n"
+            + "}\n"
+            + "</script></head><body onload='test()'></body></html>";
+
+        loadPageWithAlerts(html, URL_FIRST, 5000);
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts(DEFAULT = {"created", "0", "1"},
+            IE = {"no indexedDB", "no indexedDB"})
+    public void survivesRestart() throws Exception {
+        final String html = "<html><head><script>\n"
+            + "function test() {\n"
+            + "  if (!window.indexedDB) { alert('no indexedDB'); return; }\n"
+            + "  var request = indexedDB.open('counter');\n"
+            + "  request.onupgradeneeded = function() {\n"
+            + "    request.result.createObjectStore('kv');\n"
+            + "    alert('created');\n"
+            + "  };\n"
+            + "  request.onsuccess = function() {\n"
+            + "    var store = request.result.transaction('kv', 'readwrite').objectStore('kv');\n"
+            + "    store.get('counter').onsuccess = function(e) {\n"
+            + "      var value = e.target.result || 0;\n"
+            + "      alert(value);\n"
+            + "      store.put(value + 1, 'counter');\n"
+            + "    };\n"
+            + "  };\n"
+            + "}\n"
+            + "</script></head><body onload='test()'></body></html>";
+
+        final File directory = tmpFolderProvider_.newFolder("storage");
+        final List<String> collectedAlerts = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            // a new holder, as after a restart
+            final PersistentStorageHolder holder = new PersistentStorageHolder(directory);
+            try (WebClient webClient = new WebClient(getBrowserVersion())) {
+                webClient.setStorageHolder(holder);
+                final MockWebConnection connection = new MockWebConnection();
+                connection.setResponse(URL_FIRST, html);
+                webClient.setWebConnection(connection);
+
+                webClient.setAlertHandler(new CollectingAlertHandler(collectedAlerts));
+                webClient.getPage(URL_FIRST);
+                assertEquals(0, webClient.waitForBackgroundJavaScriptStartingBefore(5000));
+            }
+            holder.close();
+        }
+        assertEquals(getExpectedAlerts(), collectedAlerts);
+    }
+}
@@ -14,6 +14,8 @@
  */
 package com.gargoylesoftware.htmlunit.javascript.host.performance;
 
+import java.net.URL;
+
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.openqa.selenium.WebDriver;
@@ -86,6 +88,34 @@ public class PerformanceTest extends WebDriverTestCase {
         loadPageWithAlerts2(html);
     }
 
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts({"1", "script", "resource", "true", "true"})
+    public void getEntriesByType() throws Exception {
+        final String html
+                = "<html>\n"
+                + "<head>\n"
+                + "<script src='foo.js'></script>\n"
+                + "<script>\n"
+                + "  function test() {\n"
+                + "    var entries = performance.getEntriesByType('resource');\n"
+                + "    alert(entries.length);\n"
+                + "    alert(entries[0].initiatorType);\n"
+                + "    alert(entries[0].entryType);\n"
+                + "    alert(entries[0].name.indexOf('foo.js') != -1);\n"
+                + "    alert(entries[0].fetchStart <= entries[0].responseEnd);\n"
+                + "  }\n"
+                + "</script>\n"
+                + "</head>\n"
+                + "<body onload='test()'></body>\n"
+                + "</html>";
+
+        getMockWebConnection().setResponse(new URL(URL_FIRST, "foo.js"), "", "text/javascript");
+        loadPageWithAlerts2(html);
+    }
+
     /**
      * @throws Exception if the test fails
      */
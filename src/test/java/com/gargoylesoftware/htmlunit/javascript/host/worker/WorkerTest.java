@@ -90,6 +90,99 @@ public class WorkerTest extends WebDriverTestCase {
         loadPageWithAlerts2(html, 2000);
     }
 
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts("Received: 1,2,3 x 1,2")
+    public void postMessageClonesData() throws Exception {
+        final String html = "<html><body><script>\n"
+            + "try {\n"
+            + "  var data = {a: [1, 2], b: 'x'};\n"
+            + "  var myWorker = new Worker('worker.js');\n"
+            + "  myWorker.onmessage = function(e) {\n"
+            + "    alert('Received: ' + e.data.a.join() + ' ' + e.data.b + ' ' + data.a.join());\n"
+            + "  };\n"
+            + "  myWorker.postMessage(data);\n"
+            + "  data.b = 'changed';\n"
+            + "} catch(e) { alert('exception'); }\n"
+            + "</script></body></html>\n";
+
+        final String workerJs = "onmessage = function(e) {\n"
+                + "  e.data.a.push(3);\n"
+                + "  postMessage(e.data);\n"
+                + "}\n";
+
+        getMockWebConnection().setResponse(new URL(URL_FIRST, "worker.js"), workerJs);
+
+        loadPageWithAlerts2(html, 2000);
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts("Received: 1,2,8 8 true 0")
+    public void postMessageClonesTypedArrays() throws Exception {
+        final String html = "<html><body><script>\n"
+            + "try {\n"
+            + "  var bytes = new Uint8Array(new ArrayBuffer(8));\n"
+            + "  bytes[0] = 1;\n"
+            + "  bytes[7] = 8;\n"
+            + "  var myWorker = new Worker('worker.js');\n"
+            + "  myWorker.onmessage = function(e) {\n"
+            + "    var copy = e.data.bytes;\n"
+            + "    alert('Received: ' + copy[0] + ',' + copy[1] + ',' + copy[7] + ' ' + copy.length\n"
+            + "      + ' ' + e.data.shared + ' ' + bytes[1]);\n"
+            + "  };\n"
+            + "  myWorker.postMessage({bytes: bytes, view: new DataView(bytes.buffer)});\n"
+            + "} catch(e) { alert('exception'); }\n"
+            + "</script></body></html>\n";
+
+        final String workerJs = "onmessage = function(e) {\n"
+                + "  var bytes = e.data.bytes;\n"
+                + "  bytes[1] = 2;\n"
+                + "  postMessage({bytes: bytes, shared: bytes.buffer === e.data.view.buffer});\n"
+                + "}\n";
+
+        getMockWebConnection().setResponse(new URL(URL_FIRST, "worker.js"), workerJs);
+
+        loadPageWithAlerts2(html, 2000);
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    @Alerts("Received: 1000 true true true")
+    public void postMessageClonesDatesAndCycles() throws Exception {
+        final String html = "<html><body><script>\n"
+            + "try {\n"
+            + "  var data = {when: new Date(1000)};\n"
+            + "  data.self = data;\n"
+            + "  data.list = [data];\n"
+            + "  var myWorker = new Worker('worker.js');\n"
+            + "  myWorker.onmessage = function(e) {\n"
+            + "    var copy = e.data;\n"
+            + "    alert('Received: ' + copy.when.getTime() + ' ' + (copy.when instanceof Date)\n"
+            + "      + ' ' + (copy.self === copy) + ' ' + (copy.list[0] === copy));\n"
+            + "  };\n"
+            + "  myWorker.postMessage(data);\n"
+            + "} catch(e) { alert('exception'); }\n"
+            + "</script></body></html>\n";
+
+        final String workerJs = "onmessage = function(e) {\n"
+                + "  var data = e.data;\n"
+                + "  if (data.self === data && data.list[0] === data && data.when instanceof Date) {\n"
+                + "    postMessage(data);\n"
+                + "  }\n"
+                + "}\n";
+
+        getMockWebConnection().setResponse(new URL(URL_FIRST, "worker.js"), workerJs);
+
+        loadPageWithAlerts2(html, 2000);
+    }
+
     /**
      * @throws Exception if the test fails
      */
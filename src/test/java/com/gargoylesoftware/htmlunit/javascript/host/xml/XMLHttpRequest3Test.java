@@ -24,6 +24,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.Servlet;
 import javax.servlet.http.HttpServlet;
@@ -50,6 +52,8 @@ import com.gargoylesoftware.htmlunit.html.HtmlElement;
 import com.gargoylesoftware.htmlunit.html.HtmlPage;
 import com.gargoylesoftware.htmlunit.html.HtmlSubmitInput;
 import com.gargoylesoftware.htmlunit.javascript.host.xml.XMLHttpRequestTest.StreamingServlet;
+import com.gargoylesoftware.htmlunit.util.VirtualThreads;
+import com.gargoylesoftware.htmlunit.util.WebResponseWrapper;
 
 /**
  * Tests for {@link XMLHttpRequest}.
@@ -134,6 +138,99 @@ public class XMLHttpRequest3Test extends WebServerTestCase {
         }
     }
 
+    /**
+     * Many asynchronous requests loaded on virtual threads; the responses of the requests aborted
+     * after they have been received must be released.
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void manyAsyncRequestsOnVirtualThreads() throws Exception {
+        final int count = 20;
+        final String html = "<html><head><script>\n"
+            + "function test() {\n"
+            + "  var requests = [];\n"
+            + "  for (var i = 0; i < " + count + "; i++) {\n"
+            + "    var request = new XMLHttpRequest();\n"
+            + "    request.onload = createHandler(i);\n"
+            + "    request.open('GET', 'data?' + i, true);\n"
+            + "    request.send('');\n"
+            + "    requests.push(request);\n"
+            + "  }\n"
+            + "  var sync = new XMLHttpRequest();\n"
+            + "  sync.open('GET', 'sync', false);\n"
+            + "  sync.send('');\n"
+            + "  for (var i = 1; i < " + count + "; i += 2) {\n"
+            + "    requests[i].abort();\n"
+            + "  }\n"
+            + "}\n"
+            + "function createHandler(i) {\n"
+            + "  return function() { alert(i); };\n"
+            + "}\n"
+            + "</script></head>\n"
+            + "<body onload='test()'></body></html>";
+
+        final WebClient client = getWebClient();
+        client.getOptions().setVirtualThreadsEnabled(true);
+        final List<String> collectedAlerts = Collections.synchronizedList(new ArrayList<String>());
+        client.setAlertHandler(new CollectingAlertHandler(collectedAlerts));
+
+        // the synchronous request only gets its response once all the asynchronous ones have been received,
+        // so that the aborted requests are already complete
+        final CountDownLatch received = new CountDownLatch(count);
+        final List<String> released = Collections.synchronizedList(new ArrayList<String>());
+        final MockWebConnection conn = new MockWebConnection() {
+            @Override
+            public WebResponse getResponse(final WebRequest request) throws IOException {
+                final String path = request.getUrl().getPath();
+                if ("/sync".equals(path) && VirtualThreads.isSupported()) {
+                    try {
+                        assertTrue(received.await(5, TimeUnit.SECONDS));
+                    }
+                    catch (final InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                final WebResponse response;
+                synchronized (this) {
+                    response = super.getResponse(request);
+                }
+                if (!"/data".equals(path)) {
+                    return response;
+                }
+                final String query = request.getUrl().getQuery();
+                received.countDown();
+                return new WebResponseWrapper(response) {
+                    @Override
+                    public void cleanUp() {
+                        released.add(query);
+                        response.cleanUp();
+                    }
+                };
+            }
+        };
+        conn.setResponse(URL_FIRST, html);
+        conn.setDefaultResponse("ok", "text/plain");
+        client.setWebConnection(conn);
+        client.getPage(URL_FIRST);
+
+        assertEquals(0, client.waitForBackgroundJavaScriptStartingBefore(1000));
+
+        final List<String> expectedAlerts = new ArrayList<>();
+        final List<String> aborted = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                expectedAlerts.add(Integer.toString(i));
+            }
+            else {
+                aborted.add(Integer.toString(i));
+            }
+        }
+        assertEquals(expectedAlerts, collectedAlerts);
+        if (VirtualThreads.isSupported()) {
+            assertTrue(released.containsAll(aborted));
+        }
+    }
+
     /**
      * Asynchronous callback should be called in "main" js thread and not parallel to other js execution.
      * See http://sourceforge.net/p/htmlunit/bugs/360/.
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.javascript.regexp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link RegExpPatternCache}.
+ */
+public class RegExpPatternCacheTest {
+
+    /**
+     * Test.
+     */
+    @Test
+    public void cached() {
+        final RegExpPatternCache cache = new RegExpPatternCache(10);
+
+        final Pattern pattern = cache.getPattern("a\\d+b", 0);
+        assertTrue(pattern.matcher("a42b").matches());
+        assertSame(pattern, cache.getPattern("a\\d+b", 0));
+        assertNotSame(pattern, cache.getPattern("a\\d+b", Pattern.CASE_INSENSITIVE));
+
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(1.0 / 3, cache.getHitRate(), 0.0001);
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(0, cache.getHitCount());
+    }
+
+    /**
+     * Test.
+     */
+    @Test
+    public void maxSize() {
+        final RegExpPatternCache cache = new RegExpPatternCache(2);
+        cache.getPattern("a", 0);
+        cache.getPattern("b", 0);
+        cache.getPattern("c", 0);
+        assertTrue(cache.getSize() <= 2);
+
+        cache.setMaxSize(0);
+        assertEquals(0, cache.getSize());
+    }
+}
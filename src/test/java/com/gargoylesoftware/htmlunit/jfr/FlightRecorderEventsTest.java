@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.jfr;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import com.gargoylesoftware.htmlunit.BrowserRunner;
+import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Tests for {@link FlightRecorderEvents}.
+ */
+@RunWith(BrowserRunner.class)
+public class FlightRecorderEventsTest extends SimpleWebTestCase {
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void pageLoad() throws Exception {
+        final String html = "<html><body><div><span>hello</span></div></body></html>";
+
+        final Path file = Files.createTempFile("htmlunit", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("htmlunit.PageLoad");
+            recording.enable("htmlunit.HtmlParse");
+            recording.start();
+            loadPage(html);
+            recording.stop();
+            recording.dump(file);
+
+            final List<String> names = new ArrayList<>();
+            for (final RecordedEvent event : RecordingFile.readAllEvents(file)) {
+                final String name = event.getEventType().getName();
+                names.add(name);
+                assertEquals(URL_FIRST.toExternalForm(), event.getString("url"));
+                if ("htmlunit.PageLoad".equals(name)) {
+                    assertEquals(200, event.getInt("statusCode"));
+                }
+                else {
+                    assertTrue(event.getInt("nodeCount") >= 6);
+                }
+            }
+            assertTrue(names.toString(), names.contains("htmlunit.PageLoad"));
+            assertTrue(names.toString(), names.contains("htmlunit.HtmlParse"));
+        }
+        finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
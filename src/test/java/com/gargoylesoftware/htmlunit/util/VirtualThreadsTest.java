@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2002-2017 Gargoyle Software Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gargoylesoftware.htmlunit.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import com.gargoylesoftware.htmlunit.SimpleWebTestCase;
+
+/**
+ * Tests for {@link VirtualThreads}.
+ */
+public class VirtualThreadsTest extends SimpleWebTestCase {
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void newThread() throws Exception {
+        Assume.assumeTrue(VirtualThreads.isSupported());
+
+        final AtomicBoolean executed = new AtomicBoolean();
+        final Thread thread = VirtualThreads.newThread(new Runnable() {
+            @Override
+            public void run() {
+                executed.set(true);
+            }
+        }, "virtual test thread");
+        assertEquals("virtual test thread", thread.getName());
+        assertTrue(thread.isDaemon());
+
+        thread.start();
+        thread.join();
+        assertTrue(executed.get());
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test
+    public void newThreadPerTaskExecutor() throws Exception {
+        Assume.assumeTrue(VirtualThreads.isSupported());
+
+        final ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor();
+        try {
+            final Future<String> result = executor.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return "done";
+                }
+            });
+            assertEquals("done", result.get());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @throws Exception if the test fails
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void notSupported() throws Exception {
+        Assume.assumeFalse(VirtualThreads.isSupported());
+        VirtualThreads.newThreadPerTaskExecutor();
+    }
+}